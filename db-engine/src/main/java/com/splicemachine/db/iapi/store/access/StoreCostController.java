@@ -30,6 +30,7 @@ import com.splicemachine.db.iapi.sql.compile.CostEstimate;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.RowLocation;
 import java.util.BitSet;
+import java.util.List;
 
 /**
  * The StoreCostController interface provides methods that an access client
@@ -174,6 +175,16 @@ public interface StoreCostController extends RowCountable{
      */
     long cardinality(int columnNumber);
 
+    /**
+     *
+     * Retrieve the values which statistics found to occur most frequently in the specified column, most
+     * frequent first. The number of rows holding each value can be estimated using {@link #getSelectivity}.
+     *
+     * @param columnNumber the id of the column of interest (indexed from 1)
+     * @return the most frequent values of the column, or an empty list if statistics are not available.
+     */
+    List<DataValueDescriptor> frequentValues(int columnNumber);
+
     /**
      *
      * Get Average Row Width of the Conglomerate
@@ -41,7 +41,9 @@ import com.splicemachine.db.iapi.types.Orderable;
 import com.splicemachine.db.iapi.types.TypeId;
 import com.splicemachine.db.iapi.util.JBitSet;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -1463,8 +1465,7 @@ public class BinaryRelationalOperatorNode
                 selectivity = (1.0d - right.nullSelectivity()) / right.nonZeroCardinality(innerRowCount);
             } else if (leftOperand instanceof ColumnReference && ((ColumnReference) leftOperand).getSource().getTableColumnDescriptor() != null) {
                 ColumnReference left = (ColumnReference) leftOperand;
-                selectivity = ((1.0d - left.nullSelectivity()) * (1.0d - right.nullSelectivity())) /
-                        Math.min(left.nonZeroCardinality(outerRowCount), right.nonZeroCardinality(innerRowCount));
+                selectivity = equiJoinSelectivity(left, right, outerRowCount, innerRowCount);
                 selectivity = selectivityJoinType.equals(SelectivityUtil.SelectivityJoinType.INNER) ?
                         selectivity : 1.0d - selectivity;
                 if (optTable instanceof FromBaseTable && ((FromBaseTable) optTable).getExistsBaseTable()) {
@@ -1483,6 +1484,50 @@ public class BinaryRelationalOperatorNode
         return selectivity;
     }
 
+    /**
+     * Estimate the fraction of (outer,inner) row pairs whose join columns match.
+     *
+     * Without anything better, the non-null rows are assumed to be spread evenly over the distinct values
+     * of each column. When statistics know the most frequent values of either column (and this is an
+     * equality), those values are matched up using their actual frequencies instead, since a handful of
+     * skewed join keys can produce far more rows than the average suggests. The remaining rows are then
+     * assumed to be spread evenly over the remaining distinct values.
+     */
+    private double equiJoinSelectivity(ColumnReference left,ColumnReference right,
+                                       long outerRowCount,long innerRowCount) throws StandardException {
+        double leftNonNull = 1.0d - left.nullSelectivity();
+        double rightNonNull = 1.0d - right.nullSelectivity();
+        long cardinality = Math.min(left.nonZeroCardinality(outerRowCount), right.nonZeroCardinality(innerRowCount));
+        double selectivity = (leftNonNull * rightNonNull) / cardinality;
+        if (operatorType != EQUALS_RELOP || left.cardinality() == 0 || right.cardinality() == 0
+                || !left.getTypeId().equals(right.getTypeId()))
+            return selectivity;
+
+        List<DataValueDescriptor> frequentValues = new ArrayList<>(left.frequentValues());
+        for (DataValueDescriptor value : right.frequentValues()) {
+            boolean found = false;
+            for (DataValueDescriptor leftValue : frequentValues) {
+                if (leftValue.compare(value) == 0) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found)
+                frequentValues.add(value);
+        }
+        if (frequentValues.isEmpty())
+            return selectivity;
+
+        double[] leftSelectivities = new double[frequentValues.size()];
+        double[] rightSelectivities = new double[frequentValues.size()];
+        for (int i = 0; i < leftSelectivities.length; i++) {
+            leftSelectivities[i] = left.valueSelectivity(frequentValues.get(i));
+            rightSelectivities[i] = right.valueSelectivity(frequentValues.get(i));
+        }
+        return SelectivityUtil.frequentValueJoinSelectivity(leftNonNull, rightNonNull, cardinality,
+                leftSelectivities, rightSelectivities);
+    }
+
     public RelationalOperator getTransitiveSearchClause(ColumnReference otherCR) throws StandardException{
         return (RelationalOperator)getNodeFactory().getNode(getNodeType(),otherCR,rightOperand,getContextManager());
     }
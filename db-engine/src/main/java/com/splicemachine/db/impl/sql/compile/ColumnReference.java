@@ -31,6 +31,7 @@ import com.splicemachine.db.iapi.sql.dictionary.ColumnDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
 import com.splicemachine.db.iapi.store.access.StoreCostController;
 import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.services.compiler.MethodBuilder;
@@ -1414,6 +1415,26 @@ public class ColumnReference extends ValueNode {
 		return getCompilerContext().getStoreCostController(cd).nullSelectivity(leftPosition);
 	}
 
+	/**
+	 * Returns the values which statistics found to be the most frequent in this column, or an empty list if
+	 * statistics are not available.
+	 */
+	public List<DataValueDescriptor> frequentValues() throws StandardException {
+		StoreCostController storeCostController = getStoreCostController();
+		if (storeCostController == null)
+			return Collections.emptyList();
+		return storeCostController.frequentValues(getSource().getColumnPosition());
+	}
+
+	/**
+	 * Returns the fraction of the rows in this column's table which hold the specified value, from statistics.
+	 */
+	public double valueSelectivity(DataValueDescriptor value) throws StandardException {
+		ConglomerateDescriptor cd = getSource().getTableColumnDescriptor().getTableDescriptor().getConglomerateDescriptorList().getBaseConglomerateDescriptor();
+		int leftPosition = getSource().getColumnPosition();
+		return getCompilerContext().getStoreCostController(cd).getSelectivity(leftPosition,value,true,value,true);
+	}
+
 	public StoreCostController getStoreCostController() throws StandardException{
 		StoreCostController storeCostController = null;
 		ColumnDescriptor cd = getSource().getTableColumnDescriptor();
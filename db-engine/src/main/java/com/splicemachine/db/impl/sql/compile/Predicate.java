@@ -36,8 +36,10 @@ import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
 import com.splicemachine.db.iapi.store.access.ScanController;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.util.JBitSet;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Hashtable;
+import java.util.List;
 
 /**
  * A Predicate represents a top level predicate.
@@ -490,6 +492,65 @@ public final class Predicate extends QueryTreeNode implements OptimizablePredica
         }
     }
 
+    /**
+     * Is this predicate an IN-list which can be pushed to store?
+     * <p/>
+     * An IN-list on a single column of optTable, whose values are all
+     * constants or parameters, is the same as an OR list of "column = value"
+     * terms, so it can be pushed to store as one (see getInListOrTerms()).
+     * The IN-list may be in its original form, or a probe predicate which
+     * is not being used as a start/stop key.
+     *
+     * @return true if the predicate is a pushable IN-list.
+     * @throws StandardException Standard exception policy.
+     */
+    public final boolean isPushableInList(Optimizable optTable,boolean pushPreds) throws StandardException{
+        if(isStartKey() || isStopKey())
+            return false;
+        List<RelationalOperator> terms=getInListOrTerms();
+        return terms!=null && terms.get(0).isQualifier(optTable,pushPreds);
+    }
+
+    /**
+     * @return true if this predicate is an IN-list which has been marked as a
+     * qualifier, and so is generated as an OR list of equality qualifiers.
+     */
+    public final boolean isInListQualifier(){
+        if(!isQualifier)
+            return false;
+        InListOperatorNode inList=getSourceInList();
+        return inList!=null && inList.getLeftOperand() instanceof ColumnReference;
+    }
+
+    /**
+     * If this predicate is an IN-list on a single column, all of whose values
+     * are constants or parameters, build one "column = value" operator for
+     * each value. The IN-list is true exactly when one of these is.
+     *
+     * @return the equality terms, or null if this is not such an IN-list.
+     * @throws StandardException Standard exception policy.
+     */
+    public List<RelationalOperator> getInListOrTerms() throws StandardException{
+        InListOperatorNode inList=getSourceInList();
+        if(inList==null || !(inList.getLeftOperand() instanceof ColumnReference))
+            return null;
+        ValueNodeList values=inList.getRightOperandList();
+        if(values.size()<=1 || !values.containsOnlyConstantAndParamNodes())
+            return null;
+
+        List<RelationalOperator> terms=new ArrayList<>(values.size());
+        for(int i=0;i<values.size();i++){
+            BinaryComparisonOperatorNode equal=(BinaryComparisonOperatorNode)getNodeFactory().getNode(
+                    C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE,
+                    inList.getLeftOperand(),
+                    values.elementAt(i),
+                    getContextManager());
+            equal.bindComparisonOperator();
+            terms.add((RelationalOperator)equal);
+        }
+        return terms;
+    }
+
     /**
      * Return whether or not this predicate has been used
      * to add a new search clause of the specified type via transitive closure.
@@ -673,11 +673,11 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
             Predicate[] preds=new Predicate[size];
             for(int index=0;index<size;index++){
                 Predicate pred=elementAt(index);
-                if(!isHashableJoin && isQualifier(pred,optTable,pushPreds) ||
+                if(!isHashableJoin && (isQualifier(pred,optTable,pushPreds) || pred.isPushableInList(optTable,pushPreds)) ||
                         isHashableJoin && isQualifierForHashableJoin(pred, optTable, pushPreds)){
                     pred.markQualifier();
                     if(SanityManager.DEBUG){
-                        if(pred.isInListProbePredicate()){
+                        if(pred.isInListProbePredicate() && !pred.isInListQualifier()){
                             SanityManager.THROWASSERT("Found an IN-list probe "+
                                     "predicate ("+pred.binaryRelOpColRefsToString()+
                                     ") that was marked as a qualifier, which should "+
@@ -746,6 +746,7 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
                 usefulPredicates[usefulCount++]=pred;
             }else{
                 if(primaryKey && isQualifier(pred,optTable,pushPreds) ||
+                primaryKey && !isHashableJoin && pred.isPushableInList(optTable,pushPreds) ||
                 isHashableJoin && isQualifierForHashableJoin(pred, optTable, pushPreds)){
                     pred.markQualifier();
                     if(pushPreds){
@@ -2616,8 +2617,9 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
         for(int index=size()-1;index>=0;index--){
             Predicate pred=elementAt(index);
 
-            // Don't do anything if it's not an IN-list probe predicate.
-            if(!pred.isInListProbePredicate())
+            // Don't do anything if it's not an IN-list probe predicate, or if
+            // it was pushed as an OR list of qualifiers instead.
+            if(!pred.isInListProbePredicate() || pred.isInListQualifier())
                 continue;
 
         		/* We're going to generate the relevant code for the probe
@@ -2635,7 +2637,7 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
 			 */
             if(SanityManager.DEBUG){
                 for(int i=0;i<index;i++){
-                    if(elementAt(i).isInListProbePredicate()){
+                    if(elementAt(i).isInListProbePredicate() && !elementAt(i).isInListQualifier()){
                         SanityManager.THROWASSERT("Found multiple probe "+
                                 "predicates for IN-list when only one was "+
                                 "expected.");
@@ -2736,8 +2738,8 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
             // Determine number of leading AND qualifiers, and subsequent
             // trailing OR qualifiers.
             int num_of_or_conjunctions=0;
-            for(int i=0;i<numberOfQualifiers;i++){
-                if(elementAt(i).isOrList()){
+            for(int i=0;i<size();i++){
+                if(isOrQualifier(elementAt(i))){
                     num_of_or_conjunctions++;
                 }
             }
@@ -2784,7 +2786,7 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
             Predicate pred=elementAt(index);
 
             if(pred.isQualifier()){
-                if(pred.isOrList()){
+                if(isOrQualifier(pred)){
                     gotOrQualifier=true;
 
                     // will generate the OR qualifiers below.
@@ -2822,33 +2824,39 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
 
             // The remaining qualifiers must all be OR predicates, which
             // are pushed slightly differently than the leading AND qualifiers.
+            // They are sorted after any start/stop key predicates which are
+            // not qualifiers, so skip over those.
 
-            for(int index=qualNum;index<size;index++,and_idx++){
+            for(int index=qualNum;index<size;index++){
                 Predicate pred=elementAt(index);
 
-                if(SanityManager.DEBUG){
-                    SanityManager.ASSERT(pred.isOrList());
-                }
+                if(!isOrQualifier(pred))
+                    continue;
 
                 // create an ArrayList of the OR nodes.  We need the count
                 // of Or's in order to first generate the allocateQualArray()
                 // call, then we walk the list assigning each of the OR's to
                 // entries in the array in generateSingleQualifierCode().
-                List<ValueNode> a_list=new ArrayList<>();
+                List<RelationalOperator> a_list=new ArrayList<>();
+
+                if(pred.isInListQualifier()){
+                    // col IN (v1, v2, ...) is pushed as col = v1 OR col = v2 ...
+                    a_list.addAll(pred.getInListOrTerms());
+                }else{
+                    QueryTreeNode node=pred.getAndNode().getLeftOperand();
 
-                QueryTreeNode node=pred.getAndNode().getLeftOperand();
+                    while(node instanceof OrNode){
+                        OrNode or_node=(OrNode)node;
 
-                while(node instanceof OrNode){
-                    OrNode or_node=(OrNode)node;
+                        // The left operand of OR node is one of the terms,
+                        // (ie. A = 1)
+                        if(or_node.getLeftOperand() instanceof RelationalOperator){
+                            a_list.add((RelationalOperator)or_node.getLeftOperand());
+                        }
 
-                    // The left operand of OR node is one of the terms, 
-                    // (ie. A = 1)
-                    if(or_node.getLeftOperand() instanceof RelationalOperator){
-                        a_list.add(or_node.getLeftOperand());
+                        // The next OR node in the list if linked to the right.
+                        node=or_node.getRightOperand();
                     }
-
-                    // The next OR node in the list if linked to the right.
-                    node=or_node.getRightOperand();
                 }
 
                 // Allocate an array to hold each of the terms of this OR, 
@@ -2868,13 +2876,14 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
                             optTable,
                             absolute,
                             acb,
-                            (RelationalOperator)a_list.get(i),
+                            a_list.get(i),
                             qualField,
                             and_idx,
                             i);
 
                 }
 
+                and_idx++;
                 qualNum++;
             }
 
@@ -2884,6 +2893,14 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
     }
 
 
+    /**
+     * @return true if pred is a qualifier which is generated as a list of
+     * OR'd qualifiers: an OR clause, or an IN-list.
+     */
+    private static boolean isOrQualifier(Predicate pred){
+        return pred.isQualifier() && (pred.isOrList() || pred.isInListQualifier());
+    }
+
     /* Sort the qualifiers by "selectivity" before generating.
      * We want the qualifiers ordered by selectivity with the
      * most selective ones first.  There are 3 groups of qualifiers:
@@ -2928,6 +2945,12 @@ public class PredicateList extends QueryTreeNodeVector<Predicate> implements Opt
                 continue;
             }
 
+            if(pred.isInListQualifier()){
+                // generated as an OR list, which must come after the AND'd qualifiers
+                sortList[QUALIFIER_ORDER_OR_CLAUSE].addElement(pred);
+                continue;
+            }
+
             AndNode node=pred.getAndNode();
 
             if(!(node.getLeftOperand() instanceof OrNode)){
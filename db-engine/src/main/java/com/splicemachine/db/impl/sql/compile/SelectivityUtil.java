@@ -208,6 +208,41 @@ public class SelectivityUtil {
                         (outerRemoteCost/(outerRowCount<1.0d?1.0d:outerRowCount)));
     }
 
+    /**
+     *
+     * Equi-join selectivity when the most frequent join values are known.
+     *
+     * The frequent values are matched up using their actual selectivities on each side, and the remaining
+     * non-null rows are assumed to be spread evenly over the remaining distinct values. If that comes to nothing,
+     * every non-null row is assumed to be spread evenly over the distinct values instead.
+     *
+     * @param leftNonNull the fraction of non-null rows on the left
+     * @param rightNonNull the fraction of non-null rows on the right
+     * @param cardinality the number of distinct values of the join column
+     * @param leftFrequent the selectivity of each frequent value on the left
+     * @param rightFrequent the selectivity of the same values on the right
+     * @return
+     */
+    public static double frequentValueJoinSelectivity(double leftNonNull, double rightNonNull, long cardinality,
+                                                      double[] leftFrequent, double[] rightFrequent) {
+        double selectivity = (leftNonNull * rightNonNull) / cardinality;
+        if (leftFrequent.length == 0)
+            return selectivity;
+        double frequentSelectivity = 0.0d;
+        double leftTotal = 0.0d;
+        double rightTotal = 0.0d;
+        for (int i = 0; i < leftFrequent.length; i++) {
+            frequentSelectivity += leftFrequent[i] * rightFrequent[i];
+            leftTotal += leftFrequent[i];
+            rightTotal += rightFrequent[i];
+        }
+        double leftRemaining = Math.max(0.0d, leftNonNull - leftTotal);
+        double rightRemaining = Math.max(0.0d, rightNonNull - rightTotal);
+        long remainingCardinality = Math.max(1l, cardinality - leftFrequent.length);
+        double skewedSelectivity = frequentSelectivity + (leftRemaining * rightRemaining) / remainingCardinality;
+        return skewedSelectivity > 0.0d ? Math.min(1.0d, skewedSelectivity) : selectivity;
+    }
+
     public static double getTotalRows(Double joinSelectivity, double outerRowCount, double innerRowCount) {
         return joinSelectivity*
                 (outerRowCount<1.0d?1.0d:outerRowCount)*
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test case for the equi-join selectivity with frequent values.
+ */
+public class SelectivityUtilTest {
+    private static final double DELTA = 1e-9d;
+
+    @Test
+    public void noFrequentValuesIsUniform() {
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(0.9d, 0.8d, 100l, new double[0], new double[0]);
+        assertEquals(0.9d * 0.8d / 100, selectivity, DELTA);
+    }
+
+    @Test
+    public void skewedKeyOnBothSidesRaisesTheSelectivity() {
+        // half of each side holds the same key, the rest is spread over the other 99 values
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(1.0d, 1.0d, 100l,
+                new double[]{0.5d}, new double[]{0.5d});
+        assertEquals(0.25d + 0.25d / 99, selectivity, DELTA);
+        assertTrue("The skewed key should produce more rows than the uniform estimate", selectivity > 1.0d / 100);
+    }
+
+    @Test
+    public void skewedKeyOnOneSideOnly() {
+        // the key which is frequent on the left is as rare as any other on the right
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(1.0d, 1.0d, 100l,
+                new double[]{0.5d}, new double[]{0.01d});
+        assertEquals(0.5d * 0.01d + (0.5d * 0.99d) / 99, selectivity, DELTA);
+        assertEquals("The estimate should match the uniform one when only one side is skewed", 0.01d, selectivity, DELTA);
+    }
+
+    @Test
+    public void frequentValuesCoverOneSide() {
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(0.5d, 1.0d, 10l,
+                new double[]{0.25d, 0.25d}, new double[]{0.1d, 0.1d});
+        // every non-null row on the left holds a frequent value, so nothing is left to spread
+        assertEquals(0.25d * 0.1d * 2, selectivity, DELTA);
+    }
+
+    @Test
+    public void selectivityIsCapped() {
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(1.0d, 1.0d, 1l,
+                new double[]{1.0d, 1.0d}, new double[]{1.0d, 1.0d});
+        assertEquals(1.0d, selectivity, DELTA);
+    }
+
+    @Test
+    public void nothingLeftFallsBackToUniform() {
+        double selectivity = SelectivityUtil.frequentValueJoinSelectivity(0.5d, 0.5d, 10l,
+                new double[]{0.5d}, new double[]{0.0d});
+        assertEquals(0.5d * 0.5d / 10, selectivity, DELTA);
+    }
+}
@@ -1149,6 +1149,7 @@ public interface SQLState {
 	String LANG_UDA_WRONG_INPUT_TYPE                                   = "42ZC6";
 	String LANG_UDA_WRONG_RETURN_TYPE                                  = "42ZC7";
 	String LANG_UDA_INSTANTIATION                                      = "42ZC8";
+	String LANG_BROADCAST_JOIN_MEMORY_EXCEEDED                         = "42ZC9";
 	
 	//following 3 matches the DB2 sql states
 	String LANG_DECLARED_GLOBAL_TEMP_TABLE_ONLY_IN_SESSION_SCHEMA = "428EK";
@@ -34,4 +34,13 @@ public interface BatchProtocol extends CoprocessorService {
      */
     byte[] bulkWrites(byte[] bulkWrites) throws IOException;
 
+    /**
+     * Same as {@link #bulkWrites(byte[])}, but the request and the result are written with a codec header, and
+     * may be compressed.
+     *
+     * @param bulkWrites the mutations to apply
+     * @throws IOException if something goes wrong applying the mutation
+     */
+    byte[] compressedBulkWrites(byte[] bulkWrites) throws IOException;
+
 }
@@ -24,6 +24,7 @@ import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.storage.PartitionInfoCache;
 import com.splicemachine.pipeline.client.BulkWritesRPCInvoker;
+import com.splicemachine.pipeline.client.CompressedWriteSupport;
 import com.splicemachine.pipeline.client.RpcChannelFactory;
 
 import java.io.IOException;
@@ -37,17 +38,20 @@ public class CoprocessorWriterFactory implements BulkWriterFactory{
     private PipelineWriter pipelineWriter;
     private WritePipelineFactory pipelineWriteFactory;
     private final PipelineCompressor compressor;
+    private final CompressedWriteSupport compressedWriteSupport;
     private final PartitionInfoCache partitionInfoCache;
     private final RpcChannelFactory channelFactory;
     private final HBaseTableInfoFactory tableInfoFactory;
 
     public CoprocessorWriterFactory(PipelineCompressor compressor,
+                                    CompressedWriteSupport compressedWriteSupport,
                                     PartitionInfoCache partitionInfoCache,
                                     PipelineExceptionFactory exceptionFactory,
                                     RpcChannelFactory channelFactory,
                                     HBaseTableInfoFactory tableInfoFactory){
         this.exceptionFactory=exceptionFactory;
         this.compressor = compressor;
+        this.compressedWriteSupport = compressedWriteSupport;
         this.partitionInfoCache = partitionInfoCache;
         this.channelFactory=channelFactory;
         this.tableInfoFactory = tableInfoFactory;
@@ -56,7 +60,7 @@ public class CoprocessorWriterFactory implements BulkWriterFactory{
     @Override
     public BulkWriter newWriter(byte[] tableName){
         return new BulkWritesRPCInvoker(tableName,pipelineWriter,
-                pipelineWriteFactory,compressor,
+                pipelineWriteFactory,compressor,compressedWriteSupport,
                 exceptionFactory,channelFactory,partitionInfoCache,
                 tableInfoFactory);
     }
@@ -16,6 +16,12 @@
 package com.splicemachine.derby.hbase;
 
 import com.splicemachine.pipeline.api.PipelineMeter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -29,6 +35,8 @@ public class CountingPipelineMeter implements PipelineMeter{
     private final AtomicLong failedCounter = new AtomicLong(0l);
     private final long startupTimestamp = System.nanoTime();
 
+    private final ConcurrentMap<String,CompressionStats> compressionStats = new ConcurrentHashMap<>();
+
     @Override
     public void mark(int numSuccess,int numFailed){
         successCounter.addAndGet(numSuccess);
@@ -64,4 +72,44 @@ public class CountingPipelineMeter implements PipelineMeter{
     public long rejectedCount(){
         return rejectedCount.get();
     }
+
+    @Override
+    public void compressed(String tableName,long rawBytes,long wireBytes,long cpuNanos){
+        CompressionStats stats = compressionStats.get(tableName);
+        if(stats==null){
+            stats = new CompressionStats();
+            CompressionStats old = compressionStats.putIfAbsent(tableName,stats);
+            if(old!=null)
+                stats = old;
+        }
+        stats.rawBytes.addAndGet(rawBytes);
+        stats.wireBytes.addAndGet(wireBytes);
+        stats.cpuNanos.addAndGet(cpuNanos);
+    }
+
+    @Override
+    public Map<String, Double> compressionRatios(){
+        Map<String,Double> ratios = new HashMap<>(compressionStats.size());
+        for(Map.Entry<String,CompressionStats> entry:compressionStats.entrySet()){
+            CompressionStats stats = entry.getValue();
+            long wireBytes = stats.wireBytes.get();
+            ratios.put(entry.getKey(),wireBytes==0?1d:((double)stats.rawBytes.get())/wireBytes);
+        }
+        return ratios;
+    }
+
+    @Override
+    public Map<String, Long> compressionTimes(){
+        Map<String,Long> times = new HashMap<>(compressionStats.size());
+        for(Map.Entry<String,CompressionStats> entry:compressionStats.entrySet()){
+            times.put(entry.getKey(),TimeUnit.NANOSECONDS.toMillis(entry.getValue().cpuNanos.get()));
+        }
+        return times;
+    }
+
+    private static class CompressionStats{
+        private final AtomicLong rawBytes = new AtomicLong(0l);
+        private final AtomicLong wireBytes = new AtomicLong(0l);
+        private final AtomicLong cpuNanos = new AtomicLong(0l);
+    }
 }
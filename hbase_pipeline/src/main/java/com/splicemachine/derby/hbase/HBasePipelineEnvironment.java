@@ -29,8 +29,10 @@ import com.splicemachine.pipeline.PipelineEnvironment;
 import com.splicemachine.pipeline.api.BulkWriterFactory;
 import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.api.PipelineMeter;
+import com.splicemachine.pipeline.client.CompressedWriteSupport;
 import com.splicemachine.pipeline.client.RpcChannelFactory;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
+import com.splicemachine.pipeline.utils.CompressingPipelineCompressor;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
 import com.splicemachine.pipeline.utils.SimplePipelineCompressor;
 import com.splicemachine.si.api.data.ExceptionFactory;
@@ -45,6 +47,7 @@ import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.data.hbase.coprocessor.HBaseSIEnvironment;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.PartitionInfoCache;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -62,6 +65,7 @@ public class HBasePipelineEnvironment implements PipelineEnvironment{
     private final ContextFactoryDriver contextFactoryLoader;
     private final SConfiguration pipelineConfiguration;
     private final PipelineCompressor compressor;
+    private final PipelineCompressor compressedWriteCompressor;
     private final BulkWriterFactory writerFactory;
     private final PipelineMeter meter = new CountingPipelineMeter();
 
@@ -90,11 +94,15 @@ public class HBasePipelineEnvironment implements PipelineEnvironment{
 
         KryoPool kryoPool=new KryoPool(pipelineConfiguration.getPipelineKryoPoolSize());
         kryoPool.setKryoRegistry(new PipelineKryoRegistry());
-        //TODO -sf- enable snappy compression here
         this.compressor = new SimplePipelineCompressor(kryoPool,env.getSIDriver().getOperationFactory());
+        CompressingPipelineCompressor.Codec codec=CompressingPipelineCompressor.Codec.forName(pipelineConfiguration.getWriteCompressionCodec());
+        this.compressedWriteCompressor = new CompressingPipelineCompressor(compressor,codec,
+                pipelineConfiguration.getWriteCompressionThreshold(),
+                meter);
 
         RpcChannelFactory channelFactory = ChannelFactoryService.loadChannelFactory(this.pipelineConfiguration);
-        this.writerFactory = new CoprocessorWriterFactory(compressor,partitionInfoCache(),pipelineExceptionFactory,channelFactory,
+        CompressedWriteSupport compressedWriteSupport = new CompressedWriteSupport(codec==CompressingPipelineCompressor.Codec.NONE?null:compressedWriteCompressor);
+        this.writerFactory = new CoprocessorWriterFactory(compressor,compressedWriteSupport,partitionInfoCache(),pipelineExceptionFactory,channelFactory,
                 HBaseTableInfoFactory.getInstance(configuration()));
     }
 
@@ -144,6 +152,14 @@ public class HBasePipelineEnvironment implements PipelineEnvironment{
         return compressor;
     }
 
+    /**
+     * @return the compressor for the payloads of the {@code compressedBulkWrite} call. The legacy {@code bulkWrite}
+     * call uses {@link #pipelineCompressor()}.
+     */
+    public PipelineCompressor compressedWriteCompressor(){
+        return compressedWriteCompressor;
+    }
+
     @Override
     public PartitionInfoCache partitionInfoCache(){
         return delegate.partitionInfoCache();
@@ -184,4 +200,9 @@ public class HBasePipelineEnvironment implements PipelineEnvironment{
     public SnowflakeFactory snowflakeFactory() {
         return delegate.snowflakeFactory();
     }
+
+    @Override
+    public ReadOnlyTxnWatermark readOnlyTxnWatermark(){
+        return delegate.readOnlyTxnWatermark();
+    }
 }
@@ -33,6 +33,13 @@ import java.util.Collection;
  *         Date: 12/28/15
  */
 public class PipelineKryoRegistry implements KryoPool.KryoRegistry{
+    /*
+     * Marks the optional fields which follow the results of a BulkWritesResult. Servers which don't send them leave
+     * the buffer empty or zero-padded after the results, and clients which don't know about them stop reading
+     * before they get there.
+     */
+    private static final byte WRITE_CREDITS_VERSION=1;
+
     @Override
     public void register(Kryo instance){
         instance.register(BulkWriteResult.class,BulkWriteResult.kryoSerializer(),10);
@@ -40,12 +47,16 @@ public class PipelineKryoRegistry implements KryoPool.KryoRegistry{
             @Override
             public void write(Kryo kryo,Output output,BulkWritesResult object){
                 kryo.writeClassAndObject(output,object.getBulkWriteResults());
+                output.writeByte(WRITE_CREDITS_VERSION);
+                output.writeInt(object.getWriteCredits());
             }
 
             @Override
             public BulkWritesResult read(Kryo kryo,Input input,Class type){
                 Collection<BulkWriteResult> results=(Collection<BulkWriteResult>)kryo.readClassAndObject(input);
-                return new BulkWritesResult(results);
+                if(input.position()<input.limit() && input.readByte()>=WRITE_CREDITS_VERSION)
+                    return new BulkWritesResult(results,input.readInt());
+                return new BulkWritesResult(results); //from a server which doesn't send write credits
             }
         },11);
 
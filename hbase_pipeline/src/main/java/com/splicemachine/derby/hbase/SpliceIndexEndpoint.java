@@ -63,6 +63,8 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
     private PartitionWritePipeline writePipeline;
     private PipelineWriter pipelineWriter;
     private PipelineCompressor compressor;
+    private PipelineCompressor compressedWriteCompressor;
+    private String tableName;
     private volatile PipelineLoadService<TableName> service;
 
 
@@ -73,7 +75,7 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
         RegionCoprocessorEnvironment rce=((RegionCoprocessorEnvironment)env);
         final ServerControl serverControl=new RegionServerControl((HRegion) rce.getRegion());
 
-        String tableName=rce.getRegion().getTableDesc().getTableName().getQualifierAsString();
+        tableName=rce.getRegion().getTableDesc().getTableName().getQualifierAsString();
         TableType table=EnvUtils.getTableType(HConfiguration.getConfiguration(),(RegionCoprocessorEnvironment)env);
         if(table.equals(TableType.USER_TABLE) || table.equals(TableType.DERBY_SYS_TABLE)){ // DERBY SYS TABLE is temporary (stats)
             long conglomId;
@@ -94,6 +96,7 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
                     public void start() throws Exception{
                         super.start();
                         compressor=getCompressor();
+                        compressedWriteCompressor=((HBasePipelineEnvironment)pipelineEnv).compressedWriteCompressor();
                         pipelineWriter=getPipelineWriter();
                         writePipeline=getWritePipeline();
                     }
@@ -149,6 +152,21 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
         }
     }
 
+    @Override
+    public void compressedBulkWrite(RpcController controller,
+                                    SpliceMessage.BulkWriteRequest request,
+                                    RpcCallback<SpliceMessage.BulkWriteResponse> done){
+        try{
+            byte[] bytes=compressedBulkWrites(request.getBytes().toByteArray());
+            SpliceMessage.BulkWriteResponse response =SpliceMessage.BulkWriteResponse.newBuilder()
+                    .setBytes(ZeroCopyLiteralByteString.wrap(bytes)).build();
+            done.run(response);
+        }catch(IOException e){
+            LOG.error("Unexpected exception performing compressed bulk write: ",e);
+            controller.setFailed(StringUtils.stringifyException(e));
+        }
+    }
+
     @Override
     public Service getService(){
         return this;
@@ -179,4 +197,11 @@ public class SpliceIndexEndpoint extends SpliceMessage.SpliceIndexService implem
         BulkWrites bulkWrites=compressor.decompress(bulkWriteBytes,BulkWrites.class);
         return compressor.compress(bulkWrite(bulkWrites));
     }
+
+    @Override
+    public byte[] compressedBulkWrites(byte[] bulkWriteBytes) throws IOException{
+        assert bulkWriteBytes!=null;
+        BulkWrites bulkWrites=compressedWriteCompressor.decompress(bulkWriteBytes,BulkWrites.class,tableName);
+        return compressedWriteCompressor.compress(bulkWrite(bulkWrites),tableName);
+    }
 }
\ No newline at end of file
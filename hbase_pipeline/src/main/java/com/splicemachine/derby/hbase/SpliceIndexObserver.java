@@ -31,6 +31,7 @@ import com.splicemachine.pipeline.context.WriteContext;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.contextfactory.WriteContextFactory;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.api.server.TransactionalRegion;
 import com.splicemachine.si.api.txn.TxnView;
@@ -44,10 +45,12 @@ import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.*;
 import org.apache.hadoop.hbase.client.Durability;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.coprocessor.BaseRegionObserver;
 import org.apache.hadoop.hbase.coprocessor.ObserverContext;
 import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.RegionCoprocessorHost;
+import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.log4j.Logger;
@@ -187,6 +190,18 @@ public class SpliceIndexObserver extends BaseRegionObserver {
         super.prePut(e, put, edit, durability);
     }
 
+    @Override
+    public RegionScanner preScannerOpen(ObserverContext<RegionCoprocessorEnvironment> e,Scan scan,RegionScanner s) throws IOException{
+        /*
+         * A foreign key parent which deleted rows is looking for rows here which still reference them. Forget what
+         * this server has cached about the parent before the scan runs (see ContextFactoryLoader).
+         */
+        byte[] parentConglomerate=scan.getAttribute(SIConstants.FK_PARENT_DELETE_ATTRIBUTE_NAME);
+        if(parentConglomerate!=null && factoryLoader!=null)
+            factoryLoader.referencedRowsDeleted(Bytes.toLong(parentConglomerate));
+        return super.preScannerOpen(e,scan,s);
+    }
+
     @Override
     public void postRollBackSplit(ObserverContext<RegionCoprocessorEnvironment> ctx) throws IOException{
         RegionCoprocessorEnvironment rce=ctx.getEnvironment();
@@ -100,4 +100,14 @@ public class SnappyPipelineCompressor implements PipelineCompressor{
     public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
         throw new UnsupportedOperationException("IMPLEMENT");
     }
+
+    @Override
+    public byte[] compress(Object o,String tableName) throws IOException{
+        return compress(o);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,Class<T> clazz,String tableName) throws IOException{
+        return decompress(bytes,clazz);
+    }
 }
@@ -27,6 +27,7 @@ import com.splicemachine.storage.PartitionInfoCache;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.exceptions.UnknownProtocolException;
 import org.apache.hadoop.hbase.ipc.BlockingRpcCallback;
 import org.apache.hadoop.hbase.ipc.CoprocessorRpcChannel;
 import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
@@ -43,6 +44,7 @@ public class BulkWriteChannelInvoker {
     private final byte[] tableName;
     private final PipelineExceptionFactory pef;
     private final PipelineCompressor compressor;
+    private final CompressedWriteSupport compressedWriteSupport;
     private final RpcChannelFactory channelFactory;
     private final PartitionInfoCache partitionInfoCache;
     private final HBaseTableInfoFactory tableInfoFactory;
@@ -50,6 +52,7 @@ public class BulkWriteChannelInvoker {
     @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
     public BulkWriteChannelInvoker(byte[] tableName,
                                    PipelineCompressor pipelineCompressor,
+                                   CompressedWriteSupport compressedWriteSupport,
                                    RpcChannelFactory channelFactory,
                                    PartitionInfoCache partitionInfoCache,
                                    PipelineExceptionFactory pef,
@@ -57,6 +60,7 @@ public class BulkWriteChannelInvoker {
         this.tableName = tableName;
         this.pef = pef;
         this.compressor = pipelineCompressor;
+        this.compressedWriteSupport = compressedWriteSupport;
         this.channelFactory = channelFactory;
         this.partitionInfoCache =partitionInfoCache;
         this.tableInfoFactory=tableInfoFactory;
@@ -69,38 +73,65 @@ public class BulkWriteChannelInvoker {
         boolean cacheCheck = false;
         try {
             SpliceMessage.SpliceIndexService service = ProtobufUtil.newServiceStub(SpliceMessage.SpliceIndexService.class, channel);
-            SpliceMessage.BulkWriteRequest.Builder builder = SpliceMessage.BulkWriteRequest.newBuilder();
-            byte[] requestBytes = compressor.compress(write);
-            builder.setBytes(ZeroCopyLiteralByteString.wrap(requestBytes));
-            SpliceMessage.BulkWriteRequest bwr = builder.build();
-
-            BlockingRpcCallback<SpliceMessage.BulkWriteResponse> doneCallback =new BlockingRpcCallback<>();
-            SpliceRpcController controller = new SpliceRpcController();
-
-            service.bulkWrite(controller, bwr, doneCallback);
-            if (controller.failed()){
-                Throwable error=controller.getThrowable();
-                clearCacheIfNeeded(error);
-                cacheCheck=true;
-                if(error!=null)
-                    throw pef.processRemoteException(error);
-                else
-                    throw pef.fromErrorString(controller.errorText());
+            /*
+             * Compression is only metered by the server, which sees both the request and the response; metering
+             * here as well would count every payload twice in the per-table stats.
+             */
+            PipelineCompressor payloadCompressor=compressedWriteSupport.compressor();
+            SpliceMessage.BulkWriteResponse bulkWriteResponse=null;
+            if(payloadCompressor!=null){
+                SpliceRpcController controller = new SpliceRpcController();
+                BlockingRpcCallback<SpliceMessage.BulkWriteResponse> doneCallback =new BlockingRpcCallback<>();
+                service.compressedBulkWrite(controller,request(payloadCompressor,write),doneCallback);
+                if(!controller.failed()){
+                    bulkWriteResponse=doneCallback.get();
+                }else if(isUnknownMethodException(controller.getThrowable())){
+                    //the server predates compressed writes, and did not look at them. Resend them the old way
+                    compressedWriteSupport.rejected();
+                    payloadCompressor=null;
+                }else{
+                    cacheCheck=true;
+                    throw failure(controller);
+                }
+            }
+            if(payloadCompressor==null){
+                payloadCompressor=compressor;
+                SpliceRpcController controller = new SpliceRpcController();
+                BlockingRpcCallback<SpliceMessage.BulkWriteResponse> doneCallback =new BlockingRpcCallback<>();
+                service.bulkWrite(controller,request(payloadCompressor,write),doneCallback);
+                if (controller.failed()){
+                    cacheCheck=true;
+                    throw failure(controller);
+                }
+                bulkWriteResponse=doneCallback.get();
             }
-            SpliceMessage.BulkWriteResponse bulkWriteResponse = doneCallback.get();
             byte[] bytes = bulkWriteResponse.getBytes().toByteArray();
             if(bytes==null || bytes.length<=0){
                 Logger logger=Logger.getLogger(BulkWriteChannelInvoker.class);
                 logger.error("zero-length bytes returned with a null error for encodedString: "+write.getBulkWrites().iterator().next().getEncodedStringName());
             }
 
-            return compressor.decompress(bytes,BulkWritesResult.class);
+            return payloadCompressor.decompress(bytes,BulkWritesResult.class);
         } catch (Exception e) {
         	if (!cacheCheck) clearCacheIfNeeded(e);
             throw pef.processRemoteException(e);
         }
     }
 
+    private static SpliceMessage.BulkWriteRequest request(PipelineCompressor compressor,BulkWrites write) throws IOException{
+        return SpliceMessage.BulkWriteRequest.newBuilder()
+                .setBytes(ZeroCopyLiteralByteString.wrap(compressor.compress(write))).build();
+    }
+
+    private IOException failure(SpliceRpcController controller) throws IOException{
+        Throwable error=controller.getThrowable();
+        clearCacheIfNeeded(error);
+        if(error!=null)
+            return pef.processRemoteException(error);
+        else
+            return pef.fromErrorString(controller.errorText());
+    }
+
     private boolean clearCacheIfNeeded(Throwable e) throws IOException{
         if (e==null ||
                 e instanceof WrongPartitionException ||
@@ -127,4 +158,12 @@ public class BulkWriteChannelInvoker {
     	return t!=null && t.getClass().getName().contains("FailedServerException");
     }
 
+    private static boolean isUnknownMethodException(Throwable t){
+        while(t!=null){
+            if(t instanceof UnknownProtocolException) return true;
+            t=t.getCause();
+        }
+        return false;
+    }
+
 }
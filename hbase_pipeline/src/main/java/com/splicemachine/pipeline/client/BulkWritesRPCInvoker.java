@@ -41,13 +41,14 @@ public class BulkWritesRPCInvoker implements BulkWriter{
                                 PipelineWriter pipelineWriter,
                                 WritePipelineFactory pipelineFactory,
                                 PipelineCompressor pipelineCompressor,
+                                CompressedWriteSupport compressedWriteSupport,
                                 PipelineExceptionFactory exceptionFactory,
                                 RpcChannelFactory channelFactory,
                                 PartitionInfoCache partInfoCache,
                                 HBaseTableInfoFactory tableInfoFactory) {
         this.pipelineFactory = pipelineFactory;
         this.pipelineWriter = pipelineWriter;
-        this.bulkWriteChannelInvoker = new BulkWriteChannelInvoker(tableName,pipelineCompressor,channelFactory,partInfoCache,exceptionFactory,tableInfoFactory);
+        this.bulkWriteChannelInvoker = new BulkWriteChannelInvoker(tableName,pipelineCompressor,compressedWriteSupport,channelFactory,partInfoCache,exceptionFactory,tableInfoFactory);
     }
 
     @Override
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.pipeline.utils.PipelineCompressor;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether BulkWrites are sent over the {@code compressedBulkWrite} call, or in the legacy format over
+ * {@code bulkWrite}.
+ * <p>
+ * Servers which predate {@code compressedBulkWrite} reject it as an unknown method before touching the writes, so
+ * the client can fall back to {@code bulkWrite} and resend them. Once that happens, every write is sent in the legacy
+ * format for a while before the compressed call is tried again, so that a rolling upgrade costs one rejected call
+ * per interval rather than one per write, and compression resumes by itself once the cluster is upgraded.
+ *
+ * @see com.splicemachine.pipeline.utils.CompressingPipelineCompressor
+ */
+public class CompressedWriteSupport{
+    private static final Logger LOG=Logger.getLogger(CompressedWriteSupport.class);
+    private static final long LEGACY_INTERVAL=TimeUnit.MINUTES.toMillis(1);
+
+    private final PipelineCompressor compressor;
+    private volatile long legacyUntil=0l;
+
+    /**
+     * @param compressor the compressor for {@code compressedBulkWrite} payloads, or {@code null} to always send
+     *                   the legacy format
+     */
+    public CompressedWriteSupport(PipelineCompressor compressor){
+        this.compressor=compressor;
+    }
+
+    /**
+     * @return the compressor to send the next write with, or {@code null} if it must be sent in the legacy format
+     */
+    public PipelineCompressor compressor(){
+        if(compressor==null || System.currentTimeMillis()<legacyUntil) return null;
+        return compressor;
+    }
+
+    /**
+     * Record that a server rejected {@code compressedBulkWrite}.
+     */
+    public void rejected(){
+        if(System.currentTimeMillis()>=legacyUntil){
+            LOG.info("A region server does not support compressed writes, sending uncompressed writes for the next "
+                    +LEGACY_INTERVAL+" ms");
+        }
+        legacyUntil=System.currentTimeMillis()+LEGACY_INTERVAL;
+    }
+}
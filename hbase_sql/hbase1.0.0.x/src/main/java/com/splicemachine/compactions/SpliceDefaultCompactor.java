@@ -253,10 +253,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     scanner = createScanner(store, scanners, scanType, smallestReadPoint, fd.earliestPutTs);
                 }
                 if (needsSI(store.getTableName())) {
-                    SIDriver driver=SIDriver.driver();
-                    SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
-                            driver.getRollForward(),
-                            driver.getConfiguration().getActiveTransactionCacheSize());
+                    SICompactionState state = SICompactionState.newCompactionState(SIDriver.driver(),request.isAllFiles());
                     scanner = new SICompactionScanner(state,scanner);
                 }
                 if (scanner == null) {
@@ -570,6 +570,7 @@ public class SpliceSparkKryoRegistrator implements KryoRegistrator {
         instance.register(InsertPairFunction.class,EXTERNALIZABLE_SERIALIZER);
 
         instance.register(JoinRestrictionPredicateFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(KeepFirstRowFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(KeyerFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(LocatedRowToRowLocationFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(MergeAllAggregatesFunction.class,EXTERNALIZABLE_SERIALIZER);
@@ -579,9 +580,11 @@ public class SpliceSparkKryoRegistrator implements KryoRegistrator {
 
         instance.register(MergeWindowFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(NLJAntiJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(NLJBatchedInnerJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(NLJInnerJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(NLJOneRowInnerJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(NLJOuterJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
+        instance.register(NormalizedKeyFunction.class,EXTERNALIZABLE_SERIALIZER);
         instance.register(OuterJoinFunction.class,EXTERNALIZABLE_SERIALIZER);
 
         instance.register(OuterJoinPairFunction.class,EXTERNALIZABLE_SERIALIZER);
@@ -17,7 +17,9 @@ package com.splicemachine.derby.lifecycle;
 
 import javax.annotation.Nullable;
 
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.sql.execute.ConstantAction;
+import com.splicemachine.derby.impl.sql.execute.operations.DMLWriteOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.NoRowsOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.SpliceBaseOperation;
 import com.splicemachine.stream.RemoteQueryClientImpl;
@@ -28,6 +30,7 @@ import com.splicemachine.db.impl.sql.execute.BaseActivation;
 import com.splicemachine.derby.iapi.sql.execute.DataSetProcessorFactory;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.stream.control.ControlDataSetProcessor;
+import com.splicemachine.derby.stream.control.ParallelControlDataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.DistributedDataSetProcessor;
 import com.splicemachine.derby.stream.spark.HregionDataSetProcessor;
@@ -73,11 +76,44 @@ public class CostChoosingDataSetProcessorFactory implements DataSetProcessorFact
             default:
                 break;
         }
-        if (((BaseActivation)activation).useSpark())
+        boolean useSpark = ((BaseActivation)activation).useSpark();
+        if (allowsParallelControlExecution(activation, op, useSpark)) {
+            if (LOG.isTraceEnabled())
+                SpliceLogUtils.trace(LOG, "chooseProcessor(): parallel localProcessor for op %s", op.getName());
+            return new ParallelControlDataSetProcessor(driver.getTxnSupplier(), driver.getTransactor(), driver.getOperationFactory(), driver.getConfiguration());
+        }
+        if (useSpark)
             return new SparkDataSetProcessor();
         return new ControlDataSetProcessor(driver.getTxnSupplier(), driver.getTransactor(), driver.getOperationFactory());
     }
 
+    /**
+     * Read-only, non-cursor statements which are expected to touch enough rows are run on the
+     * control side using several threads. Small queries are not worth the thread hand-offs, and
+     * large ones are better off in Spark.
+     */
+    private boolean allowsParallelControlExecution(Activation activation, SpliceOperation op, boolean useSpark){
+        if (op == null || op instanceof DMLWriteOperation || activation.getCursorName() != null)
+            return false;
+        SConfiguration config = driver.getConfiguration();
+        long minRows = config.getParallelControlMinRows();
+        long maxRows = config.getParallelControlMaxRows();
+        if (minRows < 0)
+            return false;
+        double estimatedRows = maxEstimatedRowCount(op);
+        if (useSpark)
+            return maxRows > 0 && estimatedRows <= maxRows;
+        return estimatedRows >= minRows;
+    }
+
+    private static double maxEstimatedRowCount(SpliceOperation op){
+        double max = op.getEstimatedRowCount();
+        for (SpliceOperation child : op.getSubOperations()) {
+            max = Math.max(max, maxEstimatedRowCount(child));
+        }
+        return max;
+    }
+
     @Override
     public DataSetProcessor localProcessor(@Nullable Activation activation,@Nullable SpliceOperation op){
         if (LOG.isTraceEnabled())
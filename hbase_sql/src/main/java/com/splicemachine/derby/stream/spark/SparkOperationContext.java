@@ -358,6 +358,21 @@ public class SparkOperationContext<Op extends SpliceOperation> implements Operat
         return regionTooBusyExceptions.value();
     }
 
+    @Override
+    public void recordSpill(long rows, long bytes){
+        // Spark spills on its own, and reports it in its own metrics
+    }
+
+    @Override
+    public long getRecordsSpilled(){
+        return 0l;
+    }
+
+    @Override
+    public long getBytesSpilled(){
+        return 0l;
+    }
+
 
     @Override
     public void pushScope(String displayName){
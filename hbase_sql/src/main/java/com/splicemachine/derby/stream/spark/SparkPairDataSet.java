@@ -118,6 +118,11 @@ public class SparkPairDataSet<K,V> implements PairDataSet<K, V>{
         return new SparkPairDataSet<>(rdd2);
     }
 
+    @Override
+    public PairDataSet<K, V> sortByKey(Comparator<K> comparator, String name, OperationContext context) {
+        return sortByKey(comparator, name);
+    }
+
     @Override
     public PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator) {
         partitioner.initialize();
@@ -140,6 +145,11 @@ public class SparkPairDataSet<K,V> implements PairDataSet<K, V>{
         return new SparkPairDataSet<>(rdd1);
     }
 
+    @Override
+    public PairDataSet<K, Iterable<V>> groupByKey(String name, OperationContext context) {
+        return groupByKey(name);
+    }
+
     @Override
     public <W> PairDataSet<K, Tuple2<V, Optional<W>>> hashLeftOuterJoin(PairDataSet<K, W> rightDataSet){
         return new SparkPairDataSet<>(rdd.leftOuterJoin(((SparkPairDataSet<K,W>)rightDataSet).rdd));
@@ -73,7 +73,7 @@ public class SpliceMasterObserver extends BaseMasterObserver {
         int timestampPort=configuration.getTimestampServerBindPort();
         int timestampBlockSize = configuration.getTimestampBlockSize();
 
-        TimestampBlockManager tbm= new ZkTimestampBlockManager(rzk,timestampReservedPath);
+        TimestampBlockManager tbm= new ZkTimestampBlockManager(rzk,timestampReservedPath,configuration.getSpliceRootPath());
         this.timestampServer =new TimestampServer(timestampPort,tbm,timestampBlockSize);
 
         this.timestampServer.startServer();
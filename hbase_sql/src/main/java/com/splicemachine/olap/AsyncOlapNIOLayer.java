@@ -42,6 +42,7 @@ import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -162,7 +163,9 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         private volatile boolean submitted=false;
         private volatile Throwable cause=null;
         private volatile long tickTimeNanos=TimeUnit.MILLISECONDS.toNanos(1000L);
-        private ScheduledFuture<?> keepAlive;
+        private volatile long statusRequestedAt;
+        private final AtomicBoolean statusOutstanding=new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> keepAlive;
         private final ByteString data;
 
         OlapFuture(DistributedJob job) throws IOException {
@@ -251,7 +254,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Failed job "+ job.getUniqueName() + " due to " + cause);
             this.cause=cause;
             this.failed=true;
-            this.keepAlive.cancel(false);
+            if(keepAlive!=null)
+                keepAlive.cancel(false);
             this.executionList.execute();
         }
 
@@ -259,7 +263,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             if (LOG.isTraceEnabled())
                 LOG.trace("Successful job "+ job.getUniqueName());
             this.finalResult = result;
-            this.keepAlive.cancel(false);
+            if(keepAlive!=null)
+                keepAlive.cancel(false);
             this.executionList.execute();
         }
 
@@ -293,12 +298,37 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             }
         }
 
+        void requestStatus(){
+            if(isDone()) return;
+            statusRequestedAt=System.nanoTime();
+            statusOutstanding.set(true);
+            Future<Channel> cFut = channelPool.acquire();
+            cFut.addListener(new StatusListener(this));
+        }
+
+        /**
+         * Called when the server answers a status request with "still running".
+         *
+         * @return true if the server held on to the request for (roughly) a full tick before answering, in which
+         * case the next status request can be sent right away.
+         */
+        boolean statusReturned(){
+            boolean serverWaited=System.nanoTime()-statusRequestedAt>=tickTimeNanos/2;
+            statusOutstanding.set(false);
+            return serverWaited;
+        }
+
         @Override
         public void run() {
+            /*
+             * Status requests are held by the server until the job finishes (or a tick passes), so usually
+             * there is one outstanding already and we have nothing to do. This is a fallback for servers which
+             * answer right away, and for requests which have been lost along the way.
+             */
             if (submitted && !isDone()) {
                 // don't request status until submitted
-                Future<Channel> cFut = channelPool.acquire();
-                cFut.addListener(new StatusListener(this));
+                if(!statusOutstanding.get() || System.nanoTime()-statusRequestedAt>2*tickTimeNanos)
+                    requestStatus();
             }
         }
 
@@ -365,7 +395,9 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Status check job " + olapFuture.job.getUniqueName());
             }
 
-            OlapMessage.Status status=OlapMessage.Status.newBuilder().build();
+            OlapMessage.Status status=OlapMessage.Status.newBuilder()
+                    .setWaitTimeMillis(TimeUnit.NANOSECONDS.toMillis(olapFuture.tickTimeNanos))
+                    .build();
             OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setType(OlapMessage.Command.Type.STATUS)
@@ -439,8 +471,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         @Override
         protected void channelRead0(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws Exception{
             OlapResult or=parseFromResponse(olapResult);
+            boolean requestAgain=false;
             //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
             if(or instanceof SubmittedResult) {
+                requestAgain=future.statusReturned();
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
             }else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
                 // The job is no longer submitted, assume aborted
@@ -460,6 +494,21 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             Channel channel=ctx.channel();
             channelPool.release(channel); //release the underlying channel back to the pool cause we're done
             future.signal();
+            if(requestAgain)
+                future.requestStatus();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception{
+            /*
+             * The channel was closed while we were waiting on a status response, so that response is never
+             * coming. Ask again on a fresh channel, which fails the job if the server is really gone.
+             */
+            ctx.pipeline().remove(this);
+            channelPool.release(ctx.channel());
+            future.statusOutstanding.set(false);
+            future.requestStatus();
+            ctx.fireChannelInactive();
         }
 
         @Override
@@ -482,9 +531,11 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         @Override
         protected void channelRead0(ChannelHandlerContext ctx,OlapMessage.Response olapResult) throws Exception{
             OlapResult or=parseFromResponse(olapResult);
+            boolean submitted=false;
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.submitted = true;
+                submitted=true;
             }else{
                 Throwable t=or.getThrowable();
                 LOG.error("Job wasn't submitted, result: " + or);
@@ -498,6 +549,10 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             Channel channel=ctx.channel();
             channelPool.release(channel); //release the underlying channel back to the pool cause we're done
             future.signal();
+            if(submitted){
+                //the server holds on to this until the job finishes, so we hear about it as soon as it does
+                future.requestStatus();
+            }
         }
 
         @Override
@@ -22,6 +22,8 @@ import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
 import scala.concurrent.duration.FiniteDuration;
 
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -36,6 +38,7 @@ public class OlapJobStatus implements OlapStatus{
 
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private volatile OlapResult results;
+    private final Queue<Runnable> finishListeners = new ConcurrentLinkedQueue<>();
 
     public OlapJobStatus(long tickTime){
         //TODO -sf- remove the constants
@@ -80,6 +83,7 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.CANCELED);
         }while(shouldContinue);
         results = new CancelledResult();
+        notifyFinished();
     }
 
     public boolean isAvailable(){
@@ -119,6 +123,7 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.COMPLETE);
         }while(shouldContinue);
         results = result;
+        notifyFinished();
     }
 
     public boolean markRunning(){
@@ -147,6 +152,21 @@ public class OlapJobStatus implements OlapStatus{
 
     /*package-private methods*/
     /* ****************************************************************************************************************/
+
+    /**
+     * Runs {@code listener} once the job is cancelled or completed, or right away if it already is. The listener
+     * is run by the thread which finishes the job.
+     */
+    void addFinishListener(Runnable listener){
+        finishListeners.add(listener);
+        if(currentState.get().isFinal())
+            notifyFinished();
+    }
+
+    void removeFinishListener(Runnable listener){
+        finishListeners.remove(listener);
+    }
+
     State currentState(){
         /*
          * Get the current state of the job. If the job has timed out because the waiting client has died (or
@@ -158,6 +178,13 @@ public class OlapJobStatus implements OlapStatus{
     /*private helper methods*/
     /* ****************************************************************************************************************/
 
+    private void notifyFinished(){
+        Runnable listener;
+        while((listener=finishListeners.poll())!=null){
+            listener.run();
+        }
+    }
+
     private State checkFailed(){
         /*
          * Checks whether the current state is failed or not. Used by internal compaction checking to determine
@@ -59,7 +59,7 @@ public class OlapServer {
         OlapJobRegistry registry = new MappedJobRegistry(1L,TimeUnit.SECONDS); //TODO -sf- make this tick time configurable
         ChannelHandler submitHandler = new OlapRequestHandler(config,
                 registry,clock,config.getOlapClientTickTime());
-        ChannelHandler statusHandler = new OlapStatusHandler(registry);
+        ChannelHandler statusHandler = new OlapStatusHandler(registry,executor);
         ChannelHandler cancelHandler = new OlapCancelHandler(registry);
 
         bootstrap.setPipelineFactory(new OlapPipelineFactory(submitHandler,cancelHandler,statusHandler));
@@ -18,17 +18,26 @@ package com.splicemachine.olap;
 import com.splicemachine.olap.OlapMessage;
 import com.splicemachine.derby.iapi.sql.olap.OlapResult;
 import com.splicemachine.derby.iapi.sql.olap.OlapStatus;
+import org.apache.log4j.Logger;
 import org.sparkproject.jboss.netty.channel.*;
 import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Scott Fines
  *         Date: 4/1/16
  */
 public class OlapStatusHandler extends AbstractOlapHandler{
+    private static final Logger LOG = Logger.getLogger(OlapStatusHandler.class);
 
-    public OlapStatusHandler(OlapJobRegistry registry){
+    private final ScheduledExecutorService timer;
+
+    public OlapStatusHandler(OlapJobRegistry registry,ScheduledExecutorService timer){
         super(registry);
+        this.timer=timer;
     }
 
     @Override
@@ -39,8 +48,66 @@ public class OlapStatusHandler extends AbstractOlapHandler{
             return;
         }
         OlapJobStatus status = jobRegistry.getStatus(cmd.getUniqueName());
-        writeResponse(e,cmd.getUniqueName(),status);
+        long waitTime = cmd.getExtension(OlapMessage.Status.command).getWaitTimeMillis();
+        if(waitTime>0 && status!=null && !status.currentState().isFinal()){
+            /*
+             * The client is willing to wait, so hold on to the request and answer it as soon as the job
+             * finishes. We never wait more than a tick, so that the client still checks in as often as
+             * the failure detector expects.
+             */
+            new ParkedRequest(e,cmd.getUniqueName(),status).park(Math.min(waitTime,jobRegistry.tickTime()));
+        }else
+            writeResponse(e,cmd.getUniqueName(),status);
 
         super.messageReceived(ctx,e);
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+
+    /**
+     * A status request which is answered either when the job finishes, or when its wait time runs out, whichever
+     * happens first.
+     */
+    private class ParkedRequest implements Runnable{
+        private final MessageEvent e;
+        private final String requestId;
+        private final OlapJobStatus status;
+        private final AtomicBoolean answered = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timeout;
+
+        ParkedRequest(MessageEvent e,String requestId,OlapJobStatus status){
+            this.e=e;
+            this.requestId=requestId;
+            this.status=status;
+        }
+
+        void park(long waitTimeMillis){
+            timeout = timer.schedule(new Runnable(){
+                @Override
+                public void run(){
+                    status.removeFinishListener(ParkedRequest.this);
+                    respond();
+                }
+            },waitTimeMillis,TimeUnit.MILLISECONDS);
+            status.addFinishListener(this);
+        }
+
+        @Override
+        public void run(){
+            ScheduledFuture<?> t = timeout;
+            if(t!=null)
+                t.cancel(false);
+            respond();
+        }
+
+        private void respond(){
+            if(!answered.compareAndSet(false,true)) return;
+            try{
+                writeResponse(e,requestId,status);
+            }catch(IOException ioe){
+                LOG.warn("Unable to respond to status request for job "+requestId,ioe);
+            }
+        }
+    }
 }
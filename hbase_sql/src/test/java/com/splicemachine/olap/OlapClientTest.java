@@ -81,6 +81,20 @@ public class OlapClientTest {
         Assert.assertEquals(13, result.order);
     }
 
+    @Test(timeout = 3000)
+    public void completionIsNotDelayedByTickTest() throws Exception {
+        /*
+         * The server ticks once a second, so a client which only polls would not see this job's result
+         * until at least a second after submission
+         */
+        long start = System.currentTimeMillis();
+        DumbOlapResult result = olapClient.execute(new DumbDistributedJob(50,17));
+        long elapsed = System.currentTimeMillis()-start;
+        Assert.assertNotNull(result);
+        Assert.assertEquals(17, result.order);
+        Assert.assertTrue("Completion took "+elapsed+" ms, it should not wait for a status tick",elapsed<500);
+    }
+
     @Test(timeout = 3000, expected = IllegalStateException.class)
     public void cantReuseJobsTest() throws Exception {
         final Random rand = new Random(0);
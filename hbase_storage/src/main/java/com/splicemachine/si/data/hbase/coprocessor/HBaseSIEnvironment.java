@@ -46,16 +46,22 @@ import com.splicemachine.si.impl.HOperationFactory;
 import com.splicemachine.si.impl.QueuedKeepAliveScheduler;
 import com.splicemachine.si.impl.SimpleTxnOperationFactory;
 import com.splicemachine.si.impl.TxnNetworkLayerFactory;
+import com.splicemachine.si.impl.ZkReadOnlyTxnWatermark;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.hlc.HLC;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.readresolve.SynchronousReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.store.CompletedTxnCacheSupplier;
+import com.splicemachine.si.impl.txn.LocalReadOnlyTxnWatermark;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.HFilterFactory;
 import com.splicemachine.storage.HNIOFileSystem;
 import com.splicemachine.storage.PartitionInfoCache;
 import com.splicemachine.timestamp.api.TimestampSource;
+import com.splicemachine.timestamp.hbase.ZkHLCStore;
 import com.splicemachine.timestamp.hbase.ZkTimestampSource;
 
 /**
@@ -77,6 +83,7 @@ public class HBaseSIEnvironment implements SIEnvironment{
     private final Clock clock;
     private final DistributedFileSystem fileSystem;
     private final SnowflakeFactory snowflakeFactory;
+    private final ReadOnlyTxnWatermark readOnlyTxnWatermark;
     private SIDriver siDriver;
 
 
@@ -118,6 +125,7 @@ public class HBaseSIEnvironment implements SIEnvironment{
                 config.getTransactionTimeout(),
                 config.getTransactionKeepAliveThreads(),
                 txnStore);
+        this.readOnlyTxnWatermark = new LocalReadOnlyTxnWatermark(timestampSource);
         siDriver = SIDriver.loadDriver(this);
     }
 
@@ -126,7 +134,10 @@ public class HBaseSIEnvironment implements SIEnvironment{
         ByteComparisons.setComparator(HBaseComparator.INSTANCE);
         this.config=HConfiguration.getConfiguration();
 
-        this.timestampSource =new ZkTimestampSource(config,rzk);
+        if(config.useHLCTimestamps())
+            this.timestampSource =new HLCTimestampSource(new HLC(),new ZkHLCStore(rzk,config.getSpliceRootPath()),config.getHLCReservationWindow(),config.getHLCMaxClockOffset());
+        else
+            this.timestampSource =new ZkTimestampSource(config,rzk);
         this.partitionCache = PartitionCacheService.loadPartitionCache(config);
         this.partitionFactory =TableFactoryService.loadTableFactory(clock, this.config,partitionCache);
         TxnNetworkLayerFactory txnNetworkLayerFactory= TableFactoryService.loadTxnNetworkLayer(this.config);
@@ -146,6 +157,8 @@ public class HBaseSIEnvironment implements SIEnvironment{
                 config.getTransactionTimeout(),
                 config.getTransactionKeepAliveThreads(),
                 txnStore);
+        this.readOnlyTxnWatermark = new ZkReadOnlyTxnWatermark(rzk,config.getSpliceRootPath(),timestampSource,
+                config.getTransactionKeepAliveInterval());
         siDriver = SIDriver.loadDriver(this);
     }
 
@@ -240,4 +253,9 @@ public class HBaseSIEnvironment implements SIEnvironment{
     public SnowflakeFactory snowflakeFactory() {
         return snowflakeFactory;
     }
+
+    @Override
+    public ReadOnlyTxnWatermark readOnlyTxnWatermark(){
+        return readOnlyTxnWatermark;
+    }
 }
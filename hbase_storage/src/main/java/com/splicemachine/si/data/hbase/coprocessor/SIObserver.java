@@ -42,6 +42,7 @@ import org.apache.hadoop.hbase.regionserver.*;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.regionserver.wal.WALEdit;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
 import org.apache.log4j.Logger;
 import org.sparkproject.guava.collect.Iterables;
 import org.sparkproject.guava.collect.Maps;
@@ -82,6 +83,7 @@ public class SIObserver extends BaseRegionObserver{
     private TxnOperationFactory txnOperationFactory;
     private OperationStatusFactory operationStatusFactory;
     private TransactionalRegion region;
+    private String regionName;
 
     @Override
     public void start(CoprocessorEnvironment e) throws IOException{
@@ -96,6 +98,7 @@ public class SIObserver extends BaseRegionObserver{
             txnOperationFactory=new SimpleTxnOperationFactory(driver.getExceptionFactory(),HOperationFactory.INSTANCE);
             //noinspection unchecked
             Partition regionPartition = new RegionPartition((HRegion)rce.getRegion());
+            regionName = regionPartition.getName();
             region=new TxnRegion(regionPartition,
                     driver.getRollForward(),
                     driver.getReadResolver(regionPartition),
@@ -147,6 +150,58 @@ public class SIObserver extends BaseRegionObserver{
         }
     }
 
+    @Override
+    public void postOpen(ObserverContext<RegionCoprocessorEnvironment> e){
+        if(tableEnvMatch){
+            //the region may have been written elsewhere since we last had it open
+            invalidateRecentWriters();
+        }
+        super.postOpen(e);
+    }
+
+    @Override
+    public void preClose(ObserverContext<RegionCoprocessorEnvironment> c,boolean abortRequested) throws IOException{
+        if(tableEnvMatch){
+            invalidateRecentWriters();
+        }
+        super.preClose(c,abortRequested);
+    }
+
+    @Override
+    public void postClose(ObserverContext<RegionCoprocessorEnvironment> e,boolean abortRequested){
+        if(tableEnvMatch){
+            //forget anything written between preClose and the close itself
+            invalidateRecentWriters();
+        }
+        super.postClose(e,abortRequested);
+    }
+
+    @Override
+    public void preSplit(ObserverContext<RegionCoprocessorEnvironment> c,byte[] splitRow) throws IOException{
+        if(tableEnvMatch){
+            invalidateRecentWriters();
+        }
+        super.preSplit(c,splitRow);
+    }
+
+    @Override
+    public void preBulkLoadHFile(ObserverContext<RegionCoprocessorEnvironment> ctx,List<Pair<byte[], String>> familyPaths) throws IOException{
+        if(tableEnvMatch){
+            //bulk loaded rows don't pass through the transactor, so we can't trust what we know about their writers
+            invalidateRecentWriters();
+        }
+        super.preBulkLoadHFile(ctx,familyPaths);
+    }
+
+    @Override
+    public boolean postBulkLoadHFile(ObserverContext<RegionCoprocessorEnvironment> ctx,List<Pair<byte[], String>> familyPaths,boolean hasLoaded) throws IOException{
+        if(tableEnvMatch){
+            //forget anything written while the files were being loaded
+            invalidateRecentWriters();
+        }
+        return super.postBulkLoadHFile(ctx,familyPaths,hasLoaded);
+    }
+
     @Override
     public void preDelete(ObserverContext<RegionCoprocessorEnvironment> e,Delete delete,WALEdit edit,
                           Durability writeToWAL) throws IOException{
@@ -165,10 +220,8 @@ public class SIObserver extends BaseRegionObserver{
     public InternalScanner preCompact(ObserverContext<RegionCoprocessorEnvironment> e,Store store,
                                       InternalScanner scanner,ScanType scanType,CompactionRequest compactionRequest) throws IOException{
         if(tableEnvMatch){
-            SIDriver driver=SIDriver.driver();
-            SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
-                    driver.getRollForward(),
-                    driver.getConfiguration().getActiveTransactionCacheSize());
+            SICompactionState state = SICompactionState.newCompactionState(SIDriver.driver(),
+                    compactionRequest!=null && compactionRequest.isAllFiles());
             return new SICompactionScanner(state,scanner);
         }else{
             return super.preCompact(e,store,scanner,scanType,compactionRequest);
@@ -254,6 +307,12 @@ public class SIObserver extends BaseRegionObserver{
 
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    private void invalidateRecentWriters(){
+        SIDriver driver=SIDriver.driver();
+        if(driver!=null && regionName!=null)
+            driver.getRecentWriterCache().invalidate(regionName);
+    }
+
     private void addSIFilterToGet(Get get) throws IOException{
         byte[] attribute=get.getAttribute(SIConstants.SI_TRANSACTION_ID_KEY);
         assert attribute!=null: "Transaction information is missing";
@@ -43,6 +43,8 @@ import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.region.RegionServerControl;
 import com.splicemachine.si.impl.region.RegionTxnStore;
 import com.splicemachine.si.impl.region.TransactionResolver;
+import com.splicemachine.si.impl.HTransactionTimeout;
+import com.splicemachine.si.impl.TxnUtils;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.Source;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -55,6 +57,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
     private static final Logger LOG=Logger.getLogger(TxnLifecycleEndpoint.class);
 
     private TxnLifecycleStore lifecycleStore;
+    private HRegion region;
     private volatile boolean isTxnTable=false;
 
     public static final CountedReference<TransactionResolver> resolverRef=new CountedReference<>(new Supplier<TransactionResolver>(){
@@ -71,7 +74,7 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
 
     @Override
     public void start(CoprocessorEnvironment env) throws IOException{
-        HRegion region=(HRegion)((RegionCoprocessorEnvironment)env).getRegion();
+        region=(HRegion)((RegionCoprocessorEnvironment)env).getRegion();
         HBaseSIEnvironment siEnv = HBaseSIEnvironment.loadEnvironment(new SystemClock(),ZkUtils.getRecoverableZooKeeper());
         SConfiguration configuration=siEnv.configuration();
         TableType table=EnvUtils.getTableType(configuration,(RegionCoprocessorEnvironment)env);
@@ -172,6 +175,55 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     }
 
+    @Override
+    public void getTransactions(RpcController controller,TxnMessage.TxnsRequest request,RpcCallback<TxnMessage.TxnsResponse> done){
+        try{
+            TxnMessage.TxnsResponse.Builder response=TxnMessage.TxnsResponse.newBuilder();
+            int count=request.getTxnIdsCount();
+            for(int i=0;i<count;i++){
+                long txnId=request.getTxnIds(i);
+                if(!region.getRegionInfo().containsRow(TxnUtils.getRowKey(txnId))){
+                    /*
+                     * The client's view of the region boundaries is stale (the region may have split since),
+                     * so let it look this one up on its own
+                     */
+                    response.addNotInRegion(txnId);
+                    continue;
+                }
+                TxnMessage.Txn transaction=lifecycleStore.getTransaction(txnId);
+                if(transaction.getInfo().getTxnId()>=0)
+                    response.addTxns(transaction);
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
+    @Override
+    public void keepAliveTransactions(RpcController controller,TxnMessage.KeepAliveRequest request,RpcCallback<TxnMessage.KeepAliveResponse> done){
+        try{
+            TxnMessage.KeepAliveResponse.Builder response=TxnMessage.KeepAliveResponse.newBuilder();
+            int count=request.getTxnIdsCount();
+            for(int i=0;i<count;i++){
+                long txnId=request.getTxnIds(i);
+                if(!region.getRegionInfo().containsRow(TxnUtils.getRowKey(txnId))){
+                    response.addNotInRegion(txnId);
+                    continue;
+                }
+                try{
+                    if(keepAlive(txnId))
+                        response.addActive(txnId);
+                }catch(HTransactionTimeout tte){
+                    response.addTimedOut(txnId);
+                }
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
     @Override
     public void getActiveTransactionIds(RpcController controller,TxnMessage.ActiveTxnRequest request,RpcCallback<TxnMessage.ActiveTxnIdResponse> done){
         long endTxnId=request.getEndTxnId();
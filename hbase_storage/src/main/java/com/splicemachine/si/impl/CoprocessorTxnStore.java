@@ -27,6 +27,7 @@ import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.encoding.MultiFieldEncoder;
 import com.splicemachine.hbase.SpliceRpcController;
 import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
@@ -35,6 +36,7 @@ import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.ByteSlice;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
@@ -51,6 +53,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 @ThreadSafe
 public class CoprocessorTxnStore implements TxnStore {
+    private static final Logger LOG=Logger.getLogger(CoprocessorTxnStore.class);
     private final TxnNetworkLayerFactory tableFactory;
     private TxnSupplier cache; //a transaction store which uses a global cache for us
     @ThreadSafe
@@ -144,6 +147,61 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    @Override
+    public Txn.State[] keepAlive(long[] txnIds) throws IOException{
+        Txn.State[] states=new Txn.State[txnIds.length];
+        if(txnIds.length==0) return states;
+        Map<Long,Txn.State> found=new HashMap<>(txnIds.length);
+        try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+            for(List<Long> pending : groupByBucket(txnIds)){
+                while(!pending.isEmpty()){
+                    TxnMessage.KeepAliveResponse response;
+                    try{
+                        response=table.keepAlive(getTransactionRowKey(pending.get(0)),
+                                TxnMessage.KeepAliveRequest.newBuilder().addAllTxnIds(pending).build());
+                    }catch(IOException ioe){
+                        /*
+                         * Only this region (and those after it in the bucket, which we can no longer tell apart)
+                         * failed, so fall back to keeping these alive one at a time. Any which still fail are
+                         * left unknown for the next round, and we carry on with the other buckets
+                         */
+                        LOG.warn("Unable to keep "+pending.size()+" transactions alive in bulk, keeping them alive one at a time",ioe);
+                        for(Long txnId : pending){
+                            found.put(txnId,keepAliveSingle(table,txnId));
+                        }
+                        break;
+                    }
+                    for(Long txnId : response.getActiveList()){
+                        found.put(txnId,Txn.State.ACTIVE);
+                    }
+                    for(Long txnId : response.getTimedOutList()){
+                        found.put(txnId,Txn.State.ROLLEDBACK);
+                    }
+                    List<Long> notInRegion=response.getNotInRegionList();
+                    Set<Long> elsewhere=new HashSet<>(notInRegion);
+                    for(Long txnId : pending){
+                        //anything else which the region holds is no longer active
+                        if(!found.containsKey(txnId) && !elsewhere.contains(txnId))
+                            found.put(txnId,Txn.State.COMMITTED);
+                    }
+                    if(notInRegion.size()>=pending.size()){
+                        //the region moved or split under us, so fall back to keeping them alive one at a time
+                        for(Long txnId : notInRegion){
+                            found.put(txnId,keepAliveSingle(table,txnId));
+                        }
+                        break;
+                    }
+                    //the rest are in the following regions of this bucket
+                    pending=notInRegion;
+                }
+            }
+        }
+        for(int i=0;i<txnIds.length;i++){
+            states[i]=found.get(txnIds[i]);
+        }
+        return states;
+    }
+
     @Override
     public void elevateTransaction(Txn txn,byte[] newDestinationTable) throws IOException{
         byte[] rowKey=getTransactionRowKey(txn.getTxnId());
@@ -242,6 +300,50 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        if(txnIds.length==0) return txns;
+        if(txnIds.length==1){
+            txns[0]=getTransaction(txnIds[0]);
+            return txns;
+        }
+        lookups.addAndGet(txnIds.length);
+        Map<Long,TxnView> found=new HashMap<>(txnIds.length);
+        try(TxnNetworkLayer table=tableFactory.accessTxnNetwork()){
+            for(List<Long> pending : groupByBucket(txnIds)){
+                while(!pending.isEmpty()){
+                    TxnMessage.TxnsResponse response=table.getTxns(getTransactionRowKey(pending.get(0)),
+                            TxnMessage.TxnsRequest.newBuilder().addAllTxnIds(pending).build());
+                    int size=response.getTxnsCount();
+                    for(int i=0;i<size;i++){
+                        TxnView txn=decode(response.getTxns(i));
+                        if(txn!=null)
+                            found.put(txn.getTxnId(),txn);
+                    }
+                    if(response.getNotInRegionCount()>=pending.size()){
+                        //the region moved or split under us, so fall back to looking them up one at a time
+                        for(Long txnId : response.getNotInRegionList()){
+                            TxnView txn=decode(table.getTxn(getTransactionRowKey(txnId),
+                                    TxnMessage.TxnRequest.newBuilder().setTxnId(txnId).build()));
+                            if(txn!=null)
+                                found.put(txnId,txn);
+                        }
+                        break;
+                    }
+                    //the rest are in the following regions of this bucket
+                    pending=response.getNotInRegionList();
+                }
+            }
+        }catch(Throwable throwable){
+            throw new IOException(throwable);
+        }
+        for(int i=0;i<txnIds.length;i++){
+            txns[i]=found.get(txnIds[i]);
+        }
+        return txns;
+    }
+
     /*caching methods--since we don't have a cache, these are no-ops*/
     @Override
     public boolean transactionCached(long txnId){
@@ -399,6 +501,42 @@ public class CoprocessorTxnStore implements TxnStore {
         return encoder.build();
     }
 
+    /*
+     * The transaction table is split by bucket, so group the ids by bucket and sort them, so that
+     * each group can be sent to a single region with a single call.
+     */
+    private static List<List<Long>> groupByBucket(long[] txnIds){
+        long[] sorted=Arrays.copyOf(txnIds,txnIds.length);
+        Arrays.sort(sorted);
+        List<List<Long>> groups=new ArrayList<>();
+        for(int bucket=0;bucket<SIConstants.TRANSACTION_TABLE_BUCKET_COUNT;bucket++){
+            List<Long> group=new ArrayList<>();
+            long last=-1l;
+            for(long txnId : sorted){
+                if((txnId&(SIConstants.TRANSACTION_TABLE_BUCKET_COUNT-1))==bucket && txnId!=last){
+                    group.add(txnId);
+                    last=txnId;
+                }
+            }
+            if(!group.isEmpty())
+                groups.add(group);
+        }
+        return groups;
+    }
+
+    private Txn.State keepAliveSingle(TxnNetworkLayer table,long txnId){
+        TxnMessage.TxnLifecycleMessage lifecycle=TxnMessage.TxnLifecycleMessage.newBuilder()
+                .setTxnId(txnId).setAction(TxnMessage.LifecycleAction.KEEPALIVE).build();
+        try{
+            return table.lifecycleAction(getTransactionRowKey(txnId),lifecycle).getContinue()?Txn.State.ACTIVE:Txn.State.COMMITTED;
+        }catch(HTransactionTimeout tte){
+            return Txn.State.ROLLEDBACK;
+        }catch(IOException ioe){
+            LOG.warn("Unable to keep transaction "+txnId+" alive, will retry it",ioe);
+            return null;
+        }
+    }
+
     private static byte[] getTransactionRowKey(long txnId){
         return TxnUtils.getRowKey(txnId);
     }
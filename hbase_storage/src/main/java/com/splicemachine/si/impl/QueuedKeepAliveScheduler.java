@@ -17,19 +17,39 @@ package com.splicemachine.si.impl;
 
 import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.annotations.ThreadSafe;
-import com.splicemachine.concurrent.ThreadLocalRandom;
 import com.splicemachine.si.api.txn.KeepAliveScheduler;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Keeps transactions alive in batches.
+ *
+ * Rather than scheduling a separate keep alive (and therefore a separate RPC) for each active transaction,
+ * the active transactions are collected on every tick and sent to the transaction store in a single
+ * bulk call, which groups them by transaction table region.
+ *
  * @author Scott Fines
  *         Date: 6/25/14
  */
@@ -38,14 +58,23 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
     private final long maxWaitIntervalMs;
     private final long maxKeepAliveIntervalMs;
     private final ScheduledExecutorService threadPool;
-    private final com.splicemachine.concurrent.ThreadLocalRandom random;
+    private final ConcurrentMap<Long,KeepAlive> activeTxns=new ConcurrentHashMap<>();
 
     private final
     @ThreadSafe
     TxnStore txnStore;
 
     private volatile boolean shutdown=false;
+    private final AtomicBoolean jmxRegistered=new AtomicBoolean(false);
 
+    /*metrics*/
+    private final AtomicLong batchCount=new AtomicLong(0l);
+    private final AtomicLong keptAliveCount=new AtomicLong(0l);
+    private final AtomicLong missedDeadlineCount=new AtomicLong(0l);
+    private final AtomicLong failedBatchCount=new AtomicLong(0l);
+    private final AtomicLong unknownCount=new AtomicLong(0l);
+    private final AtomicLong totalBatchLatency=new AtomicLong(0l);
+    private volatile long maxBatchLatency=0l;
 
     public QueuedKeepAliveScheduler(long maxWaitIntervalMs,long maxKeepAliveIntervalMs,
                                     int numKeepers,TxnStore txnStore){
@@ -53,17 +82,26 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
         ThreadFactory factory=new ThreadFactoryBuilder().setNameFormat("keepAlive-thread-%d").setDaemon(true).build();
 
         this.threadPool=Executors.newScheduledThreadPool(numKeepers,factory);
-        this.random=ThreadLocalRandom.current();
         this.txnStore=txnStore;
         this.maxKeepAliveIntervalMs=maxKeepAliveIntervalMs;
+        this.threadPool.scheduleWithFixedDelay(new Runnable(){
+            @Override
+            public void run(){
+                try{
+                    keepAliveBatch();
+                }catch(Throwable t){
+                    //never let an exception cancel the tick
+                    LOG.error("Unexpected error performing keep alives",t);
+                }
+            }
+        },maxWaitIntervalMs,maxWaitIntervalMs,TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void scheduleKeepAlive(Txn txn){
         if(shutdown) return;
 
-//				activeTxns.add(txn);
-        threadPool.schedule(new KeepAlive(txn),random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+        activeTxns.putIfAbsent(txn.getTxnId(),new KeepAlive(txn));
     }
 
     @Override
@@ -74,79 +112,179 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
     public void stop(){
         shutdown=true;
         threadPool.shutdownNow();
+        activeTxns.clear();
     }
 
-    private class KeepAlive implements Runnable{
-        private final Txn txn;
-        private long lastKeepAliveTime;
-
-        public KeepAlive(Txn txn){
-            this.txn=txn;
-            this.lastKeepAliveTime=System.currentTimeMillis();
+    @Override
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        if(jmxRegistered.compareAndSet(false,true)){
+            ObjectName name=new ObjectName("com.splicemachine.si:type=KeepAliveScheduler");
+            mbs.registerMBean(new Statistics(),name);
         }
+    }
+
+    public long getBatchCount(){ return batchCount.get(); }
 
-        @Override
-        public void run(){
+    public long getKeptAliveCount(){ return keptAliveCount.get(); }
+
+    public long getMissedDeadlineCount(){ return missedDeadlineCount.get(); }
+
+    public long getFailedBatchCount(){ return failedBatchCount.get(); }
+
+    public long getUnknownCount(){ return unknownCount.get(); }
+
+    public long getTotalBatchLatency(){ return totalBatchLatency.get(); }
+
+    public long getMaxBatchLatency(){ return maxBatchLatency; }
+
+    public int getActiveTransactionCount(){ return activeTxns.size(); }
+
+    /**
+     * Perform a single round of keep alives for all the transactions which are currently active.
+     */
+    void keepAliveBatch(){
+        if(shutdown) return;
+        List<KeepAlive> batch=new ArrayList<>(activeTxns.size());
+        long now=System.currentTimeMillis();
+        Iterator<KeepAlive> iter=activeTxns.values().iterator();
+        while(iter.hasNext()){
+            KeepAlive keepAlive=iter.next();
+            Txn txn=keepAlive.txn;
             if(txn.getEffectiveState()!=Txn.State.ACTIVE){
-                return; //nothing to do, we no longer need to keep anything alive
+                iter.remove(); //nothing to do, we no longer need to keep anything alive
+                continue;
+            }
+            long keepAliveTime=now-keepAlive.lastKeepAliveTime;
+            if(keepAliveTime>maxKeepAliveIntervalMs){
+                missedDeadlineCount.incrementAndGet();
+                SpliceLogUtils.warn(LOG,"It has been %d ms since the last time we tried to perform "+
+                        "a keep alive for transaction %d, which is longer than the maximum interval",keepAliveTime,txn.getTxnId());
             }
-            long keepAliveTime=System.currentTimeMillis()-lastKeepAliveTime;
-
             if(keepAliveTime>2*maxKeepAliveIntervalMs){
-                SpliceLogUtils.warn(LOG,"It has been %d ms since the last time we tried to perform"+
-                        "a keep alive, which is longer than the maximum interval");
-                                /*
-								 * We are the only ones trying to keep this transaction alive. If we know
-								 * for a fact that we had to wait longer than the transaction timeout, then
-								 * we don't need to keep trying--just roll back the transaction and return.
-								 *
-								 * However, we want to leave some room for network slop here, so we err
-								 * on the side of caution, and only use this if we exceed twice the actual
-								 * keep alive window. That way, we probably never need this, but it's available
-								 * if we do.
-								 */
-                try{
-                    txn.rollback();
-                }catch(IOException e){
-                    LOG.info("Unable to roll back transaction "+txn.getTxnId()
-                            +" but nothing to be concerned with, since it has already timed out",e);
-                }
-                return;
+                /*
+                 * We are the only ones trying to keep this transaction alive. If we know
+                 * for a fact that we had to wait longer than the transaction timeout, then
+                 * we don't need to keep trying--just roll back the transaction and return.
+                 *
+                 * However, we want to leave some room for network slop here, so we err
+                 * on the side of caution, and only use this if we exceed twice the actual
+                 * keep alive window. That way, we probably never need this, but it's available
+                 * if we do.
+                 */
+                iter.remove();
+                rollback(txn);
+                continue;
             }
+            batch.add(keepAlive);
+        }
+        if(batch.isEmpty()) return;
 
-            try{
-                long time=System.currentTimeMillis();
-                boolean reschedule=txnStore.keepAlive(txn.getTxnId());
-                time=System.currentTimeMillis()-time; //measure our latency
-                if(reschedule){
-                    //use a random slop factor to load-balance our keep alive requests.
-                    threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
-                    lastKeepAliveTime=System.currentTimeMillis(); //include network latency in our wait period
-                }
-                if(time>0.1*maxKeepAliveIntervalMs)
-                    SpliceLogUtils.warn(LOG,"It took longer than 10% of the keep-alive interval to perform"+
-                            "keep alive for transaction %d. This may be a sign that load will begin interfering"+
-                            "with the transaction system",txn.getTxnId());
-            }catch(HTransactionTimeout tte){
-                LOG.error("Transaction "+txn.getTxnId()+" has timed out");
-									/*
-									 * We attempted to keep alive a transaction that has already timed out for a different
-									 * reason. Ensure that the transaction is rolled back
-									 */
-                try{
-                    txn.rollback();
-                }catch(IOException e){
-                    LOG.info("Unable to roll back transaction "+
-                            txn.getTxnId()+" but nothing to be concerned with, since it has already timed out",e);
-                }
-            }catch(IOException e){
-								/*
-								 * This could be a real problem, but we don't have anything that we can really do about this,
-								 * so we just log the error and hope it resolves itself.
-								 */
-                LOG.error("Unable to keep transaction "+txn.getTxnId()+" alive. Will try again in a bit",e);
-                threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+        long[] txnIds=new long[batch.size()];
+        for(int i=0;i<txnIds.length;i++){
+            txnIds[i]=batch.get(i).txn.getTxnId();
+        }
+        long time=System.currentTimeMillis();
+        Txn.State[] states;
+        try{
+            states=txnStore.keepAlive(txnIds);
+        }catch(IOException e){
+            /*
+             * This could be a real problem, but we don't have anything that we can really do about this,
+             * so we just log the error and hope it resolves itself on the next tick.
+             */
+            failedBatchCount.incrementAndGet();
+            LOG.error("Unable to keep "+txnIds.length+" transactions alive. Will try again in a bit",e);
+            return;
+        }
+        long end=System.currentTimeMillis();
+        time=end-time; //measure our latency
+        batchCount.incrementAndGet();
+        totalBatchLatency.addAndGet(time);
+        if(time>maxBatchLatency)
+            maxBatchLatency=time;
+        if(time>0.1*maxKeepAliveIntervalMs)
+            SpliceLogUtils.warn(LOG,"It took longer than 10%% of the keep-alive interval to perform "+
+                    "keep alive for %d transactions. This may be a sign that load will begin interfering "+
+                    "with the transaction system",txnIds.length);
+
+        for(int i=0;i<states.length;i++){
+            KeepAlive keepAlive=batch.get(i);
+            Txn.State state=states[i];
+            if(state==Txn.State.ACTIVE){
+                keepAlive.lastKeepAliveTime=end; //include network latency in our wait period
+                keptAliveCount.incrementAndGet();
+            }else if(state==Txn.State.ROLLEDBACK){
+                LOG.error("Transaction "+keepAlive.txn.getTxnId()+" has timed out");
+                /*
+                 * We attempted to keep alive a transaction that has already timed out for a different
+                 * reason. Ensure that the transaction is rolled back
+                 */
+                activeTxns.remove(keepAlive.txn.getTxnId());
+                rollback(keepAlive.txn);
+            }else if(state==null){
+                /*
+                 * The store couldn't reach this transaction this time, so try again on the next tick. We don't
+                 * move its keep alive time, so if this keeps failing it is rolled back once it passes the deadline.
+                 */
+                unknownCount.incrementAndGet();
+            }else{
+                //the transaction is no longer active, so stop keeping it alive
+                activeTxns.remove(keepAlive.txn.getTxnId());
             }
         }
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void rollback(final Txn txn){
+        try{
+            threadPool.execute(new Runnable(){
+                @Override
+                public void run(){
+                    try{
+                        txn.rollback();
+                    }catch(IOException e){
+                        LOG.info("Unable to roll back transaction "+txn.getTxnId()
+                                +" but nothing to be concerned with, since it has already timed out",e);
+                    }
+                }
+            });
+        }catch(RejectedExecutionException ree){
+            //we've been shut down, so there's nothing left to do
+        }
+    }
+
+    @MXBean
+    @SuppressWarnings("UnusedDeclaration")
+    public interface KeepAliveSchedulerStatistics{
+        long getBatchCount();
+        long getKeptAliveCount();
+        long getMissedDeadlineCount();
+        long getFailedBatchCount();
+        long getUnknownCount();
+        long getTotalBatchLatency();
+        long getMaxBatchLatency();
+        int getActiveTransactionCount();
+    }
+
+    private class Statistics implements KeepAliveSchedulerStatistics{
+        @Override public long getBatchCount(){ return batchCount.get(); }
+        @Override public long getKeptAliveCount(){ return keptAliveCount.get(); }
+        @Override public long getMissedDeadlineCount(){ return missedDeadlineCount.get(); }
+        @Override public long getFailedBatchCount(){ return failedBatchCount.get(); }
+        @Override public long getUnknownCount(){ return unknownCount.get(); }
+        @Override public long getTotalBatchLatency(){ return totalBatchLatency.get(); }
+        @Override public long getMaxBatchLatency(){ return maxBatchLatency; }
+        @Override public int getActiveTransactionCount(){ return activeTxns.size(); }
+    }
+
+    private static class KeepAlive{
+        private final Txn txn;
+        private volatile long lastKeepAliveTime;
+
+        KeepAlive(Txn txn){
+            this.txn=txn;
+            this.lastKeepAliveTime=System.currentTimeMillis();
+        }
+    }
 }
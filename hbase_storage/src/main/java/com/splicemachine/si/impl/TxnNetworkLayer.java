@@ -38,5 +38,19 @@ public interface TxnNetworkLayer extends AutoCloseable{
 
     TxnMessage.Txn getTxn(byte[] rowKey,TxnMessage.TxnRequest request) throws IOException;
 
+    /**
+     * Fetch several transactions from the region holding {@code rowKey}. The transactions
+     * should all be stored in that region; those which are not are listed in the response's
+     * {@code notInRegion}.
+     */
+    TxnMessage.TxnsResponse getTxns(byte[] rowKey,TxnMessage.TxnsRequest request) throws IOException;
+
+    /**
+     * Keep several transactions alive in the region holding {@code rowKey}. The transactions
+     * should all be stored in that region; those which are not are listed in the response's
+     * {@code notInRegion}.
+     */
+    TxnMessage.KeepAliveResponse keepAlive(byte[] rowKey,TxnMessage.KeepAliveRequest request) throws IOException;
+
     void close() throws IOException;
 }
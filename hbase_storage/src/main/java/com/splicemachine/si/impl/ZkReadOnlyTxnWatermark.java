@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.hbase.ZkUtils;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnRegistry;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.apache.hadoop.hbase.zookeeper.RecoverableZooKeeper;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReadOnlyTxnWatermark which publishes the watermark of each process in ZooKeeper.
+ *
+ * Each process holds an ephemeral sequential znode under [READ_ONLY_TXN_PATH], and periodically writes into it
+ * a timestamp which is no larger than the begin timestamp of any read-only transaction it has active, or will
+ * begin before the next write. The node is created with a watermark of 0 before any transaction can begin, so a
+ * process which has not published yet holds back every purge. A published watermark only gets more conservative
+ * as it ages, so the publishing interval trades how soon versions can be purged against ZooKeeper writes.
+ *
+ * Once a process goes away its node goes with it. The node also goes if the process loses its ZooKeeper session,
+ * after which compactions no longer see its transactions. A Region Server aborts when that happens, as it does for
+ * every other ephemeral node it holds; any other process recreates the node on its next publish and logs the
+ * window in which its transactions were not protected.
+ */
+public class ZkReadOnlyTxnWatermark implements ReadOnlyTxnWatermark{
+    private static final Logger LOG=Logger.getLogger(ZkReadOnlyTxnWatermark.class);
+
+    private final RecoverableZooKeeper rzk;
+    private final String readOnlyPath;
+    private final TimestampSource timestampSource;
+    private final ReadOnlyTxnRegistry registry=new ReadOnlyTxnRegistry();
+    private final ScheduledExecutorService publisher;
+    private String node;
+
+    public ZkReadOnlyTxnWatermark(RecoverableZooKeeper rzk,String rootZkPath,
+                                  TimestampSource timestampSource,long publishIntervalMs) throws IOException{
+        this.rzk=rzk;
+        this.readOnlyPath=rootZkPath+HConfiguration.READ_ONLY_TXN_PATH;
+        this.timestampSource=timestampSource;
+        this.node=createNode();
+        this.publisher=Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("readOnlyWatermark-%d").setDaemon(true).build());
+        this.publisher.scheduleWithFixedDelay(new Runnable(){
+            @Override
+            public void run(){
+                try{
+                    publish();
+                }catch(Throwable t){
+                    //never let an exception cancel the tick, the last watermark stays in place until the next one
+                    LOG.error("Unable to publish the read-only transaction watermark",t);
+                }
+            }
+        },publishIntervalMs,publishIntervalMs,TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ReadOnlyTxnRegistry registry(){
+        return registry;
+    }
+
+    @Override
+    public long minimumActiveTimestamp() throws IOException{
+        try{
+            long minimum=Long.MAX_VALUE;
+            for(String child : rzk.getChildren(readOnlyPath,false)){
+                try{
+                    minimum=Math.min(minimum,Bytes.toLong(rzk.getData(readOnlyPath+"/"+child,false,null)));
+                }catch(KeeperException e){
+                    //the process went away, and its transactions with it
+                    if(e.code()!=KeeperException.Code.NONODE)
+                        throw e;
+                }
+            }
+            return minimum;
+        }catch(KeeperException e){
+            throw new IOException("could not read the read-only transaction watermark",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    public void stop(){
+        publisher.shutdownNow();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private synchronized void publish() throws IOException{
+        byte[] watermark=Bytes.toBytes(registry.minimumActiveTimestamp(timestampSource));
+        try{
+            try{
+                rzk.setData(node,watermark,-1 /* version */);
+            }catch(KeeperException e){
+                if(e.code()!=KeeperException.Code.NONODE)
+                    throw e;
+                LOG.error("Our read-only transaction watermark was removed with our ZooKeeper session, so "+
+                        "compactions since then may have purged versions which our "+registry.size()+
+                        " active read-only transactions can see");
+                node=createNode();
+                rzk.setData(node,watermark,-1 /* version */);
+            }
+        }catch(KeeperException e){
+            throw new IOException("could not publish the read-only transaction watermark",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    private String createNode() throws IOException{
+        try{
+            ZkUtils.safeCreate(readOnlyPath,new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT,rzk);
+            return rzk.create(readOnlyPath+"/node-",Bytes.toBytes(0l),ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.EPHEMERAL_SEQUENTIAL);
+        }catch(KeeperException e){
+            throw new IOException("could not register the read-only transaction watermark",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+}
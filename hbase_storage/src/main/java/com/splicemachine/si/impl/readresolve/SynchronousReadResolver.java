@@ -23,6 +23,8 @@ import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.storage.DataPut;
+import com.splicemachine.storage.HPut;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.ByteSlice;
@@ -36,6 +38,7 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -90,22 +93,59 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                 }finally{
                     trafficControl.release(1);
                 }
-            }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(1);
+                try{
+                    SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(1);
                 }
-                if(t==Txn.ROOT_TRANSACTION){
-                    trafficControl.acquire(1);
-                    try{
-                        SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
-                        resolved=true;
-                    }finally{
-                        trafficControl.release(1);
+            }
+            status.rowResolved();
+            return resolved;
+        }catch(IOException e){
+            LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
+            if(failOnError)
+                throw new RuntimeException(e);
+            return false;
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean resolve(Partition region,List<ByteSlice> rowKeys,long txnId,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(rowKeys.size()==1)
+            return resolve(region,rowKeys.get(0),txnId,supplier,status,failOnError,trafficControl);
+        try{
+            TxnView transaction=supplier.getTransaction(txnId);
+            boolean resolved=false;
+            int numRows=rowKeys.size();
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                trafficControl.acquire(numRows);
+                try{
+                    for(ByteSlice rowKey : rowKeys){
+                        resolveRolledback(region,rowKey,txnId,failOnError);
                     }
+                    resolved=true;
+                }finally{
+                    trafficControl.release(numRows);
+                }
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(numRows);
+                try{
+                    resolveCommitted(region,rowKeys,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(numRows);
                 }
             }
-            status.rowResolved();
+            for(int i=0;i<numRows;i++){
+                status.rowResolved();
+            }
             return resolved;
         }catch(IOException e){
             LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
@@ -121,16 +161,40 @@ public class SynchronousReadResolver implements KeyedReadResolver{
 
     /******************************************************************************************************************/
     /*private helper methods */
-    private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
+    private static boolean isCommitted(TxnView transaction){
+        //a dependent child can only be resolved once all of its ancestors have committed
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    private void resolveCommitted(Partition region,List<ByteSlice> rowKeys,long txnId,long commitTimestamp,boolean failOnError){
         assert region instanceof RegionPartition: "Not on a region!";
-        /*
-         * Resolve the row as committed directly.
-         *
-         * This does a Put to the row, bypassing SI and the WAL, so it should be pretty low impact
-         */
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
+        DataPut[] puts=new DataPut[rowKeys.size()];
+        for(int i=0;i<puts.length;i++){
+            puts[i]=new HPut(commitTimestampPut(rowKeys.get(i),txnId,commitTimestamp));
+        }
+        try{
+            /*
+             * Resolution is best effort: a row that fails to write here will simply be resolved again
+             * the next time it is read, so we don't need to look at the individual statuses
+             */
+            region.writeBatch(puts);
+        }catch(IOException e){
+            if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)){
+                LOG.info("Exception encountered when attempting to resolve rows as committed",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static Put commitTimestampPut(ByteSlice rowKey,long txnId,long commitTimestamp){
         Put put=new Put(rowKey.getByteCopy());
         put.add(SIConstants.DEFAULT_FAMILY_BYTES,
                 SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
@@ -138,6 +202,20 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
         put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
         put.setDurability(Durability.SKIP_WAL);
+        return put;
+    }
+
+    private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
+        assert region instanceof RegionPartition: "Not on a region!";
+        /*
+         * Resolve the row as committed directly.
+         *
+         * This does a Put to the row, bypassing SI and the WAL, so it should be pretty low impact
+         */
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return; //do nothing if we are closing or rollforward is disabled
+
+        Put put=commitTimestampPut(rowKey,txnId,commitTimestamp);
         try{
             ((RegionPartition)region).unwrapDelegate().put(put);
         }catch(IOException e){
@@ -15,24 +15,36 @@
 
 package com.splicemachine.si.impl.server;
 
+import com.carrotsearch.hppc.LongOpenHashSet;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.readresolve.RollForward;
 import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.index.BitIndex;
+import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -42,6 +54,12 @@ import java.util.TreeSet;
  * guts for SICompactionScanner.
  * <p/>
  * It is handed key-values and can change them.
+ * <p/>
+ * When given a low watermark (a timestamp before which every transaction has completed), it also purges the
+ * versions which no active or future transaction can see: versions hidden by a newer committed version,
+ * rows deleted by a committed tombstone, and (when every file of the store is compacted) the tombstones
+ * and anti-tombstones themselves. To do so, it holds back the cells of a row until it has seen all of them,
+ * so {@link #flush(List)} must be called once the compaction has read its last cell.
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
@@ -50,10 +68,74 @@ public class SICompactionState {
     private final RollForward rollForward;
     private ByteSlice rowSlice = new ByteSlice();
 
+    private final long lowWatermark;
+    private final boolean allFiles;
+    private final List<Cell> rowCells = new ArrayList<>();
+    private final EntryDecoder decoder = new EntryDecoder();
+    //per row fields
+    private long barrier;
+    private boolean barrierIsTombstone;
+    private boolean hasVisibleVersion;
+    private final BitSet visibleColumns = new BitSet();
+    private final LongOpenHashSet keptVersions = new LongOpenHashSet();
+
+    private long purgedCells;
+    private long purgedBytes;
+
     public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize) {
+        this(transactionStore,rollForward,activeTransactionCacheSize,-1l,false);
+    }
+
+    /**
+     * @param lowWatermark every transaction which began before this timestamp has completed, or {@code -1} if
+     *                     no versions should be purged
+     * @param allFiles whether every file of the store is being compacted. Tombstones can only be dropped when
+     *                 there is no older data left in some other file for them to hide.
+     */
+    public SICompactionState(TxnSupplier transactionStore,RollForward rollForward,int activeTransactionCacheSize,
+                             long lowWatermark,boolean allFiles) {
         this.rollForward = rollForward;
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize);
         this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
+        this.lowWatermark = lowWatermark;
+        this.allFiles = allFiles;
+    }
+
+    /**
+     * Create the compaction state for a store, purging obsolete versions if the configuration allows it.
+     *
+     * @param driver the SI driver of this server
+     * @param allFiles whether every file of the store is being compacted
+     */
+    public static SICompactionState newCompactionState(SIDriver driver,boolean allFiles) throws IOException {
+        long lowWatermark = -1l;
+        if(driver.getConfiguration().getCompactionPurgeVersions())
+            lowWatermark = lowWatermark(driver.getTxnStore(),driver.getTimestampSource(),driver.getReadOnlyTxnWatermark());
+        return new SICompactionState(driver.getTxnSupplier(),
+                driver.getRollForward(),
+                driver.getConfiguration().getActiveTransactionCacheSize(),
+                lowWatermark,allFiles);
+    }
+
+    /**
+     * Find the begin timestamp of the oldest active transaction in the cluster. Any version committed before
+     * it is visible to every active transaction, and to every transaction which will begin in the future.
+     * <p/>
+     * Writable transactions are found in the transaction table, and read-only ones through the watermark
+     * published by every process. The transaction table is read first: a transaction which leaves it by
+     * committing and chaining into a read-only transaction is already in the published watermark by then.
+     *
+     * @return the effective begin timestamp of the oldest active transaction, or a new timestamp if there are
+     * no active transactions.
+     */
+    public static long lowWatermark(TxnStore txnStore,TimestampSource timestampSource,
+                                    ReadOnlyTxnWatermark readOnlyTxns) throws IOException {
+        long watermark = timestampSource.nextTimestamp();
+        for(TxnView txn:txnStore.getActiveTransactions(0l,watermark,null)){
+            if(txn==null) continue;
+            watermark = Math.min(watermark,Math.min(txn.getTxnId(),txn.getEffectiveBeginTimestamp()));
+        }
+        return Math.min(watermark,readOnlyTxns.minimumActiveTimestamp());
     }
 
     /**
@@ -63,11 +145,78 @@ public class SICompactionState {
      * @param results - the output key values
      */
     public void mutate(List<Cell> rawList, List<Cell> results) throws IOException {
+        if(lowWatermark<0){
+            dataToReturn.clear();
+            for (Cell aRawList : rawList) {
+                mutate(aRawList);
+            }
+            results.addAll(dataToReturn);
+            return;
+        }
+        /*
+         * Whether a version can be purged depends on the newer versions (and tombstones) of its row, so
+         * we work a row at a time. The last row in the list may continue in the next one, so it is held back.
+         */
+        for(Cell cell:rawList){
+            if(!rowCells.isEmpty() && !CellUtil.matchingRow(rowCells.get(0),cell))
+                purgeRow(results);
+            rowCells.add(cell);
+        }
+    }
+
+    /**
+     * Populate the results with any cells which are held back, once there is nothing left to compact.
+     *
+     * @param results - the output key values
+     */
+    public void flush(List<Cell> results) throws IOException {
+        if(!rowCells.isEmpty())
+            purgeRow(results);
+        if(lowWatermark>=0 && LOG.isInfoEnabled())
+            SpliceLogUtils.info(LOG,"Purged %d cells (%d bytes) committed before low watermark %d",
+                    purgedCells,purgedBytes,lowWatermark);
+    }
+
+    /**
+     * @return the number of cells removed from storage so far
+     */
+    public long getPurgedCells() {
+        return purgedCells;
+    }
+
+    /**
+     * @return the number of bytes of cells removed from storage so far
+     */
+    public long getPurgedBytes() {
+        return purgedBytes;
+    }
+
+    private void purgeRow(List<Cell> results) throws IOException {
         dataToReturn.clear();
-        for (Cell aRawList : rawList) {
-            mutate(aRawList);
+        barrier = -1l;
+        barrierIsTombstone = false;
+        hasVisibleVersion = false;
+        visibleColumns.clear();
+        keptVersions.clear();
+        for(Cell cell:rowCells){
+            mutate(cell);
+        }
+        if(allFiles){
+            /*
+             * A commit timestamp whose versions have all been purged is of no more use. When only some of
+             * the files are compacted, its versions may still live in one of the others.
+             */
+            Iterator<Cell> iter = dataToReturn.iterator();
+            while(iter.hasNext()){
+                Cell cell = iter.next();
+                if(getKeyValueType(cell)==CellType.COMMIT_TIMESTAMP && !keptVersions.contains(cell.getTimestamp())){
+                    iter.remove();
+                    recordPurged(cell);
+                }
+            }
         }
         results.addAll(dataToReturn);
+        rowCells.clear();
     }
 
     /**
@@ -90,8 +239,12 @@ public class SICompactionState {
             case TOMBSTONE:
             case ANTI_TOMBSTONE:
             case USER_DATA:
-                if(mutateCommitTimestamp(timestamp,element))
+                if(mutateCommitTimestamp(timestamp,element,cellType)){
                     dataToReturn.add(element);
+                    if(lowWatermark>=0)
+                        keptVersions.add(timestamp);
+                }else
+                    recordPurged(element);
                 return;
             default:
                 if(LOG.isDebugEnabled()){
@@ -118,7 +271,7 @@ public class SICompactionState {
     /**
      * Replace unknown commit timestamps with actual commit times.
      */
-    private boolean mutateCommitTimestamp(long timestamp,Cell element) throws IOException {
+    private boolean mutateCommitTimestamp(long timestamp,Cell element,CellType cellType) throws IOException {
         TxnView transaction = transactionStore.getTransaction(timestamp);
         if(transaction.getEffectiveState()== Txn.State.ROLLEDBACK){
             /*
@@ -128,6 +281,13 @@ public class SICompactionState {
             recordResolved(element,transaction);
             return false;
         }
+        if(isObsolete(timestamp,element,cellType,transaction)){
+            /*
+             * No transaction can see this version any more, so remove it from physical storage
+             */
+            recordResolved(element,transaction);
+            return false;
+        }
         TxnView t = transaction;
         while(t.getState()== Txn.State.COMMITTED){
             t = t.getParentTxnView();
@@ -144,6 +304,61 @@ public class SICompactionState {
         return true;
     }
 
+    /**
+     * Determine whether a version is hidden from every active and future transaction. Cells arrive newest
+     * first within each column, and the tombstone column sorts before the user data column, so the newest
+     * tombstone and the newer data versions visible to everyone have been seen by the time this is asked.
+     */
+    private boolean isObsolete(long timestamp,Cell element,CellType cellType,TxnView transaction) {
+        if(lowWatermark<0) return false;
+        switch(cellType){
+            case TOMBSTONE:
+            case ANTI_TOMBSTONE:
+                if(barrier>=0) return true; //hidden behind a newer tombstone everyone can see
+                if(!isVisibleToAll(transaction)) return false;
+                /*
+                 * Everyone can see this (anti-)tombstone, so everyone ignores the data written before it. Once
+                 * that data is gone, it hides nothing--unless some of the data lives in files we aren't compacting.
+                 */
+                barrier = timestamp;
+                barrierIsTombstone = cellType==CellType.TOMBSTONE;
+                return allFiles;
+            case USER_DATA:
+                if(barrier>=0 && (barrierIsTombstone? timestamp<=barrier : timestamp<barrier))
+                    return true;
+                if(!isVisibleToAll(transaction)) return false;
+                /*
+                 * Rows are updated by writing only the columns which changed, and readers accumulate
+                 * columns from older versions. A version is only hidden when every one of its columns has been
+                 * overwritten by a newer version which everyone can see.
+                 */
+                decoder.set(element.getValueArray(),element.getValueOffset(),element.getValueLength());
+                BitIndex index = decoder.getCurrentIndex();
+                boolean hidden = hasVisibleVersion;
+                for(int i=index.nextSetBit(0);i>=0;i=index.nextSetBit(i+1)){
+                    if(!visibleColumns.get(i)){
+                        hidden = false;
+                        visibleColumns.set(i);
+                    }
+                }
+                hasVisibleVersion = true;
+                return hidden;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isVisibleToAll(TxnView transaction) {
+        if(transaction.getEffectiveState()!=Txn.State.COMMITTED) return false;
+        long commitTimestamp = transaction.getEffectiveCommitTimestamp();
+        return commitTimestamp>=0 && commitTimestamp<lowWatermark;
+    }
+
+    private void recordPurged(Cell element) {
+        purgedCells++;
+        purgedBytes+=KeyValueUtil.length(element);
+    }
+
     private void recordResolved(Cell element, TxnView transaction) {
         rowSlice.set(element.getRowArray(),element.getRowOffset(),element.getRowLength());
         rollForward.recordResolved(rowSlice,transaction.getTxnId());
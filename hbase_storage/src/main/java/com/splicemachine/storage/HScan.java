@@ -15,10 +15,12 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.Filter;
 import org.apache.hadoop.hbase.filter.FilterList;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -70,6 +72,25 @@ public class HScan implements DataScan{
         return this;
     }
 
+    @Override
+    public DataScan keyRanges(List<Pair<byte[],byte[]>> ranges){
+        assert ranges.size()>0: "Programmer error: no key ranges specified!";
+        assert !scan.isReversed(): "Programmer error: key ranges are not supported for reversed scans";
+        scan.setStartRow(ranges.get(0).getFirst());
+        scan.setStopRow(ranges.get(ranges.size()-1).getSecond());
+        /*
+         * The range filter goes first, so that rows between the ranges are skipped before any other filter
+         * looks at them
+         */
+        Filter rangeFilter=new MultiRangeFilter(ranges);
+        Filter existingFilter=scan.getFilter();
+        if(existingFilter!=null)
+            scan.setFilter(new FilterList(FilterList.Operator.MUST_PASS_ALL,rangeFilter,existingFilter));
+        else
+            scan.setFilter(rangeFilter);
+        return this;
+    }
+
     @Override
     public byte[] getStartKey(){
         return scan.getStartRow();
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Restricts a scan to a sorted list of non-overlapping key ranges. When the scanner reaches a row which lies
+ * between two ranges, it is told to seek directly to the start of the next range, rather than reading (and
+ * filtering) the rows in between; once it passes the last range, the scan is ended.
+ *
+ * Each range is [start,stop); only the last range may have an empty (unbounded) stop key. Reversed scans are
+ * not supported.
+ */
+public class MultiRangeFilter extends FilterBase{
+    private byte[][] starts;
+    private byte[][] stops;
+
+    private int range; //the range the current row falls in, or the first range after it
+    private boolean done;
+    private ReturnCode rowCode=ReturnCode.INCLUDE;
+
+    public MultiRangeFilter(List<Pair<byte[],byte[]>> ranges){
+        this.starts=new byte[ranges.size()][];
+        this.stops=new byte[ranges.size()][];
+        for(int i=0;i<starts.length;i++){
+            Pair<byte[],byte[]> r=ranges.get(i);
+            starts[i]=r.getFirst();
+            stops[i]=r.getSecond();
+        }
+    }
+
+    private MultiRangeFilter(byte[][] starts,byte[][] stops){
+        this.starts=starts;
+        this.stops=stops;
+    }
+
+    @Override
+    public boolean filterRowKey(byte[] buffer,int offset,int length){
+        range=findRange(buffer,offset,length);
+        if(range>=starts.length){
+            done=true;
+            return true;
+        }
+        if(Bytes.BASE_COMPARATOR.compare(starts[range],0,starts[range].length,buffer,offset,length)>0)
+            rowCode=ReturnCode.SEEK_NEXT_USING_HINT;
+        else
+            rowCode=ReturnCode.INCLUDE;
+        return false;
+    }
+
+    @Override
+    public ReturnCode filterKeyValue(Cell ignored){
+        return rowCode;
+    }
+
+    @Override
+    public Cell getNextCellHint(Cell currentCell){
+        return KeyValueUtil.createFirstOnRow(starts[range]);
+    }
+
+    @Override
+    public boolean filterAllRemaining(){
+        return done;
+    }
+
+    /**
+     * @return The filter serialized as a list of ranges
+     */
+    @Override
+    public byte[] toByteArray() throws IOException{
+        ByteArrayOutputStream baos=new ByteArrayOutputStream();
+        DataOutputStream out=new DataOutputStream(baos);
+        out.writeInt(starts.length);
+        for(int i=0;i<starts.length;i++){
+            writeKey(out,starts[i]);
+            writeKey(out,stops[i]);
+        }
+        out.flush();
+        return baos.toByteArray();
+    }
+
+    /**
+     * @param bytes A serialized {@code MultiRangeFilter} instance
+     * @return An instance of {@code MultiRangeFilter} made from <code>bytes</code>
+     * @see #toByteArray
+     */
+    @SuppressWarnings("unused") //Deserialization method-- REQUIRED
+    public static MultiRangeFilter parseFrom(final byte[] bytes) throws DeserializationException{
+        try{
+            DataInputStream in=new DataInputStream(new ByteArrayInputStream(bytes));
+            int size=in.readInt();
+            byte[][] starts=new byte[size][];
+            byte[][] stops=new byte[size][];
+            for(int i=0;i<size;i++){
+                starts[i]=readKey(in);
+                stops[i]=readKey(in);
+            }
+            return new MultiRangeFilter(starts,stops);
+        }catch(IOException e){
+            throw new DeserializationException(e);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return "MultiRangeFilter{ranges="+starts.length+"}";
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /*
+     * Rows arrive in ascending order, so the range we want is never before the current one. Binary search the
+     * rest for the first range which ends after this row.
+     */
+    private int findRange(byte[] buffer,int offset,int length){
+        int low=range;
+        int high=starts.length-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            if(endsAfter(stops[mid],buffer,offset,length))
+                high=mid-1;
+            else
+                low=mid+1;
+        }
+        return low;
+    }
+
+    private static boolean endsAfter(byte[] stop,byte[] buffer,int offset,int length){
+        return stop==null || stop.length==0
+                || Bytes.BASE_COMPARATOR.compare(stop,0,stop.length,buffer,offset,length)>0;
+    }
+
+    private static void writeKey(DataOutputStream out,byte[] key) throws IOException{
+        if(key==null){
+            out.writeInt(0);
+        }else{
+            out.writeInt(key.length);
+            out.write(key);
+        }
+    }
+
+    private static byte[] readKey(DataInputStream in) throws IOException{
+        byte[] key=new byte[in.readInt()];
+        in.readFully(key);
+        return key;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.hbase;
+
+import com.splicemachine.access.HConfiguration;
+import com.splicemachine.hbase.ZkUtils;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.hlc.HLCStore;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.hadoop.hbase.zookeeper.RecoverableZooKeeper;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * HLCStore which uses ZooKeeper to assign node ids and to record reservations.
+ *
+ * A node id is held as an ephemeral znode under [HLC_PATH]/nodes, so it is released when the process
+ * goes away. The reservation of each id is kept in a persistent znode under [HLC_PATH]/reservations, so that
+ * whoever takes the id next starts its clock past everything issued under it before, and so that the
+ * Timestamp Server can start past everything ever issued if HLC timestamps are turned off again.
+ * The minimum active timestamp is kept in the same znode as the Timestamp Server uses.
+ *
+ * The ephemeral node also goes away when the session of a process which is still running expires, and another
+ * process may then take the same id. To keep the two from issuing the same timestamps, the reservation is fenced:
+ * whoever takes an id rewrites its reservation straight away, and every later reservation is a conditional write
+ * on the version last written. Once the old holder finds the version moved on, it has lost the id and refuses to
+ * reserve any further, so it only goes on issuing timestamps inside the window it had already reserved, all of
+ * which are below where the new holder starts.
+ *
+ * Every process which generates timestamps (Region Servers, the Master, the OLAP server, and each Spark executor)
+ * holds an id for as long as it runs, so there can be no more than {@link HLCTimestampSource#MAX_NODES} of them
+ * at once; a process which starts once all ids are taken fails to create its timestamp source.
+ */
+public class ZkHLCStore implements HLCStore{
+    private static final Logger LOG = Logger.getLogger(ZkHLCStore.class);
+
+    private final RecoverableZooKeeper rzk;
+    private final String minimumActivePath;
+    private final String hlcPath;
+    private final String nodesPath;
+    private final String reservationsPath;
+    private int nodeId = -1;
+    private long claimedReservation;
+    private int reservationVersion;
+    private boolean leaseLost;
+
+    public ZkHLCStore(RecoverableZooKeeper rzk,String rootZkPath){
+        this.rzk = rzk;
+        this.minimumActivePath = rootZkPath+HConfiguration.MINIMUM_ACTIVE_PATH;
+        this.hlcPath = rootZkPath+HConfiguration.HLC_PATH;
+        this.nodesPath = hlcPath+"/nodes";
+        this.reservationsPath = hlcPath+"/reservations";
+    }
+
+    @Override
+    public synchronized int nodeId() throws IOException{
+        if(nodeId<0)
+            nodeId = assignNodeId();
+        return nodeId;
+    }
+
+    @Override
+    public synchronized long reservedTime() throws IOException{
+        nodeId();
+        SpliceLogUtils.info(LOG,"Initializing: existing HLC reservation for node %s = %s",nodeId,claimedReservation);
+        return claimedReservation;
+    }
+
+    @Override
+    public synchronized void reserve(long reservedTime) throws IOException{
+        String node = reservationsPath+"/"+nodeId();
+        if(leaseLost)
+            throw new IOException("HLC node id "+nodeId+" has been taken over by another process");
+        try{
+            reservationVersion = rzk.setData(node,Bytes.toBytes(reservedTime),reservationVersion).getVersion();
+        }catch(KeeperException e){
+            if(e.code()==KeeperException.Code.BADVERSION || e.code()==KeeperException.Code.NONODE){
+                leaseLost = true;
+                SpliceLogUtils.error(LOG,"HLC node id %s has been taken over by another process, no more time will be reserved",nodeId);
+                throw new IOException("HLC node id "+nodeId+" has been taken over by another process",e);
+            }
+            throw new IOException("could not reserve HLC time",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void rememberTimestamp(long timestamp) throws IOException{
+        try{
+            rzk.setData(minimumActivePath,Bytes.toBytes(timestamp),-1 /* version */);
+        }catch(KeeperException e){
+            throw new IOException("could not remember timestamp",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    @Override
+    public long retrieveTimestamp() throws IOException{
+        try{
+            return Bytes.toLong(rzk.getData(minimumActivePath,false,null));
+        }catch(KeeperException e){
+            throw new IOException("could not retrieve minimum timestamp",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the largest physical time (in ms) ever reserved by any node, or 0 if HLC timestamps have never been used
+     * @throws IOException if the reservations cannot be read
+     */
+    public static long maxReservedTime(RecoverableZooKeeper rzk,String rootZkPath) throws IOException{
+        String reservationsPath = rootZkPath+HConfiguration.HLC_PATH+"/reservations";
+        try{
+            long max = 0l;
+            for(String child : rzk.getChildren(reservationsPath,false)){
+                try{
+                    max = Math.max(max,Bytes.toLong(rzk.getData(reservationsPath+"/"+child,false,new Stat())));
+                }catch(KeeperException e){
+                    if(e.code()!=KeeperException.Code.NONODE)
+                        throw e;
+                }
+            }
+            return max;
+        }catch(KeeperException e){
+            if(e.code()==KeeperException.Code.NONODE)
+                return 0l;
+            throw new IOException("could not read HLC reservations",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private int assignNodeId() throws IOException{
+        try{
+            ZkUtils.safeCreate(hlcPath,new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT,rzk);
+            ZkUtils.safeCreate(nodesPath,new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT,rzk);
+            ZkUtils.safeCreate(reservationsPath,new byte[]{},ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT,rzk);
+            for(int i=0;i<HLCTimestampSource.MAX_NODES;i++){
+                try{
+                    // ephemeral, so the id is released once the process exits
+                    rzk.create(nodesPath+"/"+i,new byte[0],ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.EPHEMERAL);
+                }catch(KeeperException e){
+                    if(e.code()!=KeeperException.Code.NODEEXISTS)
+                        throw e;
+                    continue;
+                }
+                claimReservation(reservationsPath+"/"+i);
+                SpliceLogUtils.info(LOG,"Assigned HLC node id %s",i);
+                return i;
+            }
+        }catch(KeeperException e){
+            throw new IOException("could not assign HLC node id",e);
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }
+        throw new IOException("could not assign HLC node id, all "+HLCTimestampSource.MAX_NODES+" ids are in use by "+
+                "processes generating timestamps");
+    }
+
+    /*
+     * Rewrite the reservation of a newly assigned id, so that a previous holder which has lost the id without
+     * noticing fails its next reservation instead of extending the window we are about to start after.
+     */
+    private void claimReservation(String node) throws KeeperException, InterruptedException{
+        while(true){
+            Stat stat = new Stat();
+            byte[] data;
+            try{
+                data = rzk.getData(node,false,stat);
+            }catch(KeeperException e){
+                if(e.code()!=KeeperException.Code.NONODE)
+                    throw e;
+                try{
+                    rzk.create(node,Bytes.toBytes(0l),ZooDefs.Ids.OPEN_ACL_UNSAFE,CreateMode.PERSISTENT);
+                    claimedReservation = 0l;
+                    reservationVersion = 0;
+                    return;
+                }catch(KeeperException ke){
+                    if(ke.code()!=KeeperException.Code.NODEEXISTS)
+                        throw ke;
+                    continue;
+                }
+            }
+            try{
+                reservationVersion = rzk.setData(node,data,stat.getVersion()).getVersion();
+                claimedReservation = Bytes.toLong(data);
+                return;
+            }catch(KeeperException e){
+                //the previous holder got a reservation in first, so start after that one
+                if(e.code()!=KeeperException.Code.BADVERSION)
+                    throw e;
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.splicemachine.timestamp.hbase;
 
 import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.timestamp.api.TimestampBlockManager;
 import com.splicemachine.timestamp.api.TimestampIOException;
 import com.splicemachine.utils.SpliceLogUtils;
@@ -34,14 +35,17 @@ public class ZkTimestampBlockManager implements TimestampBlockManager{
 
     private final RecoverableZooKeeper rzk;
     private final String blockNode;
+    private final String rootZkPath;
 
     /**
      * @param rzk the ZooKeeper node to base off
      * @param blockNode Pointer to the specific znode instance that is specifically configured for timestamp block storage
+     * @param rootZkPath the root Splice znode, under which the Hybrid Logical Clock reservations are kept
      */
-    public ZkTimestampBlockManager(RecoverableZooKeeper rzk,String blockNode) {
+    public ZkTimestampBlockManager(RecoverableZooKeeper rzk,String blockNode,String rootZkPath) {
         this.rzk = rzk;
         this.blockNode = blockNode;
+        this.rootZkPath = rootZkPath;
     }
 
 
@@ -60,6 +64,13 @@ public class ZkTimestampBlockManager implements TimestampBlockManager{
             byte[] data = rzk.getData(blockNode, false, new Stat());
             long maxReservedTs = Bytes.toLong(data);
             SpliceLogUtils.info(LOG, "Initializing: existing max reserved timestamp = %s", maxReservedTs);
+            // if HLC timestamps have been used, they are far larger than ours, so start past all of them
+            long hlcTs = HLCTimestampSource.timestampAfterReservation(ZkHLCStore.maxReservedTime(rzk,rootZkPath));
+            if (maxReservedTs < hlcTs) {
+                SpliceLogUtils.info(LOG, "Initializing: moving max reserved timestamp past HLC timestamps to %s", hlcTs);
+                reserveNextBlock(hlcTs);
+                maxReservedTs = hlcTs;
+            }
             return maxReservedTs;
         } catch (Exception e) {
             throw new TimestampIOException("could not initialize timestamp data source",e);
@@ -57,10 +57,11 @@ public class ZkTimestampSource implements TimestampSource {
                 rootZkPath = config.getSpliceRootPath();
                 int timeout = config.getTimestampClientWaitTime();
                 int timestampPort = config.getTimestampServerBindPort();
+                int maxBatchSize = config.getTimestampClientMaxBatchSize();
 		    	LOG.info("Creating the TimestampClient...");
                 HBaseConnectionFactory hbcf = HBaseConnectionFactory.getInstance(config);
                 _tc = new TimestampClient(timeout,
-                        new HBaseTimestampHostProvider(hbcf,timestampPort));
+                        new HBaseTimestampHostProvider(hbcf,timestampPort),maxBatchSize);
     		}
     	}
     }
@@ -90,6 +91,16 @@ public class ZkTimestampSource implements TimestampSource {
 		return nextTimestamp;
 	}
 
+    @Override
+    public void observeTimestamp(long timestamp) {
+        // No Op: the Timestamp Server is the only source of timestamps
+    }
+
+    @Override
+    public void commitWait(long commitTimestamp) {
+        // No Op: every later timestamp comes from the same counter
+    }
+
 	// The following two are same as ZooKeeperStatTimestampSource,
 	// and can probably stay this way.
 	
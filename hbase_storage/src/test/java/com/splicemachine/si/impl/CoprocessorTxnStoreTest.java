@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests around bulk keep alives in the CoprocessorTxnStore.
+ */
+public class CoprocessorTxnStoreTest{
+    private static final byte FAILING_BUCKET=1;
+    private static final long FINISHED_TXN=0x23l;
+    private static final long UNREACHABLE_TXN=0x21l;
+
+    @Test
+    public void regionFailureFallsBackToSingleKeepAlives() throws Exception{
+        TxnNetworkLayer network=mock(TxnNetworkLayer.class);
+        when(network.keepAlive(any(byte[].class),any(TxnMessage.KeepAliveRequest.class))).thenAnswer(new Answer<TxnMessage.KeepAliveResponse>(){
+            @Override
+            public TxnMessage.KeepAliveResponse answer(InvocationOnMock invocation) throws Throwable{
+                byte[] rowKey=(byte[])invocation.getArguments()[0];
+                if(rowKey[0]==FAILING_BUCKET)
+                    throw new IOException("induced region failure");
+                TxnMessage.KeepAliveRequest request=(TxnMessage.KeepAliveRequest)invocation.getArguments()[1];
+                TxnMessage.KeepAliveResponse.Builder response=TxnMessage.KeepAliveResponse.newBuilder();
+                for(Long txnId : request.getTxnIdsList()){
+                    if(txnId!=FINISHED_TXN)
+                        response.addActive(txnId);
+                }
+                return response.build();
+            }
+        });
+        when(network.lifecycleAction(any(byte[].class),any(TxnMessage.TxnLifecycleMessage.class))).thenAnswer(new Answer<TxnMessage.ActionResponse>(){
+            @Override
+            public TxnMessage.ActionResponse answer(InvocationOnMock invocation) throws Throwable{
+                TxnMessage.TxnLifecycleMessage message=(TxnMessage.TxnLifecycleMessage)invocation.getArguments()[1];
+                if(message.getTxnId()==UNREACHABLE_TXN)
+                    throw new IOException("induced transaction failure");
+                return TxnMessage.ActionResponse.newBuilder().setContinue(true).build();
+            }
+        });
+        TxnNetworkLayerFactory factory=mock(TxnNetworkLayerFactory.class);
+        when(factory.accessTxnNetwork()).thenReturn(network);
+        CoprocessorTxnStore store=new CoprocessorTxnStore(factory,mock(TimestampSource.class),null);
+
+        Txn.State[] states=store.keepAlive(new long[]{0x11l,0x12l,UNREACHABLE_TXN,FINISHED_TXN,0x13l});
+
+        //the failed region's transactions are kept alive one at a time, and only the one which fails again is unknown
+        Assert.assertArrayEquals("Incorrect states!",
+                new Txn.State[]{Txn.State.ACTIVE,Txn.State.ACTIVE,null,Txn.State.COMMITTED,Txn.State.ACTIVE},states);
+        verify(network,times(3)).keepAlive(any(byte[].class),any(TxnMessage.KeepAliveRequest.class));
+        verify(network,times(2)).lifecycleAction(any(byte[].class),any(TxnMessage.TxnLifecycleMessage.class));
+    }
+}
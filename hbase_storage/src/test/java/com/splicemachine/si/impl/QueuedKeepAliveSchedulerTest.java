@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests around batching of keep alives in the QueuedKeepAliveScheduler.
+ */
+public class QueuedKeepAliveSchedulerTest{
+    private TxnStore txnStore;
+    private QueuedKeepAliveScheduler scheduler;
+
+    @Before
+    public void setUp() throws Exception{
+        txnStore=mock(TxnStore.class);
+        //use a long tick so that only the explicit batches in the tests run
+        scheduler=new QueuedKeepAliveScheduler(3600000l,60000l,1,txnStore);
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        scheduler.stop();
+    }
+
+    @Test
+    public void keepsAliveAllActiveTransactionsInOneCall() throws Exception{
+        Txn one=activeTxn(1l);
+        Txn two=activeTxn(0x101l);
+        when(txnStore.keepAlive(any(long[].class))).thenReturn(new Txn.State[]{Txn.State.ACTIVE,Txn.State.ACTIVE});
+        scheduler.scheduleKeepAlive(one);
+        scheduler.scheduleKeepAlive(two);
+
+        scheduler.keepAliveBatch();
+
+        verify(txnStore,times(1)).keepAlive(any(long[].class));
+        verify(txnStore,never()).keepAlive(anyLong());
+        Assert.assertEquals("Incorrect batch count!",1l,scheduler.getBatchCount());
+        Assert.assertEquals("Incorrect kept alive count!",2l,scheduler.getKeptAliveCount());
+        Assert.assertEquals("Transactions should still be kept alive!",2,scheduler.getActiveTransactionCount());
+    }
+
+    @Test
+    public void dropsFinishedTransactions() throws Exception{
+        Txn done=activeTxn(1l);
+        when(done.getEffectiveState()).thenReturn(Txn.State.COMMITTED);
+        scheduler.scheduleKeepAlive(done);
+
+        scheduler.keepAliveBatch();
+
+        verify(txnStore,never()).keepAlive(any(long[].class));
+        Assert.assertEquals("Finished transaction should not be kept alive!",0,scheduler.getActiveTransactionCount());
+    }
+
+    @Test
+    public void stopsKeepingAliveWhenStoreSaysSo() throws Exception{
+        Txn txn=activeTxn(1l);
+        when(txnStore.keepAlive(any(long[].class))).thenReturn(new Txn.State[]{Txn.State.COMMITTED});
+        scheduler.scheduleKeepAlive(txn);
+
+        scheduler.keepAliveBatch();
+
+        Assert.assertEquals("Transaction should no longer be kept alive!",0,scheduler.getActiveTransactionCount());
+        verify(txn,never()).rollback();
+    }
+
+    @Test
+    public void rollsBackTimedOutTransactions() throws Exception{
+        Txn txn=activeTxn(1l);
+        when(txnStore.keepAlive(any(long[].class))).thenReturn(new Txn.State[]{Txn.State.ROLLEDBACK});
+        scheduler.scheduleKeepAlive(txn);
+
+        scheduler.keepAliveBatch();
+
+        Assert.assertEquals("Transaction should no longer be kept alive!",0,scheduler.getActiveTransactionCount());
+        verify(txn,timeout(10000).times(1)).rollback();
+    }
+
+    @Test
+    public void retriesAfterFailedBatch() throws Exception{
+        Txn txn=activeTxn(1l);
+        when(txnStore.keepAlive(any(long[].class)))
+                .thenThrow(new IOException("induced"))
+                .thenReturn(new Txn.State[]{Txn.State.ACTIVE});
+        scheduler.scheduleKeepAlive(txn);
+
+        scheduler.keepAliveBatch();
+        Assert.assertEquals("Incorrect failed batch count!",1l,scheduler.getFailedBatchCount());
+        Assert.assertEquals("Transaction should still be kept alive!",1,scheduler.getActiveTransactionCount());
+
+        scheduler.keepAliveBatch();
+        Assert.assertEquals("Incorrect batch count!",1l,scheduler.getBatchCount());
+        Assert.assertEquals("Incorrect kept alive count!",1l,scheduler.getKeptAliveCount());
+    }
+
+    @Test
+    public void retriesOnlyTransactionsWithUnknownState() throws Exception{
+        Txn unreachable=activeTxn(1l);
+        Txn reachable=activeTxn(2l);
+        when(txnStore.keepAlive(any(long[].class)))
+                .thenReturn(new Txn.State[]{null,Txn.State.ACTIVE})
+                .thenReturn(new Txn.State[]{Txn.State.ACTIVE,Txn.State.ACTIVE});
+        scheduler.scheduleKeepAlive(unreachable);
+        scheduler.scheduleKeepAlive(reachable);
+
+        scheduler.keepAliveBatch();
+        Assert.assertEquals("Incorrect unknown count!",1l,scheduler.getUnknownCount());
+        Assert.assertEquals("Incorrect kept alive count!",1l,scheduler.getKeptAliveCount());
+        Assert.assertEquals("Transactions should still be kept alive!",2,scheduler.getActiveTransactionCount());
+        verify(unreachable,never()).rollback();
+
+        scheduler.keepAliveBatch();
+        Assert.assertEquals("Incorrect kept alive count!",3l,scheduler.getKeptAliveCount());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static Txn activeTxn(long txnId){
+        Txn txn=mock(Txn.class);
+        when(txn.getTxnId()).thenReturn(txnId);
+        when(txn.getEffectiveState()).thenReturn(Txn.State.ACTIVE);
+        return txn;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.readresolve.RollForward;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.index.BitIndexing;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+public class SICompactionStateTest{
+    private static final byte[] ROW=Bytes.toBytes("row");
+    private static final long WATERMARK=10l;
+
+    @Test
+    public void testSupersededVersionIsPurged() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),data(3,0,1));
+        SICompactionState state=newState(WATERMARK,true);
+
+        List<Cell> results=compact(state,input);
+        Assert.assertEquals(sorted(commit(3,4),data(3,0,1)),results);
+        Assert.assertEquals(2,state.getPurgedCells());
+        Assert.assertTrue(state.getPurgedBytes()>0);
+    }
+
+    @Test
+    public void testPartialUpdateKeepsOlderColumns() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),data(3,1));
+        SICompactionState state=newState(WATERMARK,true);
+
+        Assert.assertEquals(input,compact(state,input));
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void testVersionCommittedAfterWatermarkIsKept() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,12),data(3,0,1));
+        SICompactionState state=newState(WATERMARK,true);
+
+        Assert.assertEquals(input,compact(state,input));
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    @Test
+    public void testDeletedRowIsRemovedWhenAllFilesAreCompacted() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),tombstone(3));
+        SICompactionState state=newState(WATERMARK,true);
+
+        Assert.assertEquals(Collections.<Cell>emptyList(),compact(state,input));
+        Assert.assertEquals(4,state.getPurgedCells());
+    }
+
+    @Test
+    public void testTombstoneIsKeptWhenSomeFilesAreNotCompacted() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),tombstone(3));
+        SICompactionState state=newState(WATERMARK,false);
+
+        //the tombstone still has to hide older versions in the other files, as do the commit timestamps
+        Assert.assertEquals(sorted(commit(1,2),commit(3,4),tombstone(3)),compact(state,input));
+        Assert.assertEquals(1,state.getPurgedCells());
+    }
+
+    @Test
+    public void testReinsertedRowKeepsOnlyNewVersion() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),tombstone(3),commit(5,6),antiTombstone(5),data(5,0,1));
+        SICompactionState state=newState(WATERMARK,true);
+
+        Assert.assertEquals(sorted(commit(5,6),data(5,0,1)),compact(state,input));
+    }
+
+    @Test
+    public void testRowSplitAcrossBatches() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),data(3,0,1));
+        SICompactionState state=newState(WATERMARK,true);
+
+        List<Cell> results=new ArrayList<>();
+        state.mutate(input.subList(0,3),results);
+        Assert.assertTrue("Returned cells of an incomplete row",results.isEmpty());
+        state.mutate(input.subList(3,4),results);
+        state.flush(results);
+        Assert.assertEquals(sorted(commit(3,4),data(3,0,1)),results);
+    }
+
+    @Test
+    public void testNothingIsPurgedWithoutWatermark() throws Exception{
+        List<Cell> input=sorted(commit(1,2),data(1,0,1),commit(3,4),tombstone(3));
+        SICompactionState state=new SICompactionState(mock(TxnSupplier.class),mock(RollForward.class),16);
+
+        Assert.assertEquals(input,compact(state,input));
+        Assert.assertEquals(0,state.getPurgedCells());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static SICompactionState newState(long watermark,boolean allFiles){
+        return new SICompactionState(mock(TxnSupplier.class),mock(RollForward.class),16,watermark,allFiles);
+    }
+
+    private static List<Cell> compact(SICompactionState state,List<Cell> input) throws Exception{
+        List<Cell> results=new ArrayList<>();
+        state.mutate(input,results);
+        state.flush(results);
+        return results;
+    }
+
+    private static List<Cell> sorted(Cell... cells){
+        List<Cell> list=new ArrayList<>(Arrays.asList(cells));
+        Collections.sort(list,KeyValue.COMPARATOR);
+        return list;
+    }
+
+    private static Cell commit(long txnId,long commitTs){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,Bytes.toBytes(commitTs));
+    }
+
+    private static Cell tombstone(long txnId){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId,SIConstants.EMPTY_BYTE_ARRAY);
+    }
+
+    private static Cell antiTombstone(long txnId){
+        return cell(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES);
+    }
+
+    private static Cell data(long txnId,int... columns){
+        BitSet set=new BitSet();
+        for(int column : columns){
+            set.set(column);
+        }
+        byte[] index=BitIndexing.uncompressedBitMap(set,new BitSet(),new BitSet(),new BitSet()).encode();
+        byte[] value=new byte[index.length+1+columns.length];
+        System.arraycopy(index,0,value,0,index.length);
+        return cell(SIConstants.PACKED_COLUMN_BYTES,txnId,value);
+    }
+
+    private static Cell cell(byte[] qualifier,long timestamp,byte[] value){
+        return new KeyValue(ROW,SIConstants.DEFAULT_FAMILY_BYTES,qualifier,timestamp,value);
+    }
+}
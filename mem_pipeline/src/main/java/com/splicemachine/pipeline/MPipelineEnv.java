@@ -40,6 +40,7 @@ import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.PartitionInfoCache;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -60,7 +61,7 @@ public class MPipelineEnv  implements PipelineEnvironment{
         this.siEnv=siEnv;
         this.writerFactory = new DirectBulkWriterFactory(new MappedPipelineFactory(),
                 new AtomicSpliceWriteControl(Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE),
-                pipelineExceptionFactory(),pipelineMeter());
+                pipelineExceptionFactory(),pipelineMeter(),siEnv.timestampSource());
         this.ctxFactoryDriver = ContextFactoryDriverService.loadDriver();
     }
 
@@ -183,4 +184,9 @@ public class MPipelineEnv  implements PipelineEnvironment{
     public SnowflakeFactory snowflakeFactory() {
         return siEnv.snowflakeFactory();
     }
+
+    @Override
+    public ReadOnlyTxnWatermark readOnlyTxnWatermark(){
+        return siEnv.readOnlyTxnWatermark();
+    }
 }
@@ -19,6 +19,7 @@ import com.splicemachine.pipeline.PipelineWriter;
 import com.splicemachine.pipeline.api.*;
 import com.splicemachine.pipeline.client.WriteCoordinator;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
+import com.splicemachine.timestamp.api.TimestampSource;
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.IOException;
@@ -34,8 +35,9 @@ public class DirectBulkWriterFactory implements BulkWriterFactory{
     public DirectBulkWriterFactory(WritePipelineFactory wpf,
                                    SpliceWriteControl writeControl,
                                    PipelineExceptionFactory exceptionFactory,
-                                   PipelineMeter meter) throws IOException{
-        this.pipelineWriter = new PipelineWriter(exceptionFactory,wpf,writeControl,meter);
+                                   PipelineMeter meter,
+                                   TimestampSource timestampSource) throws IOException{
+        this.pipelineWriter = new PipelineWriter(exceptionFactory,wpf,writeControl,meter,timestampSource);
     }
 
     public void setWriteCoordinator(WriteCoordinator writeCoordinator){
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline;
+
+import com.splicemachine.concurrent.SystemClock;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.callbuffer.RecordingCallBuffer;
+import com.splicemachine.pipeline.client.WriteCoordinator;
+import com.splicemachine.pipeline.testsetup.MPipelineTestEnv;
+import com.splicemachine.pipeline.traffic.AtomicSpliceWriteControl;
+import com.splicemachine.pipeline.traffic.QueuedWriteControl;
+import com.splicemachine.pipeline.traffic.SpliceWriteControl;
+import com.splicemachine.pipeline.traffic.SynchronousWriteControl;
+import com.splicemachine.pipeline.traffic.WriteStatus;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.testenv.ArchitectureSpecific;
+import com.splicemachine.si.testenv.TestTransactionSetup;
+import com.splicemachine.storage.DataResult;
+import com.splicemachine.storage.Partition;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives more concurrent writers through the whole write pipeline than the server admits at once, and checks
+ * that the queued writes all land, and that queueing them costs the writers fewer retries and a shorter tail
+ * than rejecting them and having them back off.
+ */
+@Category(ArchitectureSpecific.class)
+public class WriteAdmissionLoadTest{
+    private static final int WRITERS=8;
+    private static final int BATCHES_PER_WRITER=25;
+    private static final int ROWS_PER_BATCH=10;
+
+    @Test
+    public void queuedWritesAllSucceedUnderContention() throws Exception{
+        QueuedWriteControl writeControl=new QueuedWriteControl(new SlowWriteControl(),WRITERS,10,TimeUnit.SECONDS);
+        runLoad(1500,writeControl);
+
+        Assert.assertEquals("No write should have timed out in the queue!",0,writeControl.totalTimedOutWrites());
+        Assert.assertTrue("No write was ever queued, so the test did not overload the server!",
+                writeControl.totalQueuedWrites()>0);
+        Assert.assertEquals("Writes were left in the queue!",0,writeControl.queuedWrites());
+    }
+
+    @Test
+    public void queueingRetriesLessAndHasAShorterTailThanRejecting() throws Exception{
+        //warm up the write path, so that neither of the measured runs pays for it
+        runLoad(1501,new AtomicSpliceWriteControl(Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE));
+
+        LoadResult rejecting=runLoad(1502,new SlowWriteControl());
+        //the longest wait that a region server will allow a queued write
+        LoadResult queueing=runLoad(1503,new QueuedWriteControl(new SlowWriteControl(),WRITERS,20,TimeUnit.MILLISECONDS));
+
+        Assert.assertTrue("Rejecting writes never sent a writer into a retry, so the test did not overload the server!",
+                rejecting.rejections>0);
+        Assert.assertTrue("Queueing did not halve the retries: rejecting="+rejecting+", queueing="+queueing,
+                2*queueing.rejections<rejecting.rejections);
+        Assert.assertTrue("Queueing did not shorten the tail: rejecting="+rejecting+", queueing="+queueing,
+                queueing.tailLatencyMs()<rejecting.tailLatencyMs());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static byte[] rowKey(int writer,int batch,int row){
+        return Encoding.encode("w"+writer+"b"+batch+"r"+row);
+    }
+
+    /**
+     * Has {@link #WRITERS} writers each write {@link #BATCHES_PER_WRITER} batches to a new table through a server
+     * with the given admission control, backing off in real time when they are rejected, and checks that every
+     * row was written.
+     */
+    private static LoadResult runLoad(long conglomerateId,SpliceWriteControl serverControl) throws Exception{
+        final String destinationTable=Long.toString(conglomerateId);
+        RejectCountingWriteControl writeControl=new RejectCountingWriteControl(serverControl);
+        final MPipelineTestEnv testEnv=new MPipelineTestEnv(writeControl,SystemClock.INSTANCE);
+        testEnv.initialize();
+        testEnv.createTransactionalTable(Bytes.toBytes(destinationTable));
+        final TxnLifecycleManager lifecycleManager=new TestTransactionSetup(testEnv,false).txnLifecycleManager;
+        final WriteCoordinator writeCoordinator=testEnv.writeCoordinator();
+        final List<Long> batchLatencies=Collections.synchronizedList(new ArrayList<Long>(WRITERS*BATCHES_PER_WRITER));
+
+        ExecutorService executor=Executors.newFixedThreadPool(WRITERS);
+        final CountDownLatch start=new CountDownLatch(1);
+        try{
+            List<Future<Txn>> futures=new ArrayList<>(WRITERS);
+            for(int i=0;i<WRITERS;i++){
+                final int writer=i;
+                futures.add(executor.submit(new Callable<Txn>(){
+                    @Override
+                    public Txn call() throws Exception{
+                        Txn txn=lifecycleManager.beginTransaction(Bytes.toBytes(destinationTable));
+                        Partition table=writeCoordinator.getPartitionFactory().getTable(destinationTable);
+                        start.await();
+                        try(RecordingCallBuffer<KVPair> callBuffer=writeCoordinator.synchronousWriteBuffer(table,txn)){
+                            for(int b=0;b<BATCHES_PER_WRITER;b++){
+                                for(int r=0;r<ROWS_PER_BATCH;r++){
+                                    callBuffer.add(new KVPair(rowKey(writer,b,r),Bytes.toBytes(r)));
+                                }
+                                long s=System.nanoTime();
+                                callBuffer.flushBufferAndWait();
+                                batchLatencies.add(System.nanoTime()-s);
+                            }
+                        }
+                        txn.commit();
+                        return txn;
+                    }
+                }));
+            }
+            start.countDown();
+
+            try(Partition p=testEnv.getTableFactory().getTable(destinationTable)){
+                for(int i=0;i<WRITERS;i++){
+                    Txn txn=futures.get(i).get(1,TimeUnit.MINUTES);
+                    for(int b=0;b<BATCHES_PER_WRITER;b++){
+                        for(int r=0;r<ROWS_PER_BATCH;r++){
+                            DataResult result=p.getLatest(rowKey(i,b,r),null);
+                            Assert.assertNotNull("Row was not written!",result);
+                            Assert.assertNotNull("No user data written!",result.userData());
+                            Assert.assertEquals("Incorrect written timestamp!",txn.getBeginTimestamp(),result.userData().version());
+                        }
+                    }
+                }
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        return new LoadResult(writeControl.rejections.get(),batchLatencies);
+    }
+
+    private static class LoadResult{
+        private final long rejections;
+        private final List<Long> batchLatencies;
+
+        LoadResult(long rejections,List<Long> batchLatencies){
+            this.rejections=rejections;
+            this.batchLatencies=new ArrayList<>(batchLatencies);
+            Collections.sort(this.batchLatencies);
+        }
+
+        double tailLatencyMs(){
+            long p99=batchLatencies.get((int)Math.ceil(batchLatencies.size()*0.99d)-1);
+            return p99/(double)TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString(){
+            return "{rejections="+rejections+", p99="+tailLatencyMs()+" ms}";
+        }
+    }
+
+    /**
+     * Counts the writes which the server turns away, each of which sends a writer into a backoff and a retry.
+     */
+    private static class RejectCountingWriteControl implements SpliceWriteControl{
+        private final SpliceWriteControl delegate;
+        private final AtomicLong rejections=new AtomicLong(0l);
+
+        RejectCountingWriteControl(SpliceWriteControl delegate){
+            this.delegate=delegate;
+        }
+
+        @Override
+        public Status performDependentWrite(int writes){
+            return count(delegate.performDependentWrite(writes));
+        }
+
+        @Override
+        public Status performIndependentWrite(int writes){
+            return count(delegate.performIndependentWrite(writes));
+        }
+
+        @Override public boolean finishDependentWrite(int writes){ return delegate.finishDependentWrite(writes); }
+        @Override public boolean finishIndependentWrite(int writes){ return delegate.finishIndependentWrite(writes); }
+        @Override public WriteStatus getWriteStatus(){ return delegate.getWriteStatus(); }
+        @Override public int maxDependendentWriteThreads(){ return delegate.maxDependendentWriteThreads(); }
+        @Override public int maxIndependentWriteThreads(){ return delegate.maxIndependentWriteThreads(); }
+        @Override public int maxDependentWriteCount(){ return delegate.maxDependentWriteCount(); }
+        @Override public int maxIndependentWriteCount(){ return delegate.maxIndependentWriteCount(); }
+        @Override public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){ delegate.setMaxIndependentWriteThreads(newMaxIndependentWriteThreads); }
+        @Override public void setMaxDependentWriteThreads(int newMaxDependentWriteThreads){ delegate.setMaxDependentWriteThreads(newMaxDependentWriteThreads); }
+        @Override public void setMaxIndependentWriteCount(int newMaxIndependentWriteCount){ delegate.setMaxIndependentWriteCount(newMaxIndependentWriteCount); }
+        @Override public void setMaxDependentWriteCount(int newMaxDependentWriteCount){ delegate.setMaxDependentWriteCount(newMaxDependentWriteCount); }
+
+        private Status count(Status status){
+            if(status==Status.REJECTED) rejections.incrementAndGet();
+            return status;
+        }
+    }
+
+    /**
+     * Admits one write at a time and holds on to it a little longer than the in-memory write takes, so that the
+     * writers have to wait for each other.
+     */
+    private static class SlowWriteControl extends SynchronousWriteControl{
+        SlowWriteControl(){
+            super(1,1,Integer.MAX_VALUE,Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean finishDependentWrite(int writes){
+            pause();
+            return super.finishDependentWrite(writes);
+        }
+
+        @Override
+        public boolean finishIndependentWrite(int writes){
+            pause();
+            return super.finishIndependentWrite(writes);
+        }
+
+        private static void pause(){
+            try{
+                Thread.sleep(1);
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.splicemachine.access.configuration.ConfigurationSource;
 import com.splicemachine.access.configuration.HConfigurationDefaultsList;
 import com.splicemachine.access.configuration.PipelineConfiguration;
 import com.splicemachine.access.util.ReflectingConfigurationSource;
+import com.splicemachine.concurrent.Clock;
 import com.splicemachine.pipeline.ManualContextFactoryLoader;
 import com.splicemachine.pipeline.MappedPipelineFactory;
 import com.splicemachine.pipeline.PartitionWritePipeline;
@@ -42,6 +43,7 @@ import com.splicemachine.pipeline.contextfactory.WriteContextFactoryManager;
 import com.splicemachine.pipeline.mem.DirectBulkWriterFactory;
 import com.splicemachine.pipeline.mem.DirectPipelineExceptionFactory;
 import com.splicemachine.pipeline.traffic.AtomicSpliceWriteControl;
+import com.splicemachine.pipeline.traffic.SpliceWriteControl;
 import com.splicemachine.pipeline.writer.SynchronousBucketingWriter;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.MemSITestEnv;
@@ -63,18 +65,33 @@ public class MPipelineTestEnv extends MemSITestEnv implements PipelineTestEnv{
     private final SConfiguration config;
     private final TransactionalRegionFactory trf;
 
-    @SuppressWarnings("unchecked")
     public MPipelineTestEnv() throws IOException{
+        this(new AtomicSpliceWriteControl(Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param writeControl the admission control that the (single, in-memory) server applies to incoming writes.
+     */
+    public MPipelineTestEnv(SpliceWriteControl writeControl) throws IOException{
+        this(writeControl,null);
+    }
+
+    /**
+     * @param writeControl the admission control that the (single, in-memory) server applies to incoming writes.
+     * @param writerClock the clock that writers back off with before retrying, or {@code null} to use the
+     *                    test clock, which does not really wait.
+     */
+    @SuppressWarnings("unchecked")
+    public MPipelineTestEnv(SpliceWriteControl writeControl,Clock writerClock) throws IOException{
         this.config = new ConfigurationBuilder().build(new HConfigurationDefaultsList().addConfig(new MPipelineTestConfig()),
                                                        new ReflectingConfigurationSource());
 
          trf = buildTransactionalRegionFactory();
         pipelineFactory = new MappedPipelineFactory();
-        DirectBulkWriterFactory bwf = new DirectBulkWriterFactory(pipelineFactory,
-                new AtomicSpliceWriteControl(Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE,Integer.MAX_VALUE),
-                DirectPipelineExceptionFactory.INSTANCE,NoOpPipelineMeter.INSTANCE);
+        DirectBulkWriterFactory bwf = new DirectBulkWriterFactory(pipelineFactory,writeControl,
+                DirectPipelineExceptionFactory.INSTANCE,NoOpPipelineMeter.INSTANCE,getTimestampSource());
         Writer writer = new SynchronousBucketingWriter(bwf,DirectPipelineExceptionFactory.INSTANCE,
-                getTableFactory(),getClock());
+                getTableFactory(),writerClock==null?getClock():writerClock);
         Monitor monitor = new Monitor(Long.MAX_VALUE,Integer.MAX_VALUE,10,10L,Integer.MAX_VALUE);
         writeCoordinator = new WriteCoordinator(writer,writer,monitor,getTableFactory(),
                 DirectPipelineExceptionFactory.INSTANCE,null);
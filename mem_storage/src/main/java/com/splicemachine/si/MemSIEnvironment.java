@@ -15,6 +15,7 @@
 
 package com.splicemachine.si;
 
+import java.io.IOException;
 import java.nio.file.FileSystems;
 import com.splicemachine.access.api.DistributedFileSystem;
 import com.splicemachine.access.api.PartitionFactory;
@@ -37,7 +38,11 @@ import com.splicemachine.si.impl.*;
 import com.splicemachine.si.impl.data.MExceptionFactory;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.driver.SIEnvironment;
+import com.splicemachine.si.impl.hlc.HLC;
+import com.splicemachine.si.impl.hlc.HLCTimestampSource;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.impl.txn.LocalReadOnlyTxnWatermark;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.storage.*;
 import com.splicemachine.timestamp.api.TimestampSource;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -51,7 +56,7 @@ public class MemSIEnvironment implements SIEnvironment{
     public static volatile MemSIEnvironment INSTANCE;
     private final ExceptionFactory exceptionFactory = MExceptionFactory.INSTANCE;
     private final Clock clock;
-    private final TimestampSource tsSource = new MemTimestampSource();
+    private final TimestampSource tsSource;
     private final TxnStore txnStore;
     private final PartitionFactory tableFactory;
     private final DataFilterFactory filterFactory = MFilterFactory.INSTANCE;
@@ -60,6 +65,7 @@ public class MemSIEnvironment implements SIEnvironment{
     private final OperationFactory opFactory;
     private final TxnOperationFactory txnOpFactory;
     private final KeepAliveScheduler kaScheduler;
+    private final ReadOnlyTxnWatermark readOnlyTxnWatermark;
     private final MPartitionCache partitionCache = new MPartitionCache();
     private final SConfiguration config;
 
@@ -73,11 +79,13 @@ public class MemSIEnvironment implements SIEnvironment{
 
     public MemSIEnvironment(PartitionFactory tableFactory,Clock clock){
         this.tableFactory = tableFactory;
-        this.txnStore = new MemTxnStore(clock,tsSource,exceptionFactory,1000);
         this.config=new ConfigurationBuilder().build(new HConfigurationDefaultsList(), new ReflectingConfigurationSource());
+        this.tsSource = timestampSource(config);
+        this.txnStore = new MemTxnStore(clock,tsSource,exceptionFactory,1000);
         this.opFactory = new MOperationFactory(clock);
         this.txnOpFactory = new SimpleTxnOperationFactory(exceptionFactory,opFactory);
         this.kaScheduler = new ManualKeepAliveScheduler(txnStore);
+        this.readOnlyTxnWatermark = new LocalReadOnlyTxnWatermark(tsSource);
             this.clock = clock;
     }
 
@@ -172,4 +180,21 @@ public class MemSIEnvironment implements SIEnvironment{
     public SnowflakeFactory snowflakeFactory() {
         return snowflakeFactory;
     }
+
+    @Override
+    public ReadOnlyTxnWatermark readOnlyTxnWatermark(){
+        return readOnlyTxnWatermark;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TimestampSource timestampSource(SConfiguration config){
+        if(!config.useHLCTimestamps())
+            return new MemTimestampSource();
+        try{
+            return new HLCTimestampSource(new HLC(),new MemHLCStore(),config.getHLCReservationWindow(),config.getHLCMaxClockOffset());
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
 }
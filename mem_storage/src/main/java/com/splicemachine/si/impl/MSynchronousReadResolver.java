@@ -30,6 +30,7 @@ import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -84,22 +85,59 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
                 }finally{
                     trafficControl.release(1);
                 }
-            }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(1);
+                try{
+                    MSynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(1);
                 }
-                if(t==Txn.ROOT_TRANSACTION){
-                    trafficControl.acquire(1);
-                    try{
-                        MSynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
-                        resolved=true;
-                    }finally{
-                        trafficControl.release(1);
+            }
+            status.rowResolved();
+            return resolved;
+        }catch(IOException e){
+            LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
+            if(failOnError)
+                throw new RuntimeException(e);
+            return false;
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean resolve(Partition region,List<ByteSlice> rowKeys,long txnId,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        if(rowKeys.size()==1)
+            return resolve(region,rowKeys.get(0),txnId,supplier,status,failOnError,trafficControl);
+        try{
+            TxnView transaction=supplier.getTransaction(txnId);
+            boolean resolved=false;
+            int numRows=rowKeys.size();
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK){
+                trafficControl.acquire(numRows);
+                try{
+                    for(ByteSlice rowKey : rowKeys){
+                        resolveRolledback(region,rowKey,txnId,failOnError);
                     }
+                    resolved=true;
+                }finally{
+                    trafficControl.release(numRows);
+                }
+            }else if(isCommitted(transaction)){
+                trafficControl.acquire(numRows);
+                try{
+                    resolveCommitted(region,rowKeys,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
+                    resolved=true;
+                }finally{
+                    trafficControl.release(numRows);
                 }
             }
-            status.rowResolved();
+            for(int i=0;i<numRows;i++){
+                status.rowResolved();
+            }
             return resolved;
         }catch(IOException e){
             LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
@@ -115,21 +153,51 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
 
     /******************************************************************************************************************/
     /*private helper methods */
-    private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
-        /*
-         * Resolve the row as committed directly.
-         *
-         * This does a Put to the row, bypassing SI and the WAL, so it should be pretty low impact
-         */
+    private static boolean isCommitted(TxnView transaction){
+        //a dependent child can only be resolved once all of its ancestors have committed
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    private void resolveCommitted(Partition region,List<ByteSlice> rowKeys,long txnId,long commitTimestamp,boolean failOnError){
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
+        DataPut[] puts=new DataPut[rowKeys.size()];
+        for(int i=0;i<puts.length;i++){
+            puts[i]=commitTimestampPut(rowKeys.get(i),txnId,commitTimestamp);
+        }
+        try{
+            region.writeBatch(puts);
+        }catch(IOException e){
+            if(failOnError)
+                throw new RuntimeException(e);
+        }
+    }
+
+    private static DataPut commitTimestampPut(ByteSlice rowKey,long txnId,long commitTimestamp){
         DataPut put=new MPut(rowKey.getByteCopy());
         put.addCell(SIConstants.DEFAULT_FAMILY_BYTES,
                 SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
                 Bytes.toBytes(commitTimestamp));
         put.addAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
         put.addAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        return put;
+    }
+
+    private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
+        /*
+         * Resolve the row as committed directly.
+         *
+         * This does a Put to the row, bypassing SI and the WAL, so it should be pretty low impact
+         */
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return; //do nothing if we are closing or rollforward is disabled
+
+        DataPut put=commitTimestampPut(rowKey,txnId,commitTimestamp);
         try{
             region.put(put);
         }catch(IOException e){
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.si.impl.hlc.HLCStore;
+
+/**
+ * In-memory {@link HLCStore} for the single node of the memory platform, which has nothing to
+ * share and does not outlive its process.
+ */
+public class MemHLCStore implements HLCStore{
+    private volatile long reservedTime = 0;
+    private volatile long memory = 0;
+
+    @Override
+    public int nodeId(){
+        return 0;
+    }
+
+    @Override
+    public long reservedTime(){
+        return reservedTime;
+    }
+
+    @Override
+    public void reserve(long reservedTime){
+        this.reservedTime = reservedTime;
+    }
+
+    @Override
+    public void rememberTimestamp(long timestamp){
+        memory = timestamp;
+    }
+
+    @Override
+    public long retrieveTimestamp(){
+        return memory;
+    }
+}
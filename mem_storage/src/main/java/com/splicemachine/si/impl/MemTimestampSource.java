@@ -30,6 +30,16 @@ public class MemTimestampSource implements TimestampSource {
         return id.incrementAndGet();
     }
 
+    @Override
+    public void observeTimestamp(long timestamp) {
+        // No Op
+    }
+
+    @Override
+    public void commitWait(long commitTimestamp) {
+        // No Op
+    }
+
     @Override
     public void rememberTimestamp(long timestamp) {
         memory = timestamp;
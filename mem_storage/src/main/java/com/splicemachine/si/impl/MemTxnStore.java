@@ -83,6 +83,15 @@ public class MemTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            txns[i]=getTransaction(txnIds[i]);
+        }
+        return txns;
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -174,6 +183,7 @@ public class MemTxnStore implements TxnStore{
             if(isTimedOut(txnHolder))
                 throw new MCannotCommitException(txnId,Txn.State.ROLLEDBACK);
 
+            commitTsGenerator.observeTimestamp(txnId);
             final long commitTs=commitTsGenerator.nextTimestamp();
 
             TxnView parentTransaction=txn.getParentTxnView();
@@ -244,6 +254,19 @@ public class MemTxnStore implements TxnStore{
         }
     }
 
+    @Override
+    public Txn.State[] keepAlive(long[] txnIds) throws IOException{
+        Txn.State[] states=new Txn.State[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            try{
+                states[i]=keepAlive(txnIds[i])?Txn.State.ACTIVE:Txn.State.COMMITTED;
+            }catch(MTransactionTimeout tte){
+                states[i]=Txn.State.ROLLEDBACK;
+            }
+        }
+        return states;
+    }
+
     //		@Override
     public void timeout(long txnId) throws IOException{
         rollback(txnId);
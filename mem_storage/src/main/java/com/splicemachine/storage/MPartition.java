@@ -19,6 +19,7 @@ import com.splicemachine.access.util.ByteComparisons;
 import org.sparkproject.guava.base.Predicate;
 import org.sparkproject.guava.collect.BiMap;
 import org.sparkproject.guava.collect.HashBiMap;
+import org.sparkproject.guava.collect.Iterators;
 import org.sparkproject.guava.collect.Sets;
 import com.splicemachine.collections.EmptyNavigableSet;
 import com.splicemachine.kvpair.KVPair;
@@ -149,8 +150,21 @@ public class MPartition implements Partition{
 
     @Override
     public DataScanner openScanner(DataScan scan,MetricFactory metricFactory) throws IOException{
-        NavigableSet<DataCell> dataCells=getAscendingScanSet(scan);
-        Iterator<DataCell> iter = scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator();
+        Iterator<DataCell> iter;
+        List<Pair<byte[],byte[]>> keyRanges = scan instanceof MScan? ((MScan)scan).getKeyRanges(): null;
+        if(keyRanges!=null){
+            List<Iterator<DataCell>> rangeIters = new ArrayList<>(keyRanges.size());
+            for(Pair<byte[],byte[]> range:keyRanges){
+                MScan rangeScan = new MScan();
+                rangeScan.startKey(range.getFirst()).stopKey(range.getSecond());
+                rangeScan.setTimeRange(scan.lowVersion(),scan.highVersion());
+                rangeIters.add(getAscendingScanSet(rangeScan).iterator());
+            }
+            iter = Iterators.concat(rangeIters.iterator());
+        }else{
+            NavigableSet<DataCell> dataCells=getAscendingScanSet(scan);
+            iter = scan.isDescendingScan()? dataCells.descendingIterator(): dataCells.iterator();
+        }
 
         long curSeq = sequenceGen.get();
         return new SetScanner(curSeq,iter,scan.lowVersion(),scan.highVersion(),scan.getFilter(),this,metricFactory);
@@ -15,9 +15,11 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,6 +30,7 @@ public class MScan implements DataScan{
     private byte[] startKey;
     private byte[] stopKey;
     private DataFilter filter;
+    private List<Pair<byte[],byte[]>> keyRanges;
 
     private Map<String,byte[]> attrs = new HashMap<>();
     private long highTs = Long.MAX_VALUE;
@@ -64,6 +67,20 @@ public class MScan implements DataScan{
         return this;
     }
 
+    @Override
+    public DataScan keyRanges(List<Pair<byte[],byte[]>> ranges){
+        assert ranges.size()>0: "Programmer error: no key ranges specified!";
+        assert !descending: "Programmer error: key ranges are not supported for descending scans";
+        this.keyRanges = ranges;
+        this.startKey = ranges.get(0).getFirst();
+        this.stopKey = ranges.get(ranges.size()-1).getSecond();
+        return this;
+    }
+
+    public List<Pair<byte[],byte[]>> getKeyRanges(){
+        return keyRanges;
+    }
+
     @Override
     public DataScan reverseOrder(){
         this.descending= !descending; //swap the order
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.MemSITestEnv;
+import com.splicemachine.si.api.server.ConstraintChecker;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnLifecycleManager;
+import com.splicemachine.si.api.txn.WriteConflict;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.si.testenv.TestTransactionSetup;
+import com.splicemachine.storage.DataResult;
+import com.splicemachine.storage.MutationStatus;
+import com.splicemachine.storage.Partition;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Tests that the write/write conflict checks of the SITransactor reach the same conclusions when they are
+ * answered by the RecentWriterCache as when they read the row.
+ */
+public class SITransactorRecentWriterTest{
+    private static final byte[] DESTINATION_TABLE=Bytes.toBytes("1184");
+
+    private MemSITestEnv testEnv;
+    private TxnLifecycleManager control;
+    private RecentWriterCache recentWriters;
+    private SITransactor transactor;
+    private Partition table;
+
+    @Before
+    public void setUp() throws Exception{
+        testEnv=new MemSITestEnv();
+        testEnv.initialize();
+        TestTransactionSetup transactorSetup=new TestTransactionSetup(testEnv,true);
+        control=transactorSetup.txnLifecycleManager;
+        recentWriters=new RecentWriterCache(1024);
+        transactor=new SITransactor(transactorSetup.txnStore,
+                testEnv.getOperationFactory(),
+                testEnv.getBaseOperationFactory(),
+                testEnv.getOperationStatusFactory(),
+                testEnv.getExceptionFactory(),
+                recentWriters);
+        table=testEnv.getTableFactory().getTable(testEnv.getPersonTableName());
+    }
+
+    @Test
+    public void rolledBackWriterDoesNotHideConflictBeneathIt() throws Exception{
+        byte[] row=Bytes.toBytes("rolledBack");
+        Txn t3=control.beginTransaction(DESTINATION_TABLE);
+
+        Txn t1=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t1,row,KVPair.Type.UPSERT,null));
+        t1.commit();
+
+        Txn t2=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t2,row,KVPair.Type.UPSERT,null));
+        assertLastWriter(row,t2);
+        t2.rollback();
+
+        //t1 committed after t3 began, and t2 no longer covers it
+        try{
+            write(t3,row,KVPair.Type.UPSERT,null);
+            Assert.fail("Expected a write conflict with "+t1);
+        }catch(IOException e){
+            assertWriteConflict(e);
+        }
+    }
+
+    @Test
+    public void siblingOfCachedWriterConflicts() throws Exception{
+        byte[] row=Bytes.toBytes("sibling");
+        Txn parent=control.beginTransaction(DESTINATION_TABLE);
+        Txn c1=control.beginChildTransaction(parent,DESTINATION_TABLE);
+        assertSuccess(write(c1,row,KVPair.Type.UPSERT,null));
+        assertLastWriter(row,c1);
+
+        Txn c2=control.beginChildTransaction(parent,DESTINATION_TABLE);
+        try{
+            write(c2,row,KVPair.Type.UPSERT,null);
+            Assert.fail("Expected a write conflict with "+c1);
+        }catch(IOException e){
+            assertWriteConflict(e);
+        }
+    }
+
+    @Test
+    public void parentWritingOverActiveChildIsNotCachedAsConflictFree() throws Exception{
+        byte[] row=Bytes.toBytes("child");
+        Txn parent=control.beginTransaction(DESTINATION_TABLE);
+        Txn child=control.beginChildTransaction(parent,DESTINATION_TABLE);
+        assertSuccess(write(child,row,KVPair.Type.UPSERT,null));
+        assertLastWriter(row,child);
+
+        assertSuccess(write(parent,row,KVPair.Type.UPSERT,null));
+        Assert.assertNull("A write with a child conflict must not be remembered!",
+                recentWriters.lastWriter(table.getName(),row));
+    }
+
+    @Test
+    public void visibleTombstoneSkipsUniqueConstraint() throws Exception{
+        byte[] row=Bytes.toBytes("tombstone");
+        RecordingChecker unique=new RecordingChecker();
+
+        Txn t1=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t1,row,KVPair.Type.INSERT,unique));
+        t1.commit();
+
+        Txn t2=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t2,row,KVPair.Type.DELETE,null));
+        assertLastWriter(row,t2);
+        t2.commit();
+
+        Txn t3=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t3,row,KVPair.Type.INSERT,unique));
+        Assert.assertEquals("The deleted row should not have been checked!",0,unique.calls);
+        t3.commit();
+    }
+
+    @Test
+    public void rolledBackTombstoneStillChecksUniqueConstraint() throws Exception{
+        byte[] row=Bytes.toBytes("rolledBackTombstone");
+        RecordingChecker unique=new RecordingChecker();
+
+        Txn t1=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t1,row,KVPair.Type.INSERT,unique));
+        t1.commit();
+
+        Txn t2=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t2,row,KVPair.Type.DELETE,null));
+        assertLastWriter(row,t2);
+        t2.rollback();
+
+        Txn t3=control.beginTransaction(DESTINATION_TABLE);
+        MutationStatus status=write(t3,row,KVPair.Type.INSERT,unique);
+        Assert.assertEquals("The row is visible again, so it must be checked!",1,unique.calls);
+        Assert.assertFalse("Duplicate row should have been rejected!",status.isSuccess());
+    }
+
+    @Test
+    public void invisibleTombstoneStillChecksUniqueConstraint() throws Exception{
+        byte[] row=Bytes.toBytes("invisibleTombstone");
+        RecordingChecker unique=new RecordingChecker();
+
+        Txn t1=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t1,row,KVPair.Type.INSERT,unique));
+        t1.commit();
+
+        //the delete commits after t3 begins, so t3 still sees the row (and conflicts with the delete)
+        Txn t3=control.beginTransaction(DESTINATION_TABLE);
+        Txn t2=control.beginTransaction(DESTINATION_TABLE);
+        assertSuccess(write(t2,row,KVPair.Type.DELETE,null));
+        t2.commit();
+
+        try{
+            write(t3,row,KVPair.Type.INSERT,unique);
+            Assert.fail("Expected a write conflict with "+t2);
+        }catch(IOException e){
+            assertWriteConflict(e);
+        }
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private MutationStatus write(Txn txn,byte[] row,KVPair.Type type,ConstraintChecker checker) throws IOException{
+        KVPair kvPair=new KVPair(row,type==KVPair.Type.DELETE?new byte[]{}:Bytes.toBytes(txn.getTxnId()),type);
+        MutationStatus[] status=transactor.processKvBatch(table,NoopRollForward.INSTANCE,
+                SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,
+                Collections.singletonList(kvPair),txn,checker);
+        Assert.assertEquals("Incorrect number of statuses!",1,status.length);
+        return status[0];
+    }
+
+    private void assertLastWriter(byte[] row,Txn txn){
+        RecentWriterCache.Writer writer=recentWriters.lastWriter(table.getName(),row);
+        Assert.assertNotNull("Conflict-free write should be remembered!",writer);
+        Assert.assertEquals("Incorrect last writer!",txn.getTxnId(),writer.getTxnId());
+    }
+
+    private void assertSuccess(MutationStatus status){
+        Assert.assertTrue("Write failed: "+status.errorMessage(),status.isSuccess());
+    }
+
+    private void assertWriteConflict(IOException e){
+        e=testEnv.getExceptionFactory().processRemoteException(e);
+        Assert.assertTrue("Expected a WriteConflict exception, but got <"+e.getClass()+">",e instanceof WriteConflict);
+    }
+
+    private class RecordingChecker implements ConstraintChecker{
+        private int calls;
+
+        @Override
+        public MutationStatus checkConstraint(KVPair mutation,DataResult existingRow) throws IOException{
+            calls++;
+            return testEnv.getOperationStatusFactory().failure("duplicate key");
+        }
+    }
+}
@@ -23,6 +23,8 @@ import javax.management.MalformedObjectNameException;
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.splicemachine.access.api.PartitionFactory;
@@ -35,9 +37,11 @@ import com.splicemachine.pipeline.api.PipelineMeter;
 import com.splicemachine.pipeline.client.WriteCoordinator;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
+import com.splicemachine.pipeline.traffic.QueuedWriteControl;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
 import com.splicemachine.pipeline.traffic.SynchronousWriteControl;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
+import com.splicemachine.timestamp.api.TimestampSource;
 
 /**
  * @author Scott Fines
@@ -45,9 +49,14 @@ import com.splicemachine.pipeline.utils.PipelineCompressor;
  */
 public class PipelineDriver{
     private static final int ipcReserved=10;
+    /*
+     * The longest a write may hold an IPC handler while waiting for room, whatever it is configured with.
+     */
+    private static final long maxQueueWaitMsLimit=20;
     private static PipelineDriver INSTANCE;
 
-    private final SpliceWriteControl writeControl;
+    private final QueuedWriteControl writeControl;
+    private final int maxQueuedWritesLimit;
     private final MappedPipelineFactory writePipelineFactory=new MappedPipelineFactory();
     private final PipelineMeter pipelineMeter;
     private final PipelineWriter pipelineWriter;
@@ -67,7 +76,7 @@ public class PipelineDriver{
         BulkWriterFactory writerFactory = env.writerFactory();
         PipelineMeter meter = env.pipelineMeter();
 
-        INSTANCE = new PipelineDriver(config,ctxFactoryDriver,pef,partitionFactory,compressor,writerFactory,meter,env.systemClock());
+        INSTANCE = new PipelineDriver(config,ctxFactoryDriver,pef,partitionFactory,compressor,writerFactory,meter,env.systemClock(),env.timestampSource());
         writerFactory.setWriter(INSTANCE.pipelineWriter);
     }
 
@@ -80,7 +89,8 @@ public class PipelineDriver{
                            PipelineCompressor compressor,
                            BulkWriterFactory channelFactory,
                            PipelineMeter meter,
-                           Clock clock){
+                           Clock clock,
+                           TimestampSource timestampSource){
         this.ctxFactoryDriver = ctxFactoryDriver;
         this.pef = pef;
         this.compressor = compressor;
@@ -90,8 +100,17 @@ public class PipelineDriver{
         int maxIndependentWrites = config.getMaxIndependentWrites();
         int maxDependentWrites = config.getMaxDependentWrites();
 
-        this.writeControl= new SynchronousWriteControl(ipcThreads/2,ipcThreads/2,maxDependentWrites,maxIndependentWrites);
-        this.pipelineWriter = new PipelineWriter(pef, writePipelineFactory,writeControl,pipelineMeter);
+        /*
+         * A queued write parks the IPC handler which received it, so the queue may hold at most a quarter of the
+         * handlers, and the handlers it may hold are taken out of the handlers which may be writing. The queue
+         * cannot be grown past what was set aside for it here.
+         */
+        this.maxQueuedWritesLimit = Math.min(config.getWriteMaxQueuedWrites(),ipcThreads/4);
+        int writeThreads = (ipcThreads-maxQueuedWritesLimit)/2;
+        SpliceWriteControl admissionControl = new SynchronousWriteControl(writeThreads,writeThreads,maxDependentWrites,maxIndependentWrites);
+        long maxQueueWait = Math.min(config.getWriteMaxQueueWait(),maxQueueWaitMsLimit);
+        this.writeControl= new QueuedWriteControl(admissionControl,maxQueuedWritesLimit,maxQueueWait,TimeUnit.MILLISECONDS);
+        this.pipelineWriter = new PipelineWriter(pef, writePipelineFactory,writeControl,pipelineMeter,timestampSource);
         channelFactory.setWriter(pipelineWriter);
         channelFactory.setPipeline(writePipelineFactory);
         try{
@@ -162,6 +181,15 @@ public class PipelineDriver{
         double get5MThroughput();
         double get15MThroughput();
         long getTotalRejected();
+        Map<String,Double> getCompressionRatios();
+        Map<String,Long> getCompressionTimeMs();
+        int getQueuedWrites();
+        long getTotalQueuedWrites();
+        long getTotalQueueTimeouts();
+        int getMaxQueuedWrites();
+        void setMaxQueuedWrites(int newMaxQueuedWrites);
+        long getMaxQueueWaitMs();
+        void setMaxQueueWaitMs(long newMaxQueueWaitMs);
     }
 
 
@@ -179,6 +207,23 @@ public class PipelineDriver{
         @Override public double get5MThroughput(){ return pipelineMeter.fiveMThroughput(); }
         @Override public double get15MThroughput(){ return pipelineMeter.fifteenMThroughput(); }
         @Override public long getTotalRejected(){ return pipelineMeter.rejectedCount(); }
+        @Override public Map<String, Double> getCompressionRatios(){ return pipelineMeter.compressionRatios(); }
+        @Override public Map<String, Long> getCompressionTimeMs(){ return pipelineMeter.compressionTimes(); }
+        @Override public int getQueuedWrites(){ return writeControl.queuedWrites(); }
+        @Override public long getTotalQueuedWrites(){ return writeControl.totalQueuedWrites(); }
+        @Override public long getTotalQueueTimeouts(){ return writeControl.totalTimedOutWrites(); }
+        @Override public int getMaxQueuedWrites(){ return writeControl.maxQueuedWrites(); }
+        @Override public long getMaxQueueWaitMs(){ return writeControl.maxQueueWait(TimeUnit.MILLISECONDS); }
+
+        @Override
+        public void setMaxQueuedWrites(int newMaxQueuedWrites){
+            writeControl.setMaxQueuedWrites(Math.min(newMaxQueuedWrites,maxQueuedWritesLimit));
+        }
+
+        @Override
+        public void setMaxQueueWaitMs(long newMaxQueueWaitMs){
+            writeControl.setMaxQueueWait(Math.min(newMaxQueueWaitMs,maxQueueWaitMsLimit),TimeUnit.MILLISECONDS);
+        }
 
         @Override
         public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
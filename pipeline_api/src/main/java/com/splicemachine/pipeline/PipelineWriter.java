@@ -22,7 +22,9 @@ import com.splicemachine.pipeline.api.WritePipelineFactory;
 import com.splicemachine.pipeline.client.*;
 import com.splicemachine.pipeline.exception.IndexNotSetUpException;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
+import com.splicemachine.pipeline.traffic.WriteStatus;
 import com.splicemachine.pipeline.writehandler.SharedCallBufferFactory;
+import com.splicemachine.timestamp.api.TimestampSource;
 import com.splicemachine.utils.Pair;
 import org.apache.log4j.Logger;
 
@@ -46,15 +48,18 @@ public class PipelineWriter{
     private final PipelineExceptionFactory exceptionFactory;
     private final WritePipelineFactory writePipelineFactory;
     private final PipelineMeter pipelineMeter;
+    private final TimestampSource timestampSource;
 
     public PipelineWriter(PipelineExceptionFactory pipelineExceptionFactory,
                           WritePipelineFactory writePipelineFactory,
                           SpliceWriteControl writeControl,
-                          PipelineMeter pipelineMeter){
+                          PipelineMeter pipelineMeter,
+                          TimestampSource timestampSource){
         this.writeControl = writeControl;
         this.exceptionFactory = pipelineExceptionFactory;
         this.writePipelineFactory = writePipelineFactory;
         this.pipelineMeter = pipelineMeter;
+        this.timestampSource = timestampSource;
     }
 
     public BulkWritesResult bulkWrite(@Nonnull BulkWrites bulkWrites) throws IOException{
@@ -66,6 +71,8 @@ public class PipelineWriter{
         if (numBulkWrites==0) {
             throw exceptionFactory.doNotRetry("Should Never Send Empty Call to Endpoint");
         }
+        //the writing transaction's timestamp was generated on the sending node
+        timestampSource.observeTimestamp(bulkWrites.getTxn().getBeginTimestamp());
 
         // Determine whether or not this write is dependent or independent.  Dependent writes are writes to a table with indexes.
         boolean dependent;
@@ -109,10 +116,11 @@ public class PipelineWriter{
                 LOG.trace("Rejecting "+numBulkWrites+" rows in "+ bws.size()+"writes because the pipeline is too busy");
             rejectAll(bws,result, Code.PIPELINE_TOO_BUSY,null);
             rejectedCount.addAndGet(numBulkWrites);
-            return new BulkWritesResult(result);
+            return new BulkWritesResult(result,writeCredits(writeControl,dependent));
         }
+        BulkWritesResult writeResult;
         try {
-            return performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
+            writeResult = performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
         } finally {
             switch (status) {
                 case REJECTED:
@@ -125,6 +133,9 @@ public class PipelineWriter{
                     break;
             }
         }
+        // Tell the writer how much room is left, so that it can pace itself
+        writeResult.setWriteCredits(writeCredits(writeControl,dependent));
+        return writeResult;
     }
 
     protected BulkWritesResult performWrite(@Nonnull BulkWrites bulkWrites,Collection<BulkWrite> bws,List<BulkWriteResult> result,SharedCallBufferFactory indexWriteBufferFactory) throws IOException{
@@ -201,8 +212,28 @@ public class PipelineWriter{
         return writeCoordinator;
     }
 
+    /**
+     * @return the number of rows of a (dependent or independent) write which the write control could accept right
+     * now. A write needs a free thread as well as room for its rows, so there are no credits while every thread is
+     * in use.
+     */
+    public static int writeCredits(SpliceWriteControl writeControl,boolean dependent){
+        WriteStatus status = writeControl.getWriteStatus();
+        int dependentCredits = 0;
+        if(status.getDependentWriteThreads()<writeControl.maxDependendentWriteThreads())
+            dependentCredits = Math.max(0,writeControl.maxDependentWriteCount()-status.getDependentWriteCount());
+        if(dependent) return dependentCredits;
+
+        int independentCredits = 0;
+        if(status.getIndependentWriteThreads()<writeControl.maxIndependentWriteThreads())
+            independentCredits = Math.max(0,writeControl.maxIndependentWriteCount()-status.getIndependentWriteCount());
+        //independent writes steal from the dependent pool when their own is full
+        return (int)Math.min(Integer.MAX_VALUE,(long)independentCredits+dependentCredits);
+    }
+
     /* ****************************************************************************************************************/
     /*private helper methods*/
+
     private void rejectAll(Collection<BulkWrite> writes, Collection<BulkWriteResult> result, Code status,String msg) {
         for(BulkWrite write:writes){
             pipelineMeter.mark(0,write.getSize());
@@ -15,6 +15,8 @@
 
 package com.splicemachine.pipeline.api;
 
+import java.util.Map;
+
 /**
  * @author Scott Fines
  *         Date: 12/23/15
@@ -34,4 +36,23 @@ public interface PipelineMeter{
     double oneMThroughput();
 
     long rejectedCount();
+
+    /**
+     * Record a write pipeline payload for {@code tableName} being compressed or decompressed.
+     *
+     * @param rawBytes the size of the payload before compression
+     * @param wireBytes the size of the payload as sent over the wire
+     * @param cpuNanos the time spent compressing or decompressing the payload
+     */
+    void compressed(String tableName,long rawBytes,long wireBytes,long cpuNanos);
+
+    /**
+     * @return the ratio of raw to wire bytes of the payloads of each table
+     */
+    Map<String,Double> compressionRatios();
+
+    /**
+     * @return the total time (in milliseconds) spent compressing and decompressing the payloads of each table
+     */
+    Map<String,Long> compressionTimes();
 }
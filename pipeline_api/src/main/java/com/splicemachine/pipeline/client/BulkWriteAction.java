@@ -230,7 +230,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
              * simply because we were told to wait a bit by the write pipeline (i.e. we were rejected).
              */
             if(ctx.shouldSleep()){
-                clock.sleep(PipelineUtils.getPauseTime(ctx.attemptCount,10),TimeUnit.MILLISECONDS);
+                long pause=ctx.pauseTime(nextWrite);
+                if(pause>0)
+                    clock.sleep(pause,TimeUnit.MILLISECONDS);
             }if(ctx.directRetry)
                 writesToPerform.add(nextWrite);
             else if(ctx.nextWriteSet!=null &&ctx.nextWriteSet.size()>0){
@@ -259,6 +261,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
             writeTimer.startTiming();
             BulkWritesResult bulkWritesResult=writer.write(nextWrite,ctx.refreshCache);
             writeTimer.stopTiming();
+            ctx.writeCredits=bulkWritesResult.getWriteCredits();
             Iterator<BulkWrite> bws=nextWrite.getBulkWrites().iterator();
             Collection<BulkWriteResult> results=bulkWritesResult.getBulkWriteResults();
             for(BulkWriteResult bulkWriteResult : results){
@@ -479,6 +482,21 @@ public class BulkWriteAction implements Callable<WriteStats>{
         retryPipingCallBuffer.addAll(retryBuffer);
     }
 
+    /**
+     * @param attemptCount the number of attempts made so far
+     * @param retryRows the number of rows which were rejected, and are to be retried
+     * @param writeCredits the number of rows the server said it could accept, or
+     *                     {@link BulkWritesResult#UNKNOWN_CREDITS} if it didn't say
+     * @return how long (in milliseconds) to wait before retrying a rejected write. We only back off for the part of
+     * the retry that the server cannot take yet, so a server which was only briefly too busy is retried straight away.
+     */
+    public static long pauseTime(int attemptCount,int retryRows,int writeCredits){
+        long pause=PipelineUtils.getPauseTime(attemptCount,10);
+        if(writeCredits<0 || retryRows<=0) return pause;
+        if(writeCredits>=retryRows) return 0;
+        return pause*(retryRows-writeCredits)/retryRows;
+    }
+
     private class WriteAttemptContext{
         boolean refreshCache = false;
         boolean sleep = false;
@@ -494,18 +512,35 @@ public class BulkWriteAction implements Callable<WriteStats>{
 
         int rejectedCount;
         int failedCount;
+        /*
+         * The number of rows the server said it could accept with its last response, or
+         * BulkWritesResult.UNKNOWN_CREDITS if it didn't say.
+         */
+        int writeCredits = BulkWritesResult.UNKNOWN_CREDITS;
 
 
         boolean shouldSleep(){
             return sleep || refreshCache;
         }
 
+        /**
+         * @return how long (in milliseconds) to wait before retrying. When the server rejected us, but told us how
+         * much room it has left, we only back off for the part of the retry that it cannot take yet, so a server
+         * which was only briefly too busy is retried straight away.
+         */
+        long pauseTime(BulkWrites attempted){
+            if(!rejected || refreshCache) return PipelineUtils.getPauseTime(attemptCount,10);
+            int retryRows=directRetry?attempted.numEntries():(nextWriteSet==null?0:nextWriteSet.size());
+            return BulkWriteAction.pauseTime(attemptCount,retryRows,writeCredits);
+        }
+
         void reset(){
             refreshCache = false;
             sleep = false;
             nextWriteSet = null;
             directRetry = false;
             rejected=false;
+            writeCredits = BulkWritesResult.UNKNOWN_CREDITS;
         }
 
         void addBulkWrites(Collection<KVPair> writes){
@@ -22,16 +22,39 @@ import java.util.Collection;
  * Created on: 8/8/13
  */
 public class BulkWritesResult {
+		/**
+		 * The write credits of a result from a server which does not advertise them.
+		 */
+		public static final int UNKNOWN_CREDITS = -1;
+
 		private Collection<BulkWriteResult> bulkWriteResults;
+		private int writeCredits = UNKNOWN_CREDITS;
 
 		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults){
 				this.bulkWriteResults = bulkWriteResults;
 		}
 
+		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults,int writeCredits){
+				this.bulkWriteResults = bulkWriteResults;
+				this.writeCredits = writeCredits;
+		}
+
 		public Collection<BulkWriteResult> getBulkWriteResults() {
 				return bulkWriteResults;
 		}
 
+		/**
+		 * @return the number of rows that the server could accept (of the same kind of write as this one) when it
+		 * sent this result, or {@link #UNKNOWN_CREDITS} if it did not say.
+		 */
+		public int getWriteCredits() {
+				return writeCredits;
+		}
+
+		public void setWriteCredits(int writeCredits) {
+				this.writeCredits = writeCredits;
+		}
+
 		@Override
 		public String toString() {
 				StringBuilder sb = new StringBuilder("BulkWritesResult{");
@@ -41,6 +64,8 @@ public class BulkWritesResult {
 						else sb.append(",");
 						sb.append(result);
 				}
+				if(writeCredits!=UNKNOWN_CREDITS)
+						sb.append(",writeCredits=").append(writeCredits);
 				return sb.toString();
 		}
 }
@@ -17,6 +17,9 @@ package com.splicemachine.pipeline.context;
 
 import com.splicemachine.pipeline.api.PipelineMeter;
 
+import java.util.Collections;
+import java.util.Map;
+
 
 /**
  * @author Scott Fines
@@ -36,4 +39,9 @@ public class NoOpPipelineMeter implements PipelineMeter{
     @Override public double fiveMThroughput(){ return 0; }
     @Override public double oneMThroughput(){ return 0; }
     @Override public long rejectedCount(){ return 0; }
+
+    @Override public void compressed(String tableName,long rawBytes,long wireBytes,long cpuNanos){ }
+
+    @Override public Map<String, Double> compressionRatios(){ return Collections.emptyMap(); }
+    @Override public Map<String, Long> compressionTimes(){ return Collections.emptyMap(); }
 }
@@ -39,5 +39,13 @@ public interface ContextFactoryLoader extends AutoCloseable{
 
     void ddlChange(DDLMessage.DDLChange ddlChange);
 
+    /**
+     * Called on every server holding a region of this conglomerate when rows have been deleted from a table it
+     * holds a foreign key to, before the deleting writer looks here for rows which still reference them.
+     *
+     * @param referencedConglomerateId the conglomerate (primary key or unique index) the rows were deleted from
+     */
+    void referencedRowsDeleted(long referencedConglomerateId);
+
     void close();
 }
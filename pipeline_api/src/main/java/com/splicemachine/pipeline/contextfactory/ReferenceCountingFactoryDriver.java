@@ -104,5 +104,10 @@ public abstract class ReferenceCountingFactoryDriver implements ContextFactoryDr
             if(!loaded) return; //ignore changes that occur before we have a chance to load them
             delegate.ddlChange(ddlChange);
         }
+
+        @Override
+        public void referencedRowsDeleted(long referencedConglomerateId){
+            delegate.referencedRowsDeleted(referencedConglomerateId);
+        }
     }
 }
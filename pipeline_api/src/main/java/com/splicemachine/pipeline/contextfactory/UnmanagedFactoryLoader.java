@@ -41,6 +41,11 @@ public class UnmanagedFactoryLoader implements ContextFactoryLoader{
         //no-op
     }
 
+    @Override
+    public void referencedRowsDeleted(long referencedConglomerateId){
+        //no-op
+    }
+
     @Override
     public void load(TxnView txn) throws IOException, InterruptedException{
         //no-op
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A SpliceWriteControl which, rather than rejecting a write as soon as the pipeline is too busy, lets a bounded
+ * number of writes wait (for a bounded time) for running writes to finish and free up room.
+ * <p>
+ * A region server which is only briefly overloaded then delays its writers a little, instead of sending
+ * them into a backoff and having them resend the whole batch. Writes are only rejected when the queue is full,
+ * or when they have waited for the maximum wait time.
+ * <p>
+ * A queued write waits on the thread which is performing it, which on a region server is an IPC handler, so
+ * whoever sizes the queue must count it against the handler pool and keep the wait short.
+ */
+public class QueuedWriteControl implements SpliceWriteControl{
+    private static final Logger LOG = Logger.getLogger(QueuedWriteControl.class);
+
+    private final SpliceWriteControl delegate;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition writeFinished = lock.newCondition();
+    private final AtomicInteger queuedWrites = new AtomicInteger(0);
+    private final AtomicLong totalQueuedWrites = new AtomicLong(0l);
+    private final AtomicLong totalTimedOutWrites = new AtomicLong(0l);
+
+    private volatile int maxQueuedWrites;
+    private volatile long maxWaitNanos;
+
+    public QueuedWriteControl(SpliceWriteControl delegate,int maxQueuedWrites,long maxWait,TimeUnit waitUnit){
+        assert maxQueuedWrites>=0 && maxWait>=0;
+        this.delegate = delegate;
+        this.maxQueuedWrites = maxQueuedWrites;
+        this.maxWaitNanos = waitUnit.toNanos(maxWait);
+    }
+
+    @Override
+    public Status performDependentWrite(int writes){
+        if(queuedWrites.get()<=0){
+            Status status = delegate.performDependentWrite(writes);
+            if(status!=Status.REJECTED) return status;
+        }
+        //don't jump ahead of writes which are already waiting
+        return awaitRoom(true,writes);
+    }
+
+    @Override
+    public boolean finishDependentWrite(int writes){
+        boolean finished = delegate.finishDependentWrite(writes);
+        signalQueuedWrites();
+        return finished;
+    }
+
+    @Override
+    public Status performIndependentWrite(int writes){
+        if(queuedWrites.get()<=0){
+            Status status = delegate.performIndependentWrite(writes);
+            if(status!=Status.REJECTED) return status;
+        }
+        //don't jump ahead of writes which are already waiting
+        return awaitRoom(false,writes);
+    }
+
+    @Override
+    public boolean finishIndependentWrite(int writes){
+        boolean finished = delegate.finishIndependentWrite(writes);
+        signalQueuedWrites();
+        return finished;
+    }
+
+    @Override public WriteStatus getWriteStatus(){ return delegate.getWriteStatus(); }
+    @Override public int maxDependendentWriteThreads(){ return delegate.maxDependendentWriteThreads(); }
+    @Override public int maxIndependentWriteThreads(){ return delegate.maxIndependentWriteThreads(); }
+    @Override public int maxDependentWriteCount(){ return delegate.maxDependentWriteCount(); }
+    @Override public int maxIndependentWriteCount(){ return delegate.maxIndependentWriteCount(); }
+
+    @Override
+    public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
+        delegate.setMaxIndependentWriteThreads(newMaxIndependentWriteThreads);
+        signalQueuedWrites();
+    }
+
+    @Override
+    public void setMaxDependentWriteThreads(int newMaxDependentWriteThreads){
+        delegate.setMaxDependentWriteThreads(newMaxDependentWriteThreads);
+        signalQueuedWrites();
+    }
+
+    @Override
+    public void setMaxIndependentWriteCount(int newMaxIndependentWriteCount){
+        delegate.setMaxIndependentWriteCount(newMaxIndependentWriteCount);
+        signalQueuedWrites();
+    }
+
+    @Override
+    public void setMaxDependentWriteCount(int newMaxDependentWriteCount){
+        delegate.setMaxDependentWriteCount(newMaxDependentWriteCount);
+        signalQueuedWrites();
+    }
+
+    public int queuedWrites(){ return queuedWrites.get(); }
+    public long totalQueuedWrites(){ return totalQueuedWrites.get(); }
+    public long totalTimedOutWrites(){ return totalTimedOutWrites.get(); }
+    public int maxQueuedWrites(){ return maxQueuedWrites; }
+    public long maxQueueWait(TimeUnit unit){ return unit.convert(maxWaitNanos,TimeUnit.NANOSECONDS); }
+
+    public void setMaxQueuedWrites(int newMaxQueuedWrites){
+        this.maxQueuedWrites = newMaxQueuedWrites;
+    }
+
+    public void setMaxQueueWait(long maxWait,TimeUnit unit){
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private Status awaitRoom(boolean dependent,int writes){
+        long remaining = maxWaitNanos;
+        if(remaining<=0) return tryWrite(dependent,writes);
+        if(queuedWrites.incrementAndGet()>maxQueuedWrites){
+            queuedWrites.decrementAndGet();
+            return tryWrite(dependent,writes); //the queue is full, so this is our only chance
+        }
+        totalQueuedWrites.incrementAndGet();
+        try{
+            lock.lockInterruptibly();
+            try{
+                while(true){
+                    /*
+                     * We hold the lock between checking for room and waiting, and writes which finish take
+                     * the lock to signal us (since we are counted in queuedWrites), so we cannot miss a signal.
+                     */
+                    Status status = tryWrite(dependent,writes);
+                    if(status!=Status.REJECTED) return status;
+                    if(remaining<=0){
+                        totalTimedOutWrites.incrementAndGet();
+                        if(LOG.isTraceEnabled())
+                            LOG.trace("Rejecting queued write of "+writes+" rows after waiting "+TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)+" ms");
+                        return Status.REJECTED;
+                    }
+                    remaining = writeFinished.awaitNanos(remaining);
+                }
+            }finally{
+                lock.unlock();
+            }
+        }catch(InterruptedException ie){
+            Thread.currentThread().interrupt();
+            return Status.REJECTED;
+        }finally{
+            queuedWrites.decrementAndGet();
+        }
+    }
+
+    private Status tryWrite(boolean dependent,int writes){
+        return dependent? delegate.performDependentWrite(writes) : delegate.performIndependentWrite(writes);
+    }
+
+    private void signalQueuedWrites(){
+        if(queuedWrites.get()<=0) return;
+        lock.lock();
+        try{
+            writeFinished.signalAll();
+        }finally{
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import com.splicemachine.pipeline.api.PipelineMeter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compresses the payloads encoded by another PipelineCompressor before they are sent over the wire.
+ * <p>
+ * Every payload starts with a header byte naming the codec it was written with, followed (when compressed) by the
+ * length of the raw payload. The receiver decodes whatever the header says, so the codec (and threshold) only
+ * govern what is sent: nodes with different settings can still talk to each other. Payloads smaller than the
+ * threshold, and payloads which do not get any smaller, are sent raw.
+ * <p>
+ * The header makes these payloads unreadable to nodes which only know the delegate's format, so they must only be
+ * sent to a receiver which is known to expect them (over a call of their own, for instance), never in place of the
+ * delegate's payloads.
+ * <p>
+ * When given a table name, the sizes of every payload (raw or not) and the time spent compressing and decompressing
+ * them are recorded in the {@link PipelineMeter}.
+ *
+ * @see LZ4BlockCodec
+ */
+public class CompressingPipelineCompressor implements PipelineCompressor{
+    private static final int COMPRESSED_HEADER_SIZE=5; //codec + raw length
+
+    public enum Codec{
+        NONE((byte)0x00),
+        LZ4((byte)0x01);
+
+        private final byte id;
+
+        Codec(byte id){
+            this.id=id;
+        }
+
+        public static Codec forName(String name){
+            return Codec.valueOf(name.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    private final PipelineCompressor delegate;
+    private final Codec codec;
+    private final int compressionThreshold;
+    private final PipelineMeter meter;
+
+    public CompressingPipelineCompressor(PipelineCompressor delegate,
+                                         Codec codec,
+                                         int compressionThreshold,
+                                         PipelineMeter meter){
+        this.delegate=delegate;
+        this.codec=codec;
+        this.compressionThreshold=compressionThreshold;
+        this.meter=meter;
+    }
+
+    @Override
+    public InputStream compressedInput(InputStream input) throws IOException{
+        return delegate.compressedInput(input);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream output) throws IOException{
+        return delegate.compress(output);
+    }
+
+    @Override
+    public byte[] compress(Object o) throws IOException{
+        return compress(o,null);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,Class<T> clazz) throws IOException{
+        return decompress(bytes,clazz,null);
+    }
+
+    @Override
+    public byte[] compress(Object o,String tableName) throws IOException{
+        byte[] raw=delegate.compress(o);
+        if(codec==Codec.NONE || raw.length<compressionThreshold){
+            byte[] payload=rawPayload(raw);
+            record(tableName,raw.length,payload.length,0l);
+            return payload;
+        }
+
+        long start=System.nanoTime();
+        byte[] payload=new byte[COMPRESSED_HEADER_SIZE+LZ4BlockCodec.maxCompressedLength(raw.length)];
+        int compressedLength=LZ4BlockCodec.compress(raw,0,raw.length,payload,COMPRESSED_HEADER_SIZE);
+        if(compressedLength>=raw.length){
+            //incompressible, so don't make the receiver pay to decompress it
+            payload=rawPayload(raw);
+        }else{
+            payload[0]=Codec.LZ4.id;
+            writeInt(raw.length,payload,1);
+            payload=Arrays.copyOf(payload,COMPRESSED_HEADER_SIZE+compressedLength);
+        }
+        record(tableName,raw.length,payload.length,System.nanoTime()-start);
+        return payload;
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,Class<T> clazz,String tableName) throws IOException{
+        if(bytes==null || bytes.length<=0)
+            throw new IOException("Cannot decompress an empty payload");
+        byte[] raw;
+        if(bytes[0]==Codec.NONE.id){
+            raw=Arrays.copyOfRange(bytes,1,bytes.length);
+            record(tableName,raw.length,bytes.length,0l);
+        }else if(bytes[0]==Codec.LZ4.id){
+            if(bytes.length<COMPRESSED_HEADER_SIZE)
+                throw new IOException("Truncated LZ4 payload of "+bytes.length+" bytes");
+            long start=System.nanoTime();
+            int rawLength=readInt(bytes,1);
+            if(rawLength<0)
+                throw new IOException("Invalid LZ4 payload length "+rawLength);
+            raw=new byte[rawLength];
+            LZ4BlockCodec.decompress(bytes,COMPRESSED_HEADER_SIZE,bytes.length-COMPRESSED_HEADER_SIZE,raw,0,rawLength);
+            record(tableName,rawLength,bytes.length,System.nanoTime()-start);
+        }else
+            throw new IOException("Unknown pipeline compression codec "+bytes[0]);
+        return delegate.decompress(raw,clazz);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void record(String tableName,long rawBytes,long wireBytes,long cpuNanos){
+        if(tableName!=null)
+            meter.compressed(tableName,rawBytes,wireBytes,cpuNanos);
+    }
+
+    private static byte[] rawPayload(byte[] raw){
+        byte[] payload=new byte[raw.length+1];
+        payload[0]=Codec.NONE.id;
+        System.arraycopy(raw,0,payload,1,raw.length);
+        return payload;
+    }
+
+    private static void writeInt(int value,byte[] dest,int off){
+        dest[off]=(byte)(value>>>24);
+        dest[off+1]=(byte)(value>>>16);
+        dest[off+2]=(byte)(value>>>8);
+        dest[off+3]=(byte)value;
+    }
+
+    private static int readInt(byte[] src,int off){
+        return ((src[off]&0xFF)<<24)|((src[off+1]&0xFF)<<16)|((src[off+2]&0xFF)<<8)|(src[off+3]&0xFF);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import java.io.IOException;
+
+/**
+ * A pure java implementation of the LZ4 block format.
+ * <p>
+ * Compression is a single greedy pass, which finds matches through a hash table of the 4-byte sequences
+ * seen so far. It trades some ratio for speed, which is the right trade for data which is about to be sent
+ * over the network once and thrown away.
+ *
+ * @see CompressingPipelineCompressor
+ */
+public final class LZ4BlockCodec{
+    private static final int MIN_MATCH=4;
+    private static final int LAST_LITERALS=5; //the block must end with at least this many literals
+    private static final int MF_LIMIT=12; //the last match must start at least this far from the end of the block
+    private static final int MAX_DISTANCE=(1<<16)-1;
+    private static final int HASH_LOG=12;
+    private static final int SKIP_TRIGGER=6; //search faster through data which doesn't compress
+
+    private static final int ML_BITS=4;
+    private static final int ML_MASK=(1<<ML_BITS)-1;
+    private static final int RUN_MASK=(1<<(8-ML_BITS))-1;
+
+    private LZ4BlockCodec(){}
+
+    /**
+     * @return the largest number of bytes that compressing {@code length} bytes can produce.
+     */
+    public static int maxCompressedLength(int length){
+        return length+length/255+16;
+    }
+
+    /**
+     * Compress {@code srcLen} bytes of {@code src} into {@code dest}, which must have room for at least
+     * {@link #maxCompressedLength(int)} bytes after {@code destOff}.
+     *
+     * @return the number of bytes written into {@code dest}
+     */
+    public static int compress(byte[] src,int srcOff,int srcLen,byte[] dest,int destOff){
+        int srcEnd=srcOff+srcLen;
+        int dOff=destOff;
+        int anchor=srcOff;
+        if(srcLen>MF_LIMIT){
+            int[] hashTable=new int[1<<HASH_LOG]; //offsets from srcOff; an empty slot points at srcOff, and just won't match
+            int matchLimit=srcEnd-LAST_LITERALS;
+            int mfLimit=srcEnd-MF_LIMIT;
+            int sOff=srcOff+1;
+            int searchCount=1<<SKIP_TRIGGER;
+            while(sOff<mfLimit){
+                int sequence=readInt(src,sOff);
+                int h=hash(sequence);
+                int ref=srcOff+hashTable[h];
+                hashTable[h]=sOff-srcOff;
+                if(sOff-ref>MAX_DISTANCE || readInt(src,ref)!=sequence){
+                    sOff+=searchCount++>>>SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount=1<<SKIP_TRIGGER;
+
+                //extend the match backwards into the pending literals, then forwards
+                while(sOff>anchor && ref>srcOff && src[sOff-1]==src[ref-1]){
+                    sOff--;
+                    ref--;
+                }
+                int matchLen=MIN_MATCH;
+                while(sOff+matchLen<matchLimit && src[sOff+matchLen]==src[ref+matchLen]){
+                    matchLen++;
+                }
+
+                dOff=writeSequence(src,anchor,sOff-anchor,sOff-ref,matchLen,dest,dOff);
+                sOff+=matchLen;
+                anchor=sOff;
+                if(sOff<mfLimit)
+                    hashTable[hash(readInt(src,sOff-2))]=sOff-2-srcOff;
+            }
+        }
+        dOff=writeLastLiterals(src,anchor,srcEnd-anchor,dest,dOff);
+        return dOff-destOff;
+    }
+
+    /**
+     * Decompress the block held in {@code srcLen} bytes of {@code src}, which must decompress to exactly
+     * {@code destLen} bytes.
+     *
+     * @throws IOException if the block is malformed, or does not decompress to {@code destLen} bytes
+     */
+    public static void decompress(byte[] src,int srcOff,int srcLen,byte[] dest,int destOff,int destLen) throws IOException{
+        int sOff=srcOff;
+        int srcEnd=srcOff+srcLen;
+        int dOff=destOff;
+        int destEnd=destOff+destLen;
+        while(true){
+            if(sOff>=srcEnd)
+                throw malformed(sOff-srcOff);
+            int token=src[sOff++]&0xFF;
+
+            int literalLen=token>>>ML_BITS;
+            if(literalLen==RUN_MASK){
+                int b;
+                do{
+                    if(sOff>=srcEnd)
+                        throw malformed(sOff-srcOff);
+                    b=src[sOff++]&0xFF;
+                    literalLen+=b;
+                }while(b==255);
+            }
+            if(literalLen<0 || literalLen>srcEnd-sOff || literalLen>destEnd-dOff)
+                throw malformed(sOff-srcOff);
+            System.arraycopy(src,sOff,dest,dOff,literalLen);
+            sOff+=literalLen;
+            dOff+=literalLen;
+            if(sOff==srcEnd) break; //the last sequence has no match
+
+            if(srcEnd-sOff<2)
+                throw malformed(sOff-srcOff);
+            int offset=(src[sOff]&0xFF)|((src[sOff+1]&0xFF)<<8);
+            sOff+=2;
+            int ref=dOff-offset;
+            if(offset==0 || ref<destOff)
+                throw malformed(sOff-srcOff);
+
+            int matchLen=token&ML_MASK;
+            if(matchLen==ML_MASK){
+                int b;
+                do{
+                    if(sOff>=srcEnd)
+                        throw malformed(sOff-srcOff);
+                    b=src[sOff++]&0xFF;
+                    matchLen+=b;
+                }while(b==255);
+            }
+            matchLen+=MIN_MATCH;
+            if(matchLen<0 || matchLen>destEnd-dOff)
+                throw malformed(sOff-srcOff);
+            //the match may overlap the bytes it is producing, so it must be copied a byte at a time
+            for(int i=0;i<matchLen;i++){
+                dest[dOff+i]=dest[ref+i];
+            }
+            dOff+=matchLen;
+        }
+        if(dOff!=destEnd)
+            throw new IOException("LZ4 block decompressed to "+(dOff-destOff)+" bytes, expected "+destLen);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int writeSequence(byte[] src,int literalOff,int literalLen,int offset,int matchLen,byte[] dest,int dOff){
+        int tokenOff=dOff++;
+        int token;
+        if(literalLen>=RUN_MASK){
+            token=RUN_MASK<<ML_BITS;
+            dOff=writeLength(literalLen-RUN_MASK,dest,dOff);
+        }else
+            token=literalLen<<ML_BITS;
+        System.arraycopy(src,literalOff,dest,dOff,literalLen);
+        dOff+=literalLen;
+
+        dest[dOff++]=(byte)offset;
+        dest[dOff++]=(byte)(offset>>>8);
+
+        int ml=matchLen-MIN_MATCH;
+        if(ml>=ML_MASK){
+            token|=ML_MASK;
+            dOff=writeLength(ml-ML_MASK,dest,dOff);
+        }else
+            token|=ml;
+        dest[tokenOff]=(byte)token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(byte[] src,int literalOff,int literalLen,byte[] dest,int dOff){
+        if(literalLen>=RUN_MASK){
+            dest[dOff++]=(byte)(RUN_MASK<<ML_BITS);
+            dOff=writeLength(literalLen-RUN_MASK,dest,dOff);
+        }else
+            dest[dOff++]=(byte)(literalLen<<ML_BITS);
+        System.arraycopy(src,literalOff,dest,dOff,literalLen);
+        return dOff+literalLen;
+    }
+
+    private static int writeLength(int length,byte[] dest,int dOff){
+        while(length>=255){
+            dest[dOff++]=(byte)255;
+            length-=255;
+        }
+        dest[dOff++]=(byte)length;
+        return dOff;
+    }
+
+    private static int readInt(byte[] src,int off){
+        return (src[off]&0xFF)|((src[off+1]&0xFF)<<8)|((src[off+2]&0xFF)<<16)|((src[off+3]&0xFF)<<24);
+    }
+
+    private static int hash(int sequence){
+        return (sequence*-1640531535)>>>(32-HASH_LOG);
+    }
+
+    private static IOException malformed(int position){
+        return new IOException("Malformed LZ4 block at position "+position);
+    }
+}
@@ -32,4 +32,14 @@ public interface PipelineCompressor{
    byte[] compress(Object o) throws IOException;
 
    <T> T decompress(byte[] bytes, Class<T> clazz) throws IOException;
+
+   /**
+    * Same as {@link #compress(Object)}, but accounts the work done against {@code tableName}.
+    */
+   byte[] compress(Object o, String tableName) throws IOException;
+
+   /**
+    * Same as {@link #decompress(byte[],Class)}, but accounts the work done against {@code tableName}.
+    */
+   <T> T decompress(byte[] bytes, Class<T> clazz, String tableName) throws IOException;
 }
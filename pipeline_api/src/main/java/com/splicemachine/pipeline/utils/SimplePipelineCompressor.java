@@ -83,4 +83,14 @@ public class SimplePipelineCompressor implements PipelineCompressor{
             }
         }
     }
+
+    @Override
+    public byte[] compress(Object o,String tableName) throws IOException{
+        return compress(o);
+    }
+
+    @Override
+    public <T> T decompress(byte[] bytes,Class<T> clazz,String tableName) throws IOException{
+        return decompress(bytes,clazz);
+    }
 }
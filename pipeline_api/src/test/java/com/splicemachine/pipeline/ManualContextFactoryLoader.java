@@ -64,6 +64,11 @@ public class ManualContextFactoryLoader implements ContextFactoryLoader{
         throw new UnsupportedOperationException("IMPLEMENT");
     }
 
+    @Override
+    public void referencedRowsDeleted(long referencedConglomerateId){
+        //no-op
+    }
+
     @Override
     public void close(){
         //no-op
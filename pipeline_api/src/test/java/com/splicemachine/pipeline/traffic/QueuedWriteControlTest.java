@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@Category(ArchitectureIndependent.class)
+public class QueuedWriteControlTest {
+
+    @Test
+    public void queuedWriteProceedsWhenAWriteFinishes() throws Exception {
+        final QueuedWriteControl writeControl = new QueuedWriteControl(new SynchronousWriteControl(10, 10, 100, 100), 4, 10, TimeUnit.SECONDS);
+        assertEquals(SpliceWriteControl.Status.DEPENDENT, writeControl.performDependentWrite(150));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SpliceWriteControl.Status> queued = executor.submit(new Callable<SpliceWriteControl.Status>() {
+                @Override
+                public SpliceWriteControl.Status call() throws Exception {
+                    return writeControl.performDependentWrite(150);
+                }
+            });
+            while (writeControl.queuedWrites() == 0) {
+                Thread.sleep(1);
+            }
+            assertFalse("The queued write should be waiting", queued.isDone());
+
+            writeControl.finishDependentWrite(150);
+            assertEquals(SpliceWriteControl.Status.DEPENDENT, queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, writeControl.totalQueuedWrites());
+        assertEquals(0, writeControl.totalTimedOutWrites());
+        assertEquals(0, writeControl.queuedWrites());
+    }
+
+    @Test
+    public void queuedWriteIsRejectedAfterWaiting() throws Exception {
+        QueuedWriteControl writeControl = new QueuedWriteControl(new SynchronousWriteControl(10, 10, 100, 100), 4, 10, TimeUnit.MILLISECONDS);
+        assertEquals(SpliceWriteControl.Status.DEPENDENT, writeControl.performDependentWrite(150));
+        assertEquals(SpliceWriteControl.Status.REJECTED, writeControl.performDependentWrite(150));
+        assertEquals(1, writeControl.totalQueuedWrites());
+        assertEquals(1, writeControl.totalTimedOutWrites());
+        assertEquals(0, writeControl.queuedWrites());
+    }
+
+    @Test
+    public void writeIsRejectedWhenTheQueueIsFull() throws Exception {
+        QueuedWriteControl writeControl = new QueuedWriteControl(new SynchronousWriteControl(10, 10, 100, 100), 0, 10, TimeUnit.SECONDS);
+        assertEquals(SpliceWriteControl.Status.DEPENDENT, writeControl.performDependentWrite(150));
+        long start = System.nanoTime();
+        assertEquals(SpliceWriteControl.Status.REJECTED, writeControl.performDependentWrite(150));
+        assertFalse("Should not have waited", System.nanoTime() - start > TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, writeControl.totalQueuedWrites());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.pipeline.PipelineWriter;
+import com.splicemachine.pipeline.client.BulkWriteAction;
+import com.splicemachine.pipeline.utils.PipelineUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Overloads a single region server's write control with more concurrent writers than it admits, the way a
+ * bulk insert does, and compares rejecting writes outright (with the client backing off and resending, as
+ * BulkWriteAction does) against queueing them in a {@link QueuedWriteControl}. Each is run twice: once with the
+ * plain exponential back off, and once with the pause scaled by the write credits the server reports
+ * ({@link PipelineWriter#writeCredits} and {@link BulkWriteAction#pauseTime}).
+ * <p>
+ * Run with {@code main [writers] [writesPerWriter]}; it reports the number of retries and the write latency
+ * percentiles of each.
+ */
+public class WriteAdmissionMicroBenchmark{
+    private static final int MAX_WRITE_THREADS=8;
+    private static final int MAX_WRITE_COUNT=8000;
+    private static final int ROWS_PER_WRITE=1000;
+    private static final long SERVICE_TIME_MS=2;
+
+    public static void main(String...args) throws Exception{
+        int writers=args.length>0?Integer.parseInt(args[0]):32;
+        int writesPerWriter=args.length>1?Integer.parseInt(args[1]):200;
+        System.out.printf("%d writers, %d writes of %d rows per writer%n",writers,writesPerWriter,ROWS_PER_WRITE);
+        for(boolean useCredits : new boolean[]{false,true}){
+            String suffix=useCredits?"+credits":"";
+            run("reject"+suffix,rejectingControl(),useCredits,writers,writesPerWriter);
+            run("queue"+suffix,new QueuedWriteControl(rejectingControl(),writers,100,TimeUnit.MILLISECONDS),
+                    useCredits,writers,writesPerWriter);
+        }
+    }
+
+    private static SpliceWriteControl rejectingControl(){
+        return new SynchronousWriteControl(MAX_WRITE_THREADS,MAX_WRITE_THREADS,MAX_WRITE_COUNT,MAX_WRITE_COUNT);
+    }
+
+    private static void run(String name,
+                            final SpliceWriteControl writeControl,
+                            final boolean useCredits,
+                            int writers,
+                            final int writesPerWriter) throws Exception{
+        ExecutorService executor=Executors.newFixedThreadPool(writers);
+        final CountDownLatch start=new CountDownLatch(1);
+        final AtomicLong retries=new AtomicLong(0l);
+        try{
+            List<Future<long[]>> futures=new ArrayList<>(writers);
+            for(int i=0;i<writers;i++){
+                futures.add(executor.submit(new Callable<long[]>(){
+                    @Override
+                    public long[] call() throws Exception{
+                        long[] latencies=new long[writesPerWriter];
+                        start.await();
+                        for(int w=0;w<writesPerWriter;w++){
+                            long writeStart=System.nanoTime();
+                            int attempt=0;
+                            while(writeControl.performDependentWrite(ROWS_PER_WRITE)==SpliceWriteControl.Status.REJECTED){
+                                retries.incrementAndGet();
+                                attempt++;
+                                long pause;
+                                if(useCredits){
+                                    int credits=PipelineWriter.writeCredits(writeControl,true);
+                                    pause=BulkWriteAction.pauseTime(attempt,ROWS_PER_WRITE,credits);
+                                }else
+                                    pause=PipelineUtils.getPauseTime(attempt,10);
+                                if(pause>0)
+                                    Thread.sleep(pause);
+                            }
+                            try{
+                                Thread.sleep(SERVICE_TIME_MS);
+                            }finally{
+                                writeControl.finishDependentWrite(ROWS_PER_WRITE);
+                            }
+                            latencies[w]=System.nanoTime()-writeStart;
+                        }
+                        return latencies;
+                    }
+                }));
+            }
+            long startTime=System.nanoTime();
+            start.countDown();
+            long[] latencies=new long[writers*writesPerWriter];
+            int pos=0;
+            for(Future<long[]> future : futures){
+                long[] l=future.get();
+                System.arraycopy(l,0,latencies,pos,l.length);
+                pos+=l.length;
+            }
+            long elapsed=System.nanoTime()-startTime;
+            Arrays.sort(latencies);
+            System.out.printf("%-14s: %,d retries, %.1f s, latency p50=%.1f ms, p99=%.1f ms, max=%.1f ms%n",
+                    name,retries.get(),elapsed/1e9,
+                    millis(latencies[latencies.length/2]),
+                    millis(latencies[(int)(latencies.length*0.99)]),
+                    millis(latencies[latencies.length-1]));
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    private static double millis(long nanos){
+        return nanos/(double)TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.utils;
+
+import com.splicemachine.pipeline.api.PipelineMeter;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@Category(ArchitectureIndependent.class)
+public class CompressingPipelineCompressorTest{
+
+    @Test
+    public void testCompressesRepetitivePayloads() throws Exception{
+        PipelineMeter meter=mock(PipelineMeter.class);
+        PipelineCompressor compressor=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,64,meter);
+        byte[] raw=repetitivePayload(64*1024);
+
+        byte[] wire=compressor.compress(raw,"1184");
+        Assert.assertTrue("Payload was not compressed: "+wire.length+" bytes",wire.length<raw.length/4);
+        Assert.assertArrayEquals(raw,compressor.decompress(wire,byte[].class,"1184"));
+        verify(meter,times(2)).compressed(eq("1184"),eq((long)raw.length),eq((long)wire.length),anyLong());
+    }
+
+    @Test
+    public void testRoundTripsPayloadsOfEverySize() throws Exception{
+        PipelineCompressor compressor=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,0,mock(PipelineMeter.class));
+        Random random=new Random(0l);
+        for(int length=0;length<=2048;length+=7){
+            byte[] raw=repetitivePayload(length);
+            Assert.assertArrayEquals("Incorrect repetitive payload of "+length+" bytes",raw,compressor.decompress(compressor.compress(raw),byte[].class));
+
+            random.nextBytes(raw);
+            byte[] wire=compressor.compress(raw);
+            Assert.assertEquals("Incompressible payload should be sent raw",raw.length+1,wire.length);
+            Assert.assertArrayEquals("Incorrect random payload of "+length+" bytes",raw,compressor.decompress(wire,byte[].class));
+        }
+    }
+
+    @Test
+    public void testSmallPayloadsAreSentRaw() throws Exception{
+        PipelineCompressor compressor=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,1024,mock(PipelineMeter.class));
+        byte[] raw=repetitivePayload(1023);
+        byte[] wire=compressor.compress(raw);
+        Assert.assertEquals(raw.length+1,wire.length);
+        Assert.assertArrayEquals(raw,Arrays.copyOfRange(wire,1,wire.length));
+    }
+
+    @Test
+    public void testReadsPayloadsWrittenWithAnotherCodec() throws Exception{
+        PipelineCompressor lz4=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,0,mock(PipelineMeter.class));
+        PipelineCompressor none=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.NONE,0,mock(PipelineMeter.class));
+        byte[] raw=repetitivePayload(4096);
+        Assert.assertArrayEquals(raw,none.decompress(lz4.compress(raw),byte[].class));
+        Assert.assertArrayEquals(raw,lz4.decompress(none.compress(raw),byte[].class));
+    }
+
+    @Test
+    public void testDoesNotMeterWithoutATable() throws Exception{
+        PipelineMeter meter=mock(PipelineMeter.class);
+        PipelineCompressor compressor=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,0,meter);
+        compressor.decompress(compressor.compress(repetitivePayload(4096)),byte[].class);
+        verifyZeroInteractions(meter);
+    }
+
+    @Test(expected=IOException.class)
+    public void testRejectsCorruptPayloads() throws Exception{
+        PipelineCompressor compressor=new CompressingPipelineCompressor(new BytesCompressor(),CompressingPipelineCompressor.Codec.LZ4,0,mock(PipelineMeter.class));
+        byte[] wire=compressor.compress(repetitivePayload(4096));
+        compressor.decompress(Arrays.copyOf(wire,wire.length/2),byte[].class);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * Looks like the encoding of a batch of index rows: the same prefix over and over, with a counter at the end.
+     */
+    private static byte[] repetitivePayload(int length){
+        byte[] prefix="splice:1184/txn=4352/".getBytes();
+        byte[] data=new byte[length];
+        for(int i=0;i<length;i++){
+            int row=i/(prefix.length+1);
+            int pos=i%(prefix.length+1);
+            data[i]=pos<prefix.length?prefix[pos]:(byte)row;
+        }
+        return data;
+    }
+
+    private static class BytesCompressor implements PipelineCompressor{
+        @Override public InputStream compressedInput(InputStream input){ return input; }
+        @Override public OutputStream compress(OutputStream output){ return output; }
+        @Override public byte[] compress(Object o){ return (byte[])o; }
+        @Override public byte[] compress(Object o,String tableName){ return compress(o); }
+
+        @Override
+        public <T> T decompress(byte[] bytes,Class<T> clazz){
+            return clazz.cast(bytes);
+        }
+
+        @Override
+        public <T> T decompress(byte[] bytes,Class<T> clazz,String tableName){
+            return decompress(bytes,clazz);
+        }
+    }
+}
@@ -99,6 +99,22 @@ public interface SConfiguration {
     // OperationConfiguration
     int getSequenceBlockSize();
 
+    int getParallelControlThreads();
+
+    int getParallelControlBufferSize();
+
+    long getParallelControlMinRows();
+
+    long getParallelControlMaxRows();
+
+    long getBroadcastJoinMaxMemory();
+
+    boolean getBroadcastJoinOffHeap();
+
+    long getControlSpillMaxMemory();
+
+    String getControlSpillDirectory();
+
     // PipelineConfiguration
     int getCoreWriterThreads();
 
@@ -116,8 +132,18 @@ public interface SConfiguration {
 
     int getPipelineKryoPoolSize();
 
+    int getWriteCompressionThreshold();
+
+    String getWriteCompressionCodec();
+
+    int getFkParentKeyCacheSize();
+
     int getWriteMaxFlushesPerRegion();
 
+    int getWriteMaxQueuedWrites();
+
+    long getWriteMaxQueueWait();
+
     long getClientPause();
 
     long getMaxBufferHeapSize();
@@ -134,6 +160,8 @@ public interface SConfiguration {
     // SIConfigurations
     int getActiveTransactionCacheSize();
 
+    boolean getCompactionPurgeVersions();
+
     int getCompletedTxnCacheSize();
 
     int getCompletedTxnConcurrency();
@@ -154,6 +182,8 @@ public interface SConfiguration {
 
     int getTimestampServerBindPort();
 
+    int getTimestampClientMaxBatchSize();
+
     int getTransactionKeepAliveThreads();
 
     int getTransactionLockStripes();
@@ -162,6 +192,14 @@ public interface SConfiguration {
 
     long getTransactionTimeout();
 
+    boolean useHLCTimestamps();
+
+    long getHLCReservationWindow();
+
+    long getHLCMaxClockOffset();
+
+    int getRecentWriterCacheSize();
+
     // SQLConfiguration
     boolean debugDumpBindTree();
 
@@ -181,6 +219,14 @@ public interface SConfiguration {
 
     int getIndexBatchSize();
 
+    int getNestedLoopJoinBatchSize();
+
+    int getNestedLoopJoinProbeBlocks();
+
+    long getNestedLoopJoinBlockBytes();
+
+    boolean useNormalizedKeys();
+
     int getIndexLookupBlocks();
 
     int getKryoPoolSize();
@@ -218,6 +264,8 @@ public interface SConfiguration {
 
     int getTopkSize();
 
+    int getHistogramSize();
+
     long getFallbackLocalLatency();
 
     long getFallbackMinimumRowCount();
@@ -27,19 +27,33 @@ import com.splicemachine.access.api.SConfiguration;
 public class ConfigurationBuilder {
     // SIConfigurations
     public int activeTransactionCacheSize;
+    public boolean compactionPurgeVersions;
     public int completedTxnCacheSize;
     public int completedTxnConcurrency;
     public int readResolverQueueSize;
     public int readResolverThreads;
     public int timestampClientWaitTime;
     public int timestampServerBindPort;
+    public int timestampClientMaxBatchSize;
     public int transactionKeepAliveThreads;
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
     public long transactionTimeout;
+    public boolean hlcTimestamps;
+    public long hlcReservationWindow;
+    public long hlcMaxClockOffset;
+    public int recentWriterCacheSize;
 
     // OperationConfiguration
     public int sequenceBlockSize;
+    public int parallelControlThreads;
+    public int parallelControlBufferSize;
+    public long parallelControlMinRows;
+    public long parallelControlMaxRows;
+    public long broadcastJoinMaxMemory;
+    public boolean broadcastJoinOffHeap;
+    public long controlSpillMaxMemory;
+    public String controlSpillDirectory;
 
     // DDLConfiguration
     public long ddlDrainingInitialWait;
@@ -65,6 +79,7 @@ public class ConfigurationBuilder {
     public int fallbackRowWidth;
     public int indexFetchSampleSize;
     public int topkSize;
+    public int histogramSize;
     public long fallbackLocalLatency;
     public long fallbackMinimumRowCount;
     public long fallbackOpencloseLatency;
@@ -98,6 +113,10 @@ public class ConfigurationBuilder {
     public int batchOnceBatchSize;
     public int importMaxQuotedColumnLines;
     public int indexBatchSize;
+    public int nestedLoopJoinBatchSize;
+    public int nestedLoopJoinProbeBlocks;
+    public long nestedLoopJoinBlockBytes;
+    public boolean normalizedKeys;
     public int indexLookupBlocks;
     public int kryoPoolSize;
     public int networkBindPort;
@@ -124,7 +143,12 @@ public class ConfigurationBuilder {
     public int maxRetries;
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
+    public int writeCompressionThreshold;
+    public String writeCompressionCodec;
+    public int fkParentKeyCacheSize;
     public int writeMaxFlushesPerRegion;
+    public int writeMaxQueuedWrites;
+    public long writeMaxQueueWait;
     public long clientPause;
     public long maxBufferHeapSize;
     public long startupLockWaitPeriod;
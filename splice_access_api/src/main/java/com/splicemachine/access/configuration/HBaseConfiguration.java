@@ -70,6 +70,20 @@ public class HBaseConfiguration implements ConfigurationDefault {
      */
     public static final String MINIMUM_ACTIVE_PATH = TRANSACTION_PATH+"/minimum";
 
+    /**
+     * The Path in zookeeper for the node ids and reservations of the Hybrid Logical Clocks,
+     * when transaction timestamps are generated by them.
+     * Defaults to [TRANSACTION_PATH]/hlc
+     */
+    public static final String HLC_PATH = TRANSACTION_PATH+"/hlc";
+
+    /**
+     * The Path in zookeeper under which every process publishes the begin timestamp of its oldest
+     * active read-only transaction, so that compactions keep the versions those transactions can see.
+     * Defaults to [TRANSACTION_PATH]/readOnly
+     */
+    public static final String READ_ONLY_TXN_PATH = TRANSACTION_PATH+"/readOnly";
+
     /**
      * Path in ZooKeeper for manipulating Conglomerate information.
      * Defaults to /conglomerates
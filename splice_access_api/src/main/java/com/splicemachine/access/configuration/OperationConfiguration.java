@@ -48,8 +48,89 @@ public class OperationConfiguration implements ConfigurationDefault {
     public static final String SEQUENCE_BLOCK_SIZE = "splice.sequence.allocationBlockSize";
     private static final int DEFAULT_SEQUENCE_BLOCK_SIZE = 1000;
 
+    /**
+     * The number of threads shared by all control-side queries which scan their tables one region
+     * at a time, in parallel.
+     *
+     * Defaults to 0, which means one thread per available processor
+     */
+    public static final String PARALLEL_CONTROL_THREADS = "splice.execution.parallelControl.threads";
+    private static final int DEFAULT_PARALLEL_CONTROL_THREADS = 0;
+
+    /**
+     * The number of rows each region may buffer ahead of the consumer when a control-side query
+     * runs in parallel. Larger values keep the threads busier, at the cost of memory.
+     *
+     * Defaults to 1024
+     */
+    public static final String PARALLEL_CONTROL_BUFFER_SIZE = "splice.execution.parallelControl.bufferSize";
+    private static final int DEFAULT_PARALLEL_CONTROL_BUFFER_SIZE = 1024;
+
+    /**
+     * The minimum number of rows the optimizer must estimate for a control-side query before it is
+     * run in parallel. Small queries are cheaper to run in a single thread.
+     *
+     * Defaults to 5000. Set it to a negative value to disable parallel control-side execution.
+     */
+    public static final String PARALLEL_CONTROL_MIN_ROWS = "splice.execution.parallelControl.minRows";
+    private static final long DEFAULT_PARALLEL_CONTROL_MIN_ROWS = 5000L;
+
+    /**
+     * Queries which the optimizer sent to Spark, but whose estimated row count is at most this many rows,
+     * are run in parallel on the control side instead, avoiding the cost of scheduling a Spark job.
+     *
+     * Defaults to 0 (disabled)
+     */
+    public static final String PARALLEL_CONTROL_MAX_ROWS = "splice.execution.parallelControl.maxRows";
+    private static final long DEFAULT_PARALLEL_CONTROL_MAX_ROWS = 0L;
+
+    /**
+     * The maximum number of bytes the inner table of a single broadcast join may use. A query whose
+     * inner table grows past this limit fails, rather than risking the whole JVM running out of memory.
+     *
+     * Defaults to a quarter of the maximum heap size
+     */
+    public static final String BROADCAST_JOIN_MAX_MEMORY = "splice.execution.broadcastJoin.maxMemory";
+    private static final long DEFAULT_BROADCAST_JOIN_MAX_MEMORY = Runtime.getRuntime().maxMemory()/4;
+
+    /**
+     * Whether the inner table of a broadcast join is kept in direct (off-heap) memory, which keeps
+     * large inner tables out of the way of the garbage collector. When enabled, the JVM must be allowed
+     * enough direct memory (-XX:MaxDirectMemorySize) to hold them.
+     *
+     * Defaults to false
+     */
+    public static final String BROADCAST_JOIN_OFF_HEAP = "splice.execution.broadcastJoin.offHeap";
+    private static final boolean DEFAULT_BROADCAST_JOIN_OFF_HEAP = false;
+
+    /**
+     * The number of bytes a single control-side sort, grouping or distinct may buffer in memory. Once
+     * past this limit, the buffered rows are written to a sorted run on local disk, and the runs are
+     * merged back when the results are read.
+     *
+     * Defaults to a tenth of the maximum heap size
+     */
+    public static final String CONTROL_SPILL_MAX_MEMORY = "splice.execution.controlSpill.maxMemory";
+    private static final long DEFAULT_CONTROL_SPILL_MAX_MEMORY = Runtime.getRuntime().maxMemory()/10;
+
+    /**
+     * The local directory control-side sorts and groupings spill to.
+     *
+     * Defaults to the JVM's temporary directory (java.io.tmpdir)
+     */
+    public static final String CONTROL_SPILL_DIRECTORY = "splice.execution.controlSpill.directory";
+    private static final String DEFAULT_CONTROL_SPILL_DIRECTORY = System.getProperty("java.io.tmpdir");
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.sequenceBlockSize = configurationSource.getInt(SEQUENCE_BLOCK_SIZE, DEFAULT_SEQUENCE_BLOCK_SIZE);
+        builder.parallelControlThreads = configurationSource.getInt(PARALLEL_CONTROL_THREADS, DEFAULT_PARALLEL_CONTROL_THREADS);
+        builder.parallelControlBufferSize = configurationSource.getInt(PARALLEL_CONTROL_BUFFER_SIZE, DEFAULT_PARALLEL_CONTROL_BUFFER_SIZE);
+        builder.parallelControlMinRows = configurationSource.getLong(PARALLEL_CONTROL_MIN_ROWS, DEFAULT_PARALLEL_CONTROL_MIN_ROWS);
+        builder.parallelControlMaxRows = configurationSource.getLong(PARALLEL_CONTROL_MAX_ROWS, DEFAULT_PARALLEL_CONTROL_MAX_ROWS);
+        builder.broadcastJoinMaxMemory = configurationSource.getLong(BROADCAST_JOIN_MAX_MEMORY, DEFAULT_BROADCAST_JOIN_MAX_MEMORY);
+        builder.broadcastJoinOffHeap = configurationSource.getBoolean(BROADCAST_JOIN_OFF_HEAP, DEFAULT_BROADCAST_JOIN_OFF_HEAP);
+        builder.controlSpillMaxMemory = configurationSource.getLong(CONTROL_SPILL_MAX_MEMORY, DEFAULT_CONTROL_SPILL_MAX_MEMORY);
+        builder.controlSpillDirectory = configurationSource.getString(CONTROL_SPILL_DIRECTORY, DEFAULT_CONTROL_SPILL_DIRECTORY);
     }
 }
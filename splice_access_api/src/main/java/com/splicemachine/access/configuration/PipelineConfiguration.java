@@ -90,6 +90,26 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String WRITE_MAX_FLUSHES_PER_REGION = "splice.writer.maxFlushesPerRegion";
     public static final int WRITE_DEFAULT_MAX_FLUSHES_PER_REGION = 5;
 
+    /**
+     * The maximum number of writes which may wait on a region server for the write pipeline to have room, rather
+     * than being rejected outright. Waiting writes hold an IPC thread, so this is capped at a quarter of the
+     * IPC threads (hbase.regionserver.handler.count), and the threads which may be waiting are not available
+     * for performing writes. It cannot be raised past its configured value at runtime. Set to 0 to reject writes as soon as the pipeline is too busy.
+     *
+     * Defaults to 16
+     */
+    public static final String WRITE_MAX_QUEUED_WRITES = "splice.writer.maxQueuedWrites";
+    public static final int DEFAULT_WRITE_MAX_QUEUED_WRITES = 16;
+
+    /**
+     * The longest time (in milliseconds) that a queued write will wait for the write pipeline to have room
+     * before it is rejected. The wait holds an IPC thread, so it is capped at 20 ms.
+     *
+     * Defaults to 5 ms
+     */
+    public static final String WRITE_MAX_QUEUE_WAIT = "splice.writer.maxQueueWait";
+    public static final long DEFAULT_WRITE_MAX_QUEUE_WAIT = 5;
+
     /**
      * The amount of time (in milliseconds) to wait during index initialization before
      * forcing a write to return. This setting prevents deadlocks during startup in small clusters,
@@ -153,6 +173,37 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String PIPELINE_KRYO_POOL_SIZE= "splice.writer.kryoPoolSize";
     private static final int DEFAULT_PIPELINE_KRYO_POOL_SIZE=1024;
 
+    /**
+     * The codec used to compress write pipeline payloads (BulkWrites and their results) on the wire. One of
+     * {@code lz4} or {@code none}. Compressed payloads are sent over a separate call which records the codec each
+     * payload was written with, so the receiver can always read it, whatever its own setting. Servers which do not
+     * know that call (during a rolling upgrade) are sent the uncompressed legacy format instead; {@code none} always
+     * sends the legacy format.
+     *
+     * Defaults to lz4
+     */
+    public static final String WRITE_COMPRESSION_CODEC = "splice.client.write.compression.codec";
+    public static final String DEFAULT_WRITE_COMPRESSION_CODEC = "lz4";
+
+    /**
+     * The size (in bytes) below which write pipeline payloads are sent uncompressed. Small payloads rarely compress
+     * well enough to be worth the CPU spent on them.
+     *
+     * Defaults to 1024
+     */
+    public static final String WRITE_COMPRESSION_THRESHOLD = "splice.client.write.compression.threshold";
+    public static final int DEFAULT_WRITE_COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * The maximum number of referenced (parent) row keys each region server remembers as existing and committed,
+     * so that foreign key checks against them can be answered without reading the parent table. Set to 0 to
+     * disable the cache.
+     *
+     * Defaults to 65536
+     */
+    public static final String FK_PARENT_KEY_CACHE_SIZE = "splice.fk.parentKeyCacheSize";
+    public static final int DEFAULT_FK_PARENT_KEY_CACHE_SIZE = 65536;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.ipcThreads = configurationSource.getInt(IPC_THREADS, DEFAULT_IPC_THREADS);
@@ -161,14 +212,19 @@ public class PipelineConfiguration implements ConfigurationDefault {
         builder.coreWriterThreads = configurationSource.getInt(CORE_WRITER_THREADS, DEFAULT_WRITE_THREADS_CORE);
         builder.maxWriterThreads = configurationSource.getInt(MAX_WRITER_THREADS, DEFAULT_MAX_WRITER_THREADS);
         builder.writeMaxFlushesPerRegion = configurationSource.getInt(WRITE_MAX_FLUSHES_PER_REGION, WRITE_DEFAULT_MAX_FLUSHES_PER_REGION);
+        builder.writeMaxQueuedWrites = configurationSource.getInt(WRITE_MAX_QUEUED_WRITES, DEFAULT_WRITE_MAX_QUEUED_WRITES);
         builder.maxRetries = configurationSource.getInt(MAX_RETRIES, DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
         builder.maxBufferEntries = configurationSource.getInt(MAX_BUFFER_ENTRIES, DEFAULT_MAX_BUFFER_ENTRIES);
         builder.pipelineKryoPoolSize = configurationSource.getInt(PIPELINE_KRYO_POOL_SIZE, DEFAULT_PIPELINE_KRYO_POOL_SIZE);
+        builder.writeCompressionThreshold = configurationSource.getInt(WRITE_COMPRESSION_THRESHOLD, DEFAULT_WRITE_COMPRESSION_THRESHOLD);
+        builder.writeCompressionCodec = configurationSource.getString(WRITE_COMPRESSION_CODEC, DEFAULT_WRITE_COMPRESSION_CODEC);
+        builder.fkParentKeyCacheSize = configurationSource.getInt(FK_PARENT_KEY_CACHE_SIZE, DEFAULT_FK_PARENT_KEY_CACHE_SIZE);
 
         builder.threadKeepaliveTime = configurationSource.getLong(THREAD_KEEPALIVE_TIME, DEFAULT_THREAD_KEEPALIVE_TIME);
         builder.clientPause = configurationSource.getLong(CLIENT_PAUSE, DEFAULT_CLIENT_PAUSE);
         builder.maxBufferHeapSize = configurationSource.getLong(MAX_BUFFER_HEAP_SIZE, DEFAULT_WRITE_BUFFER_SIZE);
         builder.startupLockWaitPeriod = configurationSource.getLong(STARTUP_LOCK_WAIT_PERIOD, DEFAULT_STARTUP_LOCK_PERIOD);
+        builder.writeMaxQueueWait = configurationSource.getLong(WRITE_MAX_QUEUE_WAIT, DEFAULT_WRITE_MAX_QUEUE_WAIT);
 
         builder.sparkIoCompressionCodec = configurationSource.getString(SPARK_IO_COMPRESSION_CODEC, DEFAULT_SPARK_IO_COMPRESSION_CODEC);
         builder.sparkResultStreamingBatches = configurationSource.getInt(SPARK_RESULT_STREAMING_BATCHES, DEFAULT_SPARK_RESULT_STREAMING_BATCHES);
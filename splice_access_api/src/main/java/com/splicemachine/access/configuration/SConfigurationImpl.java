@@ -77,6 +77,14 @@ public final class SConfigurationImpl implements SConfiguration {
 
     // OperationConfiguration
     private final  int sequenceBlockSize;
+    private final  int parallelControlThreads;
+    private final  int parallelControlBufferSize;
+    private final  long parallelControlMinRows;
+    private final  long parallelControlMaxRows;
+    private final  long broadcastJoinMaxMemory;
+    private final  boolean broadcastJoinOffHeap;
+    private final  long controlSpillMaxMemory;
+    private final  String controlSpillDirectory;
 
     // PipelineConfiguration
     private final  int coreWriterThreads;
@@ -87,7 +95,12 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxRetries;
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
+    private final  int writeCompressionThreshold;
+    private final  String writeCompressionCodec;
+    private final  int fkParentKeyCacheSize;
     private final  int writeMaxFlushesPerRegion;
+    private final  int writeMaxQueuedWrites;
+    private final  long writeMaxQueueWait;
     private final  long clientPause;
     private final  long maxBufferHeapSize;
     private final  long startupLockWaitPeriod;
@@ -100,6 +113,7 @@ public final class SConfigurationImpl implements SConfiguration {
 
     // SIConfigurations
     private final  int activeTransactionCacheSize;
+    private final  boolean compactionPurgeVersions;
     private final  int completedTxnCacheSize;
     private final  int completedTxnConcurrency;
     private final int olapClientWaitTime;
@@ -110,10 +124,15 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int readResolverThreads;
     private final  int timestampClientWaitTime;
     private final  int timestampServerBindPort;
+    private final  int timestampClientMaxBatchSize;
     private final  int transactionKeepAliveThreads;
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
     private final  long transactionTimeout;
+    private final  boolean hlcTimestamps;
+    private final  long hlcReservationWindow;
+    private final  long hlcMaxClockOffset;
+    private final  int recentWriterCacheSize;
 
     // SQLConfiguration
     private final  boolean debugDumpBindTree;
@@ -125,6 +144,10 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int batchOnceBatchSize;
     private final  int importMaxQuotedColumnLines;
     private final  int indexBatchSize;
+    private final  int nestedLoopJoinBatchSize;
+    private final  int nestedLoopJoinProbeBlocks;
+    private final  long nestedLoopJoinBlockBytes;
+    private final  boolean normalizedKeys;
     private final  int indexLookupBlocks;
     private final  int kryoPoolSize;
     private final  int networkBindPort;
@@ -145,6 +168,7 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int fallbackRowWidth;
     private final  int indexFetchSampleSize;
     private final  int topkSize;
+    private final  int histogramSize;
     private final  long fallbackLocalLatency;
     private final  long fallbackMinimumRowCount;
     private final  long fallbackOpencloseLatency;
@@ -275,6 +299,38 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getSequenceBlockSize() {
         return sequenceBlockSize;
     }
+    @Override
+    public int getParallelControlThreads() {
+        return parallelControlThreads;
+    }
+    @Override
+    public int getParallelControlBufferSize() {
+        return parallelControlBufferSize;
+    }
+    @Override
+    public long getParallelControlMinRows() {
+        return parallelControlMinRows;
+    }
+    @Override
+    public long getParallelControlMaxRows() {
+        return parallelControlMaxRows;
+    }
+    @Override
+    public long getBroadcastJoinMaxMemory() {
+        return broadcastJoinMaxMemory;
+    }
+    @Override
+    public boolean getBroadcastJoinOffHeap() {
+        return broadcastJoinOffHeap;
+    }
+    @Override
+    public long getControlSpillMaxMemory() {
+        return controlSpillMaxMemory;
+    }
+    @Override
+    public String getControlSpillDirectory() {
+        return controlSpillDirectory;
+    }
 
     // PipelineConfiguration
     @Override
@@ -310,10 +366,30 @@ public final class SConfigurationImpl implements SConfiguration {
         return pipelineKryoPoolSize;
     }
     @Override
+    public int getWriteCompressionThreshold() {
+        return writeCompressionThreshold;
+    }
+    @Override
+    public String getWriteCompressionCodec() {
+        return writeCompressionCodec;
+    }
+    @Override
+    public int getFkParentKeyCacheSize() {
+        return fkParentKeyCacheSize;
+    }
+    @Override
     public int getWriteMaxFlushesPerRegion() {
         return writeMaxFlushesPerRegion;
     }
     @Override
+    public int getWriteMaxQueuedWrites() {
+        return writeMaxQueuedWrites;
+    }
+    @Override
+    public long getWriteMaxQueueWait() {
+        return writeMaxQueueWait;
+    }
+    @Override
     public long getClientPause() {
         return clientPause;
     }
@@ -350,6 +426,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return activeTransactionCacheSize;
     }
     @Override
+    public boolean getCompactionPurgeVersions() {
+        return compactionPurgeVersions;
+    }
+    @Override
     public int getCompletedTxnCacheSize() {
         return completedTxnCacheSize;
     }
@@ -390,6 +470,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return timestampServerBindPort;
     }
     @Override
+    public int getTimestampClientMaxBatchSize() {
+        return timestampClientMaxBatchSize;
+    }
+    @Override
     public int getTransactionKeepAliveThreads() {
         return transactionKeepAliveThreads;
     }
@@ -405,6 +489,22 @@ public final class SConfigurationImpl implements SConfiguration {
     public long getTransactionTimeout() {
         return transactionTimeout;
     }
+    @Override
+    public boolean useHLCTimestamps() {
+        return hlcTimestamps;
+    }
+    @Override
+    public long getHLCReservationWindow() {
+        return hlcReservationWindow;
+    }
+    @Override
+    public long getHLCMaxClockOffset() {
+        return hlcMaxClockOffset;
+    }
+    @Override
+    public int getRecentWriterCacheSize() {
+        return recentWriterCacheSize;
+    }
 
     // SQLConfiguration
     @Override
@@ -444,6 +544,22 @@ public final class SConfigurationImpl implements SConfiguration {
         return indexBatchSize;
     }
     @Override
+    public int getNestedLoopJoinBatchSize() {
+        return nestedLoopJoinBatchSize;
+    }
+    @Override
+    public int getNestedLoopJoinProbeBlocks() {
+        return nestedLoopJoinProbeBlocks;
+    }
+    @Override
+    public long getNestedLoopJoinBlockBytes() {
+        return nestedLoopJoinBlockBytes;
+    }
+    @Override
+    public boolean useNormalizedKeys() {
+        return normalizedKeys;
+    }
+    @Override
     public int getIndexLookupBlocks() {
         return indexLookupBlocks;
     }
@@ -514,6 +630,10 @@ public final class SConfigurationImpl implements SConfiguration {
         return topkSize;
     }
     @Override
+    public int getHistogramSize() {
+        return histogramSize;
+    }
+    @Override
     public long getFallbackLocalLatency() {
         return fallbackLocalLatency;
     }
@@ -571,17 +691,31 @@ public final class SConfigurationImpl implements SConfiguration {
     SConfigurationImpl(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         configSource = configurationSource;
         activeTransactionCacheSize = builder.activeTransactionCacheSize;
+        compactionPurgeVersions = builder.compactionPurgeVersions;
         completedTxnCacheSize = builder.completedTxnCacheSize;
         completedTxnConcurrency = builder.completedTxnConcurrency;
         readResolverQueueSize = builder.readResolverQueueSize;
         readResolverThreads = builder.readResolverThreads;
         timestampClientWaitTime = builder.timestampClientWaitTime;
         timestampServerBindPort = builder.timestampServerBindPort;
+        timestampClientMaxBatchSize = builder.timestampClientMaxBatchSize;
         transactionKeepAliveThreads = builder.transactionKeepAliveThreads;
         transactionLockStripes = builder.transactionLockStripes;
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
         transactionTimeout = builder.transactionTimeout;
+        hlcTimestamps = builder.hlcTimestamps;
+        hlcReservationWindow = builder.hlcReservationWindow;
+        hlcMaxClockOffset = builder.hlcMaxClockOffset;
+        recentWriterCacheSize = builder.recentWriterCacheSize;
         sequenceBlockSize = builder.sequenceBlockSize;
+        parallelControlThreads = builder.parallelControlThreads;
+        parallelControlBufferSize = builder.parallelControlBufferSize;
+        parallelControlMinRows = builder.parallelControlMinRows;
+        parallelControlMaxRows = builder.parallelControlMaxRows;
+        broadcastJoinMaxMemory = builder.broadcastJoinMaxMemory;
+        broadcastJoinOffHeap = builder.broadcastJoinOffHeap;
+        controlSpillMaxMemory = builder.controlSpillMaxMemory;
+        controlSpillDirectory = builder.controlSpillDirectory;
         ddlDrainingInitialWait = builder.ddlDrainingInitialWait;
         ddlDrainingMaximumWait = builder.ddlDrainingMaximumWait;
         ddlRefreshInterval = builder.ddlRefreshInterval;
@@ -600,6 +734,7 @@ public final class SConfigurationImpl implements SConfiguration {
         cardinalityPrecision = builder.cardinalityPrecision;
         fallbackRowWidth = builder.fallbackRowWidth;
         topkSize = builder.topkSize;
+        histogramSize = builder.histogramSize;
         fallbackLocalLatency = builder.fallbackLocalLatency;
         fallbackMinimumRowCount = builder.fallbackMinimumRowCount;
         fallbackOpencloseLatency = builder.fallbackOpencloseLatency;
@@ -626,6 +761,10 @@ public final class SConfigurationImpl implements SConfiguration {
         upgradeForced = builder.upgradeForced;
         importMaxQuotedColumnLines = builder.importMaxQuotedColumnLines;
         indexBatchSize = builder.indexBatchSize;
+        nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
+        nestedLoopJoinProbeBlocks = builder.nestedLoopJoinProbeBlocks;
+        nestedLoopJoinBlockBytes = builder.nestedLoopJoinBlockBytes;
+        normalizedKeys = builder.normalizedKeys;
         indexLookupBlocks = builder.indexLookupBlocks;
         kryoPoolSize = builder.kryoPoolSize;
         networkBindPort = builder.networkBindPort;
@@ -645,7 +784,12 @@ public final class SConfigurationImpl implements SConfiguration {
         maxRetries = builder.maxRetries;
         maxWriterThreads = builder.maxWriterThreads;
         pipelineKryoPoolSize = builder.pipelineKryoPoolSize;
+        writeCompressionThreshold = builder.writeCompressionThreshold;
+        writeCompressionCodec = builder.writeCompressionCodec;
+        fkParentKeyCacheSize = builder.fkParentKeyCacheSize;
         writeMaxFlushesPerRegion = builder.writeMaxFlushesPerRegion;
+        writeMaxQueuedWrites = builder.writeMaxQueuedWrites;
+        writeMaxQueueWait = builder.writeMaxQueueWait;
         clientPause = builder.clientPause;
         maxBufferHeapSize = builder.maxBufferHeapSize;
         startupLockWaitPeriod = builder.startupLockWaitPeriod;
@@ -42,6 +42,53 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TRANSACTION_TIMEOUT="splice.txn.timeout";
     public static final long DEFAULT_TRANSACTION_TIMEOUT=10*DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL; // 2.5 Minutes
 
+    /**
+     * When enabled, transaction timestamps are generated locally on each node from a Hybrid Logical Clock
+     * instead of being fetched from the Timestamp Server. Timestamps carried by transactions and transaction
+     * table calls keep the clocks of the different nodes causally ordered. Since these timestamps are far larger
+     * than those of the Timestamp Server, the Timestamp Server moves past the highest time reserved by any node
+     * when it starts, so that it can be turned off again (on every node at once) after a restart.
+     *
+     * Every process which generates timestamps (including each Spark executor) holds one of 256 node ids while
+     * it runs, so this is only usable when there are never more than 256 such processes at once.
+     * Defaults to false
+     */
+    public static final String HLC_TIMESTAMPS="splice.txn.hlcTimestamps";
+    public static final boolean DEFAULT_HLC_TIMESTAMPS=false;
+
+    /**
+     * The amount of time (in ms) ahead of the clock for which a node persists its Hybrid Logical Clock, so that
+     * timestamps issued after a restart are always larger than those issued before it, even if the wall clock
+     * has moved backwards. A larger window means fewer writes to ZooKeeper.
+     * Defaults to 10000 (10 seconds)
+     */
+    public static final String HLC_RESERVATION_WINDOW="splice.txn.hlcReservationWindowMs";
+    public static final long DEFAULT_HLC_RESERVATION_WINDOW=10000L;
+
+    /**
+     * The largest difference (in ms) expected between the wall clocks of any two nodes when Hybrid Logical Clock
+     * timestamps are used. The commit of a top-level writable transaction is not acknowledged until the local
+     * clock has moved this far past the commit timestamp, so that a transaction which begins afterwards on a node
+     * whose clock lags, and which has not heard from the committing node, still begins after the commit. Child
+     * transactions do not wait.
+     *
+     * Every top-level writable commit (including every autocommit write) is delayed by up to this long, so keep
+     * it close to the offset which NTP actually maintains between the nodes; a value below the real offset lets
+     * a lagging node miss an acknowledged commit. Set to 0 to disable the wait.
+     * Defaults to 20
+     */
+    public static final String HLC_MAX_CLOCK_OFFSET="splice.txn.hlcMaxClockOffsetMs";
+    public static final long DEFAULT_HLC_MAX_CLOCK_OFFSET=20L;
+
+    /**
+     * The maximum number of rows per server for which the last writing transaction is remembered, so that
+     * write/write conflict checks against recently written rows do not have to read the row from storage.
+     * The budget is shared by all the regions open on the server. Set to 0 to disable.
+     * Defaults to 0 (disabled)
+     */
+    public static final String RECENT_WRITER_CACHE_SIZE="splice.txn.recentWriterCacheSize";
+    public static final int DEFAULT_RECENT_WRITER_CACHE_SIZE=0;
+
     public static final String TRANSACTION_KEEP_ALIVE_THREADS="splice.txn.keepAliveThreads";
     public static final int DEFAULT_KEEP_ALIVE_THREADS=4;
 
@@ -112,6 +159,14 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TIMESTAMP_SERVER_BIND_PORT = "splice.timestamp_server.port";
     private static final int DEFAULT_TIMESTAMP_SERVER_BIND_PORT = 60012;
 
+    /**
+     * The maximum number of concurrent timestamp requests the timestamp client coalesces
+     * into a single request to the Timestamp Server.
+     * Defaults to 1024
+     */
+    public static final String TIMESTAMP_CLIENT_MAX_BATCH_SIZE = "splice.timestamp_server.clientMaxBatchSize";
+    private static final int DEFAULT_TIMESTAMP_CLIENT_MAX_BATCH_SIZE = 1024;
+
 
     /**
      * The number of milliseconds the OLAP client should wait for a result.
@@ -146,6 +201,18 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
+    /**
+     * Whether compactions should physically remove versions which no transaction can see any more: versions
+     * superseded by a newer committed version, rows deleted by a committed tombstone, and the tombstones themselves.
+     * Only versions committed before the oldest active transaction began are removed: writable transactions
+     * are found in the transaction table, and read-only ones through the watermark each server publishes
+     * in ZooKeeper.
+     *
+     * Defaults to true
+     */
+    public static final String COMPACTION_PURGE_VERSIONS="splice.txn.compaction.purgeVersions";
+    private static final boolean DEFAULT_COMPACTION_PURGE_VERSIONS = true;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -156,7 +223,9 @@ public class SIConfigurations implements ConfigurationDefault {
 //        builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, DEFAULT_READ_RESOLVER_QUEUE_SIZE);
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
+        builder.timestampClientMaxBatchSize  = configurationSource.getInt(TIMESTAMP_CLIENT_MAX_BATCH_SIZE, DEFAULT_TIMESTAMP_CLIENT_MAX_BATCH_SIZE);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
+        builder.compactionPurgeVersions  = configurationSource.getBoolean(COMPACTION_PURGE_VERSIONS, DEFAULT_COMPACTION_PURGE_VERSIONS);
         builder.olapServerBindPort  = configurationSource.getInt(OLAP_SERVER_BIND_PORT, DEFAULT_OLAP_SERVER_BIND_PORT);
         builder.olapClientWaitTime  = configurationSource.getInt(OLAP_CLIENT_WAIT_TIME, DEFAULT_OLAP_CLIENT_WAIT_TIME);
         builder.olapClientTickTime  = configurationSource.getInt(OLAP_CLIENT_TICK_TIME, DEFAULT_OLAP_CLIENT_TICK_TIME);
@@ -164,6 +233,10 @@ public class SIConfigurations implements ConfigurationDefault {
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
         builder.transactionKeepAliveInterval = configurationSource.getLong(TRANSACTION_KEEP_ALIVE_INTERVAL, DEFAULT_TRANSACTION_KEEP_ALIVE_INTERVAL);
+        builder.hlcTimestamps = configurationSource.getBoolean(HLC_TIMESTAMPS, DEFAULT_HLC_TIMESTAMPS);
+        builder.hlcReservationWindow = configurationSource.getLong(HLC_RESERVATION_WINDOW, DEFAULT_HLC_RESERVATION_WINDOW);
+        builder.hlcMaxClockOffset = configurationSource.getLong(HLC_MAX_CLOCK_OFFSET, DEFAULT_HLC_MAX_CLOCK_OFFSET);
+        builder.recentWriterCacheSize = configurationSource.getInt(RECENT_WRITER_CACHE_SIZE, DEFAULT_RECENT_WRITER_CACHE_SIZE);
 
     }
 }
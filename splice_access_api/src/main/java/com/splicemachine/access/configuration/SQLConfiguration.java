@@ -179,6 +179,46 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String INDEX_BATCH_SIZE = "splice.index.batchSize";
     private static final int DEFAULT_INDEX_BATCH_SIZE=4000;
 
+    /**
+     * The number of outer rows a nested loop join collects before probing the inner table for all of them
+     * at once. The inner rows for the whole block are fetched in a single background task, rather than
+     * opening a new scan for each outer row. Only applies to inner joins whose inner side is a keyed
+     * table or index scan. Set to 0 to probe the inner table once per outer row.
+     *
+     * Defaults to 0 (disabled)
+     */
+    public static final String NESTEDLOOPJOIN_BATCH_SIZE = "splice.execution.nestedLoopJoinBatchSize";
+    private static final int DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE = 0;
+
+    /**
+     * The number of blocks of nested loop join probes (see {@link #NESTEDLOOPJOIN_BATCH_SIZE}) which may be
+     * fetched concurrently, ahead of the block which is currently being joined.
+     *
+     * Defaults to 5
+     */
+    public static final String NESTEDLOOPJOIN_PROBE_BLOCKS = "splice.execution.nestedLoopJoinProbeBlocks";
+    private static final int DEFAULT_NESTEDLOOPJOIN_PROBE_BLOCKS = 5;
+
+    /**
+     * The maximum size, in bytes, of a block of nested loop join probes (see {@link #NESTEDLOOPJOIN_BATCH_SIZE}).
+     * A block ends early once its outer rows reach this size, and stops fetching inner rows once those reach it;
+     * outer rows whose inner rows were not fetched are probed one at a time.
+     *
+     * Defaults to 4 MB
+     */
+    public static final String NESTEDLOOPJOIN_BLOCK_BYTES = "splice.execution.nestedLoopJoinBlockBytes";
+    private static final long DEFAULT_NESTEDLOOPJOIN_BLOCK_BYTES = 4*1024*1024L;
+
+    /**
+     * Whether sorts, grouped aggregates, merge-sort joins and distinct scans key their rows by a single
+     * normalized byte[] (compared byte by byte) instead of an ExecRow of key columns, when every key column
+     * can be encoded. This is experimental until it has been benchmarked against the ExecRow keys.
+     *
+     * Defaults to false
+     */
+    public static final String NORMALIZED_KEYS = "splice.execution.normalizedKeys";
+    private static final boolean DEFAULT_NORMALIZED_KEYS = false;
+
 
     public static volatile boolean upgradeForced = false;
 
@@ -207,6 +247,10 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.networkBindPort = configurationSource.getInt(NETWORK_BIND_PORT, DEFAULT_NETWORK_BIND_PORT);
         builder.kryoPoolSize = configurationSource.getInt(KRYO_POOL_SIZE, DEFAULT_KRYO_POOL_SIZE);
         builder.indexBatchSize = configurationSource.getInt(INDEX_BATCH_SIZE, DEFAULT_INDEX_BATCH_SIZE);
+        builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
+        builder.nestedLoopJoinProbeBlocks = configurationSource.getInt(NESTEDLOOPJOIN_PROBE_BLOCKS, DEFAULT_NESTEDLOOPJOIN_PROBE_BLOCKS);
+        builder.nestedLoopJoinBlockBytes = configurationSource.getLong(NESTEDLOOPJOIN_BLOCK_BYTES, DEFAULT_NESTEDLOOPJOIN_BLOCK_BYTES);
+        builder.normalizedKeys = configurationSource.getBoolean(NORMALIZED_KEYS, DEFAULT_NORMALIZED_KEYS);
         builder.indexLookupBlocks = configurationSource.getInt(INDEX_LOOKUP_BLOCKS, DEFAULT_INDEX_LOOKUP_BLOCKS);
         builder.importMaxQuotedColumnLines = configurationSource.getInt(IMPORT_MAX_QUOTED_COLUMN_LINES, DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES);
         builder.batchOnceBatchSize = configurationSource.getInt(BATCH_ONCE_BATCH_SIZE, DEFAULT_BATCH_ONCE_BATCH_SIZE);
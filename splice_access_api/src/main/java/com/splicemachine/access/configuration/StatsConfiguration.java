@@ -36,6 +36,15 @@ public class StatsConfiguration implements ConfigurationDefault {
     public static final String TOPK_SIZE = "splice.statistics.topKSize";
     public static final int DEFAULT_TOPK_PRECISION = 10;
 
+    /*
+     * The number of buckets in the Equi-depth histogram kept for each column in a partition (over the values
+     * which are not among the "top-k" frequent elements). The histogram is built from a sample of 64 values
+     * per bucket, so the memory used while collecting grows linearly with this number. Set to 0 to
+     * disable histograms, in which case values are assumed to be spread uniformly between the min and max.
+     */
+    public static final String HISTOGRAM_SIZE = "splice.statistics.histogramSize";
+    public static final int DEFAULT_HISTOGRAM_SIZE = 32;
+
     /*
      * The size of the partition statistics cache. Partitions will be evicted when the total size
      * exceeds this threshold
@@ -133,6 +142,7 @@ public class StatsConfiguration implements ConfigurationDefault {
 //        builder.indexFetchRepititionCount = configurationSource.getInt(INDEX_FETCH_REPETITION_COUNT, DEFAULT_INDEX_FETCH_REPETITION_COUNT);
         builder.indexFetchSampleSize = configurationSource.getInt(INDEX_FETCH_SAMPLE_SIZE, DEFAULT_INDEX_FETCH_SAMPLE_SIZE);
         builder.topkSize = configurationSource.getInt(TOPK_SIZE, DEFAULT_TOPK_PRECISION);
+        builder.histogramSize = configurationSource.getInt(HISTOGRAM_SIZE, DEFAULT_HISTOGRAM_SIZE);
         builder.cardinalityPrecision = configurationSource.getInt(CARDINALITY_PRECISION, DEFAULT_CARDINALITY_PRECISION);
 
         builder.fallbackMinimumRowCount = configurationSource.getLong(FALLBACK_MINIMUM_ROW_COUNT, DEFAULT_FALLBACK_MINIMUM_ROW_COUNT);
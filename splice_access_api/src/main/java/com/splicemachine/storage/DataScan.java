@@ -15,6 +15,10 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
+
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/15/15
@@ -27,6 +31,19 @@ public interface DataScan extends Attributable{
 
     DataScan filter(DataFilter df);
 
+    /**
+     * Restrict this scan to the given key ranges, each of which is [start,stop). The ranges must be sorted by start
+     * key and must not overlap, and only the last range may have an empty (unbounded) stop key.
+     *
+     * The start and stop keys of this scan are set to span all of the ranges. The scanner seeks from the end of each
+     * range directly to the start of the next one, rather than reading the rows in between. Not supported for
+     * descending scans.
+     *
+     * @param ranges the (start,stop) key pairs to scan
+     * @return a scan which only returns rows within the ranges
+     */
+    DataScan keyRanges(List<Pair<byte[],byte[]>> ranges);
+
     /**
      * Reverse the order in which this scan is operating.
      *
@@ -47,16 +47,22 @@ public class CharValuePredicate extends ValuePredicate{
             return super.doComparison(data,offset,length);
         }
 
+        int adjustedWhitespaceLength=trimmedLength(data,offset,length,compareValue.length);
+
+        return super.doComparison(data,offset,adjustedWhitespaceLength);
+    }
+
+    /**
+     * @return the length of the encoded char value with any trailing whitespace removed, but
+     * never less than {@code minLength}
+     */
+    static int trimmedLength(byte[] data,int offset,int length,int minLength){
         //find any whitespace in the data
         int pos=offset+length-1;
-        //go backwards in steps of 8
-        while(pos>=offset && (pos-offset>=compareValue.length) && data[pos]==34){ //34 is the encoded value of a whitespace terminator
+        while(pos>=offset && (pos-offset>=minLength) && data[pos]==34){ //34 is the encoded value of a whitespace terminator
             pos--;
         }
-
-        int adjustedWhitespaceLength=pos-offset+1;
-
-        return super.doComparison(data,offset,adjustedWhitespaceLength);
+        return pos-offset+1;
     }
 
     @Override
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+
+import java.util.Arrays;
+
+/**
+ * Matches a column whose encoded value is one of a set of encoded values, as in {@code col IN (v1,...,vn)}.
+ *
+ * The values are kept sorted, so that each column value is checked with a binary search over the
+ * encoded bytes, instead of with one comparison per value. Null values never match.
+ */
+public class InListPredicate implements Predicate{
+    private final int column;
+    private final byte[][] values;
+    /*If set, trailing whitespace is ignored, as with CharValuePredicate*/
+    private final boolean charType;
+
+    public InListPredicate(int column,byte[][] values,boolean charType){
+        this.column=column;
+        this.charType=charType;
+        this.values=new byte[values.length][];
+        for(int i=0;i<values.length;i++){
+            byte[] value=values[i];
+            if(charType){
+                int trimmedLength=CharValuePredicate.trimmedLength(value,0,value.length,0);
+                value=trimmedLength==value.length?value:Arrays.copyOf(value,trimmedLength);
+            }
+            this.values[i]=value;
+        }
+        Arrays.sort(this.values,Bytes.BASE_COMPARATOR);
+    }
+
+    @Override
+    public boolean applies(int column){
+        return this.column==column;
+    }
+
+    @Override
+    public boolean match(int column,byte[] data,int offset,int length){
+        if(this.column!=column) return true; //not the right column, don't worry about it
+        if(data==null || length==0) return false; //null is never in the list
+
+        if(charType)
+            length=CharValuePredicate.trimmedLength(data,offset,length,0);
+        int low=0;
+        int high=values.length-1;
+        while(low<=high){
+            int mid=(low+high)>>>1;
+            byte[] value=values[mid];
+            int compare=Bytes.BASE_COMPARATOR.compare(value,0,value.length,data,offset,length);
+            if(compare<0)
+                low=mid+1;
+            else if(compare>0)
+                high=mid-1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean checkAfter(){
+        /*
+         * Nulls never match, so we need to check columns which are missing from the row
+         * once the row is complete as well.
+         */
+        return true;
+    }
+
+    @Override
+    public void setCheckedColumns(BitSet checkedColumns){
+        checkedColumns.set(column);
+    }
+
+    @Override
+    public void reset(){
+    } //no-op
+
+    @Override
+    public byte[] toBytes(){
+        /*
+         * Format is as follows:
+         *
+         * 1-byte type header (PredicateType.IN_LIST)
+         * 4-bytes column
+         * 1-byte charType
+         * 4-byte number of values
+         * for each value:
+         *  4-byte value length
+         *  n-bytes the value
+         */
+        int size=10;
+        for(byte[] value : values){
+            size+=4+value.length;
+        }
+        byte[] data=new byte[size];
+        data[0]=PredicateType.IN_LIST.byteValue();
+        Bytes.intToBytes(column,data,1);
+        data[5]=charType?(byte)0x01:0x00;
+        Bytes.intToBytes(values.length,data,6);
+        int offset=10;
+        for(byte[] value : values){
+            Bytes.intToBytes(value.length,data,offset);
+            offset+=4;
+            System.arraycopy(value,0,data,offset,value.length);
+            offset+=value.length;
+        }
+        return data;
+    }
+
+    public static Pair<InListPredicate,Integer> fromBytes(byte[] data,int offset){
+        int start=offset;
+        offset++; //skip the type
+        int column=Bytes.bytesToInt(data,offset);
+        offset+=4;
+        boolean charType=data[offset]==0x01;
+        offset++;
+        byte[][] values=new byte[Bytes.bytesToInt(data,offset)][];
+        offset+=4;
+        for(int i=0;i<values.length;i++){
+            int valueLength=Bytes.bytesToInt(data,offset);
+            offset+=4;
+            values[i]=new byte[valueLength];
+            System.arraycopy(data,offset,values[i],0,valueLength);
+            offset+=valueLength;
+        }
+        return Pair.newPair(new InListPredicate(column,values,charType),offset-start);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        if(!(o instanceof InListPredicate)) return false;
+
+        InListPredicate that=(InListPredicate)o;
+
+        return column==that.column && charType==that.charType && Arrays.deepEquals(values,that.values);
+    }
+
+    @Override
+    public int hashCode(){
+        int result=column;
+        result=31*result+Arrays.deepHashCode(values);
+        result=31*result+(charType?1:0);
+        return result;
+    }
+
+    @Override
+    public String toString(){
+        return "InListPredicate {"+
+                "column="+column+
+                ", values="+values.length+
+                ", charType="+charType+
+                '}';
+    }
+}
@@ -27,7 +27,10 @@ public enum PredicateType {
     AND((byte)0x03),
     OR((byte)0x04),
     CUSTOM((byte)0x05),
-		CHAR_VALUE((byte)0x06);
+		CHAR_VALUE((byte)0x06),
+    IN_LIST((byte)0x07),
+    RANGE((byte)0x08),
+    PREFIX((byte)0x09);
 
     private final byte type;
 
@@ -50,6 +53,12 @@ public enum PredicateType {
             return AND;
         else if(OR.type==typeByte)
             return OR;
+        else if(IN_LIST.type==typeByte)
+            return IN_LIST;
+        else if(RANGE.type==typeByte)
+            return RANGE;
+        else if(PREFIX.type==typeByte)
+            return PREFIX;
         else
             return CUSTOM;
     }
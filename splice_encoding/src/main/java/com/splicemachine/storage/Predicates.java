@@ -43,6 +43,12 @@ public class Predicates {
                 return AndPredicate.fromBytes(bytes,offset+1);
             case OR:
                 return OrPredicate.fromBytes(bytes,offset+1);
+            case IN_LIST:
+                return InListPredicate.fromBytes(bytes,offset);
+            case RANGE:
+                return RangePredicate.fromBytes(bytes,offset);
+            case PREFIX:
+                return PrefixPredicate.fromBytes(bytes,offset);
             default:
                 return getCustomPredicate(bytes,offset+1);
         }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+
+/**
+ * Matches a column whose encoded value starts with a given encoded prefix, as in {@code col LIKE 'abc%'}.
+ *
+ * The string encoding preserves prefixes, so this is equivalent to the range
+ * {@code [prefix, prefix with its last byte incremented)}, which is what the optimizer generates for
+ * such a LIKE; but it is checked with a single comparison of {@code prefix.length} bytes.
+ * Null values never match.
+ */
+public class PrefixPredicate implements Predicate{
+    private final int column;
+    private final byte[] prefix;
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public PrefixPredicate(int column,byte[] prefix){
+        this.column=column;
+        this.prefix=prefix;
+    }
+
+    @Override
+    public boolean applies(int column){
+        return this.column==column;
+    }
+
+    @Override
+    public boolean match(int column,byte[] data,int offset,int length){
+        if(this.column!=column) return true; //not the right column, don't worry about it
+        if(data==null || length==0) return false; //null never has the prefix
+
+        return length>=prefix.length && Bytes.BASE_COMPARATOR.equals(prefix,0,prefix.length,data,offset,prefix.length);
+    }
+
+    @Override
+    public boolean checkAfter(){
+        /*
+         * Nulls never match, so we need to check columns which are missing from the row
+         * once the row is complete as well.
+         */
+        return true;
+    }
+
+    @Override
+    public void setCheckedColumns(BitSet checkedColumns){
+        checkedColumns.set(column);
+    }
+
+    @Override
+    public void reset(){
+    } //no-op
+
+    @Override
+    public byte[] toBytes(){
+        /*
+         * Format is as follows:
+         *
+         * 1-byte type header (PredicateType.PREFIX)
+         * 4-bytes column
+         * 4-byte prefix length
+         * n-bytes the prefix
+         */
+        byte[] data=new byte[9+prefix.length];
+        data[0]=PredicateType.PREFIX.byteValue();
+        Bytes.intToBytes(column,data,1);
+        Bytes.intToBytes(prefix.length,data,5);
+        System.arraycopy(prefix,0,data,9,prefix.length);
+        return data;
+    }
+
+    public static Pair<PrefixPredicate,Integer> fromBytes(byte[] data,int offset){
+        int column=Bytes.bytesToInt(data,offset+1);
+        byte[] prefix=new byte[Bytes.bytesToInt(data,offset+5)];
+        System.arraycopy(data,offset+9,prefix,0,prefix.length);
+        return Pair.newPair(new PrefixPredicate(column,prefix),9+prefix.length);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        if(!(o instanceof PrefixPredicate)) return false;
+
+        PrefixPredicate that=(PrefixPredicate)o;
+
+        return column==that.column && Arrays.equals(prefix,that.prefix);
+    }
+
+    @Override
+    public int hashCode(){
+        return 31*column+Arrays.hashCode(prefix);
+    }
+
+    @Override
+    public String toString(){
+        return "PrefixPredicate {"+
+                "column="+column+
+                ", prefix="+Arrays.toString(prefix)+
+                '}';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+
+/**
+ * Matches a column whose encoded value lies between two encoded bounds, as in
+ * {@code col BETWEEN v1 AND v2}, with a single check of the column instead of one per bound.
+ *
+ * The bounds are compared in the ascending byte order of the encoding, so this may only be used
+ * for columns which are not encoded in descending order. Null values never match.
+ */
+public class RangePredicate implements Predicate{
+    private final int column;
+    private final byte[] lower;
+    private final boolean lowerInclusive;
+    private final byte[] upper;
+    private final boolean upperInclusive;
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public RangePredicate(int column,
+                          byte[] lower,boolean lowerInclusive,
+                          byte[] upper,boolean upperInclusive){
+        this.column=column;
+        this.lower=lower;
+        this.lowerInclusive=lowerInclusive;
+        this.upper=upper;
+        this.upperInclusive=upperInclusive;
+    }
+
+    @Override
+    public boolean applies(int column){
+        return this.column==column;
+    }
+
+    @Override
+    public boolean match(int column,byte[] data,int offset,int length){
+        if(this.column!=column) return true; //not the right column, don't worry about it
+        if(data==null || length==0) return false; //null is never within the range
+
+        int compare=Bytes.BASE_COMPARATOR.compare(data,offset,length,lower,0,lower.length);
+        if(compare<0 || (compare==0 && !lowerInclusive))
+            return false;
+        compare=Bytes.BASE_COMPARATOR.compare(data,offset,length,upper,0,upper.length);
+        return compare<0 || (compare==0 && upperInclusive);
+    }
+
+    @Override
+    public boolean checkAfter(){
+        /*
+         * Nulls never match, so we need to check columns which are missing from the row
+         * once the row is complete as well.
+         */
+        return true;
+    }
+
+    @Override
+    public void setCheckedColumns(BitSet checkedColumns){
+        checkedColumns.set(column);
+    }
+
+    @Override
+    public void reset(){
+    } //no-op
+
+    @Override
+    public byte[] toBytes(){
+        /*
+         * Format is as follows:
+         *
+         * 1-byte type header (PredicateType.RANGE)
+         * 4-bytes column
+         * 1-byte lowerInclusive
+         * 1-byte upperInclusive
+         * 4-byte lower length
+         * n-bytes the lower bound
+         * 4-byte upper length
+         * m-bytes the upper bound
+         */
+        byte[] data=new byte[15+lower.length+upper.length];
+        data[0]=PredicateType.RANGE.byteValue();
+        Bytes.intToBytes(column,data,1);
+        data[5]=lowerInclusive?(byte)0x01:0x00;
+        data[6]=upperInclusive?(byte)0x01:0x00;
+        Bytes.intToBytes(lower.length,data,7);
+        System.arraycopy(lower,0,data,11,lower.length);
+        int offset=11+lower.length;
+        Bytes.intToBytes(upper.length,data,offset);
+        System.arraycopy(upper,0,data,offset+4,upper.length);
+        return data;
+    }
+
+    public static Pair<RangePredicate,Integer> fromBytes(byte[] data,int offset){
+        int start=offset;
+        offset++; //skip the type
+        int column=Bytes.bytesToInt(data,offset);
+        offset+=4;
+        boolean lowerInclusive=data[offset]==0x01;
+        boolean upperInclusive=data[offset+1]==0x01;
+        offset+=2;
+        byte[] lower=new byte[Bytes.bytesToInt(data,offset)];
+        offset+=4;
+        System.arraycopy(data,offset,lower,0,lower.length);
+        offset+=lower.length;
+        byte[] upper=new byte[Bytes.bytesToInt(data,offset)];
+        offset+=4;
+        System.arraycopy(data,offset,upper,0,upper.length);
+        offset+=upper.length;
+        return Pair.newPair(new RangePredicate(column,lower,lowerInclusive,upper,upperInclusive),offset-start);
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this==o) return true;
+        if(!(o instanceof RangePredicate)) return false;
+
+        RangePredicate that=(RangePredicate)o;
+
+        return column==that.column
+                && lowerInclusive==that.lowerInclusive
+                && upperInclusive==that.upperInclusive
+                && Arrays.equals(lower,that.lower)
+                && Arrays.equals(upper,that.upper);
+    }
+
+    @Override
+    public int hashCode(){
+        int result=column;
+        result=31*result+Arrays.hashCode(lower);
+        result=31*result+(lowerInclusive?1:0);
+        result=31*result+Arrays.hashCode(upper);
+        result=31*result+(upperInclusive?1:0);
+        return result;
+    }
+
+    @Override
+    public String toString(){
+        return "RangePredicate {"+
+                "column="+column+
+                ", lower="+Arrays.toString(lower)+
+                ", lowerInclusive="+lowerInclusive+
+                ", upper="+Arrays.toString(upper)+
+                ", upperInclusive="+upperInclusive+
+                '}';
+    }
+}
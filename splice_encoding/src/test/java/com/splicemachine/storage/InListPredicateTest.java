@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.carrotsearch.hppc.ObjectArrayList;
+import com.splicemachine.encoding.Encoding;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InListPredicateTest {
+
+    private static boolean matches(Predicate predicate, byte[] value) {
+        return predicate.match(0, value, 0, value == null ? 0 : value.length);
+    }
+
+    @Test
+    public void matchesOnlyListedValues() throws Exception {
+        byte[][] values = new byte[200][];
+        for (int i = 0; i < values.length; i++)
+            values[i] = Encoding.encode(3 * (values.length - i)); //unsorted, to check the predicate sorts them
+        InListPredicate predicate = new InListPredicate(0, values, false);
+
+        for (int i = -5; i < 3 * values.length + 5; i++) {
+            boolean listed = i > 0 && i <= 3 * values.length && i % 3 == 0;
+            Assert.assertEquals("Incorrect match for " + i, listed, matches(predicate, Encoding.encode(i)));
+        }
+    }
+
+    @Test
+    public void neverMatchesNull() throws Exception {
+        InListPredicate predicate = new InListPredicate(0, new byte[][]{Encoding.encode(1), Encoding.encode(2)}, false);
+        Assert.assertFalse(matches(predicate, null));
+        Assert.assertFalse(matches(predicate, new byte[]{}));
+        Assert.assertTrue(predicate.checkAfter());
+    }
+
+    @Test
+    public void ignoresOtherColumns() throws Exception {
+        InListPredicate predicate = new InListPredicate(0, new byte[][]{Encoding.encode(1)}, false);
+        byte[] value = Encoding.encode(2);
+        Assert.assertTrue(predicate.match(1, value, 0, value.length));
+    }
+
+    @Test
+    public void charValuesIgnoreTrailingWhitespace() throws Exception {
+        InListPredicate predicate = new InListPredicate(0, new byte[][]{Encoding.encode("ab"), Encoding.encode("cd ")}, true);
+        Assert.assertTrue(matches(predicate, Encoding.encode("ab   ")));
+        Assert.assertTrue(matches(predicate, Encoding.encode("cd")));
+        Assert.assertFalse(matches(predicate, Encoding.encode("abc ")));
+        Assert.assertFalse(matches(predicate, Encoding.encode(" ab")));
+    }
+
+    @Test
+    public void prefixMatchesTheLikeRange() throws Exception {
+        byte[] lower = Encoding.encode("abc");
+        byte[] upper = Encoding.encode("abd");
+        Predicate prefix = new PrefixPredicate(0, lower);
+        Predicate range = new RangePredicate(0, lower, true, upper, false);
+        Predicate pair = new AndPredicate(ObjectArrayList.from(
+                (Predicate) new ValuePredicate(CompareOp.GREATER_OR_EQUAL, 0, lower, true, false),
+                new ValuePredicate(CompareOp.LESS, 0, upper, true, false)));
+        for (String s : new String[]{"ab", "abb", "abc", "abcd", "abc zz", "abd", "abda", "b", "a"}) {
+            byte[] value = Encoding.encode(s);
+            pair.reset();
+            boolean expected = matches(pair, value);
+            Assert.assertEquals("Incorrect prefix match for " + s, expected, matches(prefix, value));
+            Assert.assertEquals("Incorrect range match for " + s, expected, matches(range, value));
+        }
+    }
+
+    @Test
+    public void rangeRespectsInclusiveness() throws Exception {
+        Predicate range = new RangePredicate(0, Encoding.encode(10), false, Encoding.encode(20), true);
+        Assert.assertFalse(matches(range, Encoding.encode(10)));
+        Assert.assertTrue(matches(range, Encoding.encode(11)));
+        Assert.assertTrue(matches(range, Encoding.encode(20)));
+        Assert.assertFalse(matches(range, Encoding.encode(21)));
+        Assert.assertFalse(matches(range, null));
+    }
+}
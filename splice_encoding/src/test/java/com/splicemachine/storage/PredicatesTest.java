@@ -16,6 +16,7 @@
 package com.splicemachine.storage;
 
 import com.splicemachine.utils.Pair;
+import org.junit.Assert;
 import org.junit.Test;
 import com.carrotsearch.hppc.ObjectArrayList;
 /**
@@ -59,4 +60,20 @@ public class PredicatesTest {
 
         System.out.println(decoded);
     }
+
+    @Test
+    public void testCanEncodeDecodeScanPredicates() throws Exception {
+        ObjectArrayList<Predicate> predicates = ObjectArrayList.from(
+                (Predicate)new InListPredicate(0,new byte[][]{new byte[]{0x03},new byte[]{0x01,0x02}},true),
+                new RangePredicate(1,new byte[]{0x01},true,new byte[]{0x05,0x06},false),
+                new PrefixPredicate(2,new byte[]{0x07,0x08,0x09}),
+                new ValuePredicate(CompareOp.EQUAL,3,new byte[]{0x02},true,false)
+        );
+
+        byte[] data = Predicates.toBytes(predicates);
+
+        Pair<ObjectArrayList<Predicate>,Integer> decoded = Predicates.allFromBytes(data,0);
+        Assert.assertEquals(predicates,decoded.getFirst());
+        Assert.assertEquals(data.length,(int)decoded.getSecond());
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.utils.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefixPredicateTest {
+
+    private static boolean matches(Predicate predicate, byte[] value) {
+        return predicate.match(0, value, 0, value == null ? 0 : value.length);
+    }
+
+    @Test
+    public void matchesValuesStartingWithThePrefix() throws Exception {
+        Predicate prefix = new PrefixPredicate(0, Encoding.encode("abc"));
+        for (String s : new String[]{"abc", "abca", "abcd", "abc zz", "abcabc"}) {
+            Assert.assertTrue("Should match " + s, matches(prefix, Encoding.encode(s)));
+        }
+        for (String s : new String[]{"", "a", "ab", "abb", "abd", "xabc", "ABC", " abc"}) {
+            Assert.assertFalse("Should not match " + s, matches(prefix, Encoding.encode(s)));
+        }
+    }
+
+    @Test
+    public void matchesAtAnOffset() throws Exception {
+        Predicate prefix = new PrefixPredicate(0, Encoding.encode("ab"));
+        byte[] value = Encoding.encode("abz");
+        byte[] row = new byte[value.length + 6];
+        System.arraycopy(value, 0, row, 3, value.length);
+        Assert.assertTrue(prefix.match(0, row, 3, value.length));
+        // the bytes past the column must not be mistaken for part of it
+        Assert.assertFalse(prefix.match(0, row, 3, 1));
+    }
+
+    @Test
+    public void neverMatchesNull() throws Exception {
+        Predicate prefix = new PrefixPredicate(0, Encoding.encode("a"));
+        Assert.assertFalse(matches(prefix, null));
+        Assert.assertFalse(matches(prefix, new byte[]{}));
+        Assert.assertTrue(prefix.checkAfter());
+    }
+
+    @Test
+    public void ignoresOtherColumns() throws Exception {
+        Predicate prefix = new PrefixPredicate(0, Encoding.encode("a"));
+        byte[] value = Encoding.encode("b");
+        Assert.assertTrue(prefix.match(1, value, 0, value.length));
+        Assert.assertFalse(prefix.applies(1));
+    }
+
+    @Test
+    public void survivesSerialization() throws Exception {
+        PrefixPredicate prefix = new PrefixPredicate(2, Encoding.encode("abc"));
+        Pair<PrefixPredicate, Integer> decoded = PrefixPredicate.fromBytes(prefix.toBytes(), 0);
+        Assert.assertEquals(prefix, decoded.getFirst());
+        Assert.assertEquals(prefix.toBytes().length, decoded.getSecond().intValue());
+    }
+}
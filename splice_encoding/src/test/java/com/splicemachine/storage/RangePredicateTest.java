@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.utils.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RangePredicateTest {
+
+    private static boolean matches(Predicate predicate, byte[] value) {
+        return predicate.match(0, value, 0, value == null ? 0 : value.length);
+    }
+
+    @Test
+    public void matchesEveryCombinationOfInclusiveBounds() throws Exception {
+        for (boolean lowerInclusive : new boolean[]{true, false}) {
+            for (boolean upperInclusive : new boolean[]{true, false}) {
+                Predicate range = new RangePredicate(0, Encoding.encode(-10), lowerInclusive, Encoding.encode(20), upperInclusive);
+                for (int i = -30; i <= 30; i++) {
+                    boolean expected = (i > -10 || (lowerInclusive && i == -10))
+                            && (i < 20 || (upperInclusive && i == 20));
+                    Assert.assertEquals("Incorrect match for " + i + " (lowerInclusive=" + lowerInclusive
+                            + ", upperInclusive=" + upperInclusive + ")", expected, matches(range, Encoding.encode(i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void comparesEncodedStrings() throws Exception {
+        Predicate range = new RangePredicate(0, Encoding.encode("b"), true, Encoding.encode("d"), false);
+        Assert.assertFalse(matches(range, Encoding.encode("a")));
+        Assert.assertFalse(matches(range, Encoding.encode("azzz")));
+        Assert.assertTrue(matches(range, Encoding.encode("b")));
+        Assert.assertTrue(matches(range, Encoding.encode("bzz")));
+        Assert.assertTrue(matches(range, Encoding.encode("c")));
+        Assert.assertFalse(matches(range, Encoding.encode("d")));
+        Assert.assertFalse(matches(range, Encoding.encode("da")));
+    }
+
+    @Test
+    public void matchesAtAnOffset() throws Exception {
+        Predicate range = new RangePredicate(0, Encoding.encode(10), true, Encoding.encode(20), true);
+        byte[] value = Encoding.encode(15);
+        byte[] row = new byte[value.length + 4];
+        System.arraycopy(value, 0, row, 2, value.length);
+        Assert.assertTrue(range.match(0, row, 2, value.length));
+    }
+
+    @Test
+    public void neverMatchesNull() throws Exception {
+        Predicate range = new RangePredicate(0, Encoding.encode(1), true, Encoding.encode(2), true);
+        Assert.assertFalse(matches(range, null));
+        Assert.assertFalse(matches(range, new byte[]{}));
+        Assert.assertTrue(range.checkAfter());
+    }
+
+    @Test
+    public void ignoresOtherColumns() throws Exception {
+        Predicate range = new RangePredicate(0, Encoding.encode(1), true, Encoding.encode(2), true);
+        byte[] value = Encoding.encode(5);
+        Assert.assertTrue(range.match(1, value, 0, value.length));
+        Assert.assertFalse(range.applies(1));
+    }
+
+    @Test
+    public void survivesSerialization() throws Exception {
+        RangePredicate range = new RangePredicate(3, Encoding.encode(1), false, Encoding.encode(9), true);
+        Pair<RangePredicate, Integer> decoded = RangePredicate.fromBytes(range.toBytes(), 0);
+        Assert.assertEquals(range, decoded.getFirst());
+        Assert.assertEquals(range.toBytes().length, decoded.getSecond().intValue());
+    }
+}
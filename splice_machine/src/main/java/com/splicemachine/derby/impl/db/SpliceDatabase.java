@@ -70,6 +70,7 @@ import com.splicemachine.derby.ddl.DDLUtils;
 import com.splicemachine.derby.ddl.DDLWatcher;
 import com.splicemachine.derby.ddl.DropForeignKeyFromPipeline;
 import com.splicemachine.derby.ddl.DropIndexFromPipeline;
+import com.splicemachine.derby.ddl.InvalidateParentKeyCache;
 import com.splicemachine.derby.impl.sql.execute.operations.batchonce.BatchOnceVisitor;
 import com.splicemachine.derby.impl.store.access.SpliceAccessManager;
 import com.splicemachine.derby.impl.store.access.SpliceTransaction;
@@ -416,6 +417,7 @@ public class SpliceDatabase extends BasicDatabase{
                 ddlActions.add(new AddForeignKeyToPipeline());
                 ddlActions.add(new DropForeignKeyFromPipeline());
                 ddlActions.add(new AddUniqueConstraintToPipeline());
+                ddlActions.add(new InvalidateParentKeyCache());
                 for (DDLAction action : ddlActions) {
                     action.accept(change);
                 }
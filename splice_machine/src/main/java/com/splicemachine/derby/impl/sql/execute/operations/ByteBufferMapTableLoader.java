@@ -15,26 +15,32 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.SQLState;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
 import com.splicemachine.derby.utils.marshall.KeyEncoder;
 import com.splicemachine.derby.utils.marshall.NoOpPostfix;
 import com.splicemachine.derby.utils.marshall.NoOpPrefix;
 import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.stream.Stream;
 import com.splicemachine.stream.StreamException;
+import com.splicemachine.utils.IntArrays;
 import javax.annotation.concurrent.ThreadSafe;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
 /**
+ * Loads the inner side of a broadcast join into a {@link PagedJoinHashTable}. Each inner row is
+ * stored once, in its encoded form, so that large inner tables take a fraction of the memory
+ * (and none of the object count) that a map of cloned rows would.
+ *
  * @author Scott Fines
  *         Date: 10/27/15
  */
@@ -42,31 +48,34 @@ import java.util.concurrent.ExecutionException;
 class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
     public static BroadcastJoinCache.JoinTableLoader INSTANCE = new ByteBufferMapTableLoader();
 
+    private static final int PAGE_SIZE = 1<<20;
+
     private ByteBufferMapTableLoader(){} //singleton class
 
     @Override
     public JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,int[] innerHashKeys,int[] outerHashKeys, ExecRow outerTemplateRow) throws ExecutionException{
-        Map<ByteBuffer, List<ExecRow>> table=new HashMap<>();
+        SConfiguration config = SIDriver.driver().getConfiguration();
+        long maxMemory = config.getBroadcastJoinMaxMemory();
+        PagedJoinHashTable table=new PagedJoinHashTable(PAGE_SIZE,config.getBroadcastJoinOffHeap(),maxMemory);
 
-        DescriptorSerializer[] innerSerializers=null;
+        ExecRow innerTemplateRow=null;
         KeyEncoder innerKeyEncoder=null;
+        DataHash<ExecRow> innerRowEncoder=null;
 
         try(Stream<ExecRow> innerRows=streamLoader.call()){
             ExecRow right;
             while((right=innerRows.next())!=null){
-                if(innerSerializers==null){
-                    innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(right);
+                if(innerTemplateRow==null){
+                    innerTemplateRow=right.getClone();
+                    DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(right);
                     innerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
                             BareKeyHash.encoder(innerHashKeys,null,innerSerializers),NoOpPostfix.INSTANCE);
+                    innerRowEncoder=new EntryDataHash(IntArrays.count(right.nColumns()),null,innerSerializers);
                 }
 
-                ByteBuffer key=ByteBuffer.wrap(innerKeyEncoder.getKey(right));
-                List<ExecRow> rows=table.get(key);
-                if(rows==null){
-                    rows=new ArrayList<>(1);
-                    table.put(key,rows);
-                }
-                rows.add(right.getClone());
+                innerRowEncoder.setRow(right);
+                if(!table.put(innerKeyEncoder.getKey(right),innerRowEncoder.encode()))
+                    throw StandardException.newException(SQLState.LANG_BROADCAST_JOIN_MEMORY_EXCEEDED,maxMemory);
             }
         }catch(StreamException e){
            throw new ExecutionException(e.getCause());
@@ -75,6 +84,6 @@ class ByteBufferMapTableLoader implements BroadcastJoinCache.JoinTableLoader{
             else throw new ExecutionException(e);
         }
 
-        return new ByteBufferMappedJoinTable.Factory(table,outerHashKeys,outerTemplateRow);
+        return new ByteBufferMappedJoinTable.Factory(table,innerTemplateRow,outerHashKeys,outerTemplateRow);
     }
 }
@@ -19,62 +19,115 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
 import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
 import com.splicemachine.derby.utils.marshall.NoOpPostfix;
 import com.splicemachine.derby.utils.marshall.NoOpPrefix;
 import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
 import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.utils.IntArrays;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
+ * Probes a {@link PagedJoinHashTable}. Inner rows are decoded as they are returned, so an outer row
+ * without matches costs a key encoding and a hash lookup, and nothing else.
+ *
  * @author Scott Fines
  *         Date: 10/27/15
  */
 class ByteBufferMappedJoinTable implements JoinTable{
-    private final Map<ByteBuffer, List<ExecRow>> table;
+    private final PagedJoinHashTable table;
+    private final ExecRow innerTemplateRow;
     private final KeyEncoder outerKeyEncoder;
+    private final KeyHashDecoder innerRowDecoder;
 
-    public ByteBufferMappedJoinTable(Map<ByteBuffer, List<ExecRow>> table,int[] outerHashkeys, ExecRow outerTemplateRow){
+    public ByteBufferMappedJoinTable(PagedJoinHashTable table,ExecRow innerTemplateRow,int[] outerHashkeys, ExecRow outerTemplateRow){
         this.table=table;
+        this.innerTemplateRow=innerTemplateRow;
         DescriptorSerializer[] serializers = VersionedSerializers.latestVersion(false).getSerializers(outerTemplateRow);
         this.outerKeyEncoder = new KeyEncoder(NoOpPrefix.INSTANCE,
                 BareKeyHash.encoder(outerHashkeys,null,serializers),NoOpPostfix.INSTANCE);
+        if(innerTemplateRow!=null){
+            DescriptorSerializer[] innerSerializers=VersionedSerializers.latestVersion(false).getSerializers(innerTemplateRow);
+            this.innerRowDecoder=new EntryDataDecoder(IntArrays.count(innerTemplateRow.nColumns()),null,innerSerializers);
+        }else
+            this.innerRowDecoder=null; //the inner table is empty
     }
 
     @Override
     public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        if(table.isEmpty())
+            return Collections.emptyIterator();
         byte[] outerKey=outerKeyEncoder.getKey(outer);
         assert outerKey!=null: "Programmer error: outer row does not have row key";
-        List<ExecRow> rows = table.get(ByteBuffer.wrap(outerKey));
-        if(rows==null)
+        long firstRow=table.find(outerKey,0,outerKey.length);
+        if(firstRow==PagedJoinHashTable.NO_ROW)
             return Collections.emptyIterator();
         else
-            return rows.iterator();
+            return new InnerRowIterator(firstRow);
+    }
+
+    @Override
+    public void close(){
+        try{
+            if(innerRowDecoder!=null)
+                innerRowDecoder.close();
+        }catch(IOException ignored){ }
     }
 
-    //nothing to close
-    @Override public void close(){}
+    private class InnerRowIterator implements Iterator<ExecRow>{
+        private long nextRow;
+
+        InnerRowIterator(long firstRow){
+            this.nextRow=firstRow;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return nextRow!=PagedJoinHashTable.NO_ROW;
+        }
+
+        @Override
+        public ExecRow next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            ExecRow row=innerTemplateRow.getNewNullRow();
+            innerRowDecoder.set(table.rowBytes(nextRow),table.rowOffset(nextRow),table.rowLength(nextRow));
+            try{
+                innerRowDecoder.decode(row);
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+            nextRow=table.nextRow(nextRow);
+            return row;
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
 
     static class Factory implements JoinTable.Factory{
-        private final Map<ByteBuffer,List<ExecRow>> table;
+        private final PagedJoinHashTable table;
+        private final ExecRow innerTemplateRow;
         private final int[] outerHashKeys;
         private final ExecRow outerTemplateRow;
 
-        public Factory(Map<ByteBuffer, List<ExecRow>> table,int[] outerHashKeys,ExecRow outerTemplateRow){
+        public Factory(PagedJoinHashTable table,ExecRow innerTemplateRow,int[] outerHashKeys,ExecRow outerTemplateRow){
             this.table=table;
+            this.innerTemplateRow=innerTemplateRow;
             this.outerHashKeys=outerHashKeys;
             this.outerTemplateRow=outerTemplateRow;
         }
 
         @Override
         public JoinTable newTable(){
-            return new ByteBufferMappedJoinTable(table,outerHashKeys,outerTemplateRow);
+            return new ByteBufferMappedJoinTable(table,innerTemplateRow,outerHashKeys,outerTemplateRow);
         }
     }
 }
@@ -15,7 +15,10 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.derby.iapi.sql.execute.*;
+import com.splicemachine.derby.stream.function.KeepFirstRowFunction;
+import com.splicemachine.derby.stream.function.NormalizedKeyFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -171,7 +174,7 @@ public class DistinctScanOperation extends ScanOperation {
             colMap = keyColumns;
         }
 
-        return dsp.<DistinctScanOperation,LocatedRow>newScanSet(this,tableName)
+        DataSet<LocatedRow> rows = dsp.<DistinctScanOperation,LocatedRow>newScanSet(this,tableName)
                 .tableDisplayName(this.tableDisplayName)
                 .activation(activation)
                 .transaction(getCurrentTransaction())
@@ -187,8 +190,21 @@ public class DistinctScanOperation extends ScanOperation {
                 .accessedKeyColumns(scanInformation.getAccessedPkColumns())
                 .keyDecodingMap(getKeyDecodingMap())
                 .rowDecodingMap(colMap)
-                .buildDataSet(this)
-                .distinct(OperationContext.Scope.DISTINCT.displayName(), true, operationContext, true, OperationContext.Scope.DISTINCT.displayName());
+                .buildDataSet(this);
+
+        // de-duplicate on normalized byte[] keys when they are enabled and every column can be encoded, on whole rows otherwise
+        int[] allColumns = new int[currentRow.nColumns()];
+        for (int i = 0; i < allColumns.length; i++) {
+            allColumns[i] = i;
+        }
+        int[] keyTypes = EngineDriver.driver().getConfiguration().useNormalizedKeys() ?
+                NormalizedKeyFunction.keyTypes(currentRow, allColumns, false) : null;
+        if (keyTypes == null)
+            return rows.distinct(OperationContext.Scope.DISTINCT.displayName(), true, operationContext, true, OperationContext.Scope.DISTINCT.displayName());
+        OperationContext<DistinctScanOperation> context = dsp.createOperationContext(this);
+        return rows.keyBy(new NormalizedKeyFunction<>(context, allColumns, keyTypes))
+                .reduceByKey(new KeepFirstRowFunction<>(context))
+                .values(OperationContext.Scope.DISTINCT.displayName(), true, operationContext, true, OperationContext.Scope.DISTINCT.displayName());
     }
 
 }
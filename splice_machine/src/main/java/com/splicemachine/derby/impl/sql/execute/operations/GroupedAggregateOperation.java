@@ -15,6 +15,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.*;
@@ -142,7 +143,7 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
             int[] allKeys = ArrayUtils.addAll(groupedAggregateContext.getGroupingKeys(), groupedAggregateContext.getNonGroupedUniqueColumns());
 
             operationContext.pushScopeForOp(OperationContext.Scope.GROUP_AGGREGATE_KEYER);
-            PairDataSet set2 = set.keyBy(new KeyerFunction(operationContext, allKeys));
+            PairDataSet set2 = set.keyBy(getKeyer(operationContext, allKeys));
             operationContext.popScope();
             
             operationContext.pushScopeForOp(OperationContext.Scope.REDUCE);
@@ -163,7 +164,7 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         }
         
         operationContext.pushScopeForOp(OperationContext.Scope.GROUP_AGGREGATE_KEYER);
-        PairDataSet set2 = set.keyBy(new KeyerFunction(operationContext, groupedAggregateContext.getGroupingKeys()));
+        PairDataSet set2 = set.keyBy(getKeyer(operationContext, groupedAggregateContext.getGroupingKeys()));
         operationContext.popScope();
         
         operationContext.pushScopeForOp(OperationContext.Scope.REDUCE);
@@ -181,4 +182,18 @@ public class GroupedAggregateOperation extends GenericAggregateOperation {
         return set5;
     }
 
+    /**
+     * @return a function which keys rows by {@code keyColumns}, on normalized byte[] keys when they are enabled
+     * and every key column can be encoded, and on ExecRow keys otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    private SpliceFunction getKeyer(OperationContext<GroupedAggregateOperation> operationContext, int[] keyColumns) {
+        if (!EngineDriver.driver().getConfiguration().useNormalizedKeys())
+            return new KeyerFunction(operationContext, keyColumns);
+        int[] keyTypes = NormalizedKeyFunction.keyTypes(getExecRowDefinition(), keyColumns, false);
+        if (keyTypes != null)
+            return new NormalizedKeyFunction(operationContext, keyColumns, keyTypes);
+        return new KeyerFunction(operationContext, keyColumns);
+    }
+
 }
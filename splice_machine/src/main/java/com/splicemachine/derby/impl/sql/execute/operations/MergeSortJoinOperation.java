@@ -15,6 +15,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.derby.iapi.sql.execute.*;
 import com.splicemachine.derby.impl.SpliceMethod;
 import com.splicemachine.derby.stream.function.*;
@@ -32,6 +33,7 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Arrays;
 
 /**
  *
@@ -176,6 +178,7 @@ public class MergeSortJoinOperation extends JoinOperation {
         return "MergeSortJoin:" + super.prettyPrint(indentLevel);
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException {
         OperationContext<JoinOperation> operationContext = dsp.<JoinOperation>createOperationContext(this);
@@ -184,10 +187,23 @@ public class MergeSortJoinOperation extends JoinOperation {
 
         DataSet<LocatedRow> leftDataSet1 = leftResultSet.getDataSet(dsp);
 
+        /*
+         * Both sides must encode equal keys the same way, so when normalized byte[] keys are enabled the
+         * sides are only keyed by them when every pair of join columns is of the same kind.
+         */
+        int[] leftKeyTypes = null;
+        int[] rightKeyTypes = null;
+        if (EngineDriver.driver().getConfiguration().useNormalizedKeys()) {
+            leftKeyTypes = NormalizedKeyFunction.keyTypes(leftResultSet.getExecRowDefinition(), leftHashKeys, false);
+            rightKeyTypes = NormalizedKeyFunction.keyTypes(rightResultSet.getExecRowDefinition(), rightHashKeys, false);
+        }
+        boolean normalizedKeys = leftKeyTypes != null && Arrays.equals(leftKeyTypes, rightKeyTypes);
+
         operationContext.pushScopeForOp("Prepare Left Side");
         DataSet<LocatedRow> leftDataSet2 =
             leftDataSet1.map(new CountJoinedLeftFunction(operationContext));
-        PairDataSet<ExecRow,LocatedRow> leftDataSet =
+        PairDataSet leftDataSet = normalizedKeys ?
+            leftDataSet2.keyBy(new NormalizedKeyFunction<>(operationContext, leftHashKeys, leftKeyTypes)) :
             leftDataSet2.keyBy(new KeyerFunction<LocatedRow,JoinOperation>(operationContext, leftHashKeys));
         operationContext.popScope();
 
@@ -198,7 +214,8 @@ public class MergeSortJoinOperation extends JoinOperation {
         operationContext.pushScopeForOp("Prepare Right Side");
         DataSet<LocatedRow> rightDataSet2 =
             rightDataSet1.map(new CountJoinedRightFunction(operationContext));
-        PairDataSet<ExecRow,LocatedRow> rightDataSet =
+        PairDataSet rightDataSet = normalizedKeys ?
+            rightDataSet2.keyBy(new NormalizedKeyFunction<>(operationContext, rightHashKeys, rightKeyTypes)) :
             rightDataSet2.keyBy(new KeyerFunction(operationContext, rightHashKeys));
         operationContext.popScope();
 
@@ -218,8 +235,8 @@ public class MergeSortJoinOperation extends JoinOperation {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private DataSet<LocatedRow> getJoinedDataset(
         OperationContext operationContext,
-        PairDataSet<ExecRow, LocatedRow> leftDataSet,
-        PairDataSet<ExecRow, LocatedRow> rightDataSet) {
+        PairDataSet leftDataSet,
+        PairDataSet rightDataSet) {
 
         if (isOuterJoin) { // Outer Join
             return leftDataSet.cogroup(rightDataSet, "Cogroup Left and Right")
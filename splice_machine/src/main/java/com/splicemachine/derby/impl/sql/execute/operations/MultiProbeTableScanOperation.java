@@ -28,13 +28,21 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.output.WriteReadUtils;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.Pair;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -233,7 +241,7 @@ public class MultiProbeTableScanOperation extends TableScanOperation  {
     @Override
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException {
         TxnView txn = getCurrentTransaction();
-        List<DataScan> scans = scanInformation.getScans(getCurrentTransaction(), null, activation, getKeyDecodingMap());
+        List<DataScan> scans = mergeProbeScans(scanInformation.getScans(getCurrentTransaction(), null, activation, getKeyDecodingMap()));
         DataSet<LocatedRow> dataSet = dsp.getEmpty();
         for (DataScan scan: scans) {
             deSiify(scan);
@@ -258,5 +266,92 @@ public class MultiProbeTableScanOperation extends TableScanOperation  {
         }
         return dataSet;
     }
-        
+
+    /**
+     * Folds the scans of the individual probe values into a single multi-range scan per region, so that each
+     * region is visited by one scanner which seeks from one probe to the next. This is only possible when every
+     * probe scan applies the same predicates, i.e. when the probes differ only in their key ranges; otherwise
+     * the probe scans are returned unchanged.
+     */
+    private List<DataScan> mergeProbeScans(List<DataScan> scans) throws StandardException {
+        if (scans.size() < 2)
+            return scans;
+        byte[] predicates = scans.get(0).getAttribute(SIConstants.ENTRY_PREDICATE_LABEL);
+        List<Pair<byte[], byte[]>> ranges = new ArrayList<>(scans.size());
+        for (DataScan scan : scans) {
+            if (scan.isDescendingScan()
+                    || Bytes.empty(scan.getStartKey()) || Bytes.empty(scan.getStopKey())
+                    || !Arrays.equals(predicates, scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL)))
+                return scans;
+            ranges.add(Pair.newPair(scan.getStartKey(), scan.getStopKey()));
+        }
+        ranges = mergeRanges(ranges);
+
+        List<byte[]> regionStarts = new ArrayList<>();
+        try (Partition table = SIDriver.driver().getTableFactory().getTable(tableName)) {
+            for (Partition region : table.subPartitions(ranges.get(0).getFirst(), ranges.get(ranges.size() - 1).getSecond())) {
+                regionStarts.add(region.getStartKey());
+            }
+        } catch (IOException e) {
+            throw Exceptions.parseException(e);
+        }
+        Collections.sort(regionStarts, Bytes.startComparator);
+
+        List<List<Pair<byte[], byte[]>>> groups = groupByRegion(ranges, regionStarts);
+        List<DataScan> merged = new ArrayList<>(groups.size());
+        for (List<Pair<byte[], byte[]>> group : groups) {
+            //the probe scans are identical apart from their keys, so any of them will do as a base
+            merged.add(scans.get(merged.size()).keyRanges(group));
+        }
+        return merged;
+    }
+
+    /**
+     * Sorts the ranges by start key, and merges any which overlap (such as those of duplicate probe values).
+     */
+    static List<Pair<byte[], byte[]>> mergeRanges(List<Pair<byte[], byte[]>> ranges) {
+        List<Pair<byte[], byte[]>> sorted = new ArrayList<>(ranges);
+        Collections.sort(sorted, new Comparator<Pair<byte[], byte[]>>() {
+            @Override
+            public int compare(Pair<byte[], byte[]> o1, Pair<byte[], byte[]> o2) {
+                return Bytes.startComparator.compare(o1.getFirst(), o2.getFirst());
+            }
+        });
+        List<Pair<byte[], byte[]>> merged = new ArrayList<>(sorted.size());
+        Pair<byte[], byte[]> current = null;
+        for (Pair<byte[], byte[]> range : sorted) {
+            if (current != null && Bytes.endComparator.compare(range.getFirst(), current.getSecond()) <= 0) {
+                current = Pair.newPair(current.getFirst(), Bytes.max(Bytes.endComparator, current.getSecond(), range.getSecond()));
+                merged.set(merged.size() - 1, current);
+            } else {
+                current = range;
+                merged.add(current);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Splits sorted, non-overlapping ranges into groups which start in the same region.
+     *
+     * @param regionStarts the sorted start keys of the regions which the ranges cover
+     */
+    static List<List<Pair<byte[], byte[]>>> groupByRegion(List<Pair<byte[], byte[]>> ranges, List<byte[]> regionStarts) {
+        List<List<Pair<byte[], byte[]>>> groups = new ArrayList<>();
+        List<Pair<byte[], byte[]>> group = null;
+        int region = -1;
+        for (Pair<byte[], byte[]> range : ranges) {
+            int rangeRegion = region;
+            while (rangeRegion + 1 < regionStarts.size()
+                    && Bytes.startComparator.compare(regionStarts.get(rangeRegion + 1), range.getFirst()) <= 0)
+                rangeRegion++;
+            if (group == null || rangeRegion != region) {
+                group = new ArrayList<>();
+                groups.add(group);
+                region = rangeRegion;
+            }
+            group.add(range);
+        }
+        return groups;
+    }
 }
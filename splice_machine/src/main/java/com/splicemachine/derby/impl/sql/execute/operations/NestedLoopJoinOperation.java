@@ -15,9 +15,11 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.NLJAntiJoinFunction;
+import com.splicemachine.derby.stream.function.NLJBatchedInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOneRowInnerJoinFunction;
 import com.splicemachine.derby.stream.function.NLJOuterJoinFunction;
@@ -105,6 +107,8 @@ public class NestedLoopJoinOperation extends JoinOperation {
                 else {
                     if (oneRowRightSide)
                         return left.flatMap(new NLJOneRowInnerJoinFunction(operationContext), true);
+                    else if (EngineDriver.driver().getConfiguration().getNestedLoopJoinBatchSize()>0 && getProbeScan()!=null)
+                        return left.mapPartitions(new NLJBatchedInnerJoinFunction(operationContext), true);
                     else
                         return left.flatMap(new NLJInnerJoinFunction(operationContext), true);
                 }
@@ -113,4 +117,21 @@ public class NestedLoopJoinOperation extends JoinOperation {
             operationContext.popScope();
         }
     }
+
+    /**
+     * @return the table scan which the inner side probes for each outer row, if the inner side is a plain table
+     * or index scan with only projections, restrictions and base row lookups on top of it; {@code null} otherwise.
+     */
+    public TableScanOperation getProbeScan() {
+        SpliceOperation op = rightResultSet;
+        while (op instanceof ProjectRestrictOperation || op instanceof IndexRowToBaseRowOperation) {
+            if (op instanceof ProjectRestrictOperation)
+                op = ((ProjectRestrictOperation) op).getSource();
+            else
+                op = ((IndexRowToBaseRowOperation) op).getSource();
+        }
+        if (op == null || op.getClass() != TableScanOperation.class)
+            return null;
+        return (TableScanOperation) op;
+    }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact multimap from encoded join keys to encoded rows, used to hold the inner side of a broadcast join.
+ * <p>
+ * Keys and rows are appended to large pages (on or off heap) instead of being held as individual objects.
+ * Each distinct key occupies one slot of an open-addressing (linear probing) table, which points to the key
+ * bytes and to a chain of the rows with that key, in insertion order.
+ * <p>
+ * Page layout:
+ * <pre>
+ *     key record: [int length][key bytes]
+ *     row record: [long next row address][int length][row bytes]
+ * </pre>
+ * An address is the page number in the upper 32 bits and the offset within the page in the lower 32 bits.
+ * <p>
+ * The table must be fully loaded before it is read; once loaded, any number of threads may probe it.
+ */
+class PagedJoinHashTable{
+    static final long NO_ROW=-1L;
+
+    private static final int DEFAULT_CAPACITY=1<<10;
+    private static final float LOAD_FACTOR=0.75f;
+    private static final int SLOT_SIZE=4+3*8; //hash, key address, first and last row address
+
+    private final Hash32 hashFunction=HashFunctions.murmur3(0);
+    private final int pageSize;
+    private final boolean offHeap;
+    private final long maxMemory;
+
+    private final List<ByteBuffer> pages=new ArrayList<>();
+    private ByteBuffer currentPage;
+    private long pageBytes;
+
+    private int[] hashes;
+    private long[] keyAddresses;
+    private long[] firstRows;
+    private long[] lastRows;
+    private int size;
+    private long rowCount;
+
+    PagedJoinHashTable(int pageSize,boolean offHeap,long maxMemory){
+        this.pageSize=pageSize;
+        this.offHeap=offHeap;
+        this.maxMemory=maxMemory;
+        allocateSlots(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a row to the table.
+     *
+     * @return false if the row was not added because the table would then use more than its memory budget
+     */
+    boolean put(byte[] key,byte[] row){
+        if(size>=hashes.length*LOAD_FACTOR && !resize())
+            return false;
+
+        int hash=hashFunction.hash(key,0,key.length);
+        int slot=findSlot(hash,key,0,key.length);
+        boolean newKey=keyAddresses[slot]==NO_ROW;
+        int rowRecordSize=8+4+row.length;
+        int keyRecordSize=newKey?4+key.length:0;
+        if(!ensureCapacity(keyRecordSize+rowRecordSize))
+            return false;
+
+        if(newKey){
+            long keyAddress=appendKey(key);
+            hashes[slot]=hash;
+            keyAddresses[slot]=keyAddress;
+            size++;
+        }
+        long rowAddress=appendRow(row);
+        if(firstRows[slot]==NO_ROW)
+            firstRows[slot]=rowAddress;
+        else{
+            long last=lastRows[slot];
+            pages.get(page(last)).putLong(offset(last),rowAddress);
+        }
+        lastRows[slot]=rowAddress;
+        rowCount++;
+        return true;
+    }
+
+    /**
+     * @return the address of the first row with the specified key, or {@link #NO_ROW} if there is no such row
+     */
+    long find(byte[] key,int offset,int length){
+        if(size==0) return NO_ROW;
+        int hash=hashFunction.hash(key,offset,length);
+        return firstRows[findSlot(hash,key,offset,length)];
+    }
+
+    /**
+     * @return the address of the row following {@code rowAddress} with the same key, or {@link #NO_ROW}
+     */
+    long nextRow(long rowAddress){
+        return pages.get(page(rowAddress)).getLong(offset(rowAddress));
+    }
+
+    int rowLength(long rowAddress){
+        return pages.get(page(rowAddress)).getInt(offset(rowAddress)+8);
+    }
+
+    /**
+     * Rows on heap pages are returned in place, since decoded rows may keep referring to their bytes; those
+     * bytes must not be modified. Rows on off-heap pages are copied into a new array.
+     *
+     * @return an array holding the row at {@code rowAddress}, starting at {@link #rowOffset(long)}
+     */
+    byte[] rowBytes(long rowAddress){
+        ByteBuffer page=pages.get(page(rowAddress));
+        if(page.hasArray())
+            return page.array();
+        int offset=offset(rowAddress);
+        byte[] row=new byte[page.getInt(offset+8)];
+        ByteBuffer view=page.duplicate();
+        view.position(offset+12);
+        view.get(row);
+        return row;
+    }
+
+    /**
+     * @return the position of the row at {@code rowAddress} within the array returned by {@link #rowBytes(long)}
+     */
+    int rowOffset(long rowAddress){
+        ByteBuffer page=pages.get(page(rowAddress));
+        return page.hasArray()?page.arrayOffset()+offset(rowAddress)+12:0;
+    }
+
+    boolean isEmpty(){
+        return rowCount==0;
+    }
+
+    /**
+     * @return the number of distinct keys in the table
+     */
+    int size(){
+        return size;
+    }
+
+    long rowCount(){
+        return rowCount;
+    }
+
+    /**
+     * @return the number of bytes held by this table's pages and slots
+     */
+    long memoryUsage(){
+        return pageBytes+(long)hashes.length*SLOT_SIZE;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private int findSlot(int hash,byte[] key,int offset,int length){
+        int mask=hashes.length-1;
+        int slot=hash&mask;
+        while(keyAddresses[slot]!=NO_ROW){
+            if(hashes[slot]==hash && keyEquals(keyAddresses[slot],key,offset,length))
+                return slot;
+            slot=(slot+1)&mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(long keyAddress,byte[] key,int offset,int length){
+        ByteBuffer page=pages.get(page(keyAddress));
+        int pos=offset(keyAddress);
+        if(page.getInt(pos)!=length) return false;
+        pos+=4;
+        for(int i=0;i<length;i++){
+            if(page.get(pos+i)!=key[offset+i]) return false;
+        }
+        return true;
+    }
+
+    private boolean resize(){
+        int newCapacity=hashes.length<<1;
+        if(newCapacity<=0 || pageBytes+(long)newCapacity*SLOT_SIZE>maxMemory)
+            return false;
+        int[] oldHashes=hashes;
+        long[] oldKeys=keyAddresses;
+        long[] oldFirst=firstRows;
+        long[] oldLast=lastRows;
+        allocateSlots(newCapacity);
+        int mask=newCapacity-1;
+        for(int i=0;i<oldHashes.length;i++){
+            if(oldKeys[i]==NO_ROW) continue;
+            int slot=oldHashes[i]&mask;
+            while(keyAddresses[slot]!=NO_ROW)
+                slot=(slot+1)&mask;
+            hashes[slot]=oldHashes[i];
+            keyAddresses[slot]=oldKeys[i];
+            firstRows[slot]=oldFirst[i];
+            lastRows[slot]=oldLast[i];
+        }
+        return true;
+    }
+
+    private void allocateSlots(int capacity){
+        hashes=new int[capacity];
+        keyAddresses=new long[capacity];
+        firstRows=new long[capacity];
+        lastRows=new long[capacity];
+        Arrays.fill(keyAddresses,NO_ROW);
+        Arrays.fill(firstRows,NO_ROW);
+        Arrays.fill(lastRows,NO_ROW);
+    }
+
+    private boolean ensureCapacity(int recordSize){
+        if(currentPage!=null && currentPage.remaining()>=recordSize)
+            return true;
+        int size=Math.max(pageSize,recordSize);
+        if(memoryUsage()+size>maxMemory)
+            return false;
+        currentPage=offHeap?ByteBuffer.allocateDirect(size):ByteBuffer.allocate(size);
+        pages.add(currentPage);
+        pageBytes+=size;
+        return true;
+    }
+
+    private long appendKey(byte[] key){
+        long address=currentAddress();
+        currentPage.putInt(key.length);
+        currentPage.put(key);
+        return address;
+    }
+
+    private long appendRow(byte[] row){
+        long address=currentAddress();
+        currentPage.putLong(NO_ROW); //the next row with the same key is linked in when it is added
+        currentPage.putInt(row.length);
+        currentPage.put(row);
+        return address;
+    }
+
+    private long currentAddress(){
+        return ((long)(pages.size()-1)<<32)|currentPage.position();
+    }
+
+    private static int page(long address){
+        return (int)(address>>>32);
+    }
+
+    private static int offset(long address){
+        return (int)address;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import org.sparkproject.guava.collect.Lists;
+import com.splicemachine.access.api.PartitionFactory;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.metrics.Metrics;
+import com.splicemachine.metrics.TimeView;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.Pair;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Utility for executing "look-ahead" nested loop join probes. Outer rows are read from the source in blocks,
+ * and the inner scan of each row is computed on the caller thread. The inner rows for a whole block are then
+ * fetched in the background by a single scan over the key ranges of all of its outer rows, while the caller
+ * joins earlier blocks. The rows which come back are matched to the outer rows by range.
+ *
+ * A block holds at most {@code batchSize} outer rows, and is cut short once its outer rows reach
+ * {@code maxBlockBytes}. The inner rows fetched for a block are bounded the same way: once they reach
+ * {@code maxBlockBytes}, the scan stops, and the outer rows it didn't finish are probed as usual instead.
+ *
+ * The fetched rows are raw; each {@link Probe} hands them back as a scanner, so that they can be decoded and
+ * restricted by the inner operations exactly as if they had been scanned for that outer row alone.
+ */
+public class ProbeBlockReader implements Iterator<ProbeBlockReader.Probe>, AutoCloseable{
+
+    /**
+     * Computes the inner scan for an outer row, or returns {@code null} if the inner rows for that outer row
+     * should not be fetched ahead of time. The scan must be ascending, and bounded on both ends.
+     */
+    public interface ProbeScanSupplier{
+        DataScan getProbeScan(LocatedRow outerRow) throws StandardException;
+    }
+
+    private static final Comparator<Probe> START_KEY_ORDER=new Comparator<Probe>(){
+        @Override
+        public int compare(Probe o1,Probe o2){
+            return Bytes.BASE_COMPARATOR.compare(o1.startKey,o2.startKey);
+        }
+    };
+
+    private final ExecutorService lookupService;
+    private final Iterator<LocatedRow> sourceIterator;
+    private final ProbeScanSupplier scanSupplier;
+    private final String tableName;
+    private final int batchSize;
+    private final int numBlocks;
+    private final long maxBlockBytes;
+    private final PartitionFactory tableFactory;
+
+    private final List<Future<List<Probe>>> resultFutures;
+    private List<Probe> currentProbes;
+    private boolean sourceExhausted;
+
+    public ProbeBlockReader(ExecutorService lookupService,
+                            Iterator<LocatedRow> sourceIterator,
+                            ProbeScanSupplier scanSupplier,
+                            String tableName,
+                            int batchSize,
+                            int numConcurrentBlocks,
+                            long maxBlockBytes,
+                            PartitionFactory tableFactory){
+        this.lookupService=lookupService;
+        this.sourceIterator=sourceIterator;
+        this.scanSupplier=scanSupplier;
+        this.tableName=tableName;
+        this.batchSize=batchSize;
+        this.numBlocks=Math.max(numConcurrentBlocks,1);
+        this.maxBlockBytes=maxBlockBytes>0?maxBlockBytes:Long.MAX_VALUE;
+        this.tableFactory=tableFactory;
+        this.resultFutures=Lists.newArrayListWithCapacity(numBlocks);
+    }
+
+    @Override
+    public boolean hasNext(){
+        try{
+            if(currentProbes==null || currentProbes.size()<=0)
+                getMoreData();
+            return currentProbes!=null && currentProbes.size()>0;
+        }catch(Exception e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Probe next(){
+        return currentProbes.remove(0);
+    }
+
+    @Override
+    public void remove(){
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close(){
+        for(Future<List<Probe>> future:resultFutures){
+            future.cancel(true);
+        }
+        resultFutures.clear();
+        lookupService.shutdownNow();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void getMoreData() throws StandardException, IOException{
+        //read up to batchSize rows (or maxBlockBytes) from the source, then submit them for fetching
+        List<Probe> probes=Lists.newArrayListWithCapacity(batchSize);
+        long blockBytes=0l;
+        while(probes.size()<batchSize && blockBytes<maxBlockBytes){
+            if(!sourceIterator.hasNext()){
+                sourceExhausted=true;
+                break;
+            }
+            LocatedRow next=sourceIterator.next();
+            LocatedRow outerRow=new LocatedRow(next.getRowLocation(),next.getRow().getClone());
+            probes.add(new Probe(outerRow,scanSupplier.getProbeScan(outerRow)));
+            blockBytes+=estimateSize(outerRow.getRow());
+        }
+        if(probes.size()>0){
+            resultFutures.add(lookupService.submit(new Lookup(probes)));
+        }
+
+        //keep submitting blocks until we have numBlocks of them in flight, or we run out of source rows
+        if(resultFutures.size()<numBlocks && !sourceExhausted)
+            getMoreData();
+        else if(resultFutures.size()>0){
+            waitForBlockCompletion();
+        }
+    }
+
+    private void waitForBlockCompletion() throws StandardException, IOException{
+        //wait for the first future to return correctly or error-out
+        try{
+            Future<List<Probe>> future=resultFutures.remove(0);
+            currentProbes=future.get();
+        }catch(InterruptedException e){
+            throw new InterruptedIOException(e.getMessage());
+        }catch(ExecutionException e){
+            Throwable t=e.getCause();
+            if(t instanceof IOException) throw (IOException)t;
+            else throw Exceptions.parseException(t);
+        }
+    }
+
+    private static long estimateSize(ExecRow row){
+        long size=0l;
+        for(DataValueDescriptor dvd:row.getRowArray()){
+            if(dvd!=null)
+                size+=dvd.estimateMemoryUsage();
+        }
+        return size;
+    }
+
+    private class Lookup implements Callable<List<Probe>>{
+        private final List<Probe> probes;
+
+        Lookup(List<Probe> probes){
+            this.probes=probes;
+        }
+
+        @Override
+        public List<Probe> call() throws Exception{
+            List<Probe> toFetch=new ArrayList<>(probes.size());
+            for(Probe probe:probes){
+                if(probe.scan!=null)
+                    toFetch.add(probe);
+            }
+            if(toFetch.isEmpty()) return probes;
+
+            try(Partition table=tableFactory.getTable(tableName)){
+                while(!toFetch.isEmpty()){
+                    fetch(table,removeSamePredicates(toFetch));
+                }
+            }
+            return probes;
+        }
+
+        /**
+         * Removes the probes whose scans apply the same predicates as the first one. Those can share a scan,
+         * since they differ only in their key ranges. Correlated predicates which aren't part of the keys can make
+         * them differ, in which case the remaining probes are fetched separately.
+         */
+        private List<Probe> removeSamePredicates(List<Probe> toFetch){
+            byte[] predicates=toFetch.get(0).scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL);
+            List<Probe> same=new ArrayList<>(toFetch.size());
+            Iterator<Probe> iter=toFetch.iterator();
+            while(iter.hasNext()){
+                Probe probe=iter.next();
+                if(Arrays.equals(predicates,probe.scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL))){
+                    same.add(probe);
+                    iter.remove();
+                }
+            }
+            return same;
+        }
+
+        private void fetch(Partition table,List<Probe> group) throws IOException{
+            List<Pair<byte[],byte[]>> ranges=new ArrayList<>(group.size());
+            for(Probe probe:group){
+                ranges.add(Pair.newPair(probe.startKey,probe.stopKey));
+            }
+            //the probe scans are identical apart from their keys, so any of them will do as a base
+            DataScan scan=group.get(0).scan.keyRanges(MultiProbeTableScanOperation.mergeRanges(ranges));
+
+            List<byte[]> keys=new ArrayList<>();
+            List<List<DataCell>> rows=new ArrayList<>();
+            boolean complete=true;
+            long bytes=0l;
+            try(DataScanner scanner=table.openScanner(scan)){
+                List<DataCell> row;
+                while((row=scanner.next(-1)).size()>0){
+                    //the scanner may reuse its row, so we have to copy it out
+                    List<DataCell> copy=new ArrayList<>(row.size());
+                    for(DataCell cell:row){
+                        copy.add(cell.getClone());
+                        bytes+=cell.encodedLength();
+                    }
+                    keys.add(row.get(0).key());
+                    rows.add(copy);
+                    if(bytes>=maxBlockBytes){
+                        complete=false;
+                        break;
+                    }
+                }
+            }
+            matchRows(group,keys,rows,complete);
+        }
+
+        /**
+         * Hands each probe the rows which fall within its own range. If the scan stopped early, the probes whose
+         * ranges extend past the last row read are left unfetched, and so are probed as usual.
+         */
+        private void matchRows(List<Probe> group,List<byte[]> keys,List<List<DataCell>> rows,boolean complete){
+            byte[] lastKey=keys.isEmpty()?null:keys.get(keys.size()-1);
+            Collections.sort(group,START_KEY_ORDER);
+            int first=0;
+            for(Probe probe:group){
+                if(!complete && (lastKey==null || Bytes.BASE_COMPARATOR.compare(probe.stopKey,lastKey)>0))
+                    continue;
+                //the probes are in start key order, so their first rows can only move forward
+                while(first<keys.size() && Bytes.BASE_COMPARATOR.compare(keys.get(first),probe.startKey)<0)
+                    first++;
+                List<List<DataCell>> innerRows=new ArrayList<>();
+                for(int r=first;r<keys.size() && Bytes.BASE_COMPARATOR.compare(keys.get(r),probe.stopKey)<0;r++){
+                    innerRows.add(rows.get(r));
+                }
+                probe.innerRows=innerRows;
+            }
+        }
+    }
+
+    /**
+     * An outer row, along with the raw inner rows which fall within its scan.
+     */
+    public static class Probe{
+        private final LocatedRow outerRow;
+        private final DataScan scan;
+        private final byte[] startKey;
+        private final byte[] stopKey;
+        private volatile List<List<DataCell>> innerRows;
+
+        Probe(LocatedRow outerRow,DataScan scan){
+            this.outerRow=outerRow;
+            this.scan=scan;
+            this.startKey=scan==null?null:scan.getStartKey();
+            this.stopKey=scan==null?null:scan.getStopKey();
+        }
+
+        public LocatedRow getOuterRow(){
+            return outerRow;
+        }
+
+        public int size(){
+            return innerRows==null?0:innerRows.size();
+        }
+
+        /**
+         * @return a scanner which returns the inner rows of this probe, as a scanner opened with its scan would,
+         * or {@code null} if nothing was fetched for this outer row (so its scan should be run as usual).
+         */
+        public DataScanner scanner(){
+            if(innerRows==null) return null;
+            return new ProbeScanner(innerRows.iterator());
+        }
+    }
+
+    private static class ProbeScanner implements DataScanner{
+        private final Iterator<List<DataCell>> rows;
+        private long rowsVisited;
+
+        ProbeScanner(Iterator<List<DataCell>> rows){
+            this.rows=rows;
+        }
+
+        @Override
+        @Nonnull
+        public List<DataCell> next(int limit) throws IOException{
+            if(!rows.hasNext())
+                return Collections.emptyList();
+            rowsVisited++;
+            return rows.next();
+        }
+
+        @Override public TimeView getReadTime(){ return Metrics.noOpTimeView(); }
+        @Override public long getBytesOutput(){ return 0l; }
+        @Override public long getRowsFiltered(){ return 0l; }
+        @Override public long getRowsVisited(){ return rowsVisited; }
+        @Override public void close() throws IOException{ }
+        @Override public Partition getPartition(){ return null; }
+    }
+}
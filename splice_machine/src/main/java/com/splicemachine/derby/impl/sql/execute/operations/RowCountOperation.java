@@ -188,16 +188,34 @@ public class RowCountOperation extends SpliceBaseOperation {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException {
+        final long fetchLimit = getFetchLimit();
+        long offset = getTotalOffset();
+        // a limit of zero clears whatever an earlier execution with another fetch limit pushed down
+        pushLimitIntoSort(fetchLimit > 0 ? offset + fetchLimit : 0);
         if (dsp.getType() == DataSetProcessor.Type.SPARK) {
             return source.getDataSet(dsp);
         }
-        final long fetchLimit = getFetchLimit();
-        long offset = getTotalOffset();
         OperationContext operationContext = dsp.createOperationContext(this);
         DataSet<LocatedRow> sourceSet = source.getDataSet(dsp);
         return sourceSet.zipWithIndex().mapPartitions(new OffsetFunction<SpliceOperation, LocatedRow>(operationContext, offset, fetchLimit));
     }
 
+    /**
+     * If our rows come straight out of a sort, the sort only has to produce the rows which can make
+     * it past the offset and the fetch limit. A projection between the two is fine, but a restriction
+     * is not, since it may discard rows which the sort would otherwise have had to replace.
+     */
+    private void pushLimitIntoSort(long rowsNeeded) {
+        SpliceOperation op = source;
+        if (op instanceof ProjectRestrictOperation
+                && ((ProjectRestrictOperation) op).getRestrictionMethodName() == null) {
+            op = ((ProjectRestrictOperation) op).getSource();
+        }
+        if (op instanceof SortOperation && !((SortOperation) op).needsDistinct()) {
+            ((SortOperation) op).setTopN(rowsNeeded);
+        }
+    }
+
     @Override
     public String getScopeName() {
         return "Row Limit";
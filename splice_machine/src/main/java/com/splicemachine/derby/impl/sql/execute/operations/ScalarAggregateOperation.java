@@ -17,6 +17,8 @@ package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.operations.framework.SpliceGenericAggregator;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.PartialAggregateFold;
 import com.splicemachine.derby.stream.function.ScalarAggregateFlatMapFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
@@ -26,7 +28,11 @@ import com.splicemachine.utils.SpliceLogUtils;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.loader.GeneratedMethod;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
 import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -120,9 +126,58 @@ public class ScalarAggregateOperation extends GenericAggregateOperation {
     @Override
     public DataSet<LocatedRow> getDataSet(DataSetProcessor dsp) throws StandardException {
         OperationContext<ScalarAggregateOperation> operationContext = dsp.createOperationContext(this);
-        DataSet<LocatedRow> dsSource = source.getDataSet(dsp);
+        PartialAggregateFold partialAggregateFold = getPartialAggregateFold();
+        DataSet<LocatedRow> dsSource;
+        if (partialAggregateFold != null) {
+            // the scanners fold their rows into partial aggregates, which the first aggregation merges like any other partials
+            TableScanOperation scan = (TableScanOperation) ((ProjectRestrictOperation) source).getSource();
+            dsSource = scan.getTableScannerBuilder(dsp, partialAggregateFold);
+        } else {
+            dsSource = source.getDataSet(dsp);
+        }
         DataSet<LocatedRow> ds = dsSource.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, false), false, /*pushScope=*/true, "First Aggregation");
         DataSet<LocatedRow> ds2 = ds.coalesce(1, /*shuffle=*/true, /*isLast=*/false, operationContext, /*pushScope=*/true, "Coalesce");
         return ds2.mapPartitions(new ScalarAggregateFlatMapFunction(operationContext, true), /*isLast=*/true, /*pushScope=*/true, "Final Aggregation");
     }
+
+    /**
+     * Returns the fold for the table scanners to apply to their rows, when the aggregates read plain columns of a
+     * table scan (through a projection with no restriction) and can all be merged from partials
+     * (COUNT, SUM, MIN and MAX, without DISTINCT). Returns null when the rows must be aggregated here.
+     */
+    private PartialAggregateFold getPartialAggregateFold() throws StandardException {
+        if (!(source instanceof ProjectRestrictOperation))
+            return null;
+        ProjectRestrictOperation projectRestrict = (ProjectRestrictOperation) source;
+        if (projectRestrict.getRestrictionMethodName() != null || projectRestrict.constantRestrictionMethodName != null)
+            return null;
+        if (projectRestrict.getSource().getClass() != TableScanOperation.class)
+            return null;
+        int[] projectMapping = projectRestrict.projectMapping;
+
+        int[] aggregatorColumns = new int[aggregates.length];
+        int[] inputColumns = new int[aggregates.length];
+        ExecAggregator[] aggregators = new ExecAggregator[aggregates.length];
+        for (int i = 0; i < aggregates.length; i++) {
+            SpliceGenericAggregator aggregate = aggregates[i];
+            if (aggregate.isDistinct())
+                return null;
+            ExecAggregator aggregator = aggregate.getAggregatorInstance();
+            if (aggregator instanceof CountAggregator && ((CountAggregator) aggregator).isCountStar()) {
+                inputColumns[i] = 0;
+            } else if (aggregator instanceof CountAggregator
+                    || aggregator instanceof SumAggregator
+                    || aggregator instanceof MaxMinAggregator) {
+                int inputPosition = aggregate.getInputColumnId() - 1;
+                if (projectMapping == null || inputPosition >= projectMapping.length || projectMapping[inputPosition] <= 0)
+                    return null;
+                inputColumns[i] = projectMapping[inputPosition];
+            } else {
+                return null;
+            }
+            aggregatorColumns[i] = aggregate.getAggregatorColumnId();
+            aggregators[i] = aggregator;
+        }
+        return new PartialAggregateFold(getExecRowDefinition(), aggregatorColumns, inputColumns, aggregators);
+    }
 }
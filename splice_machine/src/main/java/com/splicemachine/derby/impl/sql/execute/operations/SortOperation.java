@@ -15,6 +15,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations;
 
+import com.splicemachine.EngineDriver;
 import org.sparkproject.guava.base.Strings;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableArrayHolder;
@@ -25,8 +26,10 @@ import com.splicemachine.db.iapi.store.access.ColumnOrdering;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
 import com.splicemachine.derby.stream.function.KeyerFunction;
+import com.splicemachine.derby.stream.function.NormalizedKeyFunction;
 import com.splicemachine.derby.stream.function.RowComparator;
 import com.splicemachine.derby.stream.function.SetCurrentLocatedRowFunction;
+import com.splicemachine.derby.stream.function.TopNFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -40,12 +43,18 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Properties;
 
 public class SortOperation extends SpliceBaseOperation{
     private static final long serialVersionUID=2l;
     private static Logger LOG=Logger.getLogger(SortOperation.class);
+    /*
+     * The largest limit which is sorted with a Top-N heap. The heap is held in memory, so larger
+     * limits go through the full (spilling) sort instead.
+     */
+    static final long MAX_TOP_N_ROWS=100000l;
     protected SpliceOperation source;
     protected boolean distinct;
     protected int orderingItem;
@@ -55,6 +64,7 @@ public class SortOperation extends SpliceBaseOperation{
     private int numColumns;
     private ExecRow execRowDefinition=null;
     private Properties sortProperties=new Properties();
+    private long topN;
     protected static final String NAME=SortOperation.class.getSimpleName().replaceAll("Operation","");
 
     @Override
@@ -173,6 +183,16 @@ public class SortOperation extends SpliceBaseOperation{
         return this.distinct;
     }
 
+    /**
+     * Tells the sort that only its first {@code topN} rows will be read, so it can keep just those rows
+     * in a bounded heap instead of sorting its entire input.
+     *
+     * @param topN the number of rows which will be read, or 0 if all the rows are needed
+     */
+    public void setTopN(long topN){
+        this.topN=topN;
+    }
+
     public Properties getSortProperties(){
         if(sortProperties==null)
             sortProperties=new Properties();
@@ -213,14 +233,25 @@ public class SortOperation extends SpliceBaseOperation{
             }
         }
 
+        if (topN > 0 && topN <= MAX_TOP_N_ROWS) {
+            return getTopNDataSet(dsp, dataSet, operationContext);
+        }
+
+        // sort on normalized byte[] keys when they are enabled and every key column can be encoded, on ExecRow keys otherwise
+        int[] keyTypes=EngineDriver.driver().getConfiguration().useNormalizedKeys()?
+                NormalizedKeyFunction.keyTypes(getExecRowDefinition(),keyColumns,true):null;
         operationContext.pushScopeForOp(OperationContext.Scope.SORT_KEYER);
-        KeyerFunction f=new KeyerFunction(operationContext,keyColumns);
-        PairDataSet pair=dataSet.keyBy(f);
+        PairDataSet pair;
+        if(keyTypes!=null)
+            pair=dataSet.keyBy(new NormalizedKeyFunction(operationContext,keyColumns,keyTypes,descColumns,nullsOrderedLow));
+        else
+            pair=dataSet.keyBy(new KeyerFunction(operationContext,keyColumns));
         operationContext.popScope();
 
         operationContext.pushScopeForOp(OperationContext.Scope.SHUFFLE);
-        PairDataSet sortedByKey=pair.sortByKey(new RowComparator(descColumns,nullsOrderedLow),
-            OperationContext.Scope.SORT.displayName());
+        Comparator comparator=keyTypes!=null?NormalizedKeyFunction.COMPARATOR:new RowComparator(descColumns,nullsOrderedLow);
+        PairDataSet sortedByKey=pair.sortByKey(comparator,
+            OperationContext.Scope.SORT.displayName(),operationContext);
         operationContext.popScope();
 
         operationContext.pushScopeForOp(OperationContext.Scope.READ_SORTED);
@@ -235,6 +266,40 @@ public class SortOperation extends SpliceBaseOperation{
         }
     }
 
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private DataSet<LocatedRow> getTopNDataSet(DataSetProcessor dsp,DataSet dataSet,OperationContext operationContext) throws StandardException{
+        TopNFunction topNFunction=new TopNFunction(operationContext,keyColumns,descColumns,nullsOrderedLow,(int)topN);
+
+        DataSet merged;
+        if(dsp.getType()==DataSetProcessor.Type.LOCAL){
+            // a single bounded heap over every row, however many partitions the control side scanned
+            operationContext.pushScopeForOp(OperationContext.Scope.SORT);
+            try{
+                merged=dsp.createDataSet(topNFunction.call(dataSet.toLocalIterator()));
+            }catch(Exception e){
+                throw Exceptions.parseException(e);
+            }finally{
+                operationContext.popScope();
+            }
+        }else{
+            // keep the first rows of each partition, then merge those into the first rows overall
+            operationContext.pushScopeForOp(OperationContext.Scope.SORT);
+            DataSet partitionTopN=dataSet.mapPartitions(topNFunction);
+            operationContext.popScope();
+
+            operationContext.pushScopeForOp(OperationContext.Scope.SHUFFLE);
+            merged=partitionTopN.coalesce(1,true).mapPartitions(topNFunction);
+            operationContext.popScope();
+        }
+
+        try{
+            operationContext.pushScopeForOp(OperationContext.Scope.LOCATE);
+            return merged.map(new SetCurrentLocatedRowFunction(operationContext),true);
+        }finally{
+            operationContext.popScope();
+        }
+    }
+
     public String getScopeName(){
         return (distinct ? "Sort Distinct" : "Sort");
     }
@@ -23,11 +23,14 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.StaticCompiledOpenConglomInfo;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperationContext;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.PartialAggregateFold;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
+import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
 import com.splicemachine.derby.stream.output.WriteReadUtils;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScanner;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
@@ -47,6 +50,7 @@ public class TableScanOperation extends ScanOperation{
     protected int[] baseColumnMap;
     protected static final String NAME=TableScanOperation.class.getSimpleName().replaceAll("Operation","");
     protected byte[] tableNameBytes;
+    private transient DataScanner probeScanner;
 
     @Override
     public String getName(){
@@ -178,6 +182,15 @@ public class TableScanOperation extends ScanOperation{
         return getTableScannerBuilder(dsp);
     }
 
+    /**
+     * Supplies the raw rows for the next scan of this operation, in place of opening a scanner against the
+     * table. Used by nested loop joins which fetch the inner rows for a block of outer rows at once; the scanner
+     * must return exactly what a scanner opened with {@link #getNonSIScan()} would, and is used only once.
+     */
+    public void setProbeScanner(DataScanner probeScanner){
+        this.probeScanner=probeScanner;
+    }
+
     @Override
     public String toString(){
         try{
@@ -188,8 +201,21 @@ public class TableScanOperation extends ScanOperation{
     }
 
     public DataSet<LocatedRow> getTableScannerBuilder(DataSetProcessor dsp) throws StandardException{
+        return getTableScannerBuilder(dsp,null);
+    }
+
+    /**
+     * @param partialAggregateFold the aggregates for the scanners to fold their rows into, or {@code null} to return
+     *                             the scanned rows
+     */
+    public DataSet<LocatedRow> getTableScannerBuilder(DataSetProcessor dsp,PartialAggregateFold partialAggregateFold) throws StandardException{
         TxnView txn=getCurrentTransaction();
-        return dsp.<TableScanOperation,LocatedRow>newScanSet(this,tableName)
+        ScanSetBuilder<LocatedRow> builder=dsp.<TableScanOperation,LocatedRow>newScanSet(this,tableName);
+        if(probeScanner!=null){
+            builder.scanner(probeScanner);
+            probeScanner=null;
+        }
+        return builder
                 .tableDisplayName(tableDisplayName)
                 .activation(activation)
                 .transaction(txn)
@@ -205,6 +231,7 @@ public class TableScanOperation extends ScanOperation{
                 .accessedKeyColumns(scanInformation.getAccessedPkColumns())
                 .keyDecodingMap(getKeyDecodingMap())
                 .rowDecodingMap(baseColumnMap)
+                .partialAggregateFold(partialAggregateFold)
                 .buildDataSet(this);
     }
 
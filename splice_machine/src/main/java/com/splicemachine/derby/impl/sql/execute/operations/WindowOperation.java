@@ -132,7 +132,7 @@ public class WindowOperation extends SpliceBaseOperation {
         operationContext.popScope();
         
         operationContext.pushScopeForOp(OperationContext.Scope.GROUP_AGGREGATE_KEYER);
-        pair = pair.groupByKey("Group Values For Each Key");
+        pair = pair.groupByKey("Group Values For Each Key", operationContext);
         operationContext.popScope();
         
         operationContext.pushScopeForOp(OperationContext.Scope.EXECUTE);
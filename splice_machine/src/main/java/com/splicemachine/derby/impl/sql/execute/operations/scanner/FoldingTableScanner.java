@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.si.api.server.TransactionalRegion;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
+
+import java.io.IOException;
+
+/**
+ * TableScanner which folds the rows it reads into a {@link PartialAggregateFold}, and returns the
+ * single partial aggregate row for its scan instead of the rows themselves.
+ *
+ * This runs wherever the scanner runs, which is on the reading side of the region scan (the control
+ * side or a Spark executor), not in the region server: every row is still read from the region. What
+ * is saved is handing each row on to the aggregate operation.
+ *
+ * Rows are filtered (by SI and by the scan's predicates) before they are folded, exactly as they
+ * are before being returned by a plain {@link SITableScanner}.
+ */
+public class FoldingTableScanner<Data> extends SITableScanner<Data>{
+    private final PartialAggregateFold fold;
+    private boolean folded;
+
+    protected FoldingTableScanner(DataScanner scanner,
+                                  TransactionalRegion region,
+                                  ExecRow template,
+                                  DataScan scan,
+                                  int[] rowDecodingMap,
+                                  TxnView txn,
+                                  int[] keyColumnEncodingOrder,
+                                  boolean[] keyColumnSortOrder,
+                                  int[] keyColumnTypes,
+                                  int[] keyDecodingMap,
+                                  FormatableBitSet accessedPks,
+                                  boolean reuseRowLocation,
+                                  String indexName,
+                                  String tableVersion,
+                                  SIFilterFactory filterFactory,
+                                  long demarcationPoint,
+                                  PartialAggregateFold fold){
+        super(scanner,region,template,scan,rowDecodingMap,txn,keyColumnEncodingOrder,
+                keyColumnSortOrder,keyColumnTypes,keyDecodingMap,accessedPks,reuseRowLocation,indexName,
+                tableVersion,filterFactory,demarcationPoint);
+        this.fold=fold;
+    }
+
+    @Override
+    public ExecRow next() throws StandardException, IOException{
+        if(folded){
+            currentRowLocation=null;
+            return null;
+        }
+        folded=true;
+        fold.reset();
+        ExecRow next;
+        while((next=super.next())!=null){
+            fold.accumulate(next);
+        }
+        currentRowLocation=null;
+        return fold.getPartial();
+    }
+}
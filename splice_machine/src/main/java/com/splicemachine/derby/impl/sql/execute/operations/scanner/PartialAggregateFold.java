@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Folds the rows returned by a table scanner into a single partial aggregate row, so that the scanner
+ * hands on that row instead of every row it reads. The fold runs in the scanner, on the reading side
+ * of the region scan; it does not reduce what is read from the region.
+ *
+ * The partial row has the shape of the aggregate operation's input row, with each aggregator column
+ * holding the partially accumulated {@link ExecAggregator}. It can therefore be merged by the
+ * aggregate operation exactly like the partials of any other partition.
+ *
+ * Only aggregates which need a single input column from the scanned row (or none, for {@code COUNT(*)})
+ * and which merge without loss (count, sum, min and max) are folded this way.
+ */
+public class PartialAggregateFold implements Externalizable{
+    private ExecRow partialTemplate;
+    private int[] aggregatorColumns;
+    private int[] inputColumns;
+    private ExecAggregator[] aggregators;
+
+    private transient ExecRow partial;
+    private transient ExecAggregator[] accumulators;
+    private transient long rowsAccumulated;
+
+    public PartialAggregateFold(){ }
+
+    /**
+     * @param partialTemplate the input row of the aggregate operation, which is cloned for each partial
+     * @param aggregatorColumns the (1-based) position of each aggregator column in {@code partialTemplate}
+     * @param inputColumns the (1-based) position of each aggregate's input in the scanned row, or 0 when the
+     *                     aggregate reads no column ({@code COUNT(*)})
+     * @param aggregators an initialized instance of each aggregate, which new accumulators are created from
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public PartialAggregateFold(ExecRow partialTemplate,
+                          int[] aggregatorColumns,
+                          int[] inputColumns,
+                          ExecAggregator[] aggregators){
+        assert aggregatorColumns.length==inputColumns.length && inputColumns.length==aggregators.length:
+                "One aggregator and input column is required per aggregate";
+        this.partialTemplate=partialTemplate;
+        this.aggregatorColumns=aggregatorColumns;
+        this.inputColumns=inputColumns;
+        this.aggregators=aggregators;
+    }
+
+    /**
+     * @return a fold with the same configuration which accumulates independently of this one,
+     * for a scanner which runs concurrently with this one's.
+     */
+    public PartialAggregateFold copy(){
+        return new PartialAggregateFold(partialTemplate,aggregatorColumns,inputColumns,aggregators);
+    }
+
+    /**
+     * Starts a new partial, discarding anything accumulated so far.
+     */
+    public void reset(){
+        partial=null;
+        rowsAccumulated=0;
+        if(accumulators==null)
+            accumulators=new ExecAggregator[aggregators.length];
+        for(int i=0;i<aggregators.length;i++){
+            accumulators[i]=aggregators[i].newAggregator();
+        }
+    }
+
+    public void accumulate(ExecRow scannedRow) throws StandardException{
+        if(accumulators==null)
+            reset();
+        for(int i=0;i<accumulators.length;i++){
+            DataValueDescriptor input=inputColumns[i]>0?scannedRow.getColumn(inputColumns[i]):null;
+            accumulators[i].accumulate(input,null);
+        }
+        rowsAccumulated++;
+    }
+
+    public long getRowsAccumulated(){
+        return rowsAccumulated;
+    }
+
+    /**
+     * @return the partial aggregate row for the rows accumulated since the last {@link #reset()}, or
+     * {@code null} if no rows were accumulated.
+     */
+    public ExecRow getPartial() throws StandardException{
+        if(rowsAccumulated==0)
+            return null;
+        if(partial==null){
+            partial=partialTemplate.getClone();
+            for(int i=0;i<accumulators.length;i++){
+                partial.getColumn(aggregatorColumns[i]).setValue(accumulators[i]);
+            }
+        }
+        return partial;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException{
+        out.writeObject(partialTemplate);
+        ArrayUtil.writeIntArray(out,aggregatorColumns);
+        ArrayUtil.writeIntArray(out,inputColumns);
+        out.writeInt(aggregators.length);
+        for(ExecAggregator aggregator:aggregators){
+            out.writeObject(aggregator);
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
+        partialTemplate=(ExecRow)in.readObject();
+        aggregatorColumns=ArrayUtil.readIntArray(in);
+        inputColumns=ArrayUtil.readIntArray(in);
+        aggregators=new ExecAggregator[in.readInt()];
+        for(int i=0;i<aggregators.length;i++){
+            aggregators[i]=(ExecAggregator)in.readObject();
+        }
+    }
+}
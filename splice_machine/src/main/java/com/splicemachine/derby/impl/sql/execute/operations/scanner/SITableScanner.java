@@ -18,6 +18,7 @@ package com.splicemachine.derby.impl.sql.execute.operations.scanner;
 import com.google.common.base.Supplier;
 import org.sparkproject.guava.base.Suppliers;
 import org.sparkproject.guava.base.Throwables;
+import org.sparkproject.guava.collect.Iterables;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.services.io.StoredFormatIds;
@@ -46,6 +47,10 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
 import java.io.IOException;
 import com.carrotsearch.hppc.BitSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 
@@ -56,6 +61,8 @@ import java.util.List;
  */
 public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoCloseable{
     private static Logger LOG = Logger.getLogger(SITableScanner.class);
+    private static final int MIN_PREFETCH_ROWS = 8;
+    private static final int MAX_PREFETCH_ROWS = 256;
     private final Counter filterCounter;
     private DataScanner regionScanner;
     private final TransactionalRegion region;
@@ -82,6 +89,8 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private EntryDecoder entryDecoder;
     private final Counter outputBytesCounter;
     private long demarcationPoint;
+    private final Deque<List<DataCell>> prefetchedRows = new ArrayDeque<>();
+    private int prefetchRows = MIN_PREFETCH_ROWS;
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -156,7 +165,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         SIFilter filter = getSIFilter();
         do{
             template.resetRowArray(); //necessary to deal with null entries--maybe make the underlying call faster?
-            List<DataCell> keyValues=regionScanner.next(-1);
+            List<DataCell> keyValues=nextRow(filter);
 
             if(keyValues.size()<=0){
                 currentRowLocation = null;
@@ -244,6 +253,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
 
     public void setRegionScanner(DataScanner scanner){
         this.regionScanner = scanner;
+        prefetchedRows.clear();
     }
 
     public long getBytesVisited() {
@@ -378,6 +388,29 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }
     }
 
+    /**
+     * Reads the next row from the region. When the filter can look up transactions in bulk, rows are read
+     * ahead in blocks, and the transactions which wrote each block are fetched together, rather than one at
+     * a time as the cells are filtered. Blocks start small and grow as the scan goes on, so that short scans
+     * don't read much further than they need to.
+     */
+    private List<DataCell> nextRow(SIFilter filter) throws IOException {
+        if(!(filter instanceof TxnFilter))
+            return regionScanner.next(-1);
+        if(prefetchedRows.isEmpty()){
+            for(int i=0;i<prefetchRows;i++){
+                List<DataCell> row = regionScanner.next(-1);
+                if(row.isEmpty()) break;
+                prefetchedRows.add(new ArrayList<>(row)); //the scanner may reuse its list for the next row
+            }
+            if(prefetchedRows.isEmpty())
+                return Collections.emptyList();
+            ((TxnFilter)filter).prefetchTransactions(Iterables.concat(prefetchedRows));
+            prefetchRows = Math.min(prefetchRows*2,MAX_PREFETCH_ROWS);
+        }
+        return prefetchedRows.poll();
+    }
+
     @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
     private boolean filterRow(SIFilter filter,List<DataCell> keyValues) throws IOException {
         filter.nextRow();
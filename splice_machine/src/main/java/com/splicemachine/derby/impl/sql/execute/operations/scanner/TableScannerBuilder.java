@@ -78,6 +78,7 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
     protected boolean oneSplitPerRegion=false;
     protected Activation activation;
     protected MetricFactory metricFactory =Metrics.noOpMetricFactory();
+    protected PartialAggregateFold partialAggregateFold;
 
     @Override
     public ScanSetBuilder<V> metricFactory(MetricFactory metricFactory){
@@ -323,6 +324,12 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
         return this;
     }
 
+    @Override
+    public ScanSetBuilder<V> partialAggregateFold(PartialAggregateFold partialAggregateFold){
+        this.partialAggregateFold=partialAggregateFold;
+        return this;
+    }
+
     public SITableScanner build(){
         if(fieldLengths!=null){
             return new StatisticsScanner(
@@ -344,6 +351,25 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
                     filterFactory,
                     fieldLengths,
                     columnPositionMap);
+        }else if(partialAggregateFold!=null){
+            return new FoldingTableScanner(
+                    scanner,
+                    region,
+                    template,
+                    scan,
+                    rowColumnMap,
+                    txn,
+                    keyColumnEncodingOrder,
+                    keyColumnSortOrder,
+                    keyColumnTypes,
+                    keyDecodingMap,
+                    accessedKeys,
+                    reuseRowLocation,
+                    indexName,
+                    tableVersion,
+                    filterFactory,
+                    demarcationPoint,
+                    partialAggregateFold);
         }else{
             return new SITableScanner(
                     scanner,
@@ -365,6 +391,41 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
         }
     }
 
+    /**
+     * Copies the configuration of this builder into {@code copy}, replacing the scan with {@code scan}.
+     * The template row and partial aggregate fold are copied so that the copy can build a scanner which runs
+     * concurrently with scanners built from this builder; the remaining state is only read while scanning,
+     * and is shared.
+     * The region and scanner are <em>not</em> copied.
+     */
+    protected <B extends TableScannerBuilder<V>> B copyInto(B copy,DataScan scan){
+        copy.template=template==null?null:template.getClone();
+        copy.scan=scan;
+        copy.rowColumnMap=rowColumnMap;
+        copy.txn=txn;
+        copy.keyColumnEncodingOrder=keyColumnEncodingOrder;
+        copy.keyColumnTypes=keyColumnTypes;
+        copy.keyDecodingMap=keyDecodingMap;
+        copy.accessedKeys=accessedKeys;
+        copy.reuseRowLocation=reuseRowLocation;
+        copy.indexName=indexName;
+        copy.tableDisplayName=tableDisplayName;
+        copy.tableVersion=tableVersion;
+        copy.filterFactory=filterFactory;
+        copy.keyColumnSortOrder=keyColumnSortOrder;
+        copy.execRowTypeFormatIds=execRowTypeFormatIds;
+        copy.operationContext=operationContext;
+        copy.fieldLengths=fieldLengths;
+        copy.columnPositionMap=columnPositionMap;
+        copy.baseTableConglomId=baseTableConglomId;
+        copy.demarcationPoint=demarcationPoint;
+        copy.oneSplitPerRegion=oneSplitPerRegion;
+        copy.activation=activation;
+        copy.metricFactory=metricFactory;
+        copy.partialAggregateFold=partialAggregateFold==null?null:partialAggregateFold.copy();
+        return copy;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
         try{
@@ -438,6 +499,9 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
                 out.writeLong(baseTableConglomId);
             }
             out.writeLong(demarcationPoint);
+            out.writeBoolean(partialAggregateFold!=null);
+            if(partialAggregateFold!=null)
+                out.writeObject(partialAggregateFold);
         }catch(StandardException e){
             throw new IOException(e.getCause());
         }
@@ -512,6 +576,8 @@ public abstract class TableScannerBuilder<V> implements Externalizable, ScanSetB
                 baseTableConglomId=in.readLong();
             }
             demarcationPoint=in.readLong();
+            if(in.readBoolean())
+                partialAggregateFold=(PartialAggregateFold)in.readObject();
         }catch(StandardException e){
             throw new IOException(e.getCause());
         }
@@ -24,10 +24,16 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.NumberDataValue;
 
 /**
+ * AVG over a sliding window frame.
+ *
+ * Like {@link SumAggregator}, the sum and the number of non-null values in the frame are kept as running
+ * totals, so each row costs O(1) no matter how large the frame is.
  *
  * Created by jyuan on 7/31/14.
  */
 public class AvgAggregator extends SpliceGenericWindowFunction {
+    private NumberDataValue sum;
+    private long nonNullCount;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -43,46 +49,56 @@ public class AvgAggregator extends SpliceGenericWindowFunction {
 
     @Override
     protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvds[0].cloneValue(false));
+        NumberDataValue input = (NumberDataValue)dvds[0];
+        if (input == null || input.isNull()) {
+            return;
+        }
+        if (sum == null) {
+            sum = (NumberDataValue) input.cloneValue(false);
         } else {
-            NumberDataValue input = (NumberDataValue)dvds[0];
-            if (input != null && ! input.isNull()) {
-                NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-                nv.plus(input, nv, nv);
-                chunk.setResult(nv);
-            }
+            sum.plus(input, sum, sum);
         }
+        nonNullCount++;
     }
 
     @Override
     protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
+        // the running state is maintained in remove(), which sees every value leaving the frame
+    }
+
+    @Override
+    public DataValueDescriptor[] remove() throws StandardException {
+        DataValueDescriptor[] dvds = super.remove();
         NumberDataValue input = (NumberDataValue)dvds[0];
         if (input != null && ! input.isNull()) {
-            NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-            nv.minus(nv, input, nv);
-            chunk.setResult(nv);
+            if (--nonNullCount == 0) {
+                // start over from an exact zero, rather than carrying rounding errors into the next values
+                sum = null;
+            } else {
+                sum.minus(sum, input, sum);
+            }
         }
+        return dvds;
     }
 
+    @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        long count = first.last - first.first;
-        NumberDataValue result = (NumberDataValue)first.getResult().cloneValue(false);
-        long r = result.getLong();
-        for (int i = 1; i < chunks.size(); ++i) {
-            WindowChunk chunk = chunks.get(i);
-            NumberDataValue dvd = (NumberDataValue)chunk.getResult();
-            r += dvd.getLong();
-            count += chunk.last - chunk.first;
+        if (sum == null) {
+            return nullResult();
         }
-        result.setValue((r*1.0)/count);
+        NumberDataValue result = (NumberDataValue) sum.cloneValue(false);
+        result.setValue(sum.getDouble()/nonNullCount);
         return result;
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        sum = null;
+        nonNullCount = 0;
+    }
+
+    @Override
     public WindowFunction newWindowFunction() {
         return new AvgAggregator();
     }
@@ -66,9 +66,8 @@ public class FirstLastValueFunction extends SpliceGenericWindowFunction {
 
     @Override
     public DataValueDescriptor getResult() throws StandardException {
-        int index = (isLastValue ? chunks.size()-1 : 0);
-        WindowChunk first = chunks.get(index);
-        return first.getResult();
+        WindowChunk chunk = (isLastValue ? chunks.peekLast() : chunks.peekFirst());
+        return chunk.getResult();
     }
 
     @Override
@@ -90,7 +90,7 @@ public class LeadLagFunction extends SpliceGenericWindowFunction {
 
     @Override
     public DataValueDescriptor getResult() throws StandardException {
-        return chunks.get(0).getResult();
+        return chunks.peekFirst().getResult();
     }
 
     @Override
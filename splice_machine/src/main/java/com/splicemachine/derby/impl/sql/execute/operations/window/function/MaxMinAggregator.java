@@ -18,6 +18,7 @@ package com.splicemachine.derby.impl.sql.execute.operations.window.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayDeque;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableHashtable;
@@ -27,11 +28,21 @@ import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 
 /**
+ * MAX and MIN over a sliding window frame.
+ *
+ * Frames only ever add values at the end and remove them from the front, so the aggregator keeps a
+ * monotonic deque of the values which could still become the result: a value is dropped from the back
+ * as soon as a later value is at least as large (for MAX) or small (for MIN), because the later value
+ * will stay in the frame longer. The front of the deque is then always the result, and each value is
+ * pushed and popped at most once, so adding or removing a row costs amortized O(1).
  *
  * Created by jyuan on 7/22/14.
  */
 public class MaxMinAggregator extends SpliceGenericWindowFunction {
     private boolean isMax;
+    private ArrayDeque<Candidate> candidates;
+    private long added;
+    private long removed;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -48,63 +59,45 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
 
     @Override
     protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvd) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvd[0]);
-        }
-        else if(isMax && dvd[0].compare(result) > 0) {
-            chunk.setResult(dvd[0]);
+        long position = added++;
+        DataValueDescriptor value = dvd[0];
+        if (value == null || value.isNull()) {
+            // nulls are ignored, but still take up a position in the frame
+            return;
         }
-        else if (!isMax && dvd[0].compare(result) < 0) {
-            chunk.setResult(dvd[0]);
+        while (!candidates.isEmpty() && !isBetter(candidates.peekLast().value, value)) {
+            candidates.pollLast();
         }
+        candidates.addLast(new Candidate(position, value));
     }
 
     @Override
     protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        if (dvds[0].compare(result) == 0) {
-            recalculate(chunk);
-        }
+        // the deque is maintained in remove(), which sees every value leaving the frame
     }
 
-    private void recalculate(WindowChunk chunk) throws StandardException{
-        DataValueDescriptor result = chunk.get(chunk.first)[0];
-
-        for (int i = chunk.first+1; i < chunk.last; ++i) {
-            DataValueDescriptor dvd = chunk.get(i)[0];
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+    @Override
+    public DataValueDescriptor[] remove() throws StandardException {
+        DataValueDescriptor[] dvds = super.remove();
+        long position = removed++;
+        if (!candidates.isEmpty() && candidates.peekFirst().position == position) {
+            candidates.pollFirst();
         }
-        chunk.setResult(result);
+        return dvds;
     }
 
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        DataValueDescriptor result = first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            DataValueDescriptor dvd = chunks.get(i).getResult();
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+        if (candidates.isEmpty()) {
+            return nullResult();
         }
-        return result;
+        return candidates.peekFirst().value;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        candidates = new ArrayDeque<>();
+        added = removed = 0;
     }
 
     @Override
@@ -123,4 +116,21 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         isMax = in.readBoolean();
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private boolean isBetter(DataValueDescriptor value, DataValueDescriptor other) throws StandardException {
+        int compare = value.compare(other);
+        return isMax ? compare > 0 : compare < 0;
+    }
+
+    private static class Candidate {
+        private final long position;
+        private final DataValueDescriptor value;
+
+        Candidate(long position, DataValueDescriptor value) {
+            this.position = position;
+            this.value = value;
+        }
+    }
 }
@@ -18,7 +18,7 @@ package com.splicemachine.derby.impl.sql.execute.operations.window.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.List;
 
 import com.splicemachine.db.iapi.error.StandardException;
@@ -40,7 +40,7 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
 
     public static final int CHUNKSIZE = 100;
     protected DataValueDescriptor resultType;
-    protected ArrayList<WindowChunk> chunks;
+    protected ArrayDeque<WindowChunk> chunks;
     protected WindowChunk first, last;
 
     public SpliceGenericWindowFunction() {
@@ -79,12 +79,12 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
 
         DataValueDescriptor[] dvd = first.remove();
         if (first.consumed()) {
-            chunks.remove(first);
-            if (chunks.size() == 0) {
+            chunks.pollFirst();
+            if (chunks.isEmpty()) {
                 first = last = null;
-                return null;
+                return dvd;
             }
-            first = chunks.get(0);
+            first = chunks.peekFirst();
         }
         else {
             calculateOnRemove(first, dvd);
@@ -138,10 +138,20 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         return (dvd == null || dvd.length == 0);
     }
 
+    /**
+     * @return a null value of the result type, for frames which contain no (non-null) values
+     * @throws StandardException if the null value cannot be created
+     */
+    protected DataValueDescriptor nullResult() throws StandardException {
+        DataValueDescriptor result = resultType.cloneValue(false);
+        result.setToNull();
+        return result;
+    }
+
     public void reset() {
         WindowChunk chunk = new WindowChunk();
         first = last = chunk;
-        chunks = new ArrayList<>();
+        chunks = new ArrayDeque<>();
         chunks.add(chunk);
     }
 
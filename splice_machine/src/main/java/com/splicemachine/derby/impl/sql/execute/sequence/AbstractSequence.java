@@ -17,23 +17,73 @@ package com.splicemachine.derby.impl.sql.execute.sequence;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.pipeline.Exceptions;
+import org.apache.log4j.Logger;
+import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Hands out sequence values from blocks which are reserved in storage ahead of time.
+ *
+ * Values are handed out of the current block without locking. Once most of a block has been handed out, the next
+ * block is reserved in the background, so that writers rarely have to wait on storage when the current block runs
+ * out. Blocks start at {@code blockAllocationSize}, and grow with the rate at which values are consumed, so that
+ * a busy sequence goes to storage about once a second.
+ *
+ * A sequence with a block of a single value (i.e. one which must not reserve values it hasn't handed out) never
+ * grows its block and never reserves ahead.
+ */
 public abstract class AbstractSequence implements Sequence, Externalizable{
-    protected final AtomicLong remaining=new AtomicLong(0l);
+    private static final Logger LOG=Logger.getLogger(AbstractSequence.class);
+    private static final long TARGET_BLOCK_NANOS=TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_BLOCK_GROWTH=64;
+    private static final double PREFETCH_THRESHOLD=0.75d;
+
+    private static final ExecutorService PREFETCHER=Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("sequence-prefetch-%d").setDaemon(true).build());
+
+    private static final AtomicLong blocksAllocated=new AtomicLong(0l);
+    private static final AtomicLong valuesAllocated=new AtomicLong(0l);
+    private static final AtomicLong allocationConflicts=new AtomicLong(0l);
+    private static final AtomicLong blocksPrefetched=new AtomicLong(0l);
+    private static final AtomicLong refills=new AtomicLong(0l);
+    private static final AtomicLong refillWaitNanos=new AtomicLong(0l);
+    private static final AtomicLong lockContentions=new AtomicLong(0l);
+    private static final AtomicBoolean jmxRegistered=new AtomicBoolean(false);
+
+    /** The value read from storage by the allocation in progress, which {@link #atomicIncrement(long)} replaces */
     protected final AtomicLong currPosition=new AtomicLong(0l);
     protected long blockAllocationSize;
     protected long incrementSteps;
     protected final Lock updateLock=new ReentrantLock();
     protected long startingValue;
 
+    private final Lock allocationLock=new ReentrantLock();
+    private final AtomicReference<Block> currentBlock=new AtomicReference<>(new Block(0l,0l,-1l));
+    private Future<Block> nextBlock; //guarded by updateLock
+
     public AbstractSequence(){
 
     }
@@ -47,9 +97,16 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
     }
 
     public long getNext() throws StandardException{
-        if(remaining.getAndDecrement()<=0)
-            allocateBlock();
-        return currPosition.getAndAdd(incrementSteps);
+        while(true){
+            Block block=currentBlock.get();
+            long position=block.handedOut.getAndIncrement();
+            if(position<block.size){
+                if(position==block.prefetchAt)
+                    prefetch(block);
+                return block.start+position*incrementSteps;
+            }
+            refill(block);
+        }
     }
 
     protected abstract long getCurrentValue() throws IOException;
@@ -58,26 +115,126 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
 
     public abstract void close() throws IOException;
 
-    private void allocateBlock() throws StandardException{
-        boolean success=false;
-        while(!success){
+    /**
+     * Starts reserving the block which follows {@code block} in the background, unless it is already being
+     * replaced.
+     */
+    private void prefetch(final Block block){
+        if(!updateLock.tryLock())
+            return; //someone is already replacing the block
+        try{
+            if(currentBlock.get()!=block || nextBlock!=null)
+                return;
+            final long values=blockValues(block.prefetchAt+1,System.nanoTime()-block.installedAt);
+            nextBlock=PREFETCHER.submit(new Callable<Block>(){
+                @Override
+                public Block call() throws Exception{
+                    return allocate(values);
+                }
+            });
+        }catch(RejectedExecutionException ree){
+            //the block will be allocated when it's needed instead
+        }finally{
+            updateLock.unlock();
+        }
+    }
+
+    private void refill(Block exhausted) throws StandardException{
+        long start=System.nanoTime();
+        if(!updateLock.tryLock()){
+            lockContentions.incrementAndGet();
             updateLock.lock();
-            try{
-                if(remaining.getAndDecrement()>0)
-                    return;
+        }
+        try{
+            if(currentBlock.get()!=exhausted)
+                return; //another thread replaced it while we were waiting
+            Block next=null;
+            Future<Block> prefetched=nextBlock;
+            nextBlock=null;
+            if(prefetched!=null){
+                try{
+                    next=prefetched.get();
+                    blocksPrefetched.incrementAndGet();
+                }catch(ExecutionException ee){
+                    LOG.warn("Unable to reserve the next sequence block in the background, retrying",ee.getCause());
+                }
+            }
+            if(next==null)
+                next=allocate(blockValues(exhausted.size,start-exhausted.installedAt));
+            next.installedAt=System.nanoTime();
+            currentBlock.set(next);
+        }catch(IOException|InterruptedException e){
+            if(e instanceof InterruptedException)
+                Thread.currentThread().interrupt();
+            throw Exceptions.parseException(e);
+        }finally{
+            updateLock.unlock();
+            refills.incrementAndGet();
+            refillWaitNanos.addAndGet(System.nanoTime()-start);
+        }
+    }
+
+    /**
+     * Reserves the next {@code values} values of the sequence in storage.
+     */
+    private Block allocate(long values) throws IOException{
+        allocationLock.lock();
+        try{
+            while(true){
                 currPosition.set(getCurrentValue());
-                success=atomicIncrement(currPosition.get()+(incrementSteps>blockAllocationSize?incrementSteps:blockAllocationSize));
-                if(success){
-                    remaining.set(blockAllocationSize/incrementSteps-1);
+                long blockStart=upgradedBlockStart(currPosition.get());
+                if(atomicIncrement(blockStart+values*incrementSteps)){
+                    blocksAllocated.incrementAndGet();
+                    valuesAllocated.addAndGet(values);
+                    long prefetchAt=values>1 && getMinimumBlockValues()>1?(long)(values*PREFETCH_THRESHOLD):-1l;
+                    return new Block(blockStart,values,prefetchAt);
                 }
-            }catch(IOException e){
-                throw Exceptions.parseException(e);
-            }finally{
-                updateLock.unlock();
+                allocationConflicts.incrementAndGet();
             }
+        }finally{
+            allocationLock.unlock();
         }
     }
 
+    /**
+     * Blocks used to move the stored value upward even for a descending sequence, which then handed out values
+     * from {@code startingValue} up to the stored value. A descending sequence which carries on from such a stored
+     * value would hand them out again, so it starts below them instead. The old blocks could hand out a few values
+     * below the start when threads raced, so a whole block below it is skipped as well.
+     *
+     * Since blocks now move the stored value of a descending sequence downward from {@code startingValue},
+     * a stored value above the start can only have been written before.
+     */
+    private long upgradedBlockStart(long storedValue){
+        if(incrementSteps>=0 || storedValue<=startingValue)
+            return storedValue;
+        long blockStart=startingValue+getMinimumBlockValues()*incrementSteps;
+        LOG.info("Moving descending sequence from "+storedValue+" to "+blockStart+", below the values handed out before the upgrade");
+        return blockStart;
+    }
+
+    /**
+     * @return the number of values to reserve for the next block, when {@code consumed} values were consumed
+     * over {@code elapsedNanos}.
+     */
+    private long blockValues(long consumed,long elapsedNanos){
+        long minValues=getMinimumBlockValues();
+        if(minValues<=1)
+            return minValues;
+        long target=(long)(consumed*((double)TARGET_BLOCK_NANOS/Math.max(elapsedNanos,1l)));
+        return Math.max(minValues,Math.min(minValues*MAX_BLOCK_GROWTH,target));
+    }
+
+    private long getMinimumBlockValues(){
+        return Math.max(1l,blockAllocationSize/Math.abs(incrementSteps));
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        if(jmxRegistered.compareAndSet(false,true)){
+            ObjectName name=new ObjectName("com.splicemachine.derby.hbase:type=SequenceAllocation");
+            mbs.registerMBean(new Statistics(),name);
+        }
+    }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
@@ -92,4 +249,47 @@ public abstract class AbstractSequence implements Sequence, Externalizable{
         incrementSteps=in.readLong();
         startingValue=in.readLong();
     }
+
+    private static final class Block{
+        private final long start;
+        private final long size;
+        private final long prefetchAt;
+        private final AtomicLong handedOut=new AtomicLong(0l);
+        private long installedAt; //published through currentBlock
+
+        Block(long start,long size,long prefetchAt){
+            this.start=start;
+            this.size=size;
+            this.prefetchAt=prefetchAt;
+        }
+    }
+
+    @MXBean
+    @SuppressWarnings("UnusedDeclaration")
+    public interface SequenceAllocationStatistics{
+        long getBlocksAllocated();
+        long getValuesAllocated();
+        long getAllocationConflicts();
+        long getBlocksPrefetched();
+        long getRefills();
+        long getLockContentions();
+        long getTotalRefillWaitMillis();
+        double getAverageRefillWaitMillis();
+    }
+
+    private static class Statistics implements SequenceAllocationStatistics{
+        @Override public long getBlocksAllocated(){ return blocksAllocated.get(); }
+        @Override public long getValuesAllocated(){ return valuesAllocated.get(); }
+        @Override public long getAllocationConflicts(){ return allocationConflicts.get(); }
+        @Override public long getBlocksPrefetched(){ return blocksPrefetched.get(); }
+        @Override public long getRefills(){ return refills.get(); }
+        @Override public long getLockContentions(){ return lockContentions.get(); }
+        @Override public long getTotalRefillWaitMillis(){ return TimeUnit.NANOSECONDS.toMillis(refillWaitNanos.get()); }
+
+        @Override
+        public double getAverageRefillWaitMillis(){
+            long r=refills.get();
+            return r==0? 0d : ((double)refillWaitNanos.get())/r/TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
 }
@@ -20,15 +20,37 @@ import com.splicemachine.stats.ColumnStatistics;
 import com.splicemachine.stats.cardinality.CardinalityEstimator;
 import com.splicemachine.stats.estimate.Distribution;
 import com.splicemachine.stats.estimate.EmptyDistribution;
+import com.splicemachine.stats.estimate.HistogramDistribution;
+import com.splicemachine.stats.histogram.EquiDepthHistogram;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.SequenceInputStream;
 
 /**
  * @author Scott Fines
  *         Date: 2/27/15
  */
 public abstract class BaseDvdStatistics implements ColumnStatistics<DataValueDescriptor>,Externalizable {
+    /*
+     * Written in front of statistics which end with a histogram. Statistics written before histograms were
+     * collected start with a column id or a column width, which are never negative, and end with the
+     * column statistics.
+     */
+    static final int HISTOGRAM_FORMAT = Integer.MIN_VALUE;
+
     protected ColumnStatistics baseStats;
+    /*
+     * An Equi-depth histogram over the values which are not frequent elements, or null if none was
+     * collected (or the statistics were written before histograms were collected).
+     */
+    protected EquiDepthHistogram<DataValueDescriptor> histogram;
 
     public BaseDvdStatistics() {
     }
@@ -48,9 +70,15 @@ public abstract class BaseDvdStatistics implements ColumnStatistics<DataValueDes
     @Override public long totalBytes() { return baseStats.totalBytes(); }
 
     @Override public Distribution<DataValueDescriptor> getDistribution() {
+        if(histogram!=null)
+            return new DvdHistogramDistribution(this,histogram);
         return newDistribution(baseStats);
     }
 
+    public EquiDepthHistogram<DataValueDescriptor> histogram() { return histogram; }
+
+    public void setHistogram(EquiDepthHistogram<DataValueDescriptor> histogram) { this.histogram = histogram; }
+
     @Override
     @SuppressWarnings("unchecked")
     public ColumnStatistics<DataValueDescriptor> merge(ColumnStatistics<DataValueDescriptor> other) {
@@ -58,11 +86,112 @@ public abstract class BaseDvdStatistics implements ColumnStatistics<DataValueDes
             baseStats = (ColumnStatistics) baseStats.merge(other);
         }
         else if (other instanceof BaseDvdStatistics){
-            baseStats = (ColumnStatistics) baseStats.merge(((BaseDvdStatistics) other).baseStats);
+            BaseDvdStatistics otherStats = (BaseDvdStatistics) other;
+            baseStats = (ColumnStatistics) baseStats.merge(otherStats.baseStats);
+            if(histogram==null)
+                histogram = otherStats.histogram;
+            else if(otherStats.histogram!=null)
+                histogram = histogram.merge(otherStats.histogram);
         }
 
         return this;
     }
 
     protected abstract Distribution<DataValueDescriptor> newDistribution(ColumnStatistics baseStats);
+
+    /**
+     * @param clone a copy of these statistics
+     * @return {@code clone}, sharing this histogram (which is immutable)
+     */
+    protected ColumnStatistics<DataValueDescriptor> withHistogram(BaseDvdStatistics clone){
+        clone.histogram = histogram;
+        return clone;
+    }
+
+    /**
+     * Must be the first thing written by {@code writeExternal}, which must end with
+     * {@link #writeHistogram(ObjectOutput)}.
+     */
+    protected void writeFormat(ObjectOutput out) throws IOException {
+        out.writeInt(HISTOGRAM_FORMAT);
+    }
+
+    /**
+     * Must be the first thing read by {@code readExternal}.
+     *
+     * @return the input to read the column statistics from, which must then be handed to
+     * {@link #readHistogram(ObjectInput, DataInput)}
+     */
+    protected DataInput readFormat(ObjectInput in) throws IOException {
+        int first = in.readInt();
+        if(first==HISTOGRAM_FORMAT) return in;
+        //written before histograms were collected, so the int we read belongs to the column statistics
+        byte[] firstBytes = new byte[]{(byte)(first>>>24),(byte)(first>>>16),(byte)(first>>>8),(byte)first};
+        return new DataInputStream(new SequenceInputStream(new ByteArrayInputStream(firstBytes),new RemainingInput(in)));
+    }
+
+    protected void writeHistogram(ObjectOutput out) throws IOException {
+        out.writeBoolean(histogram!=null);
+        if(histogram==null) return;
+        int numBuckets = histogram.numBuckets();
+        out.writeInt(numBuckets);
+        out.writeObject(histogram.min());
+        for(int i=0;i<numBuckets;i++){
+            out.writeObject(histogram.upperBound(i));
+            out.writeLong(histogram.rowCount(i));
+            out.writeLong(histogram.cardinality(i));
+        }
+    }
+
+    /**
+     * @param data the input returned by {@link #readFormat(ObjectInput)}
+     */
+    protected void readHistogram(ObjectInput in,DataInput data) throws IOException, ClassNotFoundException {
+        //statistics written before histograms were collected end with the column statistics
+        if(data!=in || !in.readBoolean()) return;
+        int numBuckets = in.readInt();
+        DataValueDescriptor min = (DataValueDescriptor)in.readObject();
+        DataValueDescriptor[] upperBounds = new DataValueDescriptor[numBuckets];
+        long[] rowCounts = new long[numBuckets];
+        long[] cardinalities = new long[numBuckets];
+        for(int i=0;i<numBuckets;i++){
+            upperBounds[i] = (DataValueDescriptor)in.readObject();
+            rowCounts[i] = in.readLong();
+            cardinalities[i] = in.readLong();
+        }
+        histogram = DvdHistogramCollector.histogram(min,upperBounds,rowCounts,cardinalities);
+    }
+
+    /**
+     * Reads the rest of an old-format {@link ObjectInput} as a stream.
+     */
+    private static class RemainingInput extends InputStream {
+        private final ObjectInput in;
+
+        RemainingInput(ObjectInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b,int off,int len) throws IOException {
+            return in.read(b,off,len);
+        }
+    }
+
+    private static class DvdHistogramDistribution extends HistogramDistribution<DataValueDescriptor>{
+        DvdHistogramDistribution(ColumnStatistics<DataValueDescriptor> columnStats,
+                                 EquiDepthHistogram<DataValueDescriptor> histogram){
+            super(columnStats,histogram,DvdHistogramCollector.COMPARATOR);
+        }
+
+        @Override
+        protected boolean isNull(DataValueDescriptor element){
+            return element==null || element.isNull();
+        }
+    }
 }
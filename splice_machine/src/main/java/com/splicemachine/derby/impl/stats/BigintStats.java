@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.LongFrequencyEstimate;
 import com.splicemachine.stats.frequency.LongFrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -61,17 +62,21 @@ public class BigintStats extends BaseDvdStatistics {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         LongColumnStatistics.encoder().encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        super.baseStats = stats = LongColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        super.baseStats = stats = LongColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new BigintStats((LongColumnStatistics) stats.getClone());
+        return withHistogram(new BigintStats((LongColumnStatistics) stats.getClone()));
     }
 
     /* ****************************************************************************************************************/
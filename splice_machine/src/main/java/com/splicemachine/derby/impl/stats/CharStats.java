@@ -45,7 +45,7 @@ public class CharStats extends StringStatistics {
     @Override
     @SuppressWarnings("unchecked")
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new CharStats((ColumnStatistics<String>)baseStats.getClone(),strLen);
+        return withHistogram(new CharStats((ColumnStatistics<String>)baseStats.getClone(),strLen));
     }
 
     /* ***************************************************************************************************************/
@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.DoubleFrequencyEstimate;
 import com.splicemachine.stats.frequency.DoubleFrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -76,17 +77,21 @@ public class DoubleStats extends BaseDvdStatistics{
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new DoubleStats((DoubleColumnStatistics)stats.getClone());
+        return withHistogram(new DoubleStats((DoubleColumnStatistics)stats.getClone()));
     }
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         DoubleColumnStatistics.encoder().encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        baseStats = stats = DoubleColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        baseStats = stats = DoubleColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
     /* ****************************************************************************************************************/
     /*private helper methods*/
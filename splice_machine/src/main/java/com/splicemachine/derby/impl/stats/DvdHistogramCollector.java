@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.DateTimeDataValue;
+import com.splicemachine.db.iapi.types.NumberDataValue;
+import com.splicemachine.db.iapi.types.StringDataValue;
+import com.splicemachine.stats.ColumnStatistics;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
+import com.splicemachine.stats.frequency.FrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthHistogram;
+import com.splicemachine.stats.histogram.ReservoirSample;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Samples the values of a column while statistics are collected, and builds an
+ * {@link EquiDepthHistogram} of the values which are not among the column's frequent elements.
+ */
+public class DvdHistogramCollector extends ReservoirSample<DataValueDescriptor>{
+    /*
+     * The number of sampled values per bucket. The more values per bucket, the less the bucket
+     * boundaries depend on which rows happened to be sampled.
+     */
+    static final int SAMPLES_PER_BUCKET=64;
+
+    public static final Comparator<DataValueDescriptor> COMPARATOR=new Comparator<DataValueDescriptor>(){
+        @Override
+        public int compare(DataValueDescriptor o1,DataValueDescriptor o2){
+            try{
+                return o1.compare(o2);
+            }catch(StandardException se){
+                throw new RuntimeException(se); //shouldn't happen
+            }
+        }
+    };
+
+    static final EquiDepthHistogram.Interpolator<DataValueDescriptor> INTERPOLATOR=new EquiDepthHistogram.Interpolator<DataValueDescriptor>(){
+        @Override
+        public double position(DataValueDescriptor value){
+            try{
+                if(value instanceof NumberDataValue)
+                    return value.getDouble();
+                else if(value instanceof DateTimeDataValue)
+                    return value.getTimestamp(null).getTime();
+                else if(value instanceof StringDataValue)
+                    return stringPosition(value.getString());
+                return Double.NaN;
+            }catch(StandardException se){
+                return Double.NaN;
+            }
+        }
+    };
+
+    private final int numBuckets;
+
+    public DvdHistogramCollector(int numBuckets){
+        super(numBuckets*SAMPLES_PER_BUCKET,new Random());
+        this.numBuckets=numBuckets;
+    }
+
+    /**
+     * @param stats the statistics collected over the same values as this sample
+     * @return a histogram over the values which are not frequent elements of {@code stats}, or {@code null} if
+     * there are no such values.
+     */
+    public EquiDepthHistogram<DataValueDescriptor> build(ColumnStatistics<DataValueDescriptor> stats){
+        FrequentElements<DataValueDescriptor> topK=stats.topK();
+        long rows=stats.nonNullCount()-topK.totalFrequentElements();
+        long cardinality=stats.cardinality()-topK.allFrequentElements().size();
+        if(rows<=0) return null;
+
+        List<DataValueDescriptor> values=sample();
+        Iterator<DataValueDescriptor> iter=values.iterator();
+        while(iter.hasNext()){
+            FrequencyEstimate<? extends DataValueDescriptor> est=topK.equal(iter.next());
+            if(est!=null && est.count()>0)
+                iter.remove();
+        }
+        return EquiDepthHistogram.fromSample(values,numBuckets,rows,Math.max(1l,cardinality),COMPARATOR,INTERPOLATOR);
+    }
+
+    @Override
+    protected DataValueDescriptor copy(DataValueDescriptor value){
+        return value.cloneValue(false);
+    }
+
+    static EquiDepthHistogram<DataValueDescriptor> histogram(DataValueDescriptor min,
+                                                             DataValueDescriptor[] upperBounds,
+                                                             long[] rowCounts,
+                                                             long[] cardinalities){
+        return new EquiDepthHistogram<>(min,upperBounds,rowCounts,cardinalities,COMPARATOR,INTERPOLATOR);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static double stringPosition(String value){
+        /*
+         * Strings are positioned by their first few characters, read as digits of a base-65536 number. This
+         * is enough to interpolate within a bucket unless all the strings in the bucket share that prefix, in
+         * which case every string lands in the same place and the histogram assumes the middle of the bucket.
+         */
+        double position=0d;
+        for(int i=0;i<4;i++){
+            position*=65536d;
+            if(i<value.length())
+                position+=value.charAt(i);
+        }
+        return position;
+    }
+}
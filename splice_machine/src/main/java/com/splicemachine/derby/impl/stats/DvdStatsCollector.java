@@ -35,6 +35,7 @@ import com.splicemachine.stats.estimate.UniformStringDistribution;
  */
 public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValueDescriptor>{
     protected ColumnStatsCollector collector;
+    protected DvdHistogramCollector histogramCollector;
 
     protected DvdStatsCollector(ColumnStatsCollector collector) {
         this.collector = collector;
@@ -51,7 +52,10 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
 
     @Override
     public ColumnStatistics<DataValueDescriptor> build() {
-        return newStats(collector.build());
+        ColumnStatistics<DataValueDescriptor> stats = newStats(collector.build());
+        if(histogramCollector!=null && stats instanceof BaseDvdStatistics)
+            ((BaseDvdStatistics)stats).setHistogram(histogramCollector.build(stats));
+        return stats;
     }
 
     @Override
@@ -64,6 +68,8 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
             } catch (StandardException se) {
                 throw new RuntimeException(se); //should never happen
             }
+            if(histogramCollector!=null)
+                histogramCollector.update(dataValueDescriptor, count);
         }
     }
 
@@ -76,6 +82,25 @@ public abstract class DvdStatsCollector implements ColumnStatsCollector<DataValu
 
     protected abstract ColumnStatistics<DataValueDescriptor> newStats(ColumnStatistics build);
 
+    /**
+     * Create a collector which also samples the column, and builds an Equi-depth histogram with (up to)
+     * {@code histogramSize} buckets over the values which are not frequent elements. Boolean columns are
+     * fully described by their frequent elements, so never get a histogram.
+     *
+     * @param histogramSize the number of histogram buckets, or 0 to not collect a histogram.
+     */
+    public static ColumnStatsCollector<DataValueDescriptor> newCollector(int columnId,
+                                                                         int typeFormatId,
+                                                                         int columnLen,
+                                                                         int topKSize,
+                                                                         int cardPrecision,
+                                                                         int histogramSize){
+        ColumnStatsCollector<DataValueDescriptor> collector = newCollector(columnId,typeFormatId,columnLen,topKSize,cardPrecision);
+        if(histogramSize>0 && collector instanceof DvdStatsCollector && typeFormatId!=StoredFormatIds.SQL_BOOLEAN_ID)
+            ((DvdStatsCollector)collector).histogramCollector = new DvdHistogramCollector(histogramSize);
+        return collector;
+    }
+
     public static ColumnStatsCollector<DataValueDescriptor> newCollector(int columnId,
                                                                          int typeFormatId,
                                                                          int columnLen,
@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.IntFrequencyEstimate;
 import com.splicemachine.stats.frequency.IntFrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -59,17 +60,21 @@ public class IntStats extends BaseDvdStatistics {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         IntColumnStatistics.encoder().encode(intStats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        baseStats = intStats = IntColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        baseStats = intStats = IntColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new IntStats((IntColumnStatistics)intStats.getClone());
+        return withHistogram(new IntStats((IntColumnStatistics)intStats.getClone()));
     }
 
     @Override
@@ -57,18 +57,22 @@ public class NumericStats extends BaseDvdStatistics{
     @Override
     @SuppressWarnings("unchecked")
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         ComparableColumnStatistics.encoder(bigDecimalEncoder,distributionFactory).encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        baseStats = stats = ComparableColumnStatistics.encoder(bigDecimalEncoder,DvdStatsCollector.decimalDistributionFactory).decode(in);
+        DataInput data = readFormat(in);
+        baseStats = stats = ComparableColumnStatistics.encoder(bigDecimalEncoder,DvdStatsCollector.decimalDistributionFactory).decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new NumericStats(stats.getClone());
+        return withHistogram(new NumericStats(stats.getClone()));
     }
 
     @Override
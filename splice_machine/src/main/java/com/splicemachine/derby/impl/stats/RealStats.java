@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.FloatFrequencyEstimate;
 import com.splicemachine.stats.frequency.FloatFrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -79,17 +80,21 @@ public class RealStats extends BaseDvdStatistics {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         FloatColumnStatistics.encoder().encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        baseStats = stats = FloatColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        baseStats = stats = FloatColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new RealStats((FloatColumnStatistics)stats.getClone());
+        return withHistogram(new RealStats((FloatColumnStatistics)stats.getClone()));
     }
 
     /* ****************************************************************************************************************/
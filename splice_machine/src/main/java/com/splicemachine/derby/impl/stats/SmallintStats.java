@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.FrequencyEstimate;
 import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.ShortFrequencyEstimate;
 import com.splicemachine.stats.frequency.ShortFrequentElements;
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -62,17 +63,21 @@ public class SmallintStats extends BaseDvdStatistics {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         CombinedShortColumnStatistics.encoder().encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        super.baseStats = stats = CombinedShortColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        super.baseStats = stats = CombinedShortColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new SmallintStats((ShortColumnStatistics)stats.getClone());
+        return withHistogram(new SmallintStats((ShortColumnStatistics)stats.getClone()));
     }
 
     /* ****************************************************************************************************************/
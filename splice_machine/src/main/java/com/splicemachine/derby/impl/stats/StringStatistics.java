@@ -57,15 +57,19 @@ public abstract class StringStatistics extends BaseDvdStatistics{
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         out.writeInt(strLen);
         ComparableColumnStatistics.encoder(stringEncoder,distributionFactory).encode((ComparableColumnStatistics<String>) stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        strLen = in.readInt();
+        DataInput data = readFormat(in);
+        strLen = data.readInt();
         distributionFactory = DvdStatsCollector.stringDistributionFactory(strLen);
-        baseStats = stats = ComparableColumnStatistics.encoder(stringEncoder,distributionFactory).decode(in);
+        baseStats = stats = ComparableColumnStatistics.encoder(stringEncoder,distributionFactory).decode(data);
+        readHistogram(in,data);
     }
 
     @Override
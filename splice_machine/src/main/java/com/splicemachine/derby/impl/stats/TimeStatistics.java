@@ -26,6 +26,7 @@ import com.splicemachine.stats.frequency.FrequentElements;
 import com.splicemachine.stats.frequency.LongFrequencyEstimate;
 import com.splicemachine.stats.frequency.LongFrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -60,12 +61,16 @@ public abstract class TimeStatistics extends BaseDvdStatistics{
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException{
+        writeFormat(out);
         LongColumnStatistics.encoder().encode(baseStats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException{
-        super.baseStats = this.baseStats = LongColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        super.baseStats = this.baseStats = LongColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     protected abstract DataValueDescriptor wrap(long value);
@@ -43,7 +43,7 @@ public class TimeStats extends TimeStatistics{
         super(baseStats);
     }
 
-    @Override public ColumnStatistics<DataValueDescriptor> getClone(){ return new TimeStats((LongColumnStatistics)baseStats.getClone()); }
+    @Override public ColumnStatistics<DataValueDescriptor> getClone(){ return withHistogram(new TimeStats((LongColumnStatistics)baseStats.getClone())); }
     @Override protected DataValueDescriptor wrap(long value){ return wrapLong(value); }
 
     @Override
@@ -46,7 +46,7 @@ public class TimestampStatistics extends TimeStatistics{
         super(baseStats);
     }
 
-    @Override public ColumnStatistics<DataValueDescriptor> getClone(){ return new TimestampStatistics((LongColumnStatistics)baseStats.getClone()); }
+    @Override public ColumnStatistics<DataValueDescriptor> getClone(){ return withHistogram(new TimestampStatistics((LongColumnStatistics)baseStats.getClone())); }
     @Override protected DataValueDescriptor wrap(long value){ return wrapLong(value); }
 
     @Override
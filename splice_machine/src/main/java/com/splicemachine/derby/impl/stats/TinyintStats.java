@@ -28,6 +28,7 @@ import com.splicemachine.stats.frequency.ByteFrequentElements;
 import com.splicemachine.stats.frequency.FrequencyEstimate;
 import com.splicemachine.stats.frequency.FrequentElements;
 
+import java.io.DataInput;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -62,17 +63,21 @@ public class TinyintStats extends BaseDvdStatistics {
 
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
+        writeFormat(out);
         ByteColumnStatistics.encoder().encode(stats,out);
+        writeHistogram(out);
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        stats = ByteColumnStatistics.encoder().decode(in);
+        DataInput data = readFormat(in);
+        stats = ByteColumnStatistics.encoder().decode(data);
+        readHistogram(in,data);
     }
 
     @Override
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new TinyintStats((ByteColumnStatistics)stats.getClone());
+        return withHistogram(new TinyintStats((ByteColumnStatistics)stats.getClone()));
     }
 
     /* ****************************************************************************************************************/
@@ -49,7 +49,7 @@ public class VarcharStats extends StringStatistics {
     @Override
     @SuppressWarnings("unchecked")
     public ColumnStatistics<DataValueDescriptor> getClone() {
-        return new VarcharStats((ColumnStatistics<String>)baseStats.getClone(),strLen);
+        return withHistogram(new VarcharStats((ColumnStatistics<String>)baseStats.getClone(),strLen));
     }
 
     @Override
@@ -15,9 +15,15 @@
 
 package com.splicemachine.derby.impl.store.access;
 
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import com.splicemachine.derby.impl.stats.DvdHistogramCollector;
 import com.splicemachine.derby.impl.stats.PartitionAverage;
 import org.apache.log4j.Logger;
 
@@ -35,6 +41,7 @@ import com.splicemachine.derby.impl.store.access.base.SpliceConglomerate;
 import com.splicemachine.stats.ColumnStatistics;
 import com.splicemachine.stats.PartitionStatistics;
 import com.splicemachine.stats.TableStatistics;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
 import com.splicemachine.utils.SpliceLogUtils;
 
 /**
@@ -51,6 +58,7 @@ public class StatsStoreCostController implements StoreCostController {
     private final double closeLatency;
     private final double fallbackNullFraction;
     private final double extraQualifierMultiplier;
+    private final int maxFrequentValues;
 
     public StatsStoreCostController(OpenSpliceConglomerate baseConglomerate) throws StandardException {
         if (LOG.isTraceEnabled())
@@ -67,6 +75,7 @@ public class StatsStoreCostController implements StoreCostController {
         closeLatency = config.getFallbackOpencloseLatency();
         fallbackNullFraction = config.getFallbackNullFraction();
         extraQualifierMultiplier = config.getOptimizerExtraQualifierMultiplier();
+        maxFrequentValues = config.getTopkSize();
     }
 
     /**
@@ -169,6 +178,11 @@ public class StatsStoreCostController implements StoreCostController {
         return 0;
     }
 
+    @Override
+    public List<DataValueDescriptor> frequentValues(int columnNumber){
+        return frequentValues(conglomerateStatistics,columnNumber);
+    }
+
     @Override
     public DataValueDescriptor minValue(int columnNumber) {
         ColumnStatistics<DataValueDescriptor> colStats=getColumnStats(conglomerateStatistics,columnNumber);
@@ -224,6 +238,39 @@ public class StatsStoreCostController implements StoreCostController {
         return nc/stats.rowCount();
     }
 
+    protected List<DataValueDescriptor> frequentValues(TableStatistics stats,int columnNumber){
+        /*
+         * Each partition keeps its own frequent elements, so we add up the counts of each value over
+         * all the partitions, and keep the values which are the most frequent overall
+         */
+        Map<DataValueDescriptor,Long> counts = new TreeMap<>(DvdHistogramCollector.COMPARATOR);
+        for(PartitionStatistics pStats:stats.partitionStatistics()){
+            if (pStats instanceof PartitionAverage)
+                continue;
+            ColumnStatistics<DataValueDescriptor> cStats = pStats.columnStatistics(columnNumber);
+            if(cStats==null) continue;
+            for(FrequencyEstimate<DataValueDescriptor> est:cStats.topK().allFrequentElements()){
+                DataValueDescriptor value = est.getValue();
+                if(value==null || value.isNull() || est.count()<=0) continue;
+                Long count = counts.get(value);
+                counts.put(value,count==null? est.count(): count+est.count());
+            }
+        }
+        List<Map.Entry<DataValueDescriptor,Long>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries,new Comparator<Map.Entry<DataValueDescriptor,Long>>(){
+            @Override
+            public int compare(Map.Entry<DataValueDescriptor,Long> o1,Map.Entry<DataValueDescriptor,Long> o2){
+                return Long.compare(o2.getValue(),o1.getValue());
+            }
+        });
+        int size = Math.min(entries.size(),maxFrequentValues);
+        List<DataValueDescriptor> values = new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            values.add(entries.get(i).getKey());
+        }
+        return values;
+    }
+
     protected double selectivityFraction(TableStatistics stats,
                                          int columnNumber,
                                          DataValueDescriptor start,boolean includeStart,
@@ -33,6 +33,7 @@ import com.splicemachine.db.impl.jdbc.EmbedConnection;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
+import com.splicemachine.derby.impl.sql.execute.sequence.AbstractSequence;
 import com.splicemachine.derby.impl.store.access.SpliceAccessManager;
 import com.splicemachine.lifecycle.DatabaseLifecycleService;
 import com.splicemachine.pipeline.ContextFactoryDriverService;
@@ -41,6 +42,7 @@ import com.splicemachine.pipeline.PipelineDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.contextfactory.ReferenceCountingFactoryDriver;
+import com.splicemachine.pipeline.foreignkey.ParentKeyCache;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.tools.EmbedConnectionMaker;
 import com.splicemachine.tools.version.ManifestReader;
@@ -102,6 +104,17 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
         isCreate.remove();
 
         ContextFactoryDriver cfDriver = new ReferenceCountingFactoryDriver(){
+            @Override
+            public ContextFactoryLoader getLoader(long conglomerateId){
+                /*
+                 * Regions ask for their loader as they open. Parent rows may have been deleted while a region was
+                 * hosted elsewhere, and only that server was told (see ContextFactoryLoader#referencedRowsDeleted),
+                 * so parent keys cached here while we last held the region may be stale.
+                 */
+                ParentKeyCache.cache().invalidateAll();
+                return super.getLoader(conglomerateId);
+            }
+
             @Override
             protected ContextFactoryLoader newDelegate(long conglomerateId){
                 SIDriver siDriver=SIDriver.driver();
@@ -138,6 +151,39 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
              * this exception and don't worry about it too much.
              */
         }
+
+        SIDriver driver=SIDriver.driver();
+        if(driver!=null && driver.getAsyncReadResolver()!=null){
+            try{
+                driver.getAsyncReadResolver().registerJMX(mbs);
+            }catch(InstanceAlreadyExistsException ignored){
+                //same as above
+            }
+        }
+        if(driver!=null){
+            try{
+                driver.getRecentWriterCache().registerJMX(mbs);
+            }catch(InstanceAlreadyExistsException ignored){
+                //same as above
+            }
+            try{
+                driver.getKeepAliveScheduler().registerJMX(mbs);
+            }catch(InstanceAlreadyExistsException ignored){
+                //same as above
+            }
+        }
+
+        try{
+            ParentKeyCache.cache().registerJMX(mbs);
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
+
+        try{
+            AbstractSequence.registerJMX(mbs);
+        }catch(InstanceAlreadyExistsException ignored){
+            //same as above
+        }
     }
 
     @Override
@@ -95,12 +95,47 @@ public class ControlDataSet<V> implements DataSet<V> {
 
     @Override
     public DataSet<V> distinct() {
-        return new ControlDataSet<>(Sets.newHashSet(iterable));
+        return distinct(null, false, null, false, null);
     }
 
     @Override
     public DataSet<V> distinct(String name, boolean isLast, OperationContext context, boolean pushScope, String scopeDetail) {
-        return distinct();
+        SpillingAggregator<V,Object,Object> aggregator = SpillingAggregator.create(new SpillingAggregator.Aggregation<Object, Object>() {
+            @Override
+            public Object first(Object value) {
+                return null;
+            }
+
+            @Override
+            public Object add(Object aggregate, Object value) {
+                return null;
+            }
+
+            @Override
+            public Object merge(Object aggregate, Object other) {
+                return null;
+            }
+
+            @Override
+            public boolean retainsValues() {
+                return false;
+            }
+        }, context);
+        try {
+            for (V v : iterable) {
+                aggregator.add(v, null);
+            }
+            return new ControlDataSet<>(FluentIterable.from(aggregator.result()).transform(new Function<Tuple2<V, Object>, V>() {
+                @Nullable
+                @Override
+                public V apply(@Nullable Tuple2<V, Object> t) {
+                    assert t!=null;
+                    return t._1();
+                }
+            }));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public <Op extends SpliceOperation, K,U>PairDataSet<K, U> index(final SplicePairFunction<Op,V,K,U> function) {
@@ -115,7 +115,9 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     TxnRegion localRegion=new TxnRegion(p,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
                             txnSupplier,transactory,txnOperationFactory);
 
-                    this.region(localRegion).scanner(p.openScanner(getScan(),metricFactory)); //set the scanner
+                    this.region(localRegion);
+                    if(scanner==null)
+                        this.scanner(p.openScanner(getScan(),metricFactory)); //set the scanner
                     TableScannerIterator tableScannerIterator=new TableScannerIterator(this,spliceOperation);
                     if(spliceOperation!=null){
                         spliceOperation.registerCloseable(tableScannerIterator);
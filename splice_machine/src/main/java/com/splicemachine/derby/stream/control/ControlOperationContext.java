@@ -49,6 +49,8 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         long rowsJoinedLeft;
         long rowsJoinedRight;
         long rowsProduced;
+        long rowsSpilled;
+        long bytesSpilled;
         List<String> badRecords;
         public ActivationHolder activationHolder;
         public SpliceTransactionResourceImpl impl;
@@ -259,6 +261,39 @@ public class ControlOperationContext<Op extends SpliceOperation> implements Oper
         return tooBusy;
     }
 
+    @Override
+    public synchronized void recordSpill(long rows, long bytes) {
+        rowsSpilled+=rows;
+        bytesSpilled+=bytes;
+    }
+
+    @Override
+    public long getRecordsSpilled() {
+        return rowsSpilled;
+    }
+
+    @Override
+    public long getBytesSpilled() {
+        return bytesSpilled;
+    }
+
+    /**
+     * Adds the counters of {@code copy}, a copy of this context that was used on another thread,
+     * to this context.
+     */
+    public synchronized void mergeMetrics(ControlOperationContext<?> copy) {
+        rowsRead+=copy.rowsRead;
+        rowsFiltered+=copy.rowsFiltered;
+        rowsWritten+=copy.rowsWritten;
+        rowsRetried+=copy.rowsRetried;
+        tooBusy+=copy.tooBusy;
+        rowsJoinedLeft+=copy.rowsJoinedLeft;
+        rowsJoinedRight+=copy.rowsJoinedRight;
+        rowsProduced+=copy.rowsProduced;
+        rowsSpilled+=copy.rowsSpilled;
+        bytesSpilled+=copy.bytesSpilled;
+    }
+
     @Override
     public void pushScope(String displayName) {
         // no op
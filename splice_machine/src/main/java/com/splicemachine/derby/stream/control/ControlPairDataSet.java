@@ -43,8 +43,8 @@ import org.sparkproject.guava.base.Predicate;
 import org.sparkproject.guava.collect.*;
 import scala.Tuple2;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.*;
-import static com.splicemachine.derby.stream.control.ControlUtils.entryToTuple;
 import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIterable;
 
 /**
@@ -103,21 +103,40 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
-        Multimap<K,V> newMap = multimapFromIterable(source);
-        return new ControlPairDataSet<>(entryToTuple(Multimaps.forMap(Maps.transformValues(newMap.asMap(), new Function<Collection<V>, V>() {
+        SpillingAggregator<K,V,V> aggregator = SpillingAggregator.create(reduction(function2), function2.operationContext);
+        try {
+            aggregator.addAll(source);
+            return new ControlPairDataSet<>(aggregator.result());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the aggregation which reduces the values of a key with {@code function2}
+     */
+    static <Op extends SpliceOperation, V> SpillingAggregator.Aggregation<V, V> reduction(final SpliceFunction2<Op,V, V, V> function2) {
+        return new SpillingAggregator.Aggregation<V, V>() {
             @Override
-            public V apply(@Nullable Collection<V> vs) {
-                try {
-                    V returnValue = null;
-                    for (V v : vs) {
-                        returnValue = function2.call(returnValue, v);
-                    }
-                    return returnValue;
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
+            public V first(V value) throws Exception {
+                return function2.call(null, value);
+            }
+
+            @Override
+            public V add(V aggregate, V value) throws Exception {
+                return function2.call(aggregate, value);
+            }
+
+            @Override
+            public V merge(V aggregate, V other) throws Exception {
+                return function2.call(aggregate, other);
+            }
+
+            @Override
+            public boolean retainsValues() {
+                return false;
             }
-        })).entries()));
+        };
     }
 
     @Override
@@ -132,18 +151,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, V> sortByKey(final Comparator<K> comparator) {
-        /*
-         * -sf- this is done a bit goofily, so that we can support multiple versions of guava.
-         *
-         * This is essentially copying out FluentIterable.from(source).toSortedList(comparator) logic
-         * directly into the method, so that we can support the same code line from 12.0.1 on.
-         */
-        return new ControlPairDataSet<>(Ordering.from(new Comparator<Tuple2<K, V>>() {
-            @Override
-            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
-                return comparator.compare(o1._1(), o2._1());
-            }
-        }).immutableSortedCopy(source));
+        return sortByKey(comparator, null, null);
     }
 
     @Override
@@ -152,6 +160,23 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
         return sortByKey(comparator);
     }
 
+    @Override
+    public PairDataSet<K, V> sortByKey(final Comparator<K> comparator, String name, OperationContext context) {
+        SpillingSorter<Tuple2<K, V>> sorter = SpillingSorter.create(new Comparator<Tuple2<K, V>>() {
+            @Override
+            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
+                return comparator.compare(o1._1(), o2._1());
+            }
+        }, context);
+        try {
+            sorter.addAll(source);
+        } catch (IOException e) {
+            sorter.close();
+            throw new RuntimeException(e);
+        }
+        return new ControlPairDataSet<>(sorter);
+    }
+
     @Override
     public PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator) {
         // we don't need to partition
@@ -160,15 +185,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey() {
-        Multimap<K,V> newMap = multimapFromIterable(source);
-        return new ControlPairDataSet<>(FluentIterable.from(newMap.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
-            @Nullable
-            @Override
-            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
-                assert e!=null: "E cannot be null";
-                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
-            }
-        }));
+        return groupByKey(null, null);
     }
 
     @Override
@@ -176,6 +193,48 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
         return groupByKey();
     }
 
+    @Override
+    public PairDataSet<K, Iterable<V>> groupByKey(String name, OperationContext context) {
+        SpillingAggregator<K,V,ArrayList<V>> aggregator = SpillingAggregator.create(new SpillingAggregator.Aggregation<V, ArrayList<V>>() {
+            @Override
+            public ArrayList<V> first(V value) {
+                ArrayList<V> values = new ArrayList<>();
+                values.add(value);
+                return values;
+            }
+
+            @Override
+            public ArrayList<V> add(ArrayList<V> values, V value) {
+                values.add(value);
+                return values;
+            }
+
+            @Override
+            public ArrayList<V> merge(ArrayList<V> values, ArrayList<V> other) {
+                values.addAll(other);
+                return values;
+            }
+
+            @Override
+            public boolean retainsValues() {
+                return true;
+            }
+        }, context);
+        try {
+            aggregator.addAll(source);
+            return new ControlPairDataSet<>(FluentIterable.from(aggregator.result()).transform(new Function<Tuple2<K, ArrayList<V>>, Tuple2<K, Iterable<V>>>() {
+                @Nullable
+                @Override
+                public Tuple2<K, Iterable<V>> apply(@Nullable Tuple2<K, ArrayList<V>> t) {
+                    assert t!=null: "T cannot be null";
+                    return new Tuple2<K, Iterable<V>>(t._1(), t._2());
+                }
+            }));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public <W> PairDataSet< K, Tuple2<V, Optional<W>>> hashLeftOuterJoin(final PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
@@ -229,7 +288,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     public <W> PairDataSet< K, Tuple2<V, W>> hashJoin(PairDataSet< K, W> rightDataSet) {
         // Materializes the right side
         final Multimap<K,W> rightSide = multimapFromIterable(((ControlPairDataSet<K,W>) rightDataSet).source);
-        return new ControlPairDataSet<>(Iterables.concat(FluentIterable.from(source).transform(new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, W>>>>() {
+        return new ControlPairDataSet<>(Iterables.concat(FluentIterable.from(source).transform(ControlPairDataSet.<K,V,W>joinProbe(rightSide))));
+    }
+
+    /**
+     * @return a function joining each left side tuple with the matching values of the (materialized) right side
+     */
+    static <K,V,W> Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, W>>>> joinProbe(final Multimap<K,W> rightSide) {
+        return new Function<Tuple2<K, V>, Iterable<Tuple2<K, Tuple2<V, W>>>>() {
             @Nullable
             @Override
             public Iterable<Tuple2<K, Tuple2<V, W>>> apply(@Nullable Tuple2<K, V> t) {
@@ -242,7 +308,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
                 }
                 return result;
             }
-        })));
+        };
     }
 
     @Override
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.google.common.base.Function;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
+import com.splicemachine.derby.stream.function.SpliceFunction;
+import com.splicemachine.derby.stream.function.SplicePairFunction;
+import com.splicemachine.derby.stream.function.SplicePredicateFunction;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
+import org.sparkproject.guava.collect.FluentIterable;
+import org.sparkproject.guava.collect.Iterables;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Control side DataSet whose rows come from several independent partitions (usually one per region).
+ * <p>
+ * Narrow transformations (map, filter, flatMap, mapPartitions and index) are applied to each partition
+ * separately, so the whole pipeline up to the next wide operation runs concurrently on the
+ * {@link ParallelExecution} pool. Everything else sees the partitions concatenated in order and behaves
+ * exactly like a {@link ControlDataSet}. {@link #coalesce(int, boolean)} merges the partitions, so a
+ * function applied after {@code coalesce(1)} sees every row at once, as it does on Spark.
+ *
+ * @see ParallelExecution
+ */
+public class ParallelControlDataSet<V> extends ControlDataSet<V> {
+    protected final List<Iterable<V>> partitions;
+    protected final ParallelExecution execution;
+
+    public ParallelControlDataSet(List<Iterable<V>> partitions, ParallelExecution execution) {
+        super(execution.concat(partitions));
+        this.partitions = partitions;
+        this.execution = execution;
+    }
+
+    public List<Iterable<V>> getPartitions() {
+        return partitions;
+    }
+
+    @Override
+    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(SpliceFlatMapFunction<Op, Iterator<V>, U> f) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, f,
+                new ParallelExecution.PartitionFunction<SpliceFlatMapFunction<Op, Iterator<V>, U>, V, U>() {
+                    @Override
+                    public Iterable<U> apply(SpliceFlatMapFunction<Op, Iterator<V>, U> function, Iterable<V> partition) throws Exception {
+                        return function.call(FluentIterable.from(partition).iterator());
+                    }
+                }), execution);
+    }
+
+    @Override
+    public <Op extends SpliceOperation, K, U> PairDataSet<K, U> index(SplicePairFunction<Op, V, K, U> function) {
+        return new ParallelControlPairDataSet<>(execution.mapPartitions(partitions, function,
+                new ParallelExecution.PartitionFunction<SplicePairFunction<Op, V, K, U>, V, Tuple2<K, U>>() {
+                    @Override
+                    public Iterable<Tuple2<K, U>> apply(final SplicePairFunction<Op, V, K, U> function, Iterable<V> partition) {
+                        return FluentIterable.from(partition).transform(new Function<V, Tuple2<K, U>>() {
+                            @Nullable
+                            @Override
+                            public Tuple2<K, U> apply(@Nullable V v) {
+                                try {
+                                    return function.call(v);
+                                } catch (Exception e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                        });
+                    }
+                }), execution);
+    }
+
+    @Override
+    public <Op extends SpliceOperation, U> DataSet<U> map(SpliceFunction<Op, V, U> function) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, function,
+                new ParallelExecution.PartitionFunction<SpliceFunction<Op, V, U>, V, U>() {
+                    @Override
+                    public Iterable<U> apply(SpliceFunction<Op, V, U> function, Iterable<V> partition) {
+                        return Iterables.transform(partition, function);
+                    }
+                }), execution);
+    }
+
+    @Override
+    public <Op extends SpliceOperation> DataSet<V> filter(SplicePredicateFunction<Op, V> f) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, f,
+                new ParallelExecution.PartitionFunction<SplicePredicateFunction<Op, V>, V, V>() {
+                    @Override
+                    public Iterable<V> apply(SplicePredicateFunction<Op, V> function, Iterable<V> partition) {
+                        return Iterables.filter(partition, function);
+                    }
+                }), execution);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Op extends SpliceOperation, U> DataSet<U> flatMap(SpliceFlatMapFunction<Op, V, U> f) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, f,
+                new ParallelExecution.PartitionFunction<SpliceFlatMapFunction<Op, V, U>, V, U>() {
+                    @Override
+                    public Iterable<U> apply(SpliceFlatMapFunction<Op, V, U> function, Iterable<V> partition) {
+                        return (Iterable<U>) Iterables.concat(FluentIterable.from(partition).transform(function));
+                    }
+                }), execution);
+    }
+
+    @Override
+    public long count() {
+        List<Callable<Long>> counts = new ArrayList<>(partitions.size());
+        for (final Iterable<V> partition : partitions) {
+            counts.add(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return (long) Iterables.size(partition);
+                }
+            });
+        }
+        long count = 0;
+        for (Long partitionCount : execution.compute(counts)) {
+            count += partitionCount;
+        }
+        return count;
+    }
+
+    @Override
+    public DataSet<V> union(DataSet<V> dataSet) {
+        if (!(dataSet instanceof ParallelControlDataSet))
+            return super.union(dataSet);
+        List<Iterable<V>> union = new ArrayList<>(partitions);
+        union.addAll(((ParallelControlDataSet<V>) dataSet).partitions);
+        return new ParallelControlDataSet<>(union, execution);
+    }
+
+    @Override
+    public DataSet<V> coalesce(int numPartitions, boolean shuffle) {
+        if (numPartitions >= partitions.size())
+            return this;
+        if (numPartitions <= 1)
+            return new ControlDataSet<>(iterable);
+        // concatenate adjacent partitions, so the rows keep their order
+        List<Iterable<V>> coalesced = new ArrayList<>(numPartitions);
+        int start = 0;
+        for (int i = 0; i < numPartitions; i++) {
+            int end = (int) ((long) partitions.size() * (i + 1) / numPartitions);
+            coalesced.add(Iterables.concat(partitions.subList(start, end)));
+            start = end;
+        }
+        return new ParallelControlDataSet<>(coalesced, execution);
+    }
+
+    @Override
+    public DataSet<V> coalesce(int numPartitions, boolean shuffle, boolean isLast, OperationContext context, boolean pushScope, String scopeDetail) {
+        return coalesce(numPartitions, shuffle);
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelControlDataSet [partitions=" + partitions.size() + "]";
+    }
+}
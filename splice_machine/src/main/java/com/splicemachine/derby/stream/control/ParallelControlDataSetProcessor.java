@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.stream.iterator.TableScannerIterator;
+import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.server.Transactor;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.TxnRegion;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.si.impl.rollforward.NoopRollForward;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.Partition;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Local control side DataSetProcessor which uses more than one core.
+ * <p>
+ * Table scans are split along region boundaries and each region is scanned by its own thread. The
+ * resulting {@link ParallelControlDataSet} keeps the regions apart for as long as the operations
+ * on top of it allow, so that filtering, projection and the partial aggregation of a group by
+ * also run concurrently.
+ *
+ * @see ParallelExecution
+ */
+public class ParallelControlDataSetProcessor extends ControlDataSetProcessor{
+    private static final Logger LOG=Logger.getLogger(ParallelControlDataSetProcessor.class);
+
+    private final int parallelism;
+    private final int bufferSize;
+
+    public ParallelControlDataSetProcessor(TxnSupplier txnSupplier,
+                                           Transactor transactory,
+                                           TxnOperationFactory txnOperationFactory,
+                                           SConfiguration config){
+        super(txnSupplier,transactory,txnOperationFactory);
+        int threads=config.getParallelControlThreads();
+        this.parallelism=threads>0?threads:Runtime.getRuntime().availableProcessors();
+        this.bufferSize=Math.max(1,config.getParallelControlBufferSize());
+    }
+
+    @Override
+    @SuppressFBWarnings(value = "SE_NO_SUITABLE_CONSTRUCTOR_FOR_EXTERNALIZATION",justification = "Serialization" +
+            "of this is a mistake for control-side operations")
+    public <Op extends SpliceOperation,V> ScanSetBuilder<V> newScanSet(final Op spliceOperation,final String tableName) throws StandardException{
+        return new TableScannerBuilder<V>(){
+            @Override
+            public DataSet<V> buildDataSet() throws StandardException{
+                DataScan scan=getScan();
+                List<DataScan> scans;
+                try(Partition table=SIDriver.driver().getTableFactory().getTable(tableName)){
+                    scans=splitScan(scan,table);
+                }catch(IOException e){
+                    throw Exceptions.parseException(e);
+                }
+
+                final Queue<AutoCloseable> resources=new ConcurrentLinkedQueue<>();
+                if(spliceOperation!=null){
+                    spliceOperation.registerCloseable(new AutoCloseable(){
+                        @Override
+                        public void close() throws Exception{
+                            AutoCloseable resource;
+                            while((resource=resources.poll())!=null){
+                                try{
+                                    resource.close();
+                                }catch(Exception e){
+                                    LOG.warn("Unable to close parallel scan resource",e);
+                                }
+                            }
+                        }
+                    });
+                }
+
+                List<Iterable<V>> partitions=new ArrayList<>(scans.size());
+                for(final DataScan partitionScan : scans){
+                    final TableScannerBuilder<V> partitionBuilder=copyInto(new PartitionScanBuilder<V>(tableName,resources),partitionScan);
+                    partitions.add(new Iterable<V>(){
+                        @Override
+                        public Iterator<V> iterator(){
+                            try{
+                                return partitionBuilder.buildDataSet().toLocalIterator();
+                            }catch(StandardException e){
+                                throw new RuntimeException(e);
+                            }
+                        }
+                    });
+                }
+                ParallelExecution execution=new ParallelExecution(ParallelExecution.sharedPool(parallelism),
+                        parallelism,bufferSize,spliceOperation);
+                return new ParallelControlDataSet<>(partitions,execution);
+            }
+        };
+    }
+
+    /**
+     * Splits the scan into one scan per region, in key order. Descending scans are not split.
+     */
+    private List<DataScan> splitScan(DataScan scan,Partition table) throws IOException{
+        if(scan.isDescendingScan())
+            return Collections.singletonList(scan);
+        byte[] start=scan.getStartKey();
+        byte[] stop=scan.getStopKey();
+        List<Partition> regions=table.subPartitions(start,stop);
+        if(regions.size()<=1)
+            return Collections.singletonList(scan);
+
+        byte[] serializedScan=serialize(scan);
+        List<DataScan> scans=new ArrayList<>(regions.size());
+        for(Partition region : regions){
+            byte[] regionStart=region.getStartKey();
+            byte[] regionStop=region.getEndKey();
+            byte[] partitionStart=Bytes.compareBytes(false,start,regionStart)>0?start:regionStart;
+            byte[] partitionStop=Bytes.compareBytes(true,stop,regionStop)<0?stop:regionStop;
+            if(!Bytes.empty(partitionStop) && Bytes.compareBytes(false,partitionStart,partitionStop)>=0)
+                continue;
+            scans.add(deserialize(serializedScan).startKey(partitionStart).stopKey(partitionStop));
+        }
+        return scans.isEmpty()?Collections.singletonList(scan):scans;
+    }
+
+    private byte[] serialize(DataScan scan) throws IOException{
+        ByteArrayOutputStream baos=new ByteArrayOutputStream();
+        try(ObjectOutputStream out=new ObjectOutputStream(baos)){
+            txnOperationFactory.writeScan(scan,out);
+        }
+        return baos.toByteArray();
+    }
+
+    private DataScan deserialize(byte[] serializedScan) throws IOException{
+        try(ObjectInputStream in=new ObjectInputStream(new ByteArrayInputStream(serializedScan))){
+            return txnOperationFactory.readScan(in);
+        }
+    }
+
+    /**
+     * Scans a single region. The table and scanner it opens are handed to the parent scan's resources,
+     * since the operation is shared between threads and the scanner must not touch it.
+     */
+    private class PartitionScanBuilder<V> extends TableScannerBuilder<V>{
+        private final String tableName;
+        private final Queue<AutoCloseable> resources;
+
+        PartitionScanBuilder(String tableName,Queue<AutoCloseable> resources){
+            this.tableName=tableName;
+            this.resources=resources;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public DataSet<V> buildDataSet() throws StandardException{
+            try{
+                Partition p=SIDriver.driver().getTableFactory().getTable(tableName);
+                resources.add(p);
+                TxnRegion localRegion=new TxnRegion(p,NoopRollForward.INSTANCE,NoOpReadResolver.INSTANCE,
+                        txnSupplier,transactory,txnOperationFactory);
+                this.region(localRegion);
+                this.scanner(p.openScanner(getScan(),metricFactory));
+                TableScannerIterator tableScannerIterator=new TableScannerIterator(this,null);
+                resources.add(tableScannerIterator);
+                return new ControlDataSet(tableScannerIterator);
+            }catch(IOException e){
+                throw Exceptions.parseException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.google.common.base.Function;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
+import com.splicemachine.derby.stream.function.SpliceFunction;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
+import org.apache.commons.lang3.SerializationUtils;
+import org.sparkproject.guava.collect.FluentIterable;
+import org.sparkproject.guava.collect.Iterables;
+import org.sparkproject.guava.collect.Multimap;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static com.splicemachine.derby.stream.control.ControlUtils.multimapFromIterable;
+
+/**
+ * Partitioned version of {@link ControlPairDataSet}.
+ * <p>
+ * Besides the narrow transformations, {@link #reduceByKey(SpliceFunction2)} combines every partition
+ * concurrently before merging the partial results, spilling both to disk the way {@link ControlPairDataSet}
+ * does, and {@link #hashJoin(PairDataSet)} probes the materialized right side from each left partition
+ * concurrently.
+ *
+ * @see ParallelControlDataSet
+ */
+public class ParallelControlPairDataSet<K,V> extends ControlPairDataSet<K,V> {
+    protected final List<Iterable<Tuple2<K,V>>> partitions;
+    protected final ParallelExecution execution;
+
+    public ParallelControlPairDataSet(List<Iterable<Tuple2<K,V>>> partitions, ParallelExecution execution) {
+        super(execution.concat(partitions));
+        this.partitions = partitions;
+        this.execution = execution;
+    }
+
+    @Override
+    public DataSet<V> values() {
+        List<Iterable<V>> values = new ArrayList<>(partitions.size());
+        for (Iterable<Tuple2<K,V>> partition : partitions) {
+            values.add(FluentIterable.from(partition).transform(new Function<Tuple2<K,V>, V>() {
+                @Nullable @Override
+                public V apply(@Nullable Tuple2<K,V> t) {
+                    assert t!=null;
+                    return t._2();
+                }
+            }));
+        }
+        return new ParallelControlDataSet<>(values, execution);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
+        final byte[] serializedFunction = SerializationUtils.serialize(function2);
+        // the partitions share the spill budget, so that their partial results fit in it together
+        long partitionMemory = Math.max(1L, SpillingSorter.configuredMaxMemory() / partitions.size());
+        File directory = SpillingSorter.configuredDirectory();
+        List<Callable<Iterable<Tuple2<K,V>>>> combiners = new ArrayList<>(partitions.size());
+        for (final Iterable<Tuple2<K,V>> partition : partitions) {
+            final SpliceFunction2<Op,V,V,V> function = (SpliceFunction2<Op,V,V,V>) SerializationUtils.deserialize(serializedFunction);
+            // created on this thread, which owns the operation its spill files are registered with
+            final SpillingAggregator<K,V,V> combiner = new SpillingAggregator<>(ControlPairDataSet.reduction(function),
+                    partitionMemory, directory, function2.operationContext);
+            combiners.add(new Callable<Iterable<Tuple2<K,V>>>() {
+                @Override
+                public Iterable<Tuple2<K,V>> call() throws Exception {
+                    combiner.addAll(partition);
+                    ParallelExecution.mergeMetrics(function2, function);
+                    return combiner.result();
+                }
+            });
+        }
+        // merge the partial results in partition order
+        SpillingAggregator<K,V,V> merged = SpillingAggregator.create(new SpillingAggregator.Aggregation<V, V>() {
+            @Override
+            public V first(V partial) {
+                return partial;
+            }
+
+            @Override
+            public V add(V aggregate, V partial) throws Exception {
+                return function2.call(aggregate, partial);
+            }
+
+            @Override
+            public V merge(V aggregate, V other) throws Exception {
+                return function2.call(aggregate, other);
+            }
+
+            @Override
+            public boolean retainsValues() {
+                return false;
+            }
+        }, function2.operationContext);
+        try {
+            for (Iterable<Tuple2<K,V>> partial : execution.compute(combiners)) {
+                merged.addAll(partial);
+            }
+            return new ControlPairDataSet<>(merged.result());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public <Op extends SpliceOperation, U> DataSet<U> map(SpliceFunction<Op,Tuple2<K, V>, U> function) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, function,
+                new ParallelExecution.PartitionFunction<SpliceFunction<Op, Tuple2<K, V>, U>, Tuple2<K, V>, U>() {
+                    @Override
+                    public Iterable<U> apply(SpliceFunction<Op, Tuple2<K, V>, U> function, Iterable<Tuple2<K, V>> partition) {
+                        return FluentIterable.from(partition).transform(function);
+                    }
+                }), execution);
+    }
+
+    @Override
+    public <Op extends SpliceOperation, U> DataSet<U> mapPartitions(SpliceFlatMapFunction<Op, Iterator<Tuple2<K, V>>, U> f) {
+        return new ParallelControlDataSet<>(execution.mapPartitions(partitions, f,
+                new ParallelExecution.PartitionFunction<SpliceFlatMapFunction<Op, Iterator<Tuple2<K, V>>, U>, Tuple2<K, V>, U>() {
+                    @Override
+                    public Iterable<U> apply(SpliceFlatMapFunction<Op, Iterator<Tuple2<K, V>>, U> function, Iterable<Tuple2<K, V>> partition) throws Exception {
+                        return function.call(partition.iterator());
+                    }
+                }), execution);
+    }
+
+    @Override
+    public <W> PairDataSet< K, Tuple2<V, W>> hashJoin(PairDataSet< K, W> rightDataSet) {
+        // Materializes the right side, which is then only read by the probing partitions
+        final Multimap<K,W> rightSide = multimapFromIterable(((ControlPairDataSet<K,W>) rightDataSet).source);
+        List<Iterable<Tuple2<K, Tuple2<V, W>>>> joined = new ArrayList<>(partitions.size());
+        for (Iterable<Tuple2<K,V>> partition : partitions) {
+            joined.add(Iterables.concat(FluentIterable.from(partition).transform(ControlPairDataSet.<K,V,W>joinProbe(rightSide))));
+        }
+        return new ParallelControlPairDataSet<>(joined, execution);
+    }
+
+    @Override
+    public PairDataSet<K, V> union(PairDataSet<K, V> dataSet) {
+        if (!(dataSet instanceof ParallelControlPairDataSet))
+            return super.union(dataSet);
+        List<Iterable<Tuple2<K,V>>> union = new ArrayList<>(partitions);
+        union.addAll(((ParallelControlPairDataSet<K,V>) dataSet).partitions);
+        return new ParallelControlPairDataSet<>(union, execution);
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelControlPairDataSet [partitions=" + partitions.size() + "]";
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.store.access.hbase.HBaseRowLocation;
+import com.splicemachine.derby.stream.function.AbstractSpliceFunction;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the partitions of a {@link ParallelControlDataSet} on a shared pool of local threads.
+ * <p>
+ * Every piece of work is <em>claimed</em> before it runs. A thread waiting on a partition that
+ * no pool thread has started yet claims it and runs it itself, so a caller never waits for work
+ * that is queued behind other (possibly blocked) tasks in the pool.
+ * <p>
+ * Control-side functions share their operation and activation with the rest of the operation tree,
+ * which is not thread safe. Functions applied to partitions in parallel are therefore copied once per
+ * partition through serialization, the same way they are shipped to Spark tasks. Once a partition is
+ * exhausted, the metrics its copy recorded are added back to the original function's context.
+ */
+public class ParallelExecution{
+    private static final Logger LOG=Logger.getLogger(ParallelExecution.class);
+
+    private static final Object END_OF_PARTITION=new Object();
+    private static final long OFFER_TIMEOUT_MS=100L;
+
+    private static volatile ForkJoinPool pool;
+
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int bufferSize;
+    private final SpliceOperation owner;
+
+    public ParallelExecution(ExecutorService executor,int parallelism,int bufferSize,SpliceOperation owner){
+        this.executor=executor;
+        this.parallelism=parallelism;
+        this.bufferSize=bufferSize;
+        this.owner=owner;
+    }
+
+    /**
+     * @return the pool shared by all parallel control-side queries on this JVM
+     */
+    public static ForkJoinPool sharedPool(int threads){
+        ForkJoinPool p=pool;
+        if(p==null){
+            synchronized(ParallelExecution.class){
+                p=pool;
+                if(p==null){
+                    p=pool=new ForkJoinPool(threads,ForkJoinPool.defaultForkJoinWorkerThreadFactory,null,true);
+                }
+            }
+        }
+        return p;
+    }
+
+    public int getParallelism(){
+        return parallelism;
+    }
+
+    /**
+     * Concatenates the partitions, in order. Up to {@link #getParallelism()} partitions ahead of the
+     * one being consumed are computed concurrently and buffered, a few rows at a time.
+     */
+    public <T> Iterable<T> concat(final List<? extends Iterable<T>> partitions){
+        if(partitions.size()==1)
+            return partitions.get(0);
+        return new Iterable<T>(){
+            @Override
+            public Iterator<T> iterator(){
+                PrefetchingIterator<T> iterator=new PrefetchingIterator<>(partitions);
+                if(owner!=null){
+                    try{
+                        owner.registerCloseable(iterator);
+                    }catch(StandardException e){
+                        throw new RuntimeException(e);
+                    }
+                }
+                return iterator;
+            }
+        };
+    }
+
+    /**
+     * Computes all tasks, in parallel, and returns their results in order.
+     */
+    public <R> List<R> compute(List<? extends Callable<R>> tasks){
+        List<ClaimableTask<R>> claimables=new ArrayList<>(tasks.size());
+        for(Callable<R> task : tasks){
+            ClaimableTask<R> claimable=new ClaimableTask<>(task);
+            claimables.add(claimable);
+        }
+        // the first task is run by the caller, so don't bother submitting it
+        for(int i=1;i<claimables.size();i++){
+            executor.execute(claimables.get(i));
+        }
+        List<R> results=new ArrayList<>(claimables.size());
+        for(ClaimableTask<R> claimable : claimables){
+            results.add(claimable.get());
+        }
+        return results;
+    }
+
+    /**
+     * Lazily maps each partition through a private copy of {@code function}.
+     */
+    public <F extends Serializable,T,U> List<Iterable<U>> mapPartitions(List<? extends Iterable<T>> partitions,
+                                                                        final F function,
+                                                                        final PartitionFunction<F,T,U> application){
+        final byte[] serializedFunction=SerializationUtils.serialize(function);
+        List<Iterable<U>> mapped=new ArrayList<>(partitions.size());
+        for(final Iterable<T> partition : partitions){
+            mapped.add(new Iterable<U>(){
+                @Override
+                @SuppressWarnings("unchecked")
+                public Iterator<U> iterator(){
+                    F copy=(F)SerializationUtils.deserialize(serializedFunction);
+                    try{
+                        return new MetricsMergingIterator<>(application.apply(copy,partition).iterator(),function,copy);
+                    }catch(Exception e){
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+        return mapped;
+    }
+
+    /**
+     * Applies a function to a single partition.
+     */
+    public interface PartitionFunction<F,T,U>{
+        Iterable<U> apply(F function,Iterable<T> partition) throws Exception;
+    }
+
+    /**
+     * Adds the metrics recorded by a private copy of a function to the context of the original function.
+     */
+    static void mergeMetrics(Object original,Object copy){
+        if(!(original instanceof AbstractSpliceFunction) || !(copy instanceof AbstractSpliceFunction))
+            return;
+        OperationContext originalContext=((AbstractSpliceFunction)original).operationContext;
+        OperationContext copyContext=((AbstractSpliceFunction)copy).operationContext;
+        if(originalContext instanceof ControlOperationContext && copyContext instanceof ControlOperationContext
+                && originalContext!=copyContext){
+            ((ControlOperationContext)originalContext).mergeMetrics((ControlOperationContext)copyContext);
+        }
+    }
+
+    /**
+     * Copies rows that are handed from one thread to another. Control-side functions are free to
+     * reuse their output rows, since rows are normally consumed before the next one is produced;
+     * that no longer holds once rows are buffered between threads.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T copyForHandoff(T value){
+        if(value instanceof LocatedRow){
+            LocatedRow locatedRow=(LocatedRow)value;
+            RowLocation rowLocation=locatedRow.getRowLocation();
+            if(rowLocation instanceof HBaseRowLocation)
+                rowLocation=HBaseRowLocation.deepClone((HBaseRowLocation)rowLocation);
+            ExecRow row=locatedRow.getRow();
+            return (T)new LocatedRow(rowLocation,row==null?null:row.getClone());
+        }else if(value instanceof ExecRow){
+            return (T)((ExecRow)value).getClone();
+        }else if(value instanceof Tuple2){
+            Tuple2 tuple=(Tuple2)value;
+            return (T)new Tuple2<>(copyForHandoff(tuple._1()),copyForHandoff(tuple._2()));
+        }
+        return value;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private static class ClaimableTask<R> implements Runnable{
+        private final Callable<R> task;
+        private final AtomicBoolean claimed=new AtomicBoolean(false);
+        private R result;
+        private Throwable error;
+        private boolean done;
+
+        ClaimableTask(Callable<R> task){
+            this.task=task;
+        }
+
+        @Override
+        public void run(){
+            if(!claimed.compareAndSet(false,true)) return;
+            R r=null;
+            Throwable t=null;
+            try{
+                r=task.call();
+            }catch(Throwable e){
+                t=e;
+            }
+            synchronized(this){
+                result=r;
+                error=t;
+                done=true;
+                notifyAll();
+            }
+        }
+
+        R get(){
+            run(); //run it ourselves if nobody has started it yet
+            boolean interrupted=false;
+            synchronized(this){
+                while(!done){
+                    try{
+                        wait();
+                    }catch(InterruptedException e){
+                        interrupted=true;
+                    }
+                }
+            }
+            if(interrupted)
+                Thread.currentThread().interrupt();
+            if(error!=null){
+                if(error instanceof RuntimeException) throw (RuntimeException)error;
+                throw new RuntimeException(error);
+            }
+            return result;
+        }
+    }
+
+    private static class MetricsMergingIterator<U> implements Iterator<U>{
+        private final Iterator<U> delegate;
+        private final Object original;
+        private final Object copy;
+        private boolean merged=false;
+
+        MetricsMergingIterator(Iterator<U> delegate,Object original,Object copy){
+            this.delegate=delegate;
+            this.original=original;
+            this.copy=copy;
+        }
+
+        @Override
+        public boolean hasNext(){
+            if(delegate.hasNext()) return true;
+            if(!merged){
+                merged=true;
+                mergeMetrics(original,copy);
+            }
+            return false;
+        }
+
+        @Override
+        public U next(){
+            return delegate.next();
+        }
+
+        @Override
+        public void remove(){
+            delegate.remove();
+        }
+    }
+
+    private static class PartitionFailure{
+        private final Throwable cause;
+
+        PartitionFailure(Throwable cause){
+            this.cause=cause;
+        }
+    }
+
+    private class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable{
+        private final List<Producer> producers;
+        private volatile boolean closed=false;
+        private int submitted=0;
+        private int position=-1;
+        private Iterator<T> current;
+
+        PrefetchingIterator(List<? extends Iterable<T>> partitions){
+            this.producers=new ArrayList<>(partitions.size());
+            for(Iterable<T> partition : partitions){
+                producers.add(new Producer(partition));
+            }
+        }
+
+        @Override
+        public boolean hasNext(){
+            while(true){
+                if(current!=null){
+                    if(current.hasNext()) return true;
+                    current=null;
+                }
+                if(position+1>=producers.size()) return false;
+                position++;
+                current=open(position);
+            }
+        }
+
+        @Override
+        public T next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close(){
+            closed=true;
+            for(Producer producer : producers){
+                producer.queue.clear();
+            }
+        }
+
+        private Iterator<T> open(int partition){
+            int limit=Math.min(producers.size(),partition+parallelism);
+            while(submitted<limit){
+                if(submitted>partition){
+                    try{
+                        executor.execute(producers.get(submitted));
+                    }catch(Exception e){
+                        LOG.warn("Unable to schedule partition "+submitted+", it will run in the consuming thread",e);
+                    }
+                }
+                submitted++;
+            }
+            Producer producer=producers.get(partition);
+            if(producer.claimed.compareAndSet(false,true)){
+                // nobody has started it yet, so consume it directly in this thread
+                return producer.partition.iterator();
+            }
+            return producer;
+        }
+
+        private class Producer implements Runnable, Iterator<T>{
+            private final Iterable<T> partition;
+            private final AtomicBoolean claimed=new AtomicBoolean(false);
+            private final BlockingQueue<Object> queue=new ArrayBlockingQueue<>(bufferSize);
+            private Object next;
+
+            Producer(Iterable<T> partition){
+                this.partition=partition;
+            }
+
+            @Override
+            public void run(){
+                if(!claimed.compareAndSet(false,true)) return;
+                try{
+                    for(T value : partition){
+                        if(!offer(copyForHandoff(value))) return;
+                    }
+                    offer(END_OF_PARTITION);
+                }catch(Throwable t){
+                    try{
+                        offer(new PartitionFailure(t));
+                    }catch(InterruptedException ie){
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            private boolean offer(Object value) throws InterruptedException{
+                while(!closed){
+                    if(queue.offer(value,OFFER_TIMEOUT_MS,TimeUnit.MILLISECONDS)) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean hasNext(){
+                if(next==null){
+                    try{
+                        next=queue.take();
+                    }catch(InterruptedException e){
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }
+                if(next instanceof PartitionFailure){
+                    Throwable cause=((PartitionFailure)next).cause;
+                    if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+                    throw new RuntimeException(cause);
+                }
+                return next!=END_OF_PARTITION;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next(){
+                if(!hasNext()) throw new NoSuchElementException();
+                T value=(T)next;
+                next=null;
+                return value;
+            }
+
+            @Override
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Memory-budgeted hash aggregation for the control side.
+ * <p>
+ * Values are aggregated per key in a hash table until its estimated size exceeds the budget. The partial
+ * aggregates are then sorted by the hash code of their key and spilled through a {@link SpillingSorter}, and the
+ * table starts over. When the results are read, the spilled runs are merged in hash order, so that the partial
+ * aggregates of any one key arrive together and can be combined while only the keys sharing a single hash code
+ * are held in memory.
+ * <p>
+ * If nothing was spilled, the results are read directly from the hash table, in the order the keys were first seen.
+ */
+class SpillingAggregator<K,V,A>{
+
+    /**
+     * How the values of a key are combined.
+     */
+    interface Aggregation<V,A>{
+        A first(V value) throws Exception;
+
+        A add(A aggregate,V value) throws Exception;
+
+        A merge(A aggregate,A other) throws Exception;
+
+        /**
+         * @return true if the aggregate grows with every value added to it (as when grouping)
+         */
+        boolean retainsValues();
+    }
+
+    private static final Comparator<Tuple2<?,?>> KEY_HASH_ORDER=new Comparator<Tuple2<?,?>>(){
+        @Override
+        public int compare(Tuple2<?,?> o1,Tuple2<?,?> o2){
+            return Integer.compare(hash(o1._1()),hash(o2._1()));
+        }
+    };
+    private static final int ENTRY_OVERHEAD=48;
+
+    private final Aggregation<V,A> aggregation;
+    private final long maxMemory;
+    private final SpillingSorter<Tuple2<K,A>> spilled;
+
+    private Map<K,A> table=new LinkedHashMap<>();
+    private long tableBytes;
+
+    SpillingAggregator(Aggregation<V,A> aggregation,long maxMemory,File directory,OperationContext<?> context){
+        this.aggregation=aggregation;
+        this.maxMemory=maxMemory;
+        this.spilled=new SpillingSorter<>(KEY_HASH_ORDER,maxMemory,directory,context);
+    }
+
+    /**
+     * Creates an aggregator with the configured control-side spill settings.
+     */
+    static <K,V,A> SpillingAggregator<K,V,A> create(Aggregation<V,A> aggregation,OperationContext<?> context){
+        return new SpillingAggregator<>(aggregation,SpillingSorter.configuredMaxMemory(),
+                SpillingSorter.configuredDirectory(),context);
+    }
+
+    void add(K key,V value) throws Exception{
+        A aggregate=table.get(key);
+        if(aggregate==null && !table.containsKey(key)){
+            table.put(key,aggregation.first(value));
+            tableBytes+=ENTRY_OVERHEAD+SpillingSorter.estimateSize(key)+SpillingSorter.estimateSize(value);
+        }else{
+            table.put(key,aggregation.add(aggregate,value));
+            if(aggregation.retainsValues())
+                tableBytes+=SpillingSorter.estimateSize(value);
+        }
+        if(tableBytes>maxMemory)
+            spill();
+    }
+
+    void addAll(Iterable<Tuple2<K,V>> values) throws Exception{
+        for(Tuple2<K,V> t : values){
+            add(t._1(),t._2());
+        }
+    }
+
+    /**
+     * @return the aggregate of every key. If anything was spilled, the results are ordered by the hash code of the key.
+     */
+    Iterable<Tuple2<K,A>> result() throws IOException{
+        if(spilled.getRunCount()==0)
+            return ControlUtils.entryToTuple(table.entrySet());
+        for(Map.Entry<K,A> entry : table.entrySet()){
+            spilled.add(new Tuple2<>(entry.getKey(),entry.getValue()));
+        }
+        table=Collections.emptyMap();
+        return new Iterable<Tuple2<K,A>>(){
+            @Override
+            public Iterator<Tuple2<K,A>> iterator(){
+                return new MergingIterator(spilled.iterator());
+            }
+        };
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+    private void spill() throws IOException{
+        for(Map.Entry<K,A> entry : table.entrySet()){
+            spilled.add(new Tuple2<>(entry.getKey(),entry.getValue()));
+        }
+        spilled.spill();
+        table=new LinkedHashMap<>();
+        tableBytes=0;
+    }
+
+    private static int hash(Object key){
+        return key==null?0:key.hashCode();
+    }
+
+    /**
+     * Combines the partial aggregates of each key, one hash code at a time.
+     */
+    private class MergingIterator implements Iterator<Tuple2<K,A>>{
+        private final Iterator<Tuple2<K,A>> sorted;
+        private Tuple2<K,A> next;
+        private Iterator<Map.Entry<K,A>> group=Collections.emptyIterator();
+
+        MergingIterator(Iterator<Tuple2<K,A>> sorted){
+            this.sorted=sorted;
+            this.next=sorted.hasNext()?sorted.next():null;
+        }
+
+        @Override
+        public boolean hasNext(){
+            if(group.hasNext()) return true;
+            if(next==null) return false;
+            Map<K,A> keys=new LinkedHashMap<>();
+            int hash=hash(next._1());
+            try{
+                do{
+                    K key=next._1();
+                    A aggregate=keys.get(key);
+                    if(aggregate==null && !keys.containsKey(key))
+                        keys.put(key,next._2());
+                    else
+                        keys.put(key,aggregation.merge(aggregate,next._2()));
+                    next=sorted.hasNext()?sorted.next():null;
+                }while(next!=null && hash(next._1())==hash);
+            }catch(Exception e){
+                throw new RuntimeException(e);
+            }
+            group=keys.entrySet().iterator();
+            return true;
+        }
+
+        @Override
+        public Tuple2<K,A> next(){
+            if(!hasNext()) throw new NoSuchElementException();
+            Map.Entry<K,A> entry=group.next();
+            return new Tuple2<>(entry.getKey(),entry.getValue());
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.utils.SpliceLogUtils;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Memory-budgeted external merge sort for the control side.
+ * <p>
+ * Values are buffered until their estimated size exceeds the budget, at which point the buffer is sorted and
+ * written to a temporary file (a <em>run</em>). The sorted output is then produced by streaming a merge of all
+ * the runs and whatever is still buffered, so that only one value per run is held in memory at a time.
+ * <p>
+ * When the sorter belongs to an operation, its run files are kept (so the output may be read more than once) until
+ * that operation is closed. Otherwise the output can only be read once, and the run files are deleted as soon as
+ * the merge finishes or the sorter is closed.
+ */
+public class SpillingSorter<T> implements Iterable<T>, AutoCloseable{
+    private static final Logger LOG=Logger.getLogger(SpillingSorter.class);
+    /*
+     * ObjectOutputStream keeps a reference to everything it writes until it is reset, so
+     * it must be reset every so often to keep that from holding the whole run in memory
+     */
+    private static final int RESET_INTERVAL=1024;
+
+    private final Comparator<? super T> comparator;
+    private final long maxMemory;
+    private final File directory;
+    private final OperationContext<?> context;
+    private final boolean ownedByOperation;
+
+    private List<T> buffer=new ArrayList<>();
+    private long bufferedBytes;
+    private final List<File> runs=new ArrayList<>();
+    private final List<Closeable> openReaders=new ArrayList<>();
+    private boolean sorted=false;
+    private boolean merged=false;
+    private boolean closed=false;
+
+    /**
+     * @param context the context of the operation doing the sort, for spill metrics and clean up. May be null.
+     */
+    public SpillingSorter(Comparator<? super T> comparator,long maxMemory,File directory,OperationContext<?> context){
+        this.comparator=comparator;
+        this.maxMemory=maxMemory;
+        this.directory=directory;
+        this.context=context;
+        SpliceOperation op=context==null?null:context.getOperation();
+        if(op!=null){
+            try{
+                op.registerCloseable(this);
+            }catch(StandardException e){
+                throw new RuntimeException(e);
+            }
+        }
+        this.ownedByOperation=op!=null;
+    }
+
+    /**
+     * Creates a sorter with the configured control-side spill settings.
+     */
+    public static <T> SpillingSorter<T> create(Comparator<? super T> comparator,OperationContext<?> context){
+        return new SpillingSorter<>(comparator,configuredMaxMemory(),configuredDirectory(),context);
+    }
+
+    /**
+     * @return the configured spill budget, or no budget at all when running without a driver (as in unit tests)
+     */
+    static long configuredMaxMemory(){
+        SIDriver driver=SIDriver.driver();
+        return driver==null?Long.MAX_VALUE:driver.getConfiguration().getControlSpillMaxMemory();
+    }
+
+    static File configuredDirectory(){
+        SIDriver driver=SIDriver.driver();
+        return new File(driver==null?System.getProperty("java.io.tmpdir"):driver.getConfiguration().getControlSpillDirectory());
+    }
+
+    public void add(T value) throws IOException{
+        checkOpen();
+        sorted=false;
+        buffer.add(value);
+        bufferedBytes+=estimateSize(value);
+        if(bufferedBytes>maxMemory)
+            spill();
+    }
+
+    public void addAll(Iterable<? extends T> values) throws IOException{
+        for(T value : values){
+            add(value);
+        }
+    }
+
+    /**
+     * Writes everything buffered so far to a new run.
+     */
+    public void spill() throws IOException{
+        if(buffer.isEmpty()) return;
+        Collections.sort(buffer,comparator);
+        File run=File.createTempFile("splice-spill-",".run",directory);
+        runs.add(run);
+        try(ObjectOutputStream out=new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(run)))){
+            out.writeInt(buffer.size());
+            int written=0;
+            for(T value : buffer){
+                out.writeObject(value);
+                if(++written%RESET_INTERVAL==0)
+                    out.reset();
+            }
+        }
+        if(context!=null)
+            context.recordSpill(buffer.size(),run.length());
+        if(LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG,"spilled %d rows (%d bytes) to %s",buffer.size(),run.length(),run);
+        buffer=new ArrayList<>();
+        bufferedBytes=0;
+    }
+
+    /**
+     * @return the number of runs written to disk so far
+     */
+    public int getRunCount(){
+        return runs.size();
+    }
+
+    @Override
+    public Iterator<T> iterator(){
+        checkOpen();
+        if(!sorted){
+            Collections.sort(buffer,comparator);
+            sorted=true;
+        }
+        if(runs.isEmpty())
+            return buffer.iterator();
+        if(merged && !ownedByOperation)
+            throw new IllegalStateException("Sorted rows have already been consumed: spilled rows can only be read once");
+        merged=true;
+        try{
+            List<Iterator<T>> sources=new ArrayList<>(runs.size()+1);
+            for(File run : runs){
+                RunReader reader=new RunReader(run);
+                openReaders.add(reader);
+                sources.add(reader);
+            }
+            sources.add(buffer.iterator());
+            return new MergingIterator(sources);
+        }catch(IOException e){
+            close();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close(){
+        closed=true;
+        for(Closeable reader : openReaders){
+            try{
+                reader.close();
+            }catch(IOException e){
+                LOG.warn("Unable to close spill file",e);
+            }
+        }
+        openReaders.clear();
+        for(File run : runs){
+            if(run.exists() && !run.delete())
+                LOG.warn("Unable to delete spill file "+run);
+        }
+        buffer=Collections.emptyList();
+    }
+
+    private void checkOpen(){
+        if(closed)
+            throw new IllegalStateException("Sorted rows have already been consumed: the sorter is closed");
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes {@code value} takes on the heap
+     */
+    static long estimateSize(Object value){
+        if(value==null)
+            return 8;
+        if(value instanceof Tuple2){
+            Tuple2 tuple=(Tuple2)value;
+            return 32+estimateSize(tuple._1())+estimateSize(tuple._2());
+        }
+        if(value instanceof LocatedRow){
+            LocatedRow locatedRow=(LocatedRow)value;
+            return 32+estimateSize(locatedRow.getRowLocation())+estimateSize(locatedRow.getRow());
+        }
+        if(value instanceof ExecRow){
+            long size=48;
+            for(DataValueDescriptor dvd : ((ExecRow)value).getRowArray()){
+                size+=estimateSize(dvd);
+            }
+            return size;
+        }
+        if(value instanceof DataValueDescriptor)
+            return ((DataValueDescriptor)value).estimateMemoryUsage();
+        if(value instanceof Iterable){
+            long size=48;
+            for(Object element : (Iterable)value){
+                size+=8+estimateSize(element);
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private class RunReader implements Iterator<T>, Closeable{
+        private final ObjectInputStream in;
+        private int remaining;
+
+        RunReader(File run) throws IOException{
+            this.in=new ObjectInputStream(new BufferedInputStream(new FileInputStream(run)));
+            this.remaining=in.readInt();
+        }
+
+        @Override
+        public boolean hasNext(){
+            return remaining>0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next(){
+            if(remaining<=0) throw new NoSuchElementException();
+            try{
+                T value=(T)in.readObject();
+                if(--remaining==0)
+                    in.close();
+                return value;
+            }catch(IOException|ClassNotFoundException e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws IOException{
+            in.close();
+        }
+    }
+
+    private class MergingIterator implements Iterator<T>{
+        private final PriorityQueue<Source> queue;
+
+        MergingIterator(List<Iterator<T>> sources){
+            this.queue=new PriorityQueue<>(sources.size());
+            for(Iterator<T> source : sources){
+                if(source.hasNext())
+                    queue.add(new Source(source));
+            }
+            if(queue.isEmpty())
+                finished();
+        }
+
+        @Override
+        public boolean hasNext(){
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public T next(){
+            Source source=queue.poll();
+            if(source==null) throw new NoSuchElementException();
+            T value=source.head;
+            if(source.iterator.hasNext()){
+                source.head=source.iterator.next();
+                queue.add(source);
+            }else if(queue.isEmpty()){
+                finished();
+            }
+            return value;
+        }
+
+        private void finished(){
+            // the runs close themselves once they have been read
+            if(!ownedByOperation)
+                close();
+        }
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class Source implements Comparable<Source>{
+        private final Iterator<T> iterator;
+        private T head;
+
+        Source(Iterator<T> iterator){
+            this.iterator=iterator;
+            this.head=iterator.next();
+        }
+
+        @Override
+        public int compareTo(Source o){
+            return comparator.compare(head,o.head);
+        }
+    }
+}
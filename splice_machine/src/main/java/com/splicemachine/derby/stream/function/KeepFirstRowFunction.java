@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+/**
+ * Reduces rows with the same key to the first of them, which turns a dataset keyed on all of its columns
+ * into the distinct rows of the dataset.
+ */
+public class KeepFirstRowFunction<Op extends SpliceOperation> extends SpliceFunction2<Op, LocatedRow, LocatedRow, LocatedRow> {
+
+    public KeepFirstRowFunction() {
+    }
+
+    public KeepFirstRowFunction(OperationContext<Op> operationContext) {
+        super(operationContext);
+    }
+
+    @Override
+    public LocatedRow call(LocatedRow locatedRow1, LocatedRow locatedRow2) throws Exception {
+        return locatedRow1 != null ? locatedRow1 : locatedRow2;
+    }
+}
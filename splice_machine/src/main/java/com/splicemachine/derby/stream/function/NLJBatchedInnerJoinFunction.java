@@ -0,0 +1,222 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.sql.execute.ExecutionFactory;
+import com.splicemachine.db.iapi.types.RowLocation;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.impl.sql.execute.operations.NestedLoopJoinOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.ProbeBlockReader;
+import com.splicemachine.derby.impl.sql.execute.operations.TableScanOperation;
+import com.splicemachine.derby.stream.iapi.IterableJoinFunction;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.derby.stream.iterator.NestedLoopInnerIterator;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
+import org.sparkproject.guava.collect.Iterators;
+import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nested loop inner join which probes the inner table for a block of outer rows at a time, rather than opening
+ * a new scan for each outer row.
+ *
+ * The inner rows for each block are fetched ahead of time by a {@link ProbeBlockReader}, with a single scan over
+ * the key ranges of the block's outer rows. They are then matched back to the outer rows by range, and handed
+ * to the inner table scan one outer row at a time, so that the rest of the inner side (restrictions,
+ * projections and base row lookups which refer to the outer row) is evaluated exactly as in
+ * {@link NLJInnerJoinFunction}. Outer rows whose inner scan is descending or not bounded on both ends are not
+ * fetched ahead, and are probed as usual.
+ */
+public class NLJBatchedInnerJoinFunction<Op extends SpliceOperation> extends SpliceJoinFlatMapFunction<Op, Iterator<LocatedRow>, LocatedRow> implements IterableJoinFunction {
+
+    public Iterator<LocatedRow> rightSideNLJIterator;
+    public LocatedRow leftRow;
+    private boolean opened = false;
+    private TableScanOperation probeScan;
+
+    public NLJBatchedInnerJoinFunction() {}
+
+    public NLJBatchedInnerJoinFunction(OperationContext<Op> operationContext) {
+        super(operationContext);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+    }
+
+    @Override
+    public Iterable<LocatedRow> call(Iterator<LocatedRow> from) throws Exception {
+        checkInit();
+        probeScan = ((NestedLoopJoinOperation) op).getProbeScan();
+        final SpliceOperation leftOperation = op.getLeftOperation();
+        SConfiguration configuration = EngineDriver.driver().getConfiguration();
+        int probeBlocks = configuration.getNestedLoopJoinProbeBlocks();
+        final ProbeBlockReader reader = new ProbeBlockReader(newLookupService(probeBlocks),
+                from,
+                new ProbeBlockReader.ProbeScanSupplier() {
+                    @Override
+                    public DataScan getProbeScan(LocatedRow outerRow) throws StandardException {
+                        leftOperation.setCurrentLocatedRow(outerRow);
+                        DataScan scan = probeScan.getNonSIScan();
+                        if (scan.isDescendingScan() || isEmpty(scan.getStartKey()) || isEmpty(scan.getStopKey()))
+                            return null; //can't be merged into a key range scan, or may return the whole table
+                        return scan;
+                    }
+                },
+                probeScan.getTableName(),
+                configuration.getNestedLoopJoinBatchSize(),
+                probeBlocks,
+                configuration.getNestedLoopJoinBlockBytes(),
+                SIDriver.driver().getTableFactory());
+        op.registerCloseable(reader);
+        return new Iterable<LocatedRow>() {
+            @Override
+            public Iterator<LocatedRow> iterator() {
+                return Iterators.concat(new ProbeIterator(reader));
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        return rightSideNLJIterator.hasNext();
+    }
+
+    @Override
+    public ExecRow getRightRow() {
+        return rightSideNLJIterator.next().getRow();
+    }
+
+    @Override
+    public ExecRow getLeftRow() {
+        return leftRow.getRow();
+    }
+
+    @Override
+    public RowLocation getLeftRowLocation() {
+        return leftRow.getRowLocation();
+    }
+
+    @Override
+    public boolean wasRightOuterJoin() {
+        return op.wasRightOuterJoin;
+    }
+
+    @Override
+    public ExecutionFactory getExecutionFactory() {
+        return executionFactory;
+    }
+
+    @Override
+    public int getNumberOfColumns() {
+        return numberOfColumns;
+    }
+
+    @Override
+    public void setCurrentLocatedRow(LocatedRow locatedRow) {
+        op.setCurrentLocatedRow(locatedRow);
+    }
+
+    @Override
+    public int getResultSetNumber() {
+        return op.resultSetNumber();
+    }
+
+    @Override
+    public OperationContext getOperationContext() {
+        return operationContext;
+    }
+
+    @Override
+    public LocatedRow getLeftLocatedRow() {
+        return leftRow;
+    }
+
+    private static boolean isEmpty(byte[] key) {
+        return key == null || key.length == 0;
+    }
+
+    private static ExecutorService newLookupService(int probeBlocks) {
+        ThreadPoolExecutor tpe = new ThreadPoolExecutor(1, Math.max(probeBlocks, 1),
+                60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("nlj-probe-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        tpe.allowCoreThreadTimeOut(false);
+        return tpe;
+    }
+
+    /**
+     * Joins the outer row of each probe with its inner rows, one probe at a time.
+     */
+    private class ProbeIterator implements Iterator<Iterator<LocatedRow>> {
+        private final ProbeBlockReader reader;
+
+        ProbeIterator(ProbeBlockReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return reader.hasNext();
+        }
+
+        @Override
+        public Iterator<LocatedRow> next() {
+            ProbeBlockReader.Probe probe = reader.next();
+            try {
+                leftRow = probe.getOuterRow();
+                op.getLeftOperation().setCurrentLocatedRow(leftRow);
+                SpliceOperation rightOperation = op.getRightOperation();
+                if (opened)
+                    rightOperation.close();
+                else
+                    opened = true;
+
+                probeScan.setProbeScanner(probe.scanner()); //null if we didn't fetch ahead, so the scan runs as usual
+                rightOperation.openCore(EngineDriver.driver().processorFactory().localProcessor(op.getActivation(), op));
+                rightSideNLJIterator = rightOperation.getLocatedRowIterator();
+                return new NestedLoopInnerIterator<>(NLJBatchedInnerJoinFunction.this);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLLongvarchar;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.ByteSlice;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+/**
+ * Keys a row by its key columns, encoded into a single byte[].
+ *
+ * Unlike the ExecRow keys of {@link KeyerFunction}, these keys hash, test for equality and compare with
+ * plain (unsigned) byte comparisons instead of calling {@link DataValueDescriptor#compare} column by column.
+ * When the function is created with a sort order, comparing two keys with {@link #COMPARATOR} gives the
+ * same order as {@link RowComparator} over the key columns, including descending columns and the position
+ * of nulls.
+ *
+ * Only some column types can be encoded this way, see {@link #keyTypes(ExecRow, int[], boolean)}. Strings
+ * can only be used for grouping and joining, since their collation order is not the order of their bytes.
+ *
+ * Operations only key by this function when {@code splice.execution.normalizedKeys} is set (it is off by default).
+ */
+public class NormalizedKeyFunction<Op extends SpliceOperation> extends SpliceFunction<Op,LocatedRow,ByteSlice> {
+    private static final long serialVersionUID = 1l;
+
+    /* the kinds of columns which can be normalized. Columns of the same kind encode equal values the same way */
+    public static final int INTEGRAL = 1;
+    public static final int FLOATING = 2;
+    public static final int DECIMAL = 3;
+    public static final int BOOLEAN = 4;
+    public static final int STRING = 5;
+
+    /*
+     * Every column starts with one of these markers, so that nulls sort before or after all values and
+     * a null is never mistaken for an empty value.
+     */
+    private static final byte[] NULL_FIRST = new byte[]{0x01};
+    private static final byte[] NOT_NULL = new byte[]{0x02};
+    private static final byte[] NULL_LAST = new byte[]{0x03};
+
+    public static final Comparator<ByteSlice> COMPARATOR = new KeyComparator();
+
+    private int[] keyColumns;
+    private int[] keyTypes;
+    private boolean[] descColumns;
+    private boolean[] nullsOrderedLow;
+    private transient MultiFieldEncoder encoder;
+
+    public NormalizedKeyFunction() {
+    }
+
+    /**
+     * Creates a function whose keys are only used for equality (grouping and joining).
+     */
+    public NormalizedKeyFunction(OperationContext<Op> operationContext, int[] keyColumns, int[] keyTypes) {
+        this(operationContext,keyColumns,keyTypes,null,null);
+    }
+
+    /**
+     * Creates a function whose keys sort in the order given by {@code descColumns} and {@code nullsOrderedLow},
+     * with the same meaning as in {@link RowComparator}.
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public NormalizedKeyFunction(OperationContext<Op> operationContext, int[] keyColumns, int[] keyTypes,
+                                 boolean[] descColumns, boolean[] nullsOrderedLow) {
+        super(operationContext);
+        assert keyColumns.length == keyTypes.length : "Every key column needs a type";
+        this.keyColumns = keyColumns;
+        this.keyTypes = keyTypes;
+        this.descColumns = descColumns;
+        this.nullsOrderedLow = nullsOrderedLow;
+    }
+
+    /**
+     * @param template a row with the same column types as the rows to key
+     * @param keyColumns the (0-based) key columns
+     * @param ordered true if the keys will be sorted, and not just grouped or joined
+     * @return the kind of each key column, or {@code null} if some key column can't be normalized, in which
+     * case the rows must be keyed with {@link KeyerFunction} instead.
+     */
+    public static int[] keyTypes(ExecRow template, int[] keyColumns, boolean ordered) {
+        if (template == null || keyColumns == null || keyColumns.length == 0)
+            return null;
+        DataValueDescriptor[] columns = template.getRowArray();
+        int[] keyTypes = new int[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            DataValueDescriptor dvd = columns[keyColumns[i]];
+            if (dvd == null)
+                return null;
+            int keyType = keyType(dvd);
+            if (keyType == 0 || (ordered && keyType == STRING))
+                return null;
+            keyTypes[i] = keyType;
+        }
+        return keyTypes;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeInt(keyColumns.length);
+        for (int i = 0; i < keyColumns.length; i++) {
+            out.writeInt(keyColumns[i]);
+            out.writeInt(keyTypes[i]);
+        }
+        out.writeBoolean(descColumns != null);
+        if (descColumns != null) {
+            for (int i = 0; i < keyColumns.length; i++) {
+                out.writeBoolean(descColumns[i]);
+                out.writeBoolean(nullsOrderedLow == null || nullsOrderedLow[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        int length = in.readInt();
+        keyColumns = new int[length];
+        keyTypes = new int[length];
+        for (int i = 0; i < length; i++) {
+            keyColumns[i] = in.readInt();
+            keyTypes[i] = in.readInt();
+        }
+        if (in.readBoolean()) {
+            descColumns = new boolean[length];
+            nullsOrderedLow = new boolean[length];
+            for (int i = 0; i < length; i++) {
+                descColumns[i] = in.readBoolean();
+                nullsOrderedLow[i] = in.readBoolean();
+            }
+        }
+    }
+
+    @Override
+    public ByteSlice call(LocatedRow locatedRow) throws Exception {
+        return ByteSlice.wrap(encode(locatedRow.getRow()));
+    }
+
+    /**
+     * @return the normalized key of {@code row}
+     */
+    public byte[] encode(ExecRow row) throws StandardException {
+        if (encoder == null)
+            encoder = MultiFieldEncoder.create(2 * keyColumns.length);
+        else
+            encoder.reset();
+        DataValueDescriptor[] columns = row.getRowArray();
+        for (int i = 0; i < keyColumns.length; i++) {
+            DataValueDescriptor dvd = columns[keyColumns[i]];
+            boolean desc = descColumns != null && descColumns[i];
+            if (dvd == null || dvd.isNull()) {
+                /*
+                 * RowComparator places nulls by nullsOrderedLow, then reverses the result for descending
+                 * columns, so a null comes first when exactly one of the two holds.
+                 */
+                boolean nullLow = nullsOrderedLow == null || nullsOrderedLow[i];
+                encoder.setRawBytes(nullLow != desc ? NULL_FIRST : NULL_LAST);
+                encoder.encodeEmpty();
+                continue;
+            }
+            encoder.setRawBytes(NOT_NULL);
+            switch (keyTypes[i]) {
+                case INTEGRAL:
+                    encoder.encodeNext(dvd.getLong(), desc);
+                    break;
+                case FLOATING:
+                    // adding 0.0 turns -0.0 into 0.0, which compare as equal
+                    encoder.encodeNext(dvd.getDouble() + 0.0d, desc);
+                    break;
+                case DECIMAL:
+                    encoder.encodeNext((BigDecimal) dvd.getObject(), desc);
+                    break;
+                case BOOLEAN:
+                    encoder.encodeNext(dvd.getBoolean(), desc);
+                    break;
+                case STRING:
+                    // CHAR comparisons ignore trailing blanks
+                    encoder.encodeNext(stripTrailingBlanks(dvd.getString()), desc);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected key type " + keyTypes[i]);
+            }
+        }
+        return encoder.build();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int keyType(DataValueDescriptor dvd) {
+        switch (dvd.getTypeFormatId()) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return INTEGRAL;
+            case StoredFormatIds.SQL_REAL_ID:
+            case StoredFormatIds.SQL_DOUBLE_ID:
+                return FLOATING;
+            case StoredFormatIds.SQL_DECIMAL_ID:
+                return DECIMAL;
+            case StoredFormatIds.SQL_BOOLEAN_ID:
+                return BOOLEAN;
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_LONGVARCHAR_ID:
+                /*
+                 * Collated strings share the format id of their base type, but compare by their collation
+                 * keys and not by their characters, so only the plain string types are normalized.
+                 */
+                Class<?> type = dvd.getClass();
+                if (type == SQLChar.class || type == SQLVarchar.class || type == SQLLongvarchar.class)
+                    return STRING;
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static String stripTrailingBlanks(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ')
+            end--;
+        return end == value.length() ? value : value.substring(0, end);
+    }
+
+    private static class KeyComparator implements Comparator<ByteSlice>, Serializable {
+        private static final long serialVersionUID = 1l;
+
+        @Override
+        public int compare(ByteSlice o1, ByteSlice o2) {
+            return o1.compareTo(o2);
+        }
+
+        private Object readResolve() {
+            return COMPARATOR;
+        }
+    }
+}
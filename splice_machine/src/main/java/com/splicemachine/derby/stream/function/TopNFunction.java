@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Returns the first {@code limit} rows of a partition, in the same order as a full sort on
+ * {@code keyColumns} would return them.
+ *
+ * Rows are kept in a bounded heap whose top is the last row kept so far, so a row which sorts after it
+ * is discarded with a single comparison. Memory is O(limit) and CPU is O(rows log limit), no matter how
+ * many rows the partition contains.
+ */
+public class TopNFunction<Op extends SpliceOperation> extends SpliceFlatMapFunction<Op,Iterator<LocatedRow>,LocatedRow> {
+    private int[] keyColumns;
+    private boolean[] descColumns;
+    private boolean[] nullsOrderedLow;
+    private int limit;
+
+    public TopNFunction() {
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2",justification = "Intentional")
+    public TopNFunction(OperationContext<Op> operationContext, int[] keyColumns, boolean[] descColumns,
+                        boolean[] nullsOrderedLow, int limit) {
+        super(operationContext);
+        assert limit > 0 : "Top-N needs at least one row";
+        this.keyColumns = keyColumns;
+        this.descColumns = descColumns;
+        this.nullsOrderedLow = nullsOrderedLow;
+        this.limit = limit;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeInt(keyColumns.length);
+        for (int i = 0; i < keyColumns.length; i++) {
+            out.writeInt(keyColumns[i]);
+            out.writeBoolean(descColumns[i]);
+            out.writeBoolean(nullsOrderedLow[i]);
+        }
+        out.writeInt(limit);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        int length = in.readInt();
+        keyColumns = new int[length];
+        descColumns = new boolean[length];
+        nullsOrderedLow = new boolean[length];
+        for (int i = 0; i < length; i++) {
+            keyColumns[i] = in.readInt();
+            descColumns[i] = in.readBoolean();
+            nullsOrderedLow[i] = in.readBoolean();
+        }
+        limit = in.readInt();
+    }
+
+    @Override
+    public Iterable<LocatedRow> call(Iterator<LocatedRow> locatedRows) throws Exception {
+        final RowComparator rowComparator = new RowComparator(descColumns, nullsOrderedLow);
+        Comparator<Tuple2<ExecRow, LocatedRow>> sortOrder = new Comparator<Tuple2<ExecRow, LocatedRow>>() {
+            @Override
+            public int compare(Tuple2<ExecRow, LocatedRow> o1, Tuple2<ExecRow, LocatedRow> o2) {
+                return rowComparator.compare(o1._1(), o2._1());
+            }
+        };
+        // the top of the heap is the row which sorts last, so it is the first one to make room
+        PriorityQueue<Tuple2<ExecRow, LocatedRow>> heap =
+                new PriorityQueue<>(Math.min(limit, 1024) + 1, Collections.reverseOrder(sortOrder));
+        while (locatedRows.hasNext()) {
+            LocatedRow locatedRow = locatedRows.next();
+            ExecRow key = locatedRow.getKeyedExecRow(keyColumns);
+            if (heap.size() < limit) {
+                heap.add(new Tuple2<>(key, locatedRow));
+            } else if (rowComparator.compare(key, heap.peek()._1()) < 0) {
+                heap.poll();
+                heap.add(new Tuple2<>(key, locatedRow));
+            }
+        }
+
+        List<Tuple2<ExecRow, LocatedRow>> sorted = new ArrayList<>(heap);
+        Collections.sort(sorted, sortOrder);
+        List<LocatedRow> results = new ArrayList<>(sorted.size());
+        for (Tuple2<ExecRow, LocatedRow> tuple : sorted) {
+            results.add(tuple._2());
+        }
+        return results;
+    }
+}
@@ -41,6 +41,10 @@ public interface OperationContext<Op extends SpliceOperation> extends Externaliz
     long getRetryAttempts();
     long getRegionTooBusyExceptions();
 
+    void recordSpill(long rows, long bytes);
+    long getRecordsSpilled();
+    long getBytesSpilled();
+
     BadRecordsRecorder getBadRecordsRecorder();
 
     boolean isPermissive();
@@ -44,9 +44,11 @@ public interface PairDataSet<K,V> {
     <Op extends SpliceOperation, U> DataSet<U> flatmap(SpliceFlatMapFunction<Op, Tuple2<K, V>, U> function,boolean isLast);
     PairDataSet<K,V> sortByKey(Comparator<K> comparator);
     PairDataSet<K,V> sortByKey(Comparator<K> comparator,String name);
+    PairDataSet<K,V> sortByKey(Comparator<K> comparator,String name,OperationContext context);
     PairDataSet<K, V> partitionBy(Partitioner<K> partitioner, Comparator<K> comparator);
     PairDataSet<K, Iterable<V>> groupByKey();
     PairDataSet<K, Iterable<V>> groupByKey(String name);
+    PairDataSet<K, Iterable<V>> groupByKey(String name,OperationContext context);
     <W> PairDataSet<K,Tuple2<V,Optional<W>>> hashLeftOuterJoin(PairDataSet<K, W> rightDataSet);
     <W> PairDataSet<K,Tuple2<Optional<V>,W>> hashRightOuterJoin(PairDataSet<K, W> rightDataSet);
     <W> PairDataSet<K,Tuple2<V,W>> hashJoin(PairDataSet<K, W> rightDataSet);
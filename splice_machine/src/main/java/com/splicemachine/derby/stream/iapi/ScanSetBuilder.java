@@ -19,6 +19,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.PartialAggregateFold;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.iapi.OperationContext;
 import com.splicemachine.metrics.MetricFactory;
@@ -80,6 +81,12 @@ public interface ScanSetBuilder<V>{
 
     ScanSetBuilder<V> oneSplitPerRegion(boolean oneSplitPerRegion);
 
+    /**
+     * Folds the rows each scanner reads into the given aggregates, so that it returns a single partial
+     * aggregate row instead of the rows. The fold runs in the scanner, not in the region server.
+     */
+    ScanSetBuilder<V> partialAggregateFold(PartialAggregateFold partialAggregateFold);
+
     DataSet<V> buildDataSet() throws StandardException;
 
     DataSet<V> buildDataSet(Object caller) throws StandardException;
@@ -206,11 +206,12 @@ public class StatisticsCollector {
         SConfiguration configuration=EngineDriver.driver().getConfiguration();
         int cardinalityPrecision = configuration.getCardinalityPrecision();
         int topKSize = configuration.getTopkSize();
+        int histogramSize = configuration.getHistogramSize();
         for(int i=0;i<dvds.length;i++){
             DataValueDescriptor dvd = dvds[i];
             int columnId = columnPositionMap[i];
             int columnLength = lengths[i];
-            collectors[i] = DvdStatsCollector.newCollector(columnId, dvd.getTypeFormatId(), columnLength, topKSize, cardinalityPrecision);
+            collectors[i] = DvdStatsCollector.newCollector(columnId, dvd.getTypeFormatId(), columnLength, topKSize, cardinalityPrecision, histogramSize);
         }
     }
 
@@ -57,6 +57,7 @@ public class StreamUtils {
             .put("InnerJoinRestrictionFunction", "Execute Inner Join with Restriction")
             .put("InsertPairFunction", "Insert Rows")
             .put("JoinRestrictionPredicateFunction", "Execute Join with Restriction")
+            .put("KeepFirstRowFunction", "Keep First Row")
             .put("KeyerFunction", "Prepare Keys")
             .put("LocatedRowToRowLocationFunction", "Determine Row Location")
             .put("MergeAllAggregatesFunction", "Merge All Aggregates")
@@ -66,10 +67,12 @@ public class StreamUtils {
             .put("MergeOuterJoinFlatMapFunction", "Create Flat Map for Merge Outer Join")
             .put("MergeWindowFunction", "Execute Window Function Logic")
             .put("NLJAntiJoinFunction", "Execute Nested Loop Anti Join")
+            .put("NLJBatchedInnerJoinFunction", "Execute Batched Nested Loop Inner Join")
             .put("NLJInnerJoinFunction", "Execute Nested Loop Inner Join")
             .put("NLJOneRowInnerJoinFunction", "Execute Nested Loop One Row Inner Join")
             .put("NLJOuterJoinFunction", "Execute Nested Loop Outer Join")
             .put("NormalizeFunction", "Normalize Rows")
+            .put("NormalizedKeyFunction", "Prepare Normalized Keys")
             .put("OffsetFunction", "Offset Rows")
             .put("ProjectRestrictFlatMapFunction", "Create Flat Map for Project Restrict")
             .put("RowOperationFunction", "Locate Single Row")
@@ -43,12 +43,19 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
     protected int start;
     protected int end;
     protected int current;
-    protected ArrayList<ExecRow> rows;
+    protected RowRingBuffer rows;
     protected PeekingIterator<ExecRow> source;
     protected byte[] partition;
     protected int[] sortColumns;
     private boolean initialized;
 
+    /**
+     * Creates the frame buffer for one partition.
+     *
+     * The buffer takes ownership of the rows read from {@code source}: they are kept in the frame without
+     * being copied, and are returned with their result columns filled in. The source must therefore hand out
+     * a distinct row instance for every row of the partition.
+     */
     @SuppressFBWarnings(value="EI_EXPOSE_REP2", justification="Intentional")
     public static WindowFrameBuffer createFrameBuffer(
                                                       WindowAggregator[] aggregators,
@@ -88,7 +95,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
         // The frame definition will not change over the life of this frame buffer
         this.frameStart = frameDefinition.getFrameStart().getValue();
         this.frameEnd = frameDefinition.getFrameEnd().getValue();
-        this.rows = new ArrayList<ExecRow>();
+        this.rows = new RowRingBuffer(16);
         this.resultBuffer = new ResultBuffer();
     }
 
@@ -165,7 +172,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
     }
 
     protected void reset() throws StandardException, IOException {
-        rows = new ArrayList<ExecRow>();
+        rows.clear();
 
         // Initialize window functions
         for (WindowAggregator aggregator : this.aggregators) {
@@ -49,15 +49,13 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
 
         boolean endOfFrame = false;
         while (!endOfFrame) {
-            ExecRow clonedRow = row.getClone();
-
             if (frameEnd < Long.MAX_VALUE) {
                 // if frame end is not unbounded following, compare values
-                DataValueDescriptor v = clonedRow.getColumn(sortColumns[0]+1);
+                DataValueDescriptor v = row.getColumn(sortColumns[0]+1);
                 if (v.compare(currentValue)==0) {
                     // if the value falls into the window frame, aggregate it
-                    add(clonedRow);
-                    rows.add(clonedRow);
+                    add(row);
+                    rows.add(row);
                 }
                 else {
                     endOfFrame = true;
@@ -66,8 +64,8 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
             }
             else {
                 // Otherwise, always aggregate it
-                rows.add(clonedRow);
-                add(clonedRow);
+                rows.add(row);
+                add(row);
             }
             // advance iterator
             source.next();
@@ -90,11 +88,10 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
 
             if (source.hasNext()) {
                 ExecRow row = source.next();
-                ExecRow clonedRow = row.getClone();
-                rows.add(clonedRow);
+                rows.add(row);
                 // One more row is added into the frame buffer, include one more row into the window frame
                 end++;
-                add(rows.get(end));
+                add(row);
             } else {
                 return;
             }
@@ -120,10 +117,11 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
             }
         }
 
-        // Remove rows from buffer if they are no longer needed
-        int minIndex = current < start ? current : start;
+        // Remove rows from buffer if they are no longer needed. When the frame starts at the
+        // beginning of the partition, rows before the current one are never read again
+        int minIndex = frameStart == Long.MIN_VALUE || current < start ? current : start;
         for (int i = 0; i < minIndex; ++i) {
-            rows.remove(0);
+            rows.removeFirst();
             start--;
             current--;
             end--;
@@ -134,13 +132,12 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
         if (frameEnd < Long.MAX_VALUE) {
             while(source.hasNext()) {
                 ExecRow row = source.peek();
-                ExecRow clonedRow = row.getClone();
                 DataValueDescriptor v = row.getColumn(sortColumns[0]+1);
                 if (newKey != null && newKey.compare(v) == 0) {
                     //advance iterator
                     source.next();
-                    rows.add(clonedRow);
-                    add(clonedRow);
+                    rows.add(row);
+                    add(row);
                     end++;
                 } else {
                     // not in range, bail out
@@ -48,13 +48,12 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
                 break;
             }
             ExecRow row = source.next();
-            ExecRow clonedRow = row.getClone();
-            rows.add(clonedRow);
+            rows.add(row);
 
             // if the next row belongs to the same partition and falls
             // into the window range
             if (i >= frameStart)
-                add(clonedRow);
+                add(row);
         }
         current = 0;
         end = rows.size() -1;
@@ -81,7 +80,7 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
             // 2. the row was just moved out of th window frame
             // 3. window start frame is after the current row
 
-            rows.remove(0);
+            rows.removeFirst();
             start--;
             current--;
             end--;
@@ -93,11 +92,10 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
                 // read a row from scanner
                 if (source.hasNext()) {
                     ExecRow row = source.next();
-                    ExecRow clonedRow = row.getClone();
-                    rows.add(clonedRow);
+                    rows.add(row);
                     // One more row is added into the frame buffer, include one more row into the window frame
                     end++;
-                    add(rows.get(end));
+                    add(row);
                 }
             }
         }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.window;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+
+/**
+ * The rows held by a {@link BaseFrameBuffer}, kept in a growable circular array.
+ *
+ * Window frames slide forward through a partition: rows are appended at the end as they are read,
+ * read by position while they are inside the frame, and dropped from the front once no frame
+ * needs them any more. Dropping the first row of an ArrayList shifts every remaining row, which
+ * makes sliding a large frame quadratic; dropping the first row here only moves the head.
+ */
+public final class RowRingBuffer{
+    private ExecRow[] rows;
+    private int head;
+    private int size;
+
+    public RowRingBuffer(int initialSize){
+        int s=1;
+        while(s<initialSize)
+            s<<=1;
+        this.rows=new ExecRow[s];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @param index the position of the row, relative to the first row in the buffer
+     * @return the row at {@code index}
+     */
+    public ExecRow get(int index){
+        if(index<0 || index>=size)
+            throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+        return rows[(head+index)&(rows.length-1)];
+    }
+
+    public void add(ExecRow row){
+        if(size==rows.length)
+            grow();
+        rows[(head+size)&(rows.length-1)]=row;
+        size++;
+    }
+
+    public ExecRow removeFirst(){
+        if(size==0)
+            throw new IndexOutOfBoundsException("Buffer is empty");
+        ExecRow row=rows[head];
+        rows[head]=null; //let the row be collected once the frame is done with it
+        head=(head+1)&(rows.length-1);
+        size--;
+        return row;
+    }
+
+    public void clear(){
+        while(size>0){
+            removeFirst();
+        }
+        head=0;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void grow(){
+        ExecRow[] newRows=new ExecRow[rows.length<<1];
+        for(int i=0;i<size;i++){
+            newRows[i]=rows[(head+i)&(rows.length-1)];
+        }
+        rows=newRows;
+        head=0;
+    }
+}
@@ -59,7 +59,7 @@ public class PredicateBuilder{
         if (storagePosition < 0) {
             throw new IllegalArgumentException(String.format("Qualifier has invalid storagePosition: %s", qualifier));
         }
-        if(dvd==null || dvd.isNull() || dvd.isNullOp().getBoolean()){
+        if(isNullComparison(dvd)){
             boolean filterIfMissing=qualifier.negateCompareResult();
             boolean isNullValue=dvd==null || dvd.isNull();
             boolean isOrderedNulls=qualifier.getOrderedNulls();
@@ -73,11 +73,8 @@ public class PredicateBuilder{
             else
                 return new NullPredicate(filterIfMissing,isNullNumericalComparison,storagePosition,false,false);
         }else{
-            // use columnId (not storagePosition) as index into these other maps
             boolean sort=getSortPosition(qualifier.getColumnId());
-            if(serializers==null)
-                serializers=VersionedSerializers.forVersion(tableVersion,true).getSerializers(columnTypes);
-            byte[] bytes=serializers[qualifier.getColumnId()].encodeDirect(dvd,sort);
+            byte[] bytes=encode(qualifier,dvd);
 
             if(dvd.getTypeFormatId() == StoredFormatIds.SQL_CHAR_ID){
                 return new CharValuePredicate(getHBaseCompareOp(qualifier.getOperator(),
@@ -90,6 +87,141 @@ public class PredicateBuilder{
         }
     }
 
+    /**
+     * Builds the predicates for a list of AND qualifiers. A lower and an upper bound on the same
+     * (ascending) column are combined into a single {@link RangePredicate}, or into a {@link PrefixPredicate}
+     * when they are the bounds generated for a {@code LIKE 'prefix%'}.
+     */
+    public ObjectArrayList<Predicate> getAndPredicates(Qualifier[] andQualifiers) throws StandardException{
+        ObjectArrayList<Predicate> predicates=ObjectArrayList.newInstanceWithCapacity(andQualifiers.length);
+        boolean[] combined=new boolean[andQualifiers.length];
+        for(int i=0;i<andQualifiers.length;i++){
+            if(combined[i]) continue;
+            Qualifier qualifier=andQualifiers[i];
+            Predicate range=null;
+            CompareOp op=getBoundOp(qualifier);
+            for(int j=i+1;op!=null && range==null && j<andQualifiers.length;j++){
+                Qualifier other=andQualifiers[j];
+                if(combined[j] || other.getStoragePosition()!=qualifier.getStoragePosition())
+                    continue;
+                CompareOp otherOp=getBoundOp(other);
+                if(otherOp==null || isLowerBound(otherOp)==isLowerBound(op))
+                    continue;
+                range=isLowerBound(op)
+                        ?getRangePredicate(qualifier,op,other,otherOp)
+                        :getRangePredicate(other,otherOp,qualifier,op);
+                combined[j]=range!=null;
+            }
+            predicates.add(range!=null?range:getPredicate(qualifier));
+        }
+        return predicates;
+    }
+
+    /**
+     * Builds the predicate for a list of OR qualifiers. Equality comparisons of a single column with a
+     * list of values are checked as one {@link InListPredicate}.
+     */
+    public Predicate getOrPredicate(Qualifier[] orQualifiers) throws StandardException{
+        byte[][] inListValues=getInListValues(orQualifiers);
+        if(inListValues!=null){
+            return new InListPredicate(orQualifiers[0].getStoragePosition(),inListValues,
+                    isCharType(orQualifiers[0].getOrderable()));
+        }
+        ObjectArrayList<Predicate> orPreds=ObjectArrayList.newInstanceWithCapacity(orQualifiers.length);
+        for(Qualifier orQual : orQualifiers){
+            orPreds.add(getPredicate(orQual));
+        }
+        return OrPredicate.or(orPreds);
+    }
+
+    private byte[][] getInListValues(Qualifier[] orQualifiers) throws StandardException{
+        if(orQualifiers.length<2) return null;
+        int storagePosition=orQualifiers[0].getStoragePosition();
+        boolean charType=isCharType(orQualifiers[0].getOrderable());
+        byte[][] values=new byte[orQualifiers.length][];
+        for(int i=0;i<orQualifiers.length;i++){
+            Qualifier qualifier=orQualifiers[i];
+            DataValueDescriptor dvd=qualifier.getOrderable();
+            if(isNullComparison(dvd)
+                    || qualifier.getStoragePosition()!=storagePosition
+                    || qualifier.getOperator()!=DataValueDescriptor.ORDER_OP_EQUALS
+                    || qualifier.negateCompareResult()
+                    || isCharType(dvd)!=charType)
+                return null;
+            values[i]=encode(qualifier,dvd);
+            if(values[i].length==0) return null; //empty values are treated as null by the predicates
+        }
+        return values;
+    }
+
+    /**
+     * @return the comparison made by {@code qualifier} if it is a lower or upper bound on an ascending
+     * column, or {@code null} otherwise.
+     */
+    private CompareOp getBoundOp(Qualifier qualifier) throws StandardException{
+        DataValueDescriptor dvd=qualifier.getOrderable();
+        if(isNullComparison(dvd) || qualifier.getOperator()==DataValueDescriptor.ORDER_OP_EQUALS)
+            return null;
+        if(getSortPosition(qualifier.getColumnId()))
+            return null; //descending columns invert the byte order of the encoding
+        return getHBaseCompareOp(qualifier.getOperator(),qualifier.negateCompareResult());
+    }
+
+    /**
+     * @return true if a qualifier comparing with {@code dvd} is checked with a {@link NullPredicate}
+     */
+    private static boolean isNullComparison(DataValueDescriptor dvd) throws StandardException{
+        return dvd==null || dvd.isNull() || dvd.isNullOp().getBoolean();
+    }
+
+    private static boolean isLowerBound(CompareOp op){
+        return op==CompareOp.GREATER || op==CompareOp.GREATER_OR_EQUAL;
+    }
+
+    private Predicate getRangePredicate(Qualifier lowerQualifier,CompareOp lowerOp,
+                                        Qualifier upperQualifier,CompareOp upperOp) throws StandardException{
+        DataValueDescriptor lowerValue=lowerQualifier.getOrderable();
+        DataValueDescriptor upperValue=upperQualifier.getOrderable();
+        byte[] lower=encode(lowerQualifier,lowerValue);
+        byte[] upper=encode(upperQualifier,upperValue);
+        if(lower.length==0 || upper.length==0)
+            return null; //empty values are treated as null by the predicates
+
+        int storagePosition=lowerQualifier.getStoragePosition();
+        if(lowerOp==CompareOp.GREATER_OR_EQUAL && upperOp==CompareOp.LESS && isPrefixRange(lower,upper))
+            return new PrefixPredicate(storagePosition,lower);
+        if(isCharType(lowerValue) || isCharType(upperValue))
+            return null; //char comparisons ignore trailing whitespace, which a byte range does not
+        return new RangePredicate(storagePosition,
+                lower,lowerOp==CompareOp.GREATER_OR_EQUAL,
+                upper,upperOp==CompareOp.LESS_OR_EQUAL);
+    }
+
+    /**
+     * @return true if {@code upper} is {@code lower} with its last byte incremented, in which case a value
+     * is in {@code [lower,upper)} exactly when it starts with {@code lower}.
+     */
+    private static boolean isPrefixRange(byte[] lower,byte[] upper){
+        if(lower.length!=upper.length) return false;
+        int last=lower.length-1;
+        for(int i=0;i<last;i++){
+            if(lower[i]!=upper[i]) return false;
+        }
+        return (upper[last]&0xff)==(lower[last]&0xff)+1;
+    }
+
+    private static boolean isCharType(DataValueDescriptor dvd){
+        return dvd!=null && dvd.getTypeFormatId()==StoredFormatIds.SQL_CHAR_ID;
+    }
+
+    private byte[] encode(Qualifier qualifier,DataValueDescriptor dvd) throws StandardException{
+        // use columnId (not storagePosition) as index into these other maps
+        boolean sort=getSortPosition(qualifier.getColumnId());
+        if(serializers==null)
+            serializers=VersionedSerializers.forVersion(tableVersion,true).getSerializers(columnTypes);
+        return serializers[qualifier.getColumnId()].encodeDirect(dvd,sort);
+    }
+
     private boolean getSortPosition(int columnRowPosition){
         //in the case of primary keys, keyColumnSortOrder will be null (PKs are always ascending, as over v 0.5)
         if(keyColumnSortOrder==null) return false;
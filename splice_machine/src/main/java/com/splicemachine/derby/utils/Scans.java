@@ -207,20 +207,12 @@ public class Scans extends SpliceUtils {
          * be satisfied. E.g. for an i in [1:qualifiers.length], qualifiers[i] is a collection of OR clauses,
          * but ALL the OR-clause collections are bound together using an AND clause.
          */
-        ObjectArrayList<Predicate> andPreds = ObjectArrayList.newInstanceWithCapacity(qualifiers[0].length);
-        for (Qualifier andQual : qualifiers[0]) {
-            andPreds.add(pb.getPredicate(andQual));
-        }
+        ObjectArrayList<Predicate> andPreds = pb.getAndPredicates(qualifiers[0]);
 
 
         ObjectArrayList<Predicate> andedOrPreds = new ObjectArrayList<Predicate>();
         for (int i = 1; i < qualifiers.length; i++) {
-            Qualifier[] orQuals = qualifiers[i];
-            ObjectArrayList<Predicate> orPreds = ObjectArrayList.newInstanceWithCapacity(orQuals.length);
-            for (Qualifier orQual : orQuals) {
-                orPreds.add(pb.getPredicate(orQual));
-            }
-            andedOrPreds.add(OrPredicate.or(orPreds));
+            andedOrPreds.add(pb.getOrPredicate(qualifiers[i]));
         }
         if (andedOrPreds.size() > 0)
             andPreds.addAll(andedOrPreds);
@@ -38,6 +38,7 @@ import com.splicemachine.pipeline.constraint.UniqueConstraint;
 import com.splicemachine.pipeline.contextfactory.*;
 import com.splicemachine.pipeline.exception.IndexNotSetUpException;
 import com.splicemachine.pipeline.foreignkey.FKWriteFactoryHolder;
+import com.splicemachine.pipeline.foreignkey.ParentKeyCache;
 import com.splicemachine.protobuf.ProtoUtil;
 import com.splicemachine.si.api.data.OperationStatusFactory;
 import com.splicemachine.si.api.data.TxnOperationFactory;
@@ -82,7 +83,7 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         this.osf=osf;
         this.pef=pef;
         this.trc=trc;
-        this.fkGroup=new FKWriteFactoryHolder(pef,txnOperationFactory);
+        this.fkGroup=new FKWriteFactoryHolder(conglomId,pef,txnOperationFactory);
         //TODO -sf- memory leak
         this.ddlListener=new DDLWatcher.DDLListener(){
             @Override
@@ -222,6 +223,11 @@ public class DerbyContextFactoryLoader implements ContextFactoryLoader{
         }
     }
 
+    @Override
+    public void referencedRowsDeleted(long referencedConglomerateId){
+        ParentKeyCache.cache().invalidate(referencedConglomerateId);
+    }
+
     /* ****************************************************************************************************************/
     /*private helper methods*/
 
@@ -42,6 +42,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class FKWriteFactoryHolder implements WriteFactoryGroup{
 
+    private final long conglomerateNumber;
     private final PipelineExceptionFactory exceptionFactory;
     private final TxnOperationFactory txnOperationFactory;
     /*
@@ -53,7 +54,8 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
     private volatile Map<Long, ForeignKeyChildInterceptWriteFactory> childInterceptWriteFactories = new ConcurrentHashMap<>();
     private ForeignKeyParentInterceptWriteFactory parentInterceptWriteFactory;
 
-    public FKWriteFactoryHolder(PipelineExceptionFactory exceptionFactory,TxnOperationFactory txnOperationFactory){
+    public FKWriteFactoryHolder(long conglomerateNumber,PipelineExceptionFactory exceptionFactory,TxnOperationFactory txnOperationFactory){
+        this.conglomerateNumber=conglomerateNumber;
         this.exceptionFactory=exceptionFactory;
         this.txnOperationFactory = txnOperationFactory;
     }
@@ -100,7 +102,7 @@ public class FKWriteFactoryHolder implements WriteFactoryGroup{
     public void addParentInterceptWriteFactory(String parentTableName, List<Long> backingIndexConglomIds,List<FKConstraintInfo> fkConstraintInfos) {
         /* One instance handles all FKs that reference this primary key or unique index */
         if (parentInterceptWriteFactory == null) {
-            parentInterceptWriteFactory = new ForeignKeyParentInterceptWriteFactory(parentTableName, backingIndexConglomIds,exceptionFactory,fkConstraintInfos);
+            parentInterceptWriteFactory = new ForeignKeyParentInterceptWriteFactory(parentTableName, conglomerateNumber, backingIndexConglomIds,exceptionFactory,fkConstraintInfos);
         }
     }
 
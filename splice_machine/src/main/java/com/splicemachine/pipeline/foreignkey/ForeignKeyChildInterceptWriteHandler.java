@@ -29,23 +29,28 @@ import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.pipeline.constraint.ConstraintContext;
 import com.splicemachine.pipeline.context.WriteContext;
 import com.splicemachine.pipeline.writehandler.WriteHandler;
-import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.SimpleTxnFilter;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.txn.ActiveWriteTxn;
 import com.splicemachine.si.impl.txn.WritableTxn;
+import com.splicemachine.storage.CellType;
 import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
 import com.splicemachine.storage.DataResult;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.util.MapAttributes;
+import com.splicemachine.utils.ByteSlice;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Intercepts insert/updates to a FK constraint backing index and sends the rowKey over to the referenced primary-key or
@@ -53,6 +58,11 @@ import java.util.List;
  */
 @NotThreadSafe
 public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
+    /*
+     * A reader which is no transaction's child, and so only sees committed rows. Its id is never handed out.
+     */
+    private static final TxnView COMMITTED_READER = new ActiveWriteTxn(Long.MAX_VALUE, Long.MAX_VALUE,
+            Txn.ROOT_TRANSACTION, false, Txn.IsolationLevel.READ_COMMITTED);
     private final long referencedConglomerateNumber;
     private final ForeignKeyViolationProcessor violationProcessor;
     private Partition table;
@@ -61,6 +71,7 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     private final MultiFieldDecoder multiFieldDecoder;
     private final TypeProvider typeProvider;
     private FKConstraintInfo fkConstraintInfo;
+    private final ParentKeyCache parentKeyCache;
 
     public ForeignKeyChildInterceptWriteHandler(long referencedConglomerateNumber,
                                                 FKConstraintInfo fkConstraintInfo,
@@ -75,6 +86,7 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
         this.multiFieldDecoder = MultiFieldDecoder.create();
         this.typeProvider = VersionedSerializers.typesForVersion(fkConstraintInfo.getParentTableVersion());
         this.fkConstraintInfo = fkConstraintInfo;
+        this.parentKeyCache = ParentKeyCache.cache();
     }
 
     @Override
@@ -94,25 +106,52 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
     @Override
     public void flush(WriteContext ctx) throws IOException {
         try {
-            initTable();
-            HashSet<byte[]> culledLookups = new HashSet(mutations.size());
+            /*
+             * Deduplicate the keys to check by content (byte[] only compares by identity), remembering for each
+             * mutation which unique key it needs. Mutations with a null in the FK are not checked at all.
+             */
+            Map<ByteSlice,Integer> uniquePositions = new HashMap<>(mutations.size());
+            List<byte[]> uniqueKeys = new ArrayList<>(mutations.size());
             int[] locations = new int[mutations.size()];
-            int counter = 0;
             for (int i =0; i<mutations.size();i++) {
                 byte[] checkRowKey = getCheckRowKey(mutations.get(i).getRowKey());
-                if (culledLookups.contains(checkRowKey)) {
-                    locations[i] = counter-1;
-                } else {
-                    culledLookups.add(checkRowKey);
-                    locations[i] = counter;
-                    counter++;
+                if (checkRowKey == null) {
+                    locations[i] = -1;
+                    continue;
                 }
+                ByteSlice slice = ByteSlice.wrap(checkRowKey);
+                Integer position = uniquePositions.get(slice);
+                if (position == null) {
+                    position = uniqueKeys.size();
+                    uniquePositions.put(slice, position);
+                    uniqueKeys.add(checkRowKey);
+                }
+                locations[i] = position;
             }
+            if (uniqueKeys.isEmpty())
+                return;
 
-            List<byte[]> rowKeysToFetch = new ArrayList<>(culledLookups.size());
-            for (byte[] item: culledLookups) {
-                rowKeysToFetch.add(item);
+            /*
+             * Parent keys already known to be committed need not be read again. The generation has to be fetched
+             * before reading the parent, so that a parent delete racing with our read prevents us from caching.
+             */
+            long generation = parentKeyCache.generation(referencedConglomerateNumber);
+            BitSet cached = new BitSet(uniqueKeys.size());
+            int hits = parentKeyCache.lookup(referencedConglomerateNumber, generation, uniqueKeys, cached);
+            if (hits == uniqueKeys.size()) {
+                parentKeyCache.recordParentReadSaved();
+                return;
+            }
+            int[] fetchPositions = new int[uniqueKeys.size() - hits];
+            List<byte[]> rowKeysToFetch = new ArrayList<>(fetchPositions.length);
+            for (int i = 0; i < uniqueKeys.size(); i++) {
+                if (!cached.get(i)) {
+                    fetchPositions[rowKeysToFetch.size()] = i;
+                    rowKeysToFetch.add(uniqueKeys.get(i));
+                }
             }
+
+            initTable();
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
             if (ctx.getTxn() instanceof ActiveWriteTxn) {
@@ -123,9 +162,19 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                 readCommittedFilter = new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
             }else
                 throw new IOException("invalidTxn");
+            /*
+             * Both filters above can see our own uncommitted writes, which may still roll back, so whether a key
+             * may be cached is decided by a reader which sees committed data only, and which finds no other writer
+             * still active on the row.
+             */
+            SimpleTxnFilter committedFilter = parentKeyCache.isEnabled()
+                    ? new SimpleTxnFilter(Long.toString(referencedConglomerateNumber), COMMITTED_READER, NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore())
+                    : null;
 
             Iterator<DataResult> iterator = table.batchGet(new MapAttributes(),rowKeysToFetch);
-            BitSet misses = new BitSet(rowKeysToFetch.size());
+            parentKeyCache.recordParentRead(rowKeysToFetch.size());
+            BitSet misses = new BitSet(uniqueKeys.size());
+            List<byte[]> committedKeys = new ArrayList<>(rowKeysToFetch.size());
 
             int i = 0;
             while (iterator.hasNext()) {
@@ -133,19 +182,29 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
                 readCommittedFilter.reset();
                 readUncommittedFilter.reset();
                 if (!hasData(result,readCommittedFilter) || !hasData(result,readUncommittedFilter))
-                    misses.set(i);
+                    misses.set(fetchPositions[i]);
+                else if (committedFilter != null && !hasActiveWriter(result)) {
+                    /*
+                     * Every writer of the row had finished before we looked at what it committed, so the answer
+                     * cannot change under us. Checked the other way around, a delete which is active for the
+                     * first check and commits before the second would leave the deleted key cached.
+                     */
+                    committedFilter.reset();
+                    if (hasData(result, committedFilter))
+                        committedKeys.add(rowKeysToFetch.get(i));
+                }
                 i++;
             }
+            if (!committedKeys.isEmpty())
+                parentKeyCache.cacheKeys(referencedConglomerateNumber, generation, committedKeys);
 
             // No Misses...
             if (misses.isEmpty())
                 return;
             // Assemble failures for the write pipeline with error codes.
-            i=0;
-            for (int location: locations) {
-                if (misses.get(location))
+            for (i = 0; i < locations.length; i++) {
+                if (locations[i] >= 0 && misses.get(locations[i]))
                     failWrite(mutations.get(i),ctx);
-                i++;
             }
         } catch (Exception e) {
             violationProcessor.failWrite(e, ctx);
@@ -187,6 +246,25 @@ public class ForeignKeyChildInterceptWriteHandler implements WriteHandler{
         return false; // No data returned, fail
     }
 
+    /*
+     * Whether a transaction which has not yet committed or rolled back has written to the parent row. If it is a
+     * delete, COMMITTED_READER does not see it yet, and the key would stay cached once it commits, so such a key is
+     * never cached. The deleting writer clears the cache only before it commits (see ParentKeyCache).
+     *
+     * This must be decided before the row is read with COMMITTED_READER: once no writer is active, none of the
+     * versions read can change state any more.
+     */
+    private boolean hasActiveWriter(DataResult result) throws IOException {
+        TxnSupplier txnSupplier = SIDriver.driver().getTxnStore();
+        for (DataCell dc : result) {
+            if (dc.dataType() == CellType.COMMIT_TIMESTAMP)
+                continue;
+            if (txnSupplier.getTransaction(dc.version()).getEffectiveState() == Txn.State.ACTIVE)
+                return true;
+        }
+        return false;
+    }
+
     /* Only need to create the CallBuffer once, but not until we have a WriteContext */
     private void initTable() throws IOException{
             if (table==null)
@@ -30,14 +30,17 @@ import java.util.List;
 class ForeignKeyParentInterceptWriteFactory implements LocalWriteFactory{
 
     private final String parentTableName;
+    private final long parentConglomerateNumber;
     private final List<Long> referencingIndexConglomerateNumbers = Lists.newArrayList();
     private final PipelineExceptionFactory exceptionFactory;
     private final List<DDLMessage.FKConstraintInfo> constraintInfos = Lists.newArrayList();
 
     ForeignKeyParentInterceptWriteFactory(String parentTableName,
+                                          long parentConglomerateNumber,
                                           List<Long> referencingIndexConglomerateNumbers,
                                           PipelineExceptionFactory exceptionFactory, List<DDLMessage.FKConstraintInfo> fkConstraintInfo) {
         this.parentTableName = parentTableName;
+        this.parentConglomerateNumber = parentConglomerateNumber;
         this.exceptionFactory=exceptionFactory;
         this.referencingIndexConglomerateNumbers.addAll(referencingIndexConglomerateNumbers);
         this.constraintInfos.addAll(fkConstraintInfo);
@@ -45,7 +48,7 @@ class ForeignKeyParentInterceptWriteFactory implements LocalWriteFactory{
 
     @Override
     public void addTo(PipelineWriteContext ctx, boolean keepState, int expectedWrites) throws IOException {
-        ctx.addLast(new ForeignKeyParentInterceptWriteHandler(parentTableName, referencingIndexConglomerateNumbers,exceptionFactory,constraintInfos));
+        ctx.addLast(new ForeignKeyParentInterceptWriteHandler(parentTableName, parentConglomerateNumber, referencingIndexConglomerateNumbers,exceptionFactory,constraintInfos));
     }
 
     @Override
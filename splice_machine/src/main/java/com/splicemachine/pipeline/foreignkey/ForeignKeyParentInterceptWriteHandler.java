@@ -22,6 +22,7 @@ import com.splicemachine.pipeline.client.WriteResult;
 import com.splicemachine.pipeline.constraint.ConstraintContext;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.SimpleTxnFilter;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.txn.ActiveWriteTxn;
@@ -50,10 +51,12 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     private TxnOperationFactory txnOperationFactory;
     private HashMap<Long,Partition> childPartitions = new HashMap<>();
     private String parentTableName;
+    private final long parentConglomerateNumber;
     private ObjectArrayList<KVPair> mutations = new ObjectArrayList<>();
 
 
     public ForeignKeyParentInterceptWriteHandler(String parentTableName,
+                                                 long parentConglomerateNumber,
                                                  List<Long> referencingIndexConglomerateIds,
                                                  PipelineExceptionFactory exceptionFactory,
                                                  List<DDLMessage.FKConstraintInfo> constraintInfos
@@ -64,6 +67,7 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
         this.constraintInfos = constraintInfos;
         this.txnOperationFactory = SIDriver.driver().getOperationFactory();
         this.parentTableName = parentTableName;
+        this.parentConglomerateNumber = parentConglomerateNumber;
     }
 
     @Override
@@ -86,6 +90,9 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
     @Override
     public void flush(WriteContext ctx) throws IOException {
         try {
+            // child checks in this process, which hasReferences() may not reach through a region observer
+            if (!mutations.isEmpty())
+                ParentKeyCache.cache().invalidate(parentConglomerateNumber);
             // TODO Buffer with skip scan
             for (int k = 0; k<mutations.size();k++) {
                 KVPair mutation = mutations.get(k);
@@ -149,6 +156,14 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
         scan =scan.startKey(startKey);
         byte[] endKey = Bytes.unsignedCopyAndIncrement(startKey);//new byte[startKey.length+1];
         scan = scan.stopKey(endKey);
+        /*
+         * Child checks may answer from a cache of our keys (see ParentKeyCache). A child row referencing this key
+         * can only be written to the regions we are about to scan, so the scan tells their servers to forget our
+         * keys before it looks. Our delete is already written, and child checks never cache a key whose row
+         * has an uncommitted writer, so the key cannot be cached again; any child row admitted from the cache
+         * before this point is already written and is found below.
+         */
+        scan.addAttribute(SIConstants.FK_PARENT_DELETE_ATTRIBUTE_NAME, Bytes.toBytes(parentConglomerateNumber));
 
             SimpleTxnFilter readUncommittedFilter;
             SimpleTxnFilter readCommittedFilter;
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.carrotsearch.hppc.BitSet;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.access.configuration.PipelineConfiguration;
+import com.splicemachine.si.impl.driver.SIDriver;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Region-server wide, bounded cache of referenced (parent) row keys which are known to exist and to have been
+ * written by a committed transaction. Child foreign key checks consult it before reading the parent table, so
+ * loading many child rows which reference the same few parent rows reads each parent row once instead of once
+ * per write batch.
+ *
+ * Every parent conglomerate has a generation, and cached keys are only valid for the generation they were read
+ * under. Deleting from a parent table moves its generation forward on every server holding a region where a
+ * referencing child row could be written: the scan {@link ForeignKeyParentInterceptWriteHandler} makes for such rows
+ * tells each server it reaches, before the delete can commit. That makes all of the parent's cached keys
+ * unreachable at once. A child check records the generation <em>before</em> it reads the parent, so a read which
+ * raced with a delete is cached under the old generation and is never seen again, and a read which came after the
+ * delete was written finds an uncommitted writer on the row and does not cache it.
+ */
+@ThreadSafe
+public class ParentKeyCache{
+    private static volatile ParentKeyCache INSTANCE;
+
+    private final int maxSize;
+    private final ConcurrentLinkedHashMap<CacheKey,Boolean> keys;
+    private final ConcurrentMap<Long,Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong generationSequence = new AtomicLong(0l);
+    private volatile long baseGeneration = 0l;
+
+    private final AtomicLong lookups = new AtomicLong(0l);
+    private final AtomicLong hits = new AtomicLong(0l);
+    private final AtomicLong parentReads = new AtomicLong(0l);
+    private final AtomicLong parentReadsSaved = new AtomicLong(0l);
+    private final AtomicLong parentKeysRead = new AtomicLong(0l);
+    private final AtomicLong invalidations = new AtomicLong(0l);
+    private final AtomicBoolean jmxRegistered = new AtomicBoolean(false);
+
+    public ParentKeyCache(int maxSize){
+        this.maxSize = Math.max(0,maxSize);
+        this.keys = new ConcurrentLinkedHashMap.Builder<CacheKey,Boolean>()
+                .maximumWeightedCapacity(Math.max(1,this.maxSize))
+                .concurrencyLevel(64)
+                .build();
+    }
+
+    public static ParentKeyCache cache(){
+        ParentKeyCache cache = INSTANCE;
+        if(cache==null){
+            synchronized(ParentKeyCache.class){
+                cache = INSTANCE;
+                if(cache==null){
+                    SIDriver driver = SIDriver.driver();
+                    int size = driver==null? PipelineConfiguration.DEFAULT_FK_PARENT_KEY_CACHE_SIZE
+                            : driver.getConfiguration().getFkParentKeyCacheSize();
+                    cache = INSTANCE = new ParentKeyCache(size);
+                }
+            }
+        }
+        return cache;
+    }
+
+    public boolean isEnabled(){
+        return maxSize>0;
+    }
+
+    /**
+     * @return the generation of the specified parent conglomerate. Keys read from the parent must be
+     * {@link #cacheKeys(long, long, List) cached} under the generation fetched <em>before</em> reading them.
+     */
+    public long generation(long conglomerateNumber){
+        Long generation = generations.get(conglomerateNumber);
+        return generation==null? baseGeneration : generation;
+    }
+
+    /**
+     * Look up parent row keys, setting the position of each key found in the cache in {@code found}.
+     *
+     * @return the number of keys found
+     */
+    public int lookup(long conglomerateNumber,long generation,List<byte[]> rowKeys,BitSet found){
+        int size = rowKeys.size();
+        if(!isEnabled()) return 0;
+        int hitCount = 0;
+        for(int i=0;i<size;i++){
+            if(keys.containsKey(new CacheKey(conglomerateNumber,generation,rowKeys.get(i)))){
+                found.set(i);
+                hitCount++;
+            }
+        }
+        lookups.addAndGet(size);
+        hits.addAndGet(hitCount);
+        return hitCount;
+    }
+
+    /**
+     * Remember parent row keys which have been read and found to be committed.
+     */
+    public void cacheKeys(long conglomerateNumber,long generation,List<byte[]> rowKeys){
+        if(!isEnabled()) return;
+        for(byte[] rowKey:rowKeys){
+            keys.put(new CacheKey(conglomerateNumber,generation,rowKey),Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Forget every key cached for the specified parent conglomerate.
+     */
+    public void invalidate(long conglomerateNumber){
+        generations.put(conglomerateNumber,generationSequence.incrementAndGet());
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * Forget every cached key. Used for DDL changes which may drop, truncate or otherwise rewrite a parent.
+     */
+    public void invalidateAll(){
+        baseGeneration = generationSequence.incrementAndGet();
+        generations.clear();
+        keys.clear();
+        invalidations.incrementAndGet();
+    }
+
+    public void recordParentRead(int keysRead){
+        parentReads.incrementAndGet();
+        parentKeysRead.addAndGet(keysRead);
+    }
+
+    public void recordParentReadSaved(){
+        parentReadsSaved.incrementAndGet();
+    }
+
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        if(jmxRegistered.compareAndSet(false,true)){
+            ObjectName name=new ObjectName("com.splicemachine.derby.hbase:type=ForeignKeyParentKeyCache");
+            mbs.registerMBean(new Statistics(),name);
+        }
+    }
+
+    @MXBean
+    @SuppressWarnings("UnusedDeclaration")
+    public interface ParentKeyCacheStatistics{
+        int getMaxSize();
+        long getSize();
+        long getLookups();
+        long getHits();
+        double getHitRate();
+        long getParentReads();
+        long getParentReadsSaved();
+        long getParentKeysRead();
+        long getInvalidations();
+    }
+
+    private class Statistics implements ParentKeyCacheStatistics{
+        @Override public int getMaxSize(){ return maxSize; }
+        @Override public long getSize(){ return isEnabled()? keys.size() : 0; }
+        @Override public long getLookups(){ return lookups.get(); }
+        @Override public long getHits(){ return hits.get(); }
+        @Override public long getParentReads(){ return parentReads.get(); }
+        @Override public long getParentReadsSaved(){ return parentReadsSaved.get(); }
+        @Override public long getParentKeysRead(){ return parentKeysRead.get(); }
+        @Override public long getInvalidations(){ return invalidations.get(); }
+
+        @Override
+        public double getHitRate(){
+            long l = lookups.get();
+            return l==0? 0d : ((double)hits.get())/l;
+        }
+    }
+
+    private static final class CacheKey{
+        private final long conglomerateNumber;
+        private final long generation;
+        private final byte[] rowKey;
+        private final int hashCode;
+
+        CacheKey(long conglomerateNumber,long generation,byte[] rowKey){
+            this.conglomerateNumber=conglomerateNumber;
+            this.generation=generation;
+            this.rowKey=rowKey;
+            int h = Arrays.hashCode(rowKey);
+            h = 31*h+(int)(conglomerateNumber^(conglomerateNumber>>>32));
+            this.hashCode = 31*h+(int)(generation^(generation>>>32));
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof CacheKey)) return false;
+            CacheKey other=(CacheKey)o;
+            return conglomerateNumber==other.conglomerateNumber
+                    && generation==other.generation
+                    && Arrays.equals(rowKey,other.rowKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
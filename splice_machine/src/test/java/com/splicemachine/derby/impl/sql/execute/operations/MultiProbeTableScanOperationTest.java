@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.utils.Pair;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@Category(ArchitectureIndependent.class)
+public class MultiProbeTableScanOperationTest{
+
+    @Test
+    public void mergeRangesSortsAndMergesOverlaps() throws Exception{
+        List<Pair<byte[],byte[]>> merged=MultiProbeTableScanOperation.mergeRanges(Arrays.asList(
+                range(7,8),
+                range(1,3),
+                range(2,4),
+                range(7,8),
+                range(5,6)));
+
+        assertEquals("Incorrect number of ranges!",3,merged.size());
+        assertRange(1,4,merged.get(0));
+        assertRange(5,6,merged.get(1));
+        assertRange(7,8,merged.get(2));
+    }
+
+    @Test
+    public void mergeRangesJoinsAdjacentRanges() throws Exception{
+        List<Pair<byte[],byte[]>> merged=MultiProbeTableScanOperation.mergeRanges(Arrays.asList(range(3,5),range(1,3)));
+
+        assertEquals("Incorrect number of ranges!",1,merged.size());
+        assertRange(1,5,merged.get(0));
+    }
+
+    @Test
+    public void groupByRegionSplitsOnRegionBoundaries() throws Exception{
+        List<Pair<byte[],byte[]>> ranges=Arrays.asList(range(1,2),range(3,4),range(5,6),range(9,10));
+        List<byte[]> regionStarts=Arrays.asList(new byte[]{},new byte[]{5},new byte[]{7},new byte[]{8});
+
+        List<List<Pair<byte[],byte[]>>> groups=MultiProbeTableScanOperation.groupByRegion(ranges,regionStarts);
+
+        assertEquals("Incorrect number of groups!",3,groups.size());
+        assertEquals(Arrays.asList(ranges.get(0),ranges.get(1)),groups.get(0));
+        assertEquals(Collections.singletonList(ranges.get(2)),groups.get(1));
+        assertEquals(Collections.singletonList(ranges.get(3)),groups.get(2));
+    }
+
+    @Test
+    public void groupByRegionWithoutRegionsIsOneGroup() throws Exception{
+        List<Pair<byte[],byte[]>> ranges=Arrays.asList(range(1,2),range(3,4));
+
+        List<List<Pair<byte[],byte[]>>> groups=
+                MultiProbeTableScanOperation.groupByRegion(ranges,Collections.<byte[]>emptyList());
+
+        assertEquals("Incorrect number of groups!",1,groups.size());
+        assertEquals(ranges,groups.get(0));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static Pair<byte[],byte[]> range(int start,int stop){
+        return Pair.newPair(new byte[]{(byte)start},new byte[]{(byte)stop});
+    }
+
+    private static void assertRange(int start,int stop,Pair<byte[],byte[]> range){
+        assertArrayEquals("Incorrect start key!",new byte[]{(byte)start},range.getFirst());
+        assertArrayEquals("Incorrect stop key!",new byte[]{(byte)stop},range.getSecond());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class PagedJoinHashTableTest{
+
+    @Test
+    public void testFindsAllRowsForKeyInInsertionOrder() throws Exception{
+        PagedJoinHashTable table=new PagedJoinHashTable(64,false,Long.MAX_VALUE);
+        for(int i=0;i<10000;i++){
+            assertTrue(table.put(Bytes.toBytes(i%100),Bytes.toBytes("row"+i)));
+        }
+        assertEquals(100,table.size());
+        assertEquals(10000,table.rowCount());
+
+        for(int k=0;k<100;k++){
+            List<String> expected=new ArrayList<>();
+            for(int i=k;i<10000;i+=100){
+                expected.add("row"+i);
+            }
+            assertEquals(expected,rows(table,Bytes.toBytes(k)));
+        }
+    }
+
+    @Test
+    public void testMissingKey() throws Exception{
+        PagedJoinHashTable table=new PagedJoinHashTable(1024,false,Long.MAX_VALUE);
+        assertEquals(PagedJoinHashTable.NO_ROW,table.find(Bytes.toBytes(1),0,4));
+        table.put(Bytes.toBytes(1),Bytes.toBytes("one"));
+        assertEquals(PagedJoinHashTable.NO_ROW,table.find(Bytes.toBytes(2),0,4));
+        assertEquals(Arrays.asList("one"),rows(table,Bytes.toBytes(1)));
+    }
+
+    @Test
+    public void testOffHeapPages() throws Exception{
+        PagedJoinHashTable table=new PagedJoinHashTable(128,true,Long.MAX_VALUE);
+        byte[] bigRow=new byte[1000];
+        Arrays.fill(bigRow,(byte)7);
+        table.put(Bytes.toBytes("a"),Bytes.toBytes("small"));
+        table.put(Bytes.toBytes("a"),bigRow);
+
+        long first=table.find(Bytes.toBytes("a"),0,1);
+        assertEquals("small",row(table,first));
+        long second=table.nextRow(first);
+        assertEquals(1000,table.rowLength(second));
+        byte[] bytes=table.rowBytes(second);
+        assertArrayEquals(bigRow,Arrays.copyOfRange(bytes,table.rowOffset(second),table.rowOffset(second)+1000));
+        assertEquals(PagedJoinHashTable.NO_ROW,table.nextRow(second));
+    }
+
+    @Test
+    public void testRefusesRowsPastMemoryBudget() throws Exception{
+        PagedJoinHashTable table=new PagedJoinHashTable(1024,false,64*1024);
+        int added=0;
+        while(table.put(Bytes.toBytes(added),new byte[100])){
+            added++;
+        }
+        assertTrue(added>0);
+        assertTrue(table.memoryUsage()<=64*1024);
+        assertEquals(added,table.rowCount());
+        assertFalse(table.isEmpty());
+    }
+
+    private static List<String> rows(PagedJoinHashTable table,byte[] key){
+        List<String> rows=new ArrayList<>();
+        for(long address=table.find(key,0,key.length);address!=PagedJoinHashTable.NO_ROW;address=table.nextRow(address)){
+            rows.add(row(table,address));
+        }
+        return rows;
+    }
+
+    private static String row(PagedJoinHashTable table,long address){
+        return Bytes.toString(table.rowBytes(address),table.rowOffset(address),table.rowLength(address));
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.access.api.PartitionFactory;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.metrics.Metrics;
+import com.splicemachine.metrics.TimeView;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.Pair;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class ProbeBlockReaderTest{
+    private static final long NO_LIMIT=Long.MAX_VALUE;
+
+    @Test
+    public void testOneScanPerBlockMatchedByRange() throws Exception{
+        //duplicate and overlapping ranges, and one which runs off the end of the table
+        int[] outerKeys={5,3,5,40,41,7,99};
+        FakeTable table=new FakeTable(100,2,1);
+        List<LocatedRow> outer=outerRows(outerKeys,0);
+        ExecutorService lookups=Executors.newFixedThreadPool(3);
+        ProbeBlockReader reader=new ProbeBlockReader(lookups,outer.iterator(),table,"1184",3,3,NO_LIMIT,table.factory());
+        for(int i=0;i<outerKeys.length;i++){
+            assertTrue("Missing probe "+i,reader.hasNext());
+            ProbeBlockReader.Probe probe=reader.next();
+            assertEquals(outerKeys[i],probe.getOuterRow().getRow().getColumn(1).getInt());
+            assertNotSame("Outer rows should be copied",outer.get(i).getRow(),probe.getOuterRow().getRow());
+            assertEquals(Math.min(2,100-outerKeys[i]),probe.size());
+            assertProbeRows(probe,outerKeys[i],probe.size());
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+
+        //one handle on the inner table, and one scan, per block of 3 outer rows
+        verify(table.factory(),times(3)).getTable("1184");
+        verify(table.partition,times(3)).openScanner(any(DataScan.class));
+    }
+
+    @Test
+    public void testInnerRowsAreCappedByBytes() throws Exception{
+        //each inner row is 1000 bytes, so the scan stops after reading rows 0,1,10 and 11
+        FakeTable table=new FakeTable(100,2,1000);
+        ProbeBlockReader reader=new ProbeBlockReader(Executors.newSingleThreadExecutor(),
+                outerRows(new int[]{20,0,10},0).iterator(),table,"1184",3,1,3500,table.factory());
+
+        ProbeBlockReader.Probe probe=nextProbe(reader,20);
+        assertNull("Probe past the end of the scan should run its own scan",probe.scanner());
+        probe=nextProbe(reader,0);
+        assertNotNull("Probe within the scan should be fetched",probe.scanner());
+        assertProbeRows(probe,0,2);
+        probe=nextProbe(reader,10);
+        assertNull("Partially read probe should run its own scan",probe.scanner());
+        assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    @Test
+    public void testOuterBlockIsCappedByBytes() throws Exception{
+        FakeTable table=new FakeTable(100,1,1);
+        ProbeBlockReader reader=new ProbeBlockReader(Executors.newSingleThreadExecutor(),
+                outerRows(new int[]{1,2,3,4,5},1000).iterator(),table,"1184",100,2,1000,table.factory());
+        int count=0;
+        while(reader.hasNext()){
+            ProbeBlockReader.Probe probe=reader.next();
+            assertProbeRows(probe,count+1,1);
+            count++;
+        }
+        assertEquals(5,count);
+        reader.close();
+
+        //every outer row is larger than a block on its own
+        verify(table.partition,times(5)).openScanner(any(DataScan.class));
+    }
+
+    @Test
+    public void testProbesWithDifferentPredicatesAreScannedSeparately() throws Exception{
+        FakeTable table=new FakeTable(100,1,1);
+        table.correlatedPredicates=true;
+        ProbeBlockReader reader=new ProbeBlockReader(Executors.newSingleThreadExecutor(),
+                outerRows(new int[]{1,2,3,4},0).iterator(),table,"1184",4,1,NO_LIMIT,table.factory());
+        for(int i=1;i<=4;i++){
+            assertProbeRows(nextProbe(reader,i),i,1);
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+
+        //odd and even rows each have their own predicates
+        verify(table.partition,times(2)).openScanner(any(DataScan.class));
+    }
+
+    @Test
+    public void testDoesNotFetchProbesWithoutScan() throws Exception{
+        FakeTable table=new FakeTable(10,1,1);
+        table.skipScans=true;
+        ProbeBlockReader reader=new ProbeBlockReader(Executors.newSingleThreadExecutor(),
+                outerRows(new int[]{0,1,2,3,4},0).iterator(),table,"1184",2,2,NO_LIMIT,table.factory());
+        int count=0;
+        while(reader.hasNext()){
+            ProbeBlockReader.Probe probe=reader.next();
+            assertEquals(count,probe.getOuterRow().getRow().getColumn(1).getInt());
+            assertNull(probe.scanner());
+            count++;
+        }
+        assertEquals(5,count);
+        reader.close();
+        verify(table.partition,never()).openScanner(any(DataScan.class));
+    }
+
+    @Test
+    public void testEmptySource() throws Exception{
+        FakeTable table=new FakeTable(10,1,1);
+        ProbeBlockReader reader=new ProbeBlockReader(Executors.newSingleThreadExecutor(),
+                Collections.<LocatedRow>emptyIterator(),table,"1184",2,2,NO_LIMIT,table.factory());
+        assertFalse(reader.hasNext());
+        reader.close();
+        verify(table.factory(),never()).getTable(anyString());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static List<LocatedRow> outerRows(int[] keys,int padding){
+        char[] pad=new char[padding];
+        Arrays.fill(pad,'x');
+        List<LocatedRow> rows=new ArrayList<>(keys.length);
+        for(int key:keys){
+            ExecRow row=new ValueRow(2);
+            row.setColumn(1,new SQLInteger(key));
+            row.setColumn(2,new SQLVarchar(new String(pad)));
+            rows.add(new LocatedRow(row));
+        }
+        return rows;
+    }
+
+    private static ProbeBlockReader.Probe nextProbe(ProbeBlockReader reader,int expectedKey) throws StandardException{
+        assertTrue("Missing probe "+expectedKey,reader.hasNext());
+        ProbeBlockReader.Probe probe=reader.next();
+        assertEquals(expectedKey,probe.getOuterRow().getRow().getColumn(1).getInt());
+        return probe;
+    }
+
+    private static void assertProbeRows(ProbeBlockReader.Probe probe,int firstKey,int count) throws IOException{
+        DataScanner scanner=probe.scanner();
+        for(int r=0;r<count;r++){
+            List<DataCell> row=scanner.next(-1);
+            assertEquals(1,row.size());
+            assertTrue("Incorrect inner row",Arrays.equals(Bytes.toBytes(firstKey+r),row.get(0).key()));
+        }
+        assertTrue(scanner.next(-1).isEmpty());
+    }
+
+    /**
+     * An inner table of single-cell rows keyed 0 to size-1, where the scan for outer row i covers the keys
+     * [i,i+width).
+     */
+    private static class FakeTable implements ProbeBlockReader.ProbeScanSupplier{
+        private final Map<DataScan,List<Pair<byte[],byte[]>>> scanRanges=new IdentityHashMap<>();
+        private final DataCell[] cells;
+        private final int width;
+        private final PartitionFactory factory=mock(PartitionFactory.class);
+        private final Partition partition=mock(Partition.class);
+        private boolean skipScans;
+        private boolean correlatedPredicates;
+
+        FakeTable(int size,int width,int cellBytes) throws Exception{
+            this.width=width;
+            this.cells=new DataCell[size];
+            for(int i=0;i<size;i++){
+                cells[i]=mock(DataCell.class);
+                when(cells[i].getClone()).thenReturn(cells[i]);
+                when(cells[i].key()).thenReturn(Bytes.toBytes(i));
+                when(cells[i].encodedLength()).thenReturn(cellBytes);
+            }
+            when(factory.getTable(anyString())).thenReturn(partition);
+            when(partition.openScanner(any(DataScan.class))).thenAnswer(new Answer<DataScanner>(){
+                @Override
+                public DataScanner answer(InvocationOnMock invocation) throws Throwable{
+                    List<Pair<byte[],byte[]>> ranges;
+                    synchronized(scanRanges){
+                        ranges=scanRanges.get((DataScan)invocation.getArguments()[0]);
+                    }
+                    List<DataCell> rows=new ArrayList<>();
+                    for(Pair<byte[],byte[]> range:ranges){
+                        for(int i=Bytes.toInt(range.getFirst());i<Math.min(cells.length,Bytes.toInt(range.getSecond()));i++){
+                            rows.add(cells[i]);
+                        }
+                    }
+                    return new FakeScanner(rows.iterator());
+                }
+            });
+        }
+
+        PartitionFactory factory(){
+            return factory;
+        }
+
+        @Override
+        public DataScan getProbeScan(LocatedRow outerRow) throws StandardException{
+            if(skipScans) return null;
+            int key=outerRow.getRow().getColumn(1).getInt();
+            final DataScan scan=mock(DataScan.class);
+            when(scan.getStartKey()).thenReturn(Bytes.toBytes(key));
+            when(scan.getStopKey()).thenReturn(Bytes.toBytes(key+width));
+            when(scan.getAttribute(SIConstants.ENTRY_PREDICATE_LABEL)).thenReturn(correlatedPredicates?Bytes.toBytes(key%2):null);
+            when(scan.keyRanges(anyList())).thenAnswer(new Answer<DataScan>(){
+                @Override
+                @SuppressWarnings("unchecked")
+                public DataScan answer(InvocationOnMock invocation) throws Throwable{
+                    synchronized(scanRanges){
+                        scanRanges.put(scan,(List<Pair<byte[],byte[]>>)invocation.getArguments()[0]);
+                    }
+                    return scan;
+                }
+            });
+            return scan;
+        }
+    }
+
+    private static class FakeScanner implements DataScanner{
+        private final Iterator<DataCell> cells;
+        private final List<DataCell> reused=new ArrayList<>();
+        private int next;
+
+        FakeScanner(Iterator<DataCell> cells){
+            this.cells=cells;
+        }
+
+        @Override
+        public List<DataCell> next(int limit) throws IOException{
+            //reuse the returned list, as real scanners do
+            reused.clear();
+            if(cells.hasNext()){
+                reused.add(cells.next());
+                next++;
+            }
+            return reused;
+        }
+
+        @Override public TimeView getReadTime(){ return Metrics.noOpTimeView(); }
+        @Override public long getBytesOutput(){ return 0l; }
+        @Override public long getRowsFiltered(){ return 0l; }
+        @Override public long getRowsVisited(){ return next; }
+        @Override public void close() throws IOException{ }
+        @Override public Partition getPartition(){ return null; }
+    }
+}
@@ -907,6 +907,58 @@ public class TableScanOperationIT{
         }
     }
 
+    @Test
+    public void testInListIsPushedToTheTableScan() throws Exception{
+        String query=format("select sd from %s where sd in (1,3,5,42) order by sd",spliceTableWatcher);
+        boolean found=false;
+        try(Statement s=conn.createStatement()){
+            try(ResultSet rs=s.executeQuery("explain "+query)){
+                while(rs.next()){
+                    String step=rs.getString(1);
+                    if(step.contains(" IN (")){
+                        assertTrue("IN-list was not pushed to the scan: "+step,step.contains("TableScan"));
+                        found=true;
+                    }
+                }
+            }
+            assertTrue("IN-list is missing from the plan!",found);
+
+            try(ResultSet rs=s.executeQuery(query)){
+                assertSdEquals(rs,1,3,5);
+            }
+        }
+    }
+
+    @Test
+    public void testPushedInListOfParameters() throws Exception{
+        try(PreparedStatement ps=conn.prepareStatement(format("select sd from %s where sd in (?,?,?) order by sd",spliceTableWatcher))){
+            ps.setInt(1,4);
+            ps.setInt(2,2);
+            ps.setNull(3,Types.INTEGER);
+            try(ResultSet rs=ps.executeQuery()){
+                assertSdEquals(rs,2,4);
+            }
+            ps.setInt(1,9);
+            ps.setInt(2,0);
+            ps.setInt(3,42);
+            try(ResultSet rs=ps.executeQuery()){
+                assertSdEquals(rs,0,9);
+            }
+        }
+    }
+
+    private static void assertSdEquals(ResultSet rs,int... expected) throws SQLException{
+        List<Integer> actual=Lists.newArrayList();
+        while(rs.next()){
+            actual.add(rs.getInt(1));
+        }
+        List<Integer> expectedList=Lists.newArrayList();
+        for(int e:expected){
+            expectedList.add(e);
+        }
+        assertEquals("Incorrect rows returned!",expectedList,actual);
+    }
+
     private void assertCountEquals(Connection connection,long expectedCount,String query) throws SQLException{
         long count=0l;
         try(Statement s=connection.createStatement()){
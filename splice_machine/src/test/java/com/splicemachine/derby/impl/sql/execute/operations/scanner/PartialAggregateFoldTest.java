@@ -0,0 +1,196 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.scanner;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.UserType;
+import com.splicemachine.db.impl.sql.execute.CountAggregator;
+import com.splicemachine.db.impl.sql.execute.MaxMinAggregator;
+import com.splicemachine.db.impl.sql.execute.SumAggregator;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.control.ParallelControlDataSet;
+import com.splicemachine.derby.stream.control.ParallelExecution;
+import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class PartialAggregateFoldTest {
+
+    /*
+     * Aggregates COUNT(*), COUNT(b), SUM(a) and MAX(a) over rows (a, b), into aggregator columns 1 to 4.
+     */
+    private static PartialAggregateFold newFold() {
+        DataTypeDescriptor bigint = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.BIGINT);
+        DataTypeDescriptor integer = DataTypeDescriptor.getBuiltInDataTypeDescriptor(Types.INTEGER);
+        ExecAggregator[] aggregators = new ExecAggregator[]{
+                new CountAggregator().setup(null, "COUNT(*)", bigint),
+                new CountAggregator().setup(null, "COUNT", bigint),
+                new SumAggregator().setup(null, "SUM", bigint),
+                new MaxMinAggregator().setup(null, "MAX", integer)
+        };
+        ExecRow partialTemplate = new ValueRow(4);
+        for (int i = 1; i <= 4; i++)
+            partialTemplate.setColumn(i, new UserType());
+        return new PartialAggregateFold(partialTemplate, new int[]{1, 2, 3, 4}, new int[]{0, 2, 1, 1}, aggregators);
+    }
+
+    private static ExecRow row(Integer a, Integer b) {
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1, a == null ? new SQLInteger() : new SQLInteger(a));
+        row.setColumn(2, b == null ? new SQLInteger() : new SQLInteger(b));
+        return row;
+    }
+
+    private static ExecAggregator aggregatorAt(ExecRow partial, int column) throws StandardException {
+        return (ExecAggregator) partial.getColumn(column).getObject();
+    }
+
+    @Test
+    public void accumulatesScannedRowsIntoOnePartial() throws Exception {
+        PartialAggregateFold fold = newFold();
+        fold.reset();
+        fold.accumulate(row(3, 1));
+        fold.accumulate(row(7, null));
+        fold.accumulate(row(null, 2));
+
+        ExecRow partial = fold.getPartial();
+        Assert.assertEquals(3, fold.getRowsAccumulated());
+        Assert.assertEquals(3l, aggregatorAt(partial, 1).getResult().getLong());
+        Assert.assertEquals(2l, aggregatorAt(partial, 2).getResult().getLong());
+        Assert.assertEquals(10l, aggregatorAt(partial, 3).getResult().getLong());
+        Assert.assertEquals(7, aggregatorAt(partial, 4).getResult().getInt());
+    }
+
+    @Test
+    public void noPartialWhenNoRowsWereScanned() throws Exception {
+        PartialAggregateFold fold = newFold();
+        fold.reset();
+        Assert.assertNull(fold.getPartial());
+    }
+
+    @Test
+    public void partialsMergeLikeRowAggregates() throws Exception {
+        PartialAggregateFold first = newFold();
+        first.reset();
+        first.accumulate(row(1, 1));
+        first.accumulate(row(9, 1));
+        PartialAggregateFold second = first.copy();
+        second.reset();
+        second.accumulate(row(4, null));
+
+        ExecRow merged = first.getPartial();
+        ExecRow other = second.getPartial();
+        for (int i = 1; i <= 4; i++)
+            aggregatorAt(merged, i).merge(aggregatorAt(other, i));
+
+        Assert.assertEquals(3l, aggregatorAt(merged, 1).getResult().getLong());
+        Assert.assertEquals(2l, aggregatorAt(merged, 2).getResult().getLong());
+        Assert.assertEquals(14l, aggregatorAt(merged, 3).getResult().getLong());
+        Assert.assertEquals(9, aggregatorAt(merged, 4).getResult().getInt());
+    }
+
+    @Test
+    public void resetStartsANewPartial() throws Exception {
+        PartialAggregateFold fold = newFold();
+        fold.reset();
+        fold.accumulate(row(5, 5));
+        fold.reset();
+        fold.accumulate(row(2, 2));
+
+        ExecRow partial = fold.getPartial();
+        Assert.assertEquals(1l, aggregatorAt(partial, 1).getResult().getLong());
+        Assert.assertEquals(2l, aggregatorAt(partial, 3).getResult().getLong());
+    }
+
+    @Test
+    public void survivesSerialization() throws Exception {
+        PartialAggregateFold fold = (PartialAggregateFold) SerializationUtils.deserialize(
+                SerializationUtils.serialize(newFold()));
+        fold.reset();
+        fold.accumulate(row(4, null));
+        fold.accumulate(row(6, 1));
+
+        ExecRow partial = fold.getPartial();
+        Assert.assertEquals(2l, aggregatorAt(partial, 1).getResult().getLong());
+        Assert.assertEquals(1l, aggregatorAt(partial, 2).getResult().getLong());
+        Assert.assertEquals(10l, aggregatorAt(partial, 3).getResult().getLong());
+        Assert.assertEquals(6, aggregatorAt(partial, 4).getResult().getInt());
+    }
+
+    @Test
+    public void partialsOfSeveralPartitionsAggregateIntoOneRow() throws Exception {
+        // one partial per region, as the folding scanners of a parallel control scan return them
+        PartialAggregateFold template = newFold();
+        List<Iterable<ExecRow>> partitions = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            PartialAggregateFold fold = template.copy();
+            fold.reset();
+            for (int i = 0; i < 10; i++)
+                fold.accumulate(row(p * 10 + i, i % 2 == 0 ? i : null));
+            partitions.add(Collections.singletonList(fold.getPartial()));
+        }
+        DataSet<ExecRow> scanned = new ParallelControlDataSet<>(partitions,
+                new ParallelExecution(ParallelExecution.sharedPool(3), 3, 4, null));
+
+        // first aggregation, coalesce and final aggregation, as ScalarAggregateOperation does it
+        List<ExecRow> result = scanned.mapPartitions(new MergePartialsFunction())
+                .coalesce(1, true)
+                .mapPartitions(new MergePartialsFunction())
+                .collect();
+
+        Assert.assertEquals("Scalar aggregate must return a single row", 1, result.size());
+        ExecRow merged = result.get(0);
+        Assert.assertEquals(30l, aggregatorAt(merged, 1).getResult().getLong());
+        Assert.assertEquals(15l, aggregatorAt(merged, 2).getResult().getLong());
+        Assert.assertEquals(435l, aggregatorAt(merged, 3).getResult().getLong());
+        Assert.assertEquals(29, aggregatorAt(merged, 4).getResult().getInt());
+    }
+
+    public static class MergePartialsFunction extends SpliceFlatMapFunction<SpliceOperation, Iterator<ExecRow>, ExecRow> {
+        public MergePartialsFunction() {
+        }
+
+        @Override
+        public Iterable<ExecRow> call(Iterator<ExecRow> partials) throws Exception {
+            if (!partials.hasNext())
+                return Collections.emptyList();
+            ExecRow merged = partials.next();
+            while (partials.hasNext()) {
+                ExecRow partial = partials.next();
+                for (int i = 1; i <= merged.nColumns(); i++)
+                    aggregatorAt(merged, i).merge(aggregatorAt(partial, i));
+            }
+            return Collections.singletonList(merged);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class SlidingWindowAggregatorTest{
+
+    @Test
+    public void testMaxOverSlidingFrame() throws Exception{
+        SpliceGenericWindowFunction max=(SpliceGenericWindowFunction)new MaxMinAggregator().setup(null,"MAX",null,null);
+        max.setResultType(new SQLInteger());
+        slide(max,Aggregate.MAX,new Random(0l));
+    }
+
+    @Test
+    public void testMinOverSlidingFrame() throws Exception{
+        SpliceGenericWindowFunction min=(SpliceGenericWindowFunction)new MaxMinAggregator().setup(null,"MIN",null,null);
+        min.setResultType(new SQLInteger());
+        slide(min,Aggregate.MIN,new Random(1l));
+    }
+
+    @Test
+    public void testSumOverSlidingFrame() throws Exception{
+        SpliceGenericWindowFunction sum=new SumAggregator();
+        sum.setResultType(new SQLInteger());
+        slide(sum,Aggregate.SUM,new Random(2l));
+    }
+
+    @Test
+    public void testEmptyFrameIsNull() throws Exception{
+        SpliceGenericWindowFunction max=(SpliceGenericWindowFunction)new MaxMinAggregator().setup(null,"MAX",null,null);
+        max.setResultType(new SQLInteger());
+        max.accumulate(new DataValueDescriptor[]{new SQLInteger(3)});
+        max.accumulate(new DataValueDescriptor[]{new SQLInteger()});
+        Assert.assertEquals(3,max.getResult().getInt());
+        max.remove();
+        Assert.assertTrue("Only a null is left in the frame",max.getResult().isNull());
+        max.remove();
+        Assert.assertTrue(max.getResult().isNull());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private enum Aggregate{ MAX, MIN, SUM }
+
+    private static void slide(SpliceGenericWindowFunction function,Aggregate aggregate,Random random) throws Exception{
+        int frameSize=50;
+        Deque<Integer> frame=new ArrayDeque<>();
+        for(int i=0;i<5000;i++){
+            Integer value=random.nextInt(10)==0?null:random.nextInt(2000)-1000;
+            function.accumulate(new DataValueDescriptor[]{value==null?new SQLInteger():new SQLInteger(value)});
+            frame.addLast(value==null?Integer.MIN_VALUE:value);
+            if(frame.size()>frameSize){
+                frame.pollFirst();
+                function.remove();
+            }
+
+            Integer expected=expected(frame,aggregate);
+            DataValueDescriptor result=function.getResult();
+            if(expected==null)
+                Assert.assertTrue("Expected a null result at row "+i,result.isNull());
+            else
+                Assert.assertEquals("Incorrect "+aggregate+" at row "+i,expected.intValue(),result.getInt());
+        }
+    }
+
+    private static Integer expected(Deque<Integer> frame,Aggregate aggregate){
+        Integer result=null;
+        for(int value : frame){
+            if(value==Integer.MIN_VALUE) continue; //null
+            if(result==null) result=value;
+            else if(aggregate==Aggregate.MAX) result=Math.max(result,value);
+            else if(aggregate==Aggregate.MIN) result=Math.min(result,value);
+            else result+=value;
+        }
+        return result;
+    }
+}
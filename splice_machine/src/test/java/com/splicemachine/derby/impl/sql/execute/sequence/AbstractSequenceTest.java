@@ -16,6 +16,15 @@
 package com.splicemachine.derby.impl.sql.execute.sequence;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Assert;
@@ -60,8 +69,81 @@ public class AbstractSequenceTest {
 		}
 	}
 	
+	@Test
+	public void singleThreadedDescendingSequence() throws Exception {
+		Sequence sequence = new SpliceTestSequence(100,-1,0);
+		for (long i = 0; i< 1000; i++) {
+			long next = sequence.getNext();
+			Assert.assertEquals(-i,next);
+		}
+	}
+
+	@Test
+	public void descendingSequenceUpgradedFromAscendingBlocks() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(100,-1,0);
+		// the old blocks moved the stored value upward, handing out 0, 100 and 200
+		sequence.currentValue = 300;
+		long last = Long.MAX_VALUE;
+		for (long i = 0; i< 1000; i++) {
+			long next = sequence.getNext();
+			Assert.assertTrue("Reissued a value handed out before the upgrade: "+next, next<0);
+			Assert.assertTrue("Values must keep descending", next<last);
+			last = next;
+		}
+		Assert.assertTrue("Stored value must be below the values handed out", sequence.currentValue<last);
+	}
+
+	@Test
+	public void blocksGrowWhenConsumedQuickly() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(10,1,0);
+		for (long i = 0; i< 100000; i++) {
+			Assert.assertEquals(i,sequence.getNext());
+		}
+		Assert.assertTrue("Expected blocks larger than the configured size, got "+sequence.allocations+" allocations",
+				sequence.allocations<10000);
+	}
+
+	@Test
+	public void singleValueBlocksAreNeverReservedAhead() throws Exception {
+		SpliceTestSequence sequence = new SpliceTestSequence(1,1,0);
+		for (long i = 0; i< 100; i++) {
+			Assert.assertEquals(i,sequence.getNext());
+			Assert.assertEquals(i+1,sequence.currentValue);
+		}
+	}
+
+	@Test
+	public void multiThreadedValuesAreUnique() throws Exception {
+		final Sequence sequence = new SpliceTestSequence(16,1,0);
+		final int threads = 8;
+		final int perThread = 20000;
+		final Set<Long> seen = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (int i = 0; i < perThread; i++) {
+							Assert.assertTrue("Duplicate value handed out", seen.add(sequence.getNext()));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Assert.assertEquals(threads*perThread,seen.size());
+	}
+
 	private class SpliceTestSequence extends AbstractSequence {
 		long currentValue = -1;
+		int allocations = 0;
 		SpliceTestSequence(long blockAllocationSize, long incrementSteps, long startingValue) {
 			super(blockAllocationSize,incrementSteps,startingValue);
 		}
@@ -76,6 +158,7 @@ public class AbstractSequenceTest {
 			@Override
 			protected boolean atomicIncrement(long nextValue) throws IOException {
 				currentValue = nextValue;
+				allocations++;
 				return true;
 			}
 
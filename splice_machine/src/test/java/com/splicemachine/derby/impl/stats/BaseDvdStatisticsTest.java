@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.impl.stats;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stats.IntColumnStatistics;
+import com.splicemachine.stats.collector.ColumnStatsCollectors;
+import com.splicemachine.stats.collector.IntColumnStatsCollector;
+import com.splicemachine.stats.histogram.EquiDepthHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Checks that column statistics are read back with their histogram, and that statistics written before
+ * histograms were collected are still read, even when more data follows them in the stream.
+ */
+@Category(ArchitectureIndependent.class)
+public class BaseDvdStatisticsTest {
+    private static final String NEXT_OBJECT = "written after the statistics";
+
+    @Test
+    public void histogramIsReadBack() throws Exception {
+        IntStats stats = new IntStats(intStats());
+        EquiDepthHistogram<DataValueDescriptor> histogram = DvdHistogramCollector.histogram(new SQLInteger(1),
+                new DataValueDescriptor[]{new SQLInteger(10), new SQLInteger(100)},
+                new long[]{60l, 30l},
+                new long[]{10l, 20l});
+        stats.setHistogram(histogram);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            stats.writeExternal(out);
+            out.writeObject(NEXT_OBJECT);
+        }
+
+        IntStats read = new IntStats();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read.readExternal(in);
+            Assert.assertEquals("Read past the statistics!", NEXT_OBJECT, in.readObject());
+        }
+        Assert.assertEquals(stats.cardinality(), read.cardinality());
+        EquiDepthHistogram<DataValueDescriptor> readHistogram = read.histogram();
+        Assert.assertNotNull("The histogram was lost!", readHistogram);
+        Assert.assertEquals(histogram.numBuckets(), readHistogram.numBuckets());
+        Assert.assertEquals(new SQLInteger(1), readHistogram.min());
+        for (int i = 0; i < histogram.numBuckets(); i++) {
+            Assert.assertEquals(histogram.upperBound(i), readHistogram.upperBound(i));
+            Assert.assertEquals(histogram.rowCount(i), readHistogram.rowCount(i));
+            Assert.assertEquals(histogram.cardinality(i), readHistogram.cardinality(i));
+        }
+    }
+
+    @Test
+    public void statisticsWithoutAHistogramAreReadBack() throws Exception {
+        IntStats stats = new IntStats(intStats());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            stats.writeExternal(out);
+            out.writeObject(NEXT_OBJECT);
+        }
+
+        IntStats read = new IntStats();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read.readExternal(in);
+            Assert.assertEquals("Read past the statistics!", NEXT_OBJECT, in.readObject());
+        }
+        Assert.assertNull(read.histogram());
+        Assert.assertEquals(stats.cardinality(), read.cardinality());
+    }
+
+    @Test
+    public void oldFormatIsReadWhenMoreDataFollows() throws Exception {
+        IntColumnStatistics columnStats = intStats();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            //the format written before histograms were collected: just the column statistics
+            IntColumnStatistics.encoder().encode(columnStats, out);
+            out.writeObject(NEXT_OBJECT);
+        }
+
+        IntStats read = new IntStats();
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read.readExternal(in);
+            Assert.assertEquals("Read past the statistics!", NEXT_OBJECT, in.readObject());
+        }
+        Assert.assertNull("Old statistics have no histogram!", read.histogram());
+        Assert.assertEquals(columnStats.columnId(), read.columnId());
+        Assert.assertEquals(columnStats.cardinality(), read.cardinality());
+        Assert.assertEquals(columnStats.nonNullCount(), read.nonNullCount());
+        Assert.assertEquals(columnStats.nullCount(), read.nullCount());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static IntColumnStatistics intStats() {
+        IntColumnStatsCollector collector = ColumnStatsCollectors.intCollector(3, 14, 5);
+        for (int i = 1; i <= 100; i++) {
+            collector.update(i % 30);
+        }
+        collector.updateNull();
+        return collector.build();
+    }
+}
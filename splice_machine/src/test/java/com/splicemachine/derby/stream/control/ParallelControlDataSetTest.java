@@ -0,0 +1,237 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.AbstractDataSetTest;
+import com.splicemachine.derby.stream.function.OffsetFunction;
+import com.splicemachine.derby.stream.function.SpliceFlatMapFunction;
+import com.splicemachine.derby.stream.function.SpliceFunction;
+import com.splicemachine.derby.stream.function.SpliceFunction2;
+import com.splicemachine.derby.stream.function.SplicePairFunction;
+import com.splicemachine.derby.stream.function.TopNFunction;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.PairDataSet;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs the data set tests over a {@link ParallelControlDataSet} split into several partitions, and checks
+ * that the operations which need all the rows at once (scalar aggregates, sorts and limits) see every
+ * partition.
+ */
+@Category(ArchitectureIndependent.class)
+public class ParallelControlDataSetTest extends AbstractDataSetTest{
+    private static final int PARTITIONS=4;
+
+    @Override
+    protected DataSet<ExecRow> getTenRowsTwoDuplicateRecordsDataSet() {
+        return partitioned(tenRowsTwoDuplicateRecords,3);
+    }
+
+    @Test
+    public void testScalarAggregateReturnsOneRow() throws Exception {
+        DataSet<LocatedRow> ds=partitioned(rows(1000),PARTITIONS);
+        // partial aggregation per partition, coalesce, then the final aggregation, as ScalarAggregateOperation does
+        DataSet<LocatedRow> result=ds.mapPartitions(new SumFunction())
+                .coalesce(1,true)
+                .mapPartitions(new SumFunction());
+
+        List<LocatedRow> rows=result.collect();
+        Assert.assertEquals("Scalar aggregate must return a single row",1,rows.size());
+        Assert.assertEquals(999*1000/2,rows.get(0).getRow().getColumn(1).getInt());
+    }
+
+    @Test
+    public void testCoalesceKeepsRowsInOrder() throws Exception {
+        DataSet<LocatedRow> ds=partitioned(rows(100),PARTITIONS);
+        Assert.assertEquals(PARTITIONS,((ParallelControlDataSet)ds).getPartitions().size());
+
+        DataSet<LocatedRow> two=ds.coalesce(2,false);
+        Assert.assertEquals(2,((ParallelControlDataSet)two).getPartitions().size());
+        Assert.assertEquals(sequence(0,100),values(two.collect()));
+        Assert.assertEquals(sequence(0,100),values(ds.coalesce(1,true).collect()));
+    }
+
+    @Test
+    public void testOrderByAcrossPartitions() throws Exception {
+        List<LocatedRow> rows=rows(1000);
+        Collections.reverse(rows);
+        DataSet<LocatedRow> ds=partitioned(rows,PARTITIONS);
+
+        List<LocatedRow> sorted=ds.keyBy(new ValueKeyFunction())
+                .sortByKey(new IntComparator())
+                .values()
+                .collect();
+        Assert.assertEquals(sequence(0,1000),values(sorted));
+    }
+
+    @Test
+    public void testTopNAcrossPartitions() throws Exception {
+        List<LocatedRow> rows=rows(1000);
+        Collections.reverse(rows);
+        DataSet<LocatedRow> ds=partitioned(rows,PARTITIONS);
+
+        TopNFunction<SpliceOperation> topN=new TopNFunction<>(null,new int[]{0},new boolean[]{false},new boolean[]{true},10);
+        DataSet<LocatedRow> result=ds.mapPartitions(topN).coalesce(1,true).mapPartitions(topN);
+        Assert.assertEquals(sequence(0,10),values(result.collect()));
+    }
+
+    @Test
+    public void testLimitAcrossPartitions() throws Exception {
+        DataSet<LocatedRow> ds=partitioned(rows(1000),PARTITIONS);
+
+        // offset and limit applied the way RowCountOperation does it
+        List<LocatedRow> limited=ds.zipWithIndex()
+                .mapPartitions(new OffsetFunction<SpliceOperation,LocatedRow>(null,300,5))
+                .collect();
+        Assert.assertEquals(sequence(300,305),values(limited));
+    }
+
+    @Test
+    public void testReduceByKeyAcrossPartitions() throws Exception {
+        DataSet<LocatedRow> ds=partitioned(rows(1000),PARTITIONS);
+
+        PairDataSet<Integer,LocatedRow> pairs=ds.index(new ModuloPairFunction());
+        Assert.assertTrue(pairs instanceof ParallelControlPairDataSet);
+        List<LocatedRow> sums=pairs.reduceByKey(new SumRowsFunction())
+                .values()
+                .collect();
+        Assert.assertEquals(10,sums.size());
+        int total=0;
+        for(Integer sum : values(sums)){
+            total+=sum;
+        }
+        Assert.assertEquals(999*1000/2,total);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static <V> DataSet<V> partitioned(List<V> rows,int numPartitions){
+        List<Iterable<V>> partitions=new ArrayList<>(numPartitions);
+        int start=0;
+        for(int i=0;i<numPartitions;i++){
+            int end=rows.size()*(i+1)/numPartitions;
+            partitions.add(new ArrayList<>(rows.subList(start,end)));
+            start=end;
+        }
+        return new ParallelControlDataSet<>(partitions,
+                new ParallelExecution(ParallelExecution.sharedPool(numPartitions),numPartitions,16,null));
+    }
+
+    private static List<LocatedRow> rows(int size){
+        List<LocatedRow> rows=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            rows.add(new LocatedRow(getExecRow(i,1)));
+        }
+        return rows;
+    }
+
+    private static List<Integer> sequence(int start,int end){
+        List<Integer> values=new ArrayList<>(end-start);
+        for(int i=start;i<end;i++){
+            values.add(i);
+        }
+        return values;
+    }
+
+    private static List<Integer> values(List<LocatedRow> rows) throws Exception{
+        List<Integer> values=new ArrayList<>(rows.size());
+        for(LocatedRow row : rows){
+            values.add(row.getRow().getColumn(1).getInt());
+        }
+        return values;
+    }
+
+    public static class SumFunction extends SpliceFlatMapFunction<SpliceOperation,Iterator<LocatedRow>,LocatedRow>{
+        public SumFunction(){
+        }
+
+        @Override
+        public Iterable<LocatedRow> call(Iterator<LocatedRow> rows) throws Exception{
+            int sum=0;
+            while(rows.hasNext()){
+                sum+=rows.next().getRow().getColumn(1).getInt();
+            }
+            return Collections.singletonList(new LocatedRow(getExecRow(sum,1)));
+        }
+    }
+
+    public static class ValueKeyFunction extends SpliceFunction<SpliceOperation,LocatedRow,Integer>{
+        public ValueKeyFunction(){
+        }
+
+        @Override
+        public Integer call(LocatedRow row) throws Exception{
+            return row.getRow().getColumn(1).getInt();
+        }
+    }
+
+    public static class ModuloPairFunction extends SplicePairFunction<SpliceOperation,LocatedRow,Integer,LocatedRow>{
+        public ModuloPairFunction(){
+        }
+
+        @Override
+        public Integer genKey(LocatedRow row){
+            try{
+                return row.getRow().getColumn(1).getInt()%10;
+            }catch(Exception e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public LocatedRow genValue(LocatedRow row){
+            return row;
+        }
+
+        @Override
+        public Tuple2<Integer,LocatedRow> call(LocatedRow row) throws Exception{
+            return new Tuple2<>(genKey(row),genValue(row));
+        }
+    }
+
+    public static class SumRowsFunction extends SpliceFunction2<SpliceOperation,LocatedRow,LocatedRow,LocatedRow>{
+        public SumRowsFunction(){
+        }
+
+        @Override
+        public LocatedRow call(LocatedRow sum,LocatedRow row) throws Exception{
+            if(sum==null)
+                return row;
+            return new LocatedRow(getExecRow(sum.getRow().getColumn(1).getInt()+row.getRow().getColumn(1).getInt(),1));
+        }
+    }
+
+    private static class IntComparator implements Comparator<Integer>, Serializable{
+        @Override
+        public int compare(Integer o1,Integer o2){
+            return Integer.compare(o1,o2);
+        }
+    }
+}
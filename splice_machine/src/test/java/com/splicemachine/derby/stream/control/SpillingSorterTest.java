@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.control;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import scala.Tuple2;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class SpillingSorterTest{
+    private static final Comparator<Integer> NATURAL_ORDER=new Comparator<Integer>(){
+        @Override
+        public int compare(Integer o1,Integer o2){
+            return o1.compareTo(o2);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder spillDirectory=new TemporaryFolder();
+
+    @Test
+    public void testSortsInMemoryWithoutSpilling() throws Exception{
+        SpillingSorter<Integer> sorter=new SpillingSorter<>(NATURAL_ORDER,Long.MAX_VALUE,spillDirectory.getRoot(),null);
+        List<Integer> values=randomValues(1000);
+        sorter.addAll(values);
+
+        Collections.sort(values);
+        assertEquals(values,toList(sorter));
+        assertEquals(values,toList(sorter));
+        assertEquals(0,sorter.getRunCount());
+        assertEquals(0,spillFiles().length);
+    }
+
+    @Test
+    public void testMergesSpilledRuns() throws Exception{
+        SpillingSorter<Integer> sorter=new SpillingSorter<>(NATURAL_ORDER,64*100,spillDirectory.getRoot(),null);
+        List<Integer> values=randomValues(10000);
+        sorter.addAll(values);
+        assertTrue("Nothing was spilled",sorter.getRunCount()>1);
+        assertEquals(sorter.getRunCount(),spillFiles().length);
+
+        Collections.sort(values);
+        assertEquals(values,toList(sorter));
+        assertEquals("Spill files were not removed",0,spillFiles().length);
+    }
+
+    @Test
+    public void testCloseRemovesSpillFiles() throws Exception{
+        SpillingSorter<Integer> sorter=new SpillingSorter<>(NATURAL_ORDER,64*100,spillDirectory.getRoot(),null);
+        sorter.addAll(randomValues(1000));
+        sorter.iterator().next();
+        sorter.close();
+        assertEquals(0,spillFiles().length);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSecondReadOfSpilledRowsFails() throws Exception{
+        SpillingSorter<Integer> sorter=new SpillingSorter<>(NATURAL_ORDER,64*100,spillDirectory.getRoot(),null);
+        sorter.addAll(randomValues(1000));
+        toList(sorter);
+        sorter.iterator();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testReadAfterCloseFails() throws Exception{
+        SpillingSorter<Integer> sorter=new SpillingSorter<>(NATURAL_ORDER,Long.MAX_VALUE,spillDirectory.getRoot(),null);
+        sorter.addAll(randomValues(100));
+        sorter.close();
+        sorter.iterator();
+    }
+
+    @Test
+    public void testAggregatesAcrossSpilledRuns() throws Exception{
+        SpillingAggregator<String,Integer,Integer> aggregator=new SpillingAggregator<>(new SpillingAggregator.Aggregation<Integer, Integer>(){
+            @Override
+            public Integer first(Integer value){
+                return value;
+            }
+
+            @Override
+            public Integer add(Integer aggregate,Integer value){
+                return aggregate+value;
+            }
+
+            @Override
+            public Integer merge(Integer aggregate,Integer other){
+                return aggregate+other;
+            }
+
+            @Override
+            public boolean retainsValues(){
+                return false;
+            }
+        },4096,spillDirectory.getRoot(),null);
+
+        Map<String,Integer> expected=new HashMap<>();
+        Random random=new Random(0);
+        for(int i=0;i<20000;i++){
+            // "Aa" and "BB" share a hash code, so they must still be told apart when merging
+            String key=i%3==0?(i%2==0?"Aa":"BB"):"key"+random.nextInt(500);
+            aggregator.add(key,1);
+            Integer count=expected.get(key);
+            expected.put(key,count==null?1:count+1);
+        }
+
+        Map<String,Integer> actual=new HashMap<>();
+        for(Tuple2<String,Integer> t : aggregator.result()){
+            assertEquals("Key "+t._1()+" was returned more than once",null,actual.put(t._1(),t._2()));
+        }
+        assertEquals(expected,actual);
+        assertEquals(0,spillFiles().length);
+    }
+
+    private List<Integer> randomValues(int count){
+        Random random=new Random(count);
+        List<Integer> values=new ArrayList<>(count);
+        for(int i=0;i<count;i++){
+            values.add(random.nextInt(count/2));
+        }
+        return values;
+    }
+
+    private static List<Integer> toList(Iterable<Integer> sorted){
+        List<Integer> values=new ArrayList<>();
+        for(Integer value : sorted){
+            values.add(value);
+        }
+        return values;
+    }
+
+    private File[] spillFiles(){
+        return spillDirectory.getRoot().listFiles();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLTimestamp;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.utils.ByteSlice;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class NormalizedKeyFunctionTest{
+    private static final int[] KEY_COLUMNS=new int[]{0,1,2};
+
+    @Test
+    public void testOrderMatchesRowComparator() throws Exception{
+        Random random=new Random(0l);
+        List<ExecRow> rows=new ArrayList<>();
+        for(int i=0;i<200;i++){
+            rows.add(randomRow(random));
+        }
+        int[] keyTypes=NormalizedKeyFunction.keyTypes(rows.get(0),KEY_COLUMNS,true);
+        Assert.assertNotNull("Numeric columns should be normalized",keyTypes);
+
+        //every combination of ascending/descending and nulls low/high over the three columns
+        for(int order=0;order<64;order++){
+            boolean[] descColumns=new boolean[KEY_COLUMNS.length];
+            boolean[] nullsOrderedLow=new boolean[KEY_COLUMNS.length];
+            for(int i=0;i<KEY_COLUMNS.length;i++){
+                descColumns[i]=(order&(1<<i))!=0;
+                nullsOrderedLow[i]=(order&(1<<(i+3)))!=0;
+            }
+            NormalizedKeyFunction<?> function=new NormalizedKeyFunction<>(null,KEY_COLUMNS,keyTypes,descColumns,nullsOrderedLow);
+            RowComparator comparator=new RowComparator(descColumns,nullsOrderedLow);
+            for(ExecRow left : rows){
+                ByteSlice leftKey=ByteSlice.wrap(function.encode(left));
+                for(ExecRow right : rows){
+                    int expected=Integer.signum(comparator.compare(left.getKeyedExecRow(KEY_COLUMNS),right.getKeyedExecRow(KEY_COLUMNS)));
+                    int actual=Integer.signum(NormalizedKeyFunction.COMPARATOR.compare(leftKey,ByteSlice.wrap(function.encode(right))));
+                    Assert.assertEquals("Incorrect order of "+left+" and "+right+" for desc="+Arrays.toString(descColumns)
+                            +", nullsOrderedLow="+Arrays.toString(nullsOrderedLow),expected,actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEqualValuesHaveEqualKeys() throws Exception{
+        NormalizedKeyFunction<?> integral=new NormalizedKeyFunction<>(null,new int[]{0},new int[]{NormalizedKeyFunction.INTEGRAL});
+        Assert.assertArrayEquals(integral.encode(row(new SQLInteger(42))),integral.encode(row(new SQLLongint(42l))));
+
+        NormalizedKeyFunction<?> decimal=new NormalizedKeyFunction<>(null,new int[]{0},new int[]{NormalizedKeyFunction.DECIMAL});
+        Assert.assertArrayEquals(decimal.encode(row(new SQLDecimal(new BigDecimal("1.50")))),decimal.encode(row(new SQLDecimal(new BigDecimal("1.5")))));
+
+        NormalizedKeyFunction<?> floating=new NormalizedKeyFunction<>(null,new int[]{0},new int[]{NormalizedKeyFunction.FLOATING});
+        Assert.assertArrayEquals(floating.encode(row(new SQLDouble(-0.0d))),floating.encode(row(new SQLDouble(0.0d))));
+
+        NormalizedKeyFunction<?> string=new NormalizedKeyFunction<>(null,new int[]{0},new int[]{NormalizedKeyFunction.STRING});
+        Assert.assertArrayEquals(string.encode(row(new SQLChar("abc  "))),string.encode(row(new SQLVarchar("abc"))));
+        Assert.assertFalse(Arrays.equals(string.encode(row(new SQLVarchar(""))),string.encode(row(new SQLVarchar()))));
+    }
+
+    @Test
+    public void testAdjacentStringColumnsDoNotRunTogether() throws Exception{
+        NormalizedKeyFunction<?> function=new NormalizedKeyFunction<>(null,new int[]{0,1},
+                new int[]{NormalizedKeyFunction.STRING,NormalizedKeyFunction.STRING});
+        Assert.assertFalse(Arrays.equals(function.encode(row(new SQLVarchar("a"),new SQLVarchar("bc"))),
+                function.encode(row(new SQLVarchar("ab"),new SQLVarchar("c")))));
+    }
+
+    @Test
+    public void testUnsupportedColumnsFallBack() throws Exception{
+        Assert.assertNull("Strings can't be sorted by their bytes",
+                NormalizedKeyFunction.keyTypes(row(new SQLInteger(1),new SQLVarchar("a")),new int[]{0,1},true));
+        Assert.assertNotNull("Strings can be grouped by their bytes",
+                NormalizedKeyFunction.keyTypes(row(new SQLInteger(1),new SQLVarchar("a")),new int[]{0,1},false));
+        Assert.assertNull("Timestamps are not normalized",
+                NormalizedKeyFunction.keyTypes(row(new SQLInteger(1),new SQLTimestamp()),new int[]{0,1},false));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static ExecRow randomRow(Random random) throws Exception{
+        SQLInteger integer=random.nextInt(8)==0?new SQLInteger():new SQLInteger(random.nextInt(21)-10);
+        SQLDouble dbl=random.nextInt(8)==0?new SQLDouble():new SQLDouble((random.nextInt(41)-20)/4d);
+        SQLDecimal decimal=random.nextInt(8)==0?new SQLDecimal():new SQLDecimal(BigDecimal.valueOf(random.nextInt(2001)-1000,random.nextInt(4)));
+        return row(integer,dbl,decimal);
+    }
+
+    private static ExecRow row(DataValueDescriptor... columns){
+        ValueRow row=new ValueRow(columns.length);
+        for(int i=0;i<columns.length;i++){
+            row.setColumn(i+1,columns[i]);
+        }
+        return row;
+    }
+}
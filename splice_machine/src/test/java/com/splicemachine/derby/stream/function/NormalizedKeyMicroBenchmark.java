@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.utils.ByteSlice;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Sorts the same keys as ExecRows with a {@link RowComparator} and as normalized keys with
+ * {@link NormalizedKeyFunction#COMPARATOR}, and reports the time per comparison of each.
+ * <p>
+ * Run with {@code main [rows] [rounds]}. The keys are (INTEGER, DOUBLE DESC, DECIMAL) with a few nulls and
+ * many duplicates in the leading column, so most comparisons have to look past the first column.
+ */
+public class NormalizedKeyMicroBenchmark{
+    private static final int[] KEY_COLUMNS=new int[]{0,1,2};
+    private static final boolean[] DESC_COLUMNS=new boolean[]{false,true,false};
+    private static final boolean[] NULLS_ORDERED_LOW=new boolean[]{true,true,false};
+
+    public static void main(String...args) throws Exception{
+        int rows=args.length>0?Integer.parseInt(args[0]):200000;
+        int rounds=args.length>1?Integer.parseInt(args[1]):10;
+        Random random=new Random(0l);
+
+        ExecRow[] rowKeys=new ExecRow[rows];
+        ByteSlice[] normalizedKeys=new ByteSlice[rows];
+        ExecRow template=row(random);
+        NormalizedKeyFunction<?> function=new NormalizedKeyFunction<>(null,KEY_COLUMNS,
+                NormalizedKeyFunction.keyTypes(template,KEY_COLUMNS,true),DESC_COLUMNS,NULLS_ORDERED_LOW);
+        long encodeTime=0l;
+        for(int i=0;i<rows;i++){
+            ExecRow row=row(random);
+            rowKeys[i]=row.getKeyedExecRow(KEY_COLUMNS);
+            long start=System.nanoTime();
+            normalizedKeys[i]=ByteSlice.wrap(function.encode(row));
+            encodeTime+=System.nanoTime()-start;
+        }
+        System.out.printf("%d rows, %d rounds. Encoding took %.1f ns/row%n",rows,rounds,(double)encodeTime/rows);
+
+        //the first rounds warm up the JIT, so only the second half of the rounds are reported
+        for(int round=0;round<rounds;round++){
+            boolean report=round>=rounds/2;
+            run("RowComparator",rowKeys,new RowComparator(DESC_COLUMNS,NULLS_ORDERED_LOW),report);
+            run("Normalized",normalizedKeys,NormalizedKeyFunction.COMPARATOR,report);
+        }
+    }
+
+    private static <T> void run(String name,T[] keys,final Comparator<T> comparator,boolean report){
+        final long[] comparisons=new long[1];
+        T[] copy=Arrays.copyOf(keys,keys.length);
+        long start=System.nanoTime();
+        Arrays.sort(copy,new Comparator<T>(){
+            @Override
+            public int compare(T o1,T o2){
+                comparisons[0]++;
+                return comparator.compare(o1,o2);
+            }
+        });
+        long elapsed=System.nanoTime()-start;
+        if(report)
+            System.out.printf("%-14s sort: %6d ms, %.1f ns/comparison%n",name,elapsed/1000000,(double)elapsed/comparisons[0]);
+    }
+
+    private static ExecRow row(Random random) throws Exception{
+        ValueRow row=new ValueRow(3);
+        row.setColumn(1,random.nextInt(50)==0?new SQLInteger():new SQLInteger(random.nextInt(16)));
+        row.setColumn(2,random.nextInt(50)==0?new SQLDouble():new SQLDouble(random.nextInt(64)/8d));
+        row.setColumn(3,new SQLDecimal(BigDecimal.valueOf(random.nextInt(1000000),2)));
+        return row;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.execute.operations.LocatedRow;
+import com.splicemachine.derby.stream.BaseStreamTest;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+@Category(ArchitectureIndependent.class)
+public class TopNFunctionTest extends BaseStreamTest{
+
+    @Test
+    public void testKeepsFirstRowsInSortOrder() throws Exception{
+        List<LocatedRow> rows=randomRows(10000,new Random(0l));
+        List<Integer> expected=sortedValues(rows,false);
+
+        List<Integer> actual=values(topN(false,100).call(rows.iterator()));
+        Assert.assertEquals(expected.subList(0,100),actual);
+    }
+
+    @Test
+    public void testDescendingOrder() throws Exception{
+        List<LocatedRow> rows=randomRows(10000,new Random(1l));
+        List<Integer> expected=sortedValues(rows,true);
+
+        List<Integer> actual=values(topN(true,10).call(rows.iterator()));
+        Assert.assertEquals(expected.subList(0,10),actual);
+    }
+
+    @Test
+    public void testMergingPartitionsMatchesSingleHeap() throws Exception{
+        List<LocatedRow> rows=randomRows(10000,new Random(2l));
+        TopNFunction<?> function=topN(false,50);
+
+        List<LocatedRow> partial=new ArrayList<>();
+        for(int start=0;start<rows.size();start+=1000){
+            for(LocatedRow row : function.call(rows.subList(start,start+1000).iterator())){
+                partial.add(row);
+            }
+        }
+        Assert.assertEquals(values(function.call(rows.iterator())),values(function.call(partial.iterator())));
+    }
+
+    @Test
+    public void testFewerRowsThanLimit() throws Exception{
+        List<LocatedRow> rows=randomRows(7,new Random(3l));
+        Assert.assertEquals(sortedValues(rows,false),values(topN(false,100).call(rows.iterator())));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static TopNFunction<?> topN(boolean descending,int limit){
+        return new TopNFunction<>(null,new int[]{0},new boolean[]{descending},new boolean[]{true},limit);
+    }
+
+    private static List<LocatedRow> randomRows(int size,Random random){
+        List<LocatedRow> rows=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            rows.add(new LocatedRow(getExecRow(random.nextInt(size),2)));
+        }
+        return rows;
+    }
+
+    private static List<Integer> sortedValues(List<LocatedRow> rows,boolean descending) throws Exception{
+        List<Integer> values=values(rows);
+        Collections.sort(values);
+        if(descending)
+            Collections.reverse(values);
+        return values;
+    }
+
+    private static List<Integer> values(Iterable<LocatedRow> rows) throws Exception{
+        List<Integer> values=new ArrayList<>();
+        for(LocatedRow row : rows){
+            ExecRow execRow=row.getRow();
+            values.add(execRow.getColumn(1).getInt());
+        }
+        return values;
+    }
+}
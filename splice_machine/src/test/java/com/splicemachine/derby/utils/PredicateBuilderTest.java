@@ -0,0 +1,241 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.derby.utils;
+
+import com.carrotsearch.hppc.ObjectArrayList;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.AndPredicate;
+import com.splicemachine.storage.InListPredicate;
+import com.splicemachine.storage.NullPredicate;
+import com.splicemachine.storage.OrPredicate;
+import com.splicemachine.storage.Predicate;
+import com.splicemachine.storage.PrefixPredicate;
+import com.splicemachine.storage.RangePredicate;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Checks how {@link PredicateBuilder} combines the AND and OR qualifiers of a scan, and that the combined
+ * predicates match exactly the values the separate comparisons would.
+ */
+@Category(ArchitectureIndependent.class)
+public class PredicateBuilderTest{
+    /*
+     * Columns are (a INTEGER, b VARCHAR, c CHAR, d INTEGER); d is the only key column, and is descending.
+     */
+    private static final int A=0;
+    private static final int B=1;
+    private static final int C=2;
+    private static final int D=3;
+    private static final int[] COLUMN_TYPES={StoredFormatIds.SQL_INTEGER_ID,StoredFormatIds.SQL_VARCHAR_ID,
+            StoredFormatIds.SQL_CHAR_ID,StoredFormatIds.SQL_INTEGER_ID};
+
+    private static PredicateBuilder builder(){
+        return new PredicateBuilder(new int[]{-1,-1,-1,0},new boolean[]{true,true,true,false},COLUMN_TYPES,null);
+    }
+
+    @Test
+    public void lowerAndUpperBoundBecomeOneRange() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(10),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(A,new SQLInteger(20),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(1,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof RangePredicate);
+        for(int i=0;i<30;i++){
+            Assert.assertEquals("Incorrect match for "+i,i>=10 && i<20,matches(predicates,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void upperBoundFirstStillBecomesOneRange() throws Exception{
+        // a <= 20 AND NOT (a <= 10), i.e. 10 < a <= 20
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(20),DataValueDescriptor.ORDER_OP_LESSOREQUALS,false),
+                qualifier(A,new SQLInteger(10),DataValueDescriptor.ORDER_OP_LESSOREQUALS,true)});
+        Assert.assertEquals(1,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof RangePredicate);
+        for(int i=0;i<30;i++){
+            Assert.assertEquals("Incorrect match for "+i,i>10 && i<=20,matches(predicates,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void likeBoundsBecomeAPrefix() throws Exception{
+        // the bounds the optimizer generates for b LIKE 'abc%'
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(B,new SQLVarchar("abc"),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(B,new SQLVarchar("abd"),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(1,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof PrefixPredicate);
+        for(String s : new String[]{"ab","abb","abc","abcd","abc zz","abd","abda","b"}){
+            Assert.assertEquals("Incorrect match for "+s,s.startsWith("abc"),matches(predicates,B,new SQLVarchar(s)));
+        }
+    }
+
+    @Test
+    public void inclusiveUpperBoundIsNotAPrefix() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(B,new SQLVarchar("abc"),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(B,new SQLVarchar("abd"),DataValueDescriptor.ORDER_OP_LESSOREQUALS,false)});
+        Assert.assertEquals(1,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof RangePredicate);
+        Assert.assertTrue(matches(predicates,B,new SQLVarchar("abd")));
+    }
+
+    @Test
+    public void charRangesKeepTheirComparisons() throws Exception{
+        // CHAR comparisons ignore trailing whitespace, which a byte range can't
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(C,new SQLChar("b"),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(C,new SQLChar("d"),DataValueDescriptor.ORDER_OP_LESSOREQUALS,false)});
+        Assert.assertEquals(2,predicates.size());
+    }
+
+    @Test
+    public void boundsOnOtherColumnsAreNotCombined() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(10),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(B,new SQLVarchar("x"),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(2,predicates.size());
+        for(Predicate predicate : predicates.toArray(Predicate.class)){
+            Assert.assertFalse(predicate instanceof RangePredicate);
+        }
+    }
+
+    @Test
+    public void twoLowerBoundsAreNotCombined() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(10),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(A,new SQLInteger(15),DataValueDescriptor.ORDER_OP_GREATERTHAN,false)});
+        Assert.assertEquals(2,predicates.size());
+        for(int i=0;i<30;i++){
+            Assert.assertEquals("Incorrect match for "+i,i>15,matches(predicates,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void eachBoundIsUsedInOneRangeOnly() throws Exception{
+        // a > 5 AND a <= 7 AND a < 100: the first pair is combined, the last bound stays on its own
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(5),DataValueDescriptor.ORDER_OP_GREATERTHAN,false),
+                qualifier(A,new SQLInteger(7),DataValueDescriptor.ORDER_OP_LESSOREQUALS,false),
+                qualifier(A,new SQLInteger(100),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(2,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof RangePredicate);
+        Assert.assertFalse(predicates.get(1) instanceof RangePredicate);
+        for(int i=0;i<30;i++){
+            Assert.assertEquals("Incorrect match for "+i,i>5 && i<=7,matches(predicates,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void descendingColumnsAreNotCombined() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(D,new SQLInteger(10),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(D,new SQLInteger(20),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(2,predicates.size());
+    }
+
+    @Test
+    public void nullBoundsAreNotCombined() throws Exception{
+        ObjectArrayList<Predicate> predicates=builder().getAndPredicates(new Qualifier[]{
+                qualifier(A,new SQLInteger(),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(A,new SQLInteger(20),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertEquals(2,predicates.size());
+        Assert.assertTrue(predicates.get(0) instanceof NullPredicate);
+    }
+
+    @Test
+    public void equalitiesOfOneColumnBecomeAnInList() throws Exception{
+        Predicate predicate=builder().getOrPredicate(new Qualifier[]{
+                qualifier(A,new SQLInteger(1),DataValueDescriptor.ORDER_OP_EQUALS,false),
+                qualifier(A,new SQLInteger(5),DataValueDescriptor.ORDER_OP_EQUALS,false),
+                qualifier(A,new SQLInteger(9),DataValueDescriptor.ORDER_OP_EQUALS,false)});
+        Assert.assertTrue(predicate instanceof InListPredicate);
+        for(int i=0;i<12;i++){
+            Assert.assertEquals("Incorrect match for "+i,i==1 || i==5 || i==9,matches(predicate,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void rangesUnderOrAreNotAnInList() throws Exception{
+        // a = 1 OR a > 5
+        Predicate predicate=builder().getOrPredicate(new Qualifier[]{
+                qualifier(A,new SQLInteger(1),DataValueDescriptor.ORDER_OP_EQUALS,false),
+                qualifier(A,new SQLInteger(5),DataValueDescriptor.ORDER_OP_GREATERTHAN,false)});
+        Assert.assertTrue(predicate instanceof OrPredicate);
+        for(int i=0;i<12;i++){
+            Assert.assertEquals("Incorrect match for "+i,i==1 || i>5,matches(predicate,A,new SQLInteger(i)));
+        }
+    }
+
+    @Test
+    public void prefixBoundsUnderOrAreNotCombined() throws Exception{
+        // b >= 'abc' OR b < 'abd' matches everything but null, which is not a prefix match
+        Predicate predicate=builder().getOrPredicate(new Qualifier[]{
+                qualifier(B,new SQLVarchar("abc"),DataValueDescriptor.ORDER_OP_GREATEROREQUALS,false),
+                qualifier(B,new SQLVarchar("abd"),DataValueDescriptor.ORDER_OP_LESSTHAN,false)});
+        Assert.assertTrue(predicate instanceof OrPredicate);
+        for(String s : new String[]{"ab","abc","abcd","abd","b"}){
+            Assert.assertTrue("Incorrect match for "+s,matches(predicate,B,new SQLVarchar(s)));
+        }
+    }
+
+    @Test
+    public void equalitiesOfSeveralColumnsAreNotAnInList() throws Exception{
+        Predicate predicate=builder().getOrPredicate(new Qualifier[]{
+                qualifier(A,new SQLInteger(1),DataValueDescriptor.ORDER_OP_EQUALS,false),
+                qualifier(D,new SQLInteger(1),DataValueDescriptor.ORDER_OP_EQUALS,false)});
+        Assert.assertTrue(predicate instanceof OrPredicate);
+    }
+
+    @Test
+    public void nullEqualityIsNotInTheInList() throws Exception{
+        Predicate predicate=builder().getOrPredicate(new Qualifier[]{
+                qualifier(A,new SQLInteger(1),DataValueDescriptor.ORDER_OP_EQUALS,false),
+                qualifier(A,new SQLInteger(),DataValueDescriptor.ORDER_OP_EQUALS,false)});
+        Assert.assertTrue(predicate instanceof OrPredicate);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static Qualifier qualifier(int column,DataValueDescriptor value,int operator,boolean negate){
+        GenericScanQualifier qualifier=new GenericScanQualifier();
+        qualifier.setQualifier(column,value,operator,negate,false,false);
+        return qualifier;
+    }
+
+    private static boolean matches(ObjectArrayList<Predicate> predicates,int column,DataValueDescriptor value) throws Exception{
+        return matches(AndPredicate.newAndPredicate(predicates),column,value);
+    }
+
+    private static boolean matches(Predicate predicate,int column,DataValueDescriptor value) throws Exception{
+        DescriptorSerializer serializer=VersionedSerializers.latestVersion(true).getSerializers(COLUMN_TYPES)[column];
+        byte[] encoded=serializer.encodeDirect(value,false);
+        predicate.reset();
+        return predicate.match(column,encoded,0,encoded.length);
+    }
+}
@@ -49,7 +49,7 @@ public class ForeignKey_Concurrent_IT {
     @BeforeClass
     public static void createSharedTables() throws Exception {
         classWatcher.executeUpdate("create table P (a bigint primary key, b bigint)");
-        classWatcher.executeUpdate("insert into P values(1,1),(2,2),(3,3),(4,4)");
+        classWatcher.executeUpdate("insert into P values(1,1),(2,2),(3,3),(4,4),(5,5)");
         classWatcher.executeUpdate("create table C (a bigint, b bigint, CONSTRAINT fk1 FOREIGN KEY(a) REFERENCES P(a))");
     }
 
@@ -100,6 +100,33 @@ public class ForeignKey_Concurrent_IT {
         assertEquals(0L, methodWatcher.query("select count(*) from C where a=2"));
     }
 
+    @Test(timeout = 10000)
+    public void concurrentTransactions_deleteFirstThenCommit() throws Exception {
+        Connection connection1 = newNoAutoCommitConnection();
+        Connection connection2 = newNoAutoCommitConnection();
+        Connection connection3 = newNoAutoCommitConnection();
+
+        // Check a child row against the parent once, so that the parent key may be cached, and roll it back
+        connection3.createStatement().executeUpdate("insert into C values(5,5)");
+        connection3.rollback();
+
+        // Transaction 1: delete the parent row, but do not commit yet
+        connection1.createStatement().executeUpdate("DELETE FROM P where a=5");
+
+        // Transaction 2: the child check must not be answered from (or refill) the cache while the delete is pending
+        assertQueryFail(connection2, "insert into C values(5,5)", "Operation on table 'C' caused a violation of foreign key constraint 'FK1' for key (A).  The statement has been rolled back.");
+        connection2.commit();
+
+        connection1.commit();
+
+        // Transaction 3: the parent row is gone, so the child still may not reference it
+        assertQueryFail(connection3, "insert into C values(5,5)", "Operation on table 'C' caused a violation of foreign key constraint 'FK1' for key (A).  The statement has been rolled back.");
+        connection3.commit();
+
+        assertEquals(0L, methodWatcher.query("select count(*) from P where a=5"));
+        assertEquals(0L, methodWatcher.query("select count(*) from C where a=5"));
+    }
+
         /**
          *
          * Case we are attempting to prevent...
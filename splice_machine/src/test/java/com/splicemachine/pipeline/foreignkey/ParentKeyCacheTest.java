@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class ParentKeyCacheTest {
+
+    private static List<byte[]> keys(String... keys) {
+        byte[][] bytes = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++)
+            bytes[i] = keys[i].getBytes();
+        return Arrays.asList(bytes);
+    }
+
+    @Test
+    public void findsCachedKeysByContent() {
+        ParentKeyCache cache = new ParentKeyCache(16);
+        long generation = cache.generation(1l);
+        cache.cacheKeys(1l, generation, keys("a", "b"));
+
+        BitSet found = new BitSet();
+        Assert.assertEquals(2, cache.lookup(1l, generation, keys("b", "c", "a"), found));
+        Assert.assertTrue(found.get(0));
+        Assert.assertFalse(found.get(1));
+        Assert.assertTrue(found.get(2));
+    }
+
+    @Test
+    public void keysAreCachedPerConglomerate() {
+        ParentKeyCache cache = new ParentKeyCache(16);
+        cache.cacheKeys(1l, cache.generation(1l), keys("a"));
+
+        Assert.assertEquals(0, cache.lookup(2l, cache.generation(2l), keys("a"), new BitSet()));
+    }
+
+    @Test
+    public void invalidateForgetsOnlyThatConglomerate() {
+        ParentKeyCache cache = new ParentKeyCache(16);
+        cache.cacheKeys(1l, cache.generation(1l), keys("a"));
+        cache.cacheKeys(2l, cache.generation(2l), keys("a"));
+
+        cache.invalidate(1l);
+        Assert.assertEquals(0, cache.lookup(1l, cache.generation(1l), keys("a"), new BitSet()));
+        Assert.assertEquals(1, cache.lookup(2l, cache.generation(2l), keys("a"), new BitSet()));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.lookup(2l, cache.generation(2l), keys("a"), new BitSet()));
+    }
+
+    @Test
+    public void readRacingWithInvalidationIsNeverSeen() {
+        ParentKeyCache cache = new ParentKeyCache(16);
+        long before = cache.generation(1l);
+        // a parent delete lands while the child check is reading the parent
+        cache.invalidate(1l);
+        cache.cacheKeys(1l, before, keys("a"));
+
+        Assert.assertEquals(0, cache.lookup(1l, cache.generation(1l), keys("a"), new BitSet()));
+    }
+
+    @Test
+    public void isBounded() {
+        ParentKeyCache cache = new ParentKeyCache(4);
+        long generation = cache.generation(1l);
+        for (int i = 0; i < 100; i++)
+            cache.cacheKeys(1l, generation, keys(Integer.toString(i)));
+
+        int found = 0;
+        for (int i = 0; i < 100; i++)
+            found += cache.lookup(1l, generation, keys(Integer.toString(i)), new BitSet());
+        Assert.assertTrue("found " + found, found <= 4);
+    }
+
+    @Test
+    public void zeroSizeDisablesTheCache() {
+        ParentKeyCache cache = new ParentKeyCache(0);
+        Assert.assertFalse(cache.isEnabled());
+        cache.cacheKeys(1l, cache.generation(1l), keys("a"));
+
+        Assert.assertEquals(0, cache.lookup(1l, cache.generation(1l), keys("a"), new BitSet()));
+    }
+}
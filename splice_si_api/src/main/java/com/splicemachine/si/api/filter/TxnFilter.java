@@ -18,9 +18,20 @@ package com.splicemachine.si.api.filter;
 import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
 
+import java.io.IOException;
+
 public interface TxnFilter extends DataFilter{
     void nextRow();
 
+    /**
+     * Fetch, in as few calls to the transaction store as possible, the transactions which wrote
+     * {@code cells} and which the cells themselves do not resolve, so that filtering those cells
+     * afterwards does not have to look them up one at a time.
+     *
+     * @param cells a block of cells which are about to be filtered. May span several rows.
+     */
+    void prefetchTransactions(Iterable<DataCell> cells) throws IOException;
+
     DataCell produceAccumulatedResult();
     boolean getExcludeRow();
 
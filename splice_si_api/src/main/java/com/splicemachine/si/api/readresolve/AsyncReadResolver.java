@@ -20,12 +20,24 @@ import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import com.splicemachine.annotations.ThreadSafe;
 import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardManagement;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
 import org.sparkproject.guava.util.concurrent.ThreadFactoryBuilder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +48,9 @@ import java.util.concurrent.TimeUnit;
  * <p/>
  * This implementation uses an LMAX disruptor to asynchronously pass Read-resolve events
  * to a background thread, which in turn uses a SynchronousReadResolver to actually perform the resolution.
+ * The background thread collects the events available to it until the end of each disruptor batch, then
+ * resolves the rows of each region and transaction together, so that (for example) the rows of a freshly
+ * bulk-loaded region are resolved with a few large writes, rather than a write per row.
  *
  * @author Scott Fines
  *         Date: 7/1/14
@@ -87,6 +102,17 @@ public class AsyncReadResolver{
         consumerThreads.shutdownNow();
     }
 
+    /**
+     * @return statistics about the rows submitted to this resolver
+     */
+    public RollForwardManagement getStatus(){
+        return status;
+    }
+
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        mbs.registerMBean(status,new ObjectName("com.splicemachine.si.readresolve:type=AsyncReadResolver"));
+    }
+
     @ThreadSafe
     public ReadResolver getResolver(Partition region,RollForward rollForward){
         return new PartitionReadResolver(region,rollForward);
@@ -97,6 +123,33 @@ public class AsyncReadResolver{
         long txnId;
         ByteSlice rowKey=new ByteSlice();
         RollForward rollForward;
+        long submitTime;
+    }
+
+    /**
+     * The rows of a single region which were written by a single transaction.
+     */
+    private static class ResolveGroup{
+        final Partition region;
+        final long txnId;
+        final List<ByteSlice> rowKeys=new ArrayList<>();
+        final List<RollForward> rollForwards=new ArrayList<>();
+        long totalSubmitTime;
+        long oldestSubmitTime=Long.MAX_VALUE;
+
+        ResolveGroup(Partition region,long txnId){
+            this.region=region;
+            this.txnId=txnId;
+        }
+
+        void add(ResolveEvent event){
+            //the event is reused, but the bytes of its row key are not
+            ByteSlice rowKey=event.rowKey;
+            rowKeys.add(ByteSlice.wrap(rowKey.array(),rowKey.offset(),rowKey.length()));
+            rollForwards.add(event.rollForward);
+            totalSubmitTime+=event.submitTime;
+            oldestSubmitTime=Math.min(oldestSubmitTime,event.submitTime);
+        }
     }
 
     private static class ResolveEventFactory implements EventFactory<ResolveEvent>{
@@ -108,23 +161,64 @@ public class AsyncReadResolver{
     }
 
     private class ResolveEventHandler implements EventHandler<ResolveEvent>{
+        /*
+         * The events seen since the end of the last batch, grouped by region and then by transaction. A disruptor
+         * batch never holds more events than the ring buffer, so neither does this.
+         */
+        private final Map<Partition, Map<Long, ResolveGroup>> pending=new HashMap<>();
 
         @Override
         public void onEvent(ResolveEvent event,long sequence,boolean endOfBatch) throws Exception{
+            Map<Long, ResolveGroup> regionGroups=pending.get(event.region);
+            if(regionGroups==null){
+                regionGroups=new HashMap<>();
+                pending.put(event.region,regionGroups);
+            }
+            ResolveGroup group=regionGroups.get(event.txnId);
+            if(group==null){
+                group=new ResolveGroup(event.region,event.txnId);
+                regionGroups.put(event.txnId,group);
+            }
+            group.add(event);
+            event.region=null; //don't hold on to the region or roll forward from the ring buffer
+            event.rollForward=null;
+
+            if(endOfBatch)
+                resolvePending();
+        }
+
+        private void resolvePending() throws Exception{
             try{
-                if(synchronousResolver.resolve(event.region,
-                        event.rowKey,
-                        event.txnId,
-                        txnSupplier,
-                        status,
-                        false,
-                        trafficControl)){
-                    event.rollForward.recordResolved(event.rowKey,event.txnId);
+                for(Map<Long, ResolveGroup> regionGroups : pending.values()){
+                    for(ResolveGroup group : regionGroups.values()){
+                        resolve(group);
+                    }
                 }
             }catch(Exception e){
                 LOG.info("Error during read resolution",e);
                 throw e;
+            }finally{
+                pending.clear();
+            }
+        }
+
+        private void resolve(ResolveGroup group){
+            List<ByteSlice> rowKeys=group.rowKeys;
+            boolean resolved=synchronousResolver.resolve(group.region,
+                    rowKeys,
+                    group.txnId,
+                    txnSupplier,
+                    status,
+                    false,
+                    trafficControl);
+            if(!resolved) return;
+
+            int size=rowKeys.size();
+            for(int i=0;i<size;i++){
+                group.rollForwards.get(i).recordResolved(rowKeys.get(i),group.txnId);
             }
+            long now=System.nanoTime();
+            status.batchResolved(size,size*now-group.totalSubmitTime,now-group.oldestSubmitTime);
         }
     }
 
@@ -146,8 +240,10 @@ public class AsyncReadResolver{
             }catch(InsufficientCapacityException e){
                 if(LOG.isTraceEnabled())
                     LOG.trace("Unable to submit for read resolution");
+                status.rowDropped();
                 return;
             }
+            status.rowSubmitted();
 
             try{
                 ResolveEvent event=ringBuffer.get(sequence);
@@ -155,6 +251,7 @@ public class AsyncReadResolver{
                 event.txnId=txnId;
                 event.rowKey.set(rowKey.getByteCopy());
                 event.rollForward=rollForward;
+                event.submitTime=System.nanoTime();
             }finally{
                 ringBuffer.publish(sequence);
             }
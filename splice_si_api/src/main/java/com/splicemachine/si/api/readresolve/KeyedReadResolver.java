@@ -21,6 +21,8 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/21/15
@@ -33,4 +35,18 @@ public interface KeyedReadResolver{
                     RollForwardStatus status,
                     boolean failOnError,
                     TrafficControl trafficControl);
+
+    /**
+     * Resolve several rows of the same region which were written by the same transaction. The transaction
+     * is looked up once, and the rows are resolved with a single batch write where possible.
+     *
+     * @return true if the rows were resolved
+     */
+    boolean resolve(Partition region,
+                    List<ByteSlice> rowKeys,
+                    long txnId,
+                    TxnSupplier txnSupplier,
+                    RollForwardStatus status,
+                    boolean failOnError,
+                    TrafficControl trafficControl);
 }
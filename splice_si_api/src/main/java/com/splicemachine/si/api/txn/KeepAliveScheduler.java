@@ -15,6 +15,12 @@
 
 package com.splicemachine.si.api.txn;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+
 /**
  * Interface representing a scheduler which ensures that transactions
  * are kept-alive so long as the following conditions are met:
@@ -50,4 +56,9 @@ public interface KeepAliveScheduler {
 		 * Stop the scheduler. Future keep-alive scheduling requests will be ignored.
 		 */
 		void stop();
+
+		/**
+		 * Register the scheduler's statistics (if it keeps any) with JMX.
+		 */
+		void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException;
 }
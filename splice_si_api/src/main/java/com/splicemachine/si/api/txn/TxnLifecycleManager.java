@@ -162,6 +162,18 @@ public interface TxnLifecycleManager{
      */
     long commit(long txnId) throws IOException;
 
+    /**
+     * Wait until the commit of a top-level transaction may be acknowledged, so that any transaction which
+     * begins afterwards, on any node, begins after {@code commitTimestamp}.
+     * <p/>
+     * Child transactions do not need to wait: their writes only become visible to others when the top-level
+     * transaction commits.
+     *
+     * @param commitTimestamp the commit timestamp of the top-level transaction
+     * @throws IOException if the wait is interrupted
+     */
+    void commitWait(long commitTimestamp) throws IOException;
+
     /**
      * Rollback the transaction identified with {@code txnId}.
      * <p/>
@@ -38,6 +38,25 @@ public interface TxnStore extends TxnSupplier{
 
     boolean keepAlive(long txnId) throws IOException;
 
+    /**
+     * Keep several transactions alive at once.
+     *
+     * This is equivalent to calling {@link #keepAlive(long)} for each id, but
+     * allows a remote store to do so with as few network calls as possible.
+     *
+     * A failure to reach the part of the store holding some of the transactions does not fail
+     * the whole call; the state of those transactions is reported as unknown instead.
+     *
+     * @param txnIds the transactions to keep alive. May not contain duplicates.
+     * @return the state of each transaction, in the same order as {@code txnIds}:
+     * {@link Txn.State#ACTIVE} if it was kept alive (and should be kept alive again),
+     * {@link Txn.State#ROLLEDBACK} if it had already timed out, {@link Txn.State#COMMITTED} if it
+     * is otherwise no longer active (and needs no more keep alives), and null if its state is
+     * unknown (and the keep alive should be retried).
+     * @throws IOException if none of the transactions can be kept alive
+     */
+    Txn.State[] keepAlive(long[] txnIds) throws IOException;
+
     void elevateTransaction(Txn txn,byte[] newDestinationTable) throws IOException;
 
     /**
@@ -43,6 +43,18 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transactions associated with each of {@code txnIds}.
+		 *
+		 * This is equivalent to calling {@link #getTransaction(long)} for each id, but
+		 * allows a remote store to fetch all of them with as few network calls as possible.
+		 *
+		 * @param txnIds the transaction ids to fetch. May contain duplicates.
+		 * @return the transactions, in the same order as {@code txnIds}. An entry is null
+		 * if the corresponding transaction does not exist.
+		 */
+		TxnView[] getTransactions(long[] txnIds) throws IOException;
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
@@ -87,6 +87,8 @@ public class SIConstants {
     public static final String SUPPRESS_INDEXING_ATTRIBUTE_NAME = "iu";
     public static final byte[] SUPPRESS_INDEXING_ATTRIBUTE_VALUE = new byte[]{};
     public static final String CHECK_BLOOM_ATTRIBUTE_NAME = "cb";
+    // Set on the scan a foreign key parent uses to look for referencing rows once it has deleted; holds the parent conglomerate
+    public static final String FK_PARENT_DELETE_ATTRIBUTE_NAME = "fpd";
 
     public static final String ENTRY_PREDICATE_LABEL= "p";
 
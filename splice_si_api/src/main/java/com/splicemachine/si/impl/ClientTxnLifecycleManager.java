@@ -19,10 +19,12 @@ import com.splicemachine.annotations.ThreadSafe;
 import com.splicemachine.si.api.data.ExceptionFactory;
 import com.splicemachine.si.api.txn.*;
 import com.splicemachine.si.impl.txn.ReadOnlyTxn;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnRegistry;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.timestamp.api.TimestampSource;
 
 import java.io.IOException;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Represents a Client Transaction Lifecycle Manager.
@@ -40,6 +42,7 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
     @ThreadSafe private TxnStore store;
     @ThreadSafe private KeepAliveScheduler keepAliveScheduler;
     @ThreadSafe private final ExceptionFactory exceptionFactory;
+    @ThreadSafe private ReadOnlyTxnRegistry readOnlyTxns=new ReadOnlyTxnRegistry();
 
     private volatile boolean restoreMode=false;
 
@@ -57,6 +60,10 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         this.keepAliveScheduler = kas;
     }
 
+    public void setReadOnlyTxnRegistry(ReadOnlyTxnRegistry readOnlyTxns){
+        this.readOnlyTxns = readOnlyTxns;
+    }
+
     @Override
     public Txn beginTransaction() throws IOException{
         return beginTransaction(Txn.ROOT_TRANSACTION.getIsolationLevel());
@@ -103,6 +110,8 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         if(parentTxn.getState()!=Txn.State.ACTIVE)
             throw exceptionFactory.doNotRetry("Cannot create a child of an inactive transaction. Parent: "+parentTxn);
         if(destinationTable!=null){
+            //the parent may have been started on another node, so make sure we begin after it
+            timestampSource.observeTimestamp(parentTxn.getBeginTimestamp());
             long timestamp=timestampSource.nextTimestamp();
             return createWritableTransaction(timestamp,isolationLevel,additive,parentTxn,destinationTable);
         }else
@@ -134,18 +143,27 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
              */
             throw exceptionFactory.doNotRetry("Cannot chain a read-only parent transaction from a read-only transaction. Elevate the transaction("+txnToCommit.getTxnId()+") first");
         }
+        if(destinationTable==null && parentTxn.equals(Txn.ROOT_TRANSACTION)){
+            //the commit timestamp becomes the begin timestamp of a read-only transaction
+            Lock beginLock=readOnlyTxns.beginLock();
+            beginLock.lock();
+            try{
+                txnToCommit.commit();
+                long oldTs=txnToCommit.getCommitTimestamp();
+                Txn txn=ReadOnlyTxn.createReadOnlyParentTransaction(oldTs,oldTs,isolationLevel,this,exceptionFactory,additive);
+                readOnlyTxns.register(txn);
+                return txn;
+            }finally{
+                beginLock.unlock();
+            }
+        }
         txnToCommit.commit();
         long oldTs=txnToCommit.getCommitTimestamp();
 
         if(destinationTable!=null)
             return createWritableTransaction(oldTs,isolationLevel,additive,parentTxn,destinationTable);
-        else{
-            if(parentTxn.equals(Txn.ROOT_TRANSACTION)){
-                return ReadOnlyTxn.createReadOnlyParentTransaction(oldTs,oldTs,isolationLevel,this,exceptionFactory,additive);
-            }else{
-                return ReadOnlyTxn.createReadOnlyTransaction(oldTs,parentTxn,oldTs,isolationLevel,additive,this,exceptionFactory);
-            }
-        }
+        else
+            return ReadOnlyTxn.createReadOnlyTransaction(oldTs,parentTxn,oldTs,isolationLevel,additive,this,exceptionFactory);
     }
 
     @Override
@@ -161,6 +179,8 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
             Txn writableTxn=new WritableTxn(txn,this,destinationTable,exceptionFactory);
             store.recordNewTransaction(writableTxn);
             keepAliveScheduler.scheduleKeepAlive(writableTxn);
+            //the transaction table now holds back the compaction watermark for it
+            readOnlyTxns.unregister(txn.getTxnId());
             txn=writableTxn;
         }else
             store.elevateTransaction(txn,destinationTable);
@@ -172,10 +192,21 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
         if(restoreMode){
             return -1; // we are in restore mode, don't try to access the store
         }
-        return store.commit(txnId);
+        long commitTimestamp=store.commit(txnId);
+        //the commit timestamp was generated by the transaction table, so anything we begin from now on must follow it
+        timestampSource.observeTimestamp(commitTimestamp);
+        return commitTimestamp;
         //TODO -sf- add the transaction to the global cache?
     }
 
+    @Override
+    public void commitWait(long commitTimestamp) throws IOException{
+        if(restoreMode)
+            return;
+        //anything begun anywhere once we acknowledge the commit, even on a node which has not heard from us, must follow it
+        timestampSource.commitWait(commitTimestamp);
+    }
+
     @Override
     public void rollback(long txnId) throws IOException{
         if(restoreMode){
@@ -226,8 +257,17 @@ public class ClientTxnLifecycleManager implements TxnLifecycleManager{
 		 *
 		 */
         if(parentTxn.equals(Txn.ROOT_TRANSACTION)){
-            long beginTimestamp=timestampSource.nextTimestamp();
-            return ReadOnlyTxn.createReadOnlyParentTransaction(beginTimestamp,beginTimestamp,isolationLevel,this,exceptionFactory,additive);
+            //it is not recorded in the transaction table, so compactions have to learn about it from the registry
+            Lock beginLock=readOnlyTxns.beginLock();
+            beginLock.lock();
+            try{
+                long beginTimestamp=timestampSource.nextTimestamp();
+                Txn txn=ReadOnlyTxn.createReadOnlyParentTransaction(beginTimestamp,beginTimestamp,isolationLevel,this,exceptionFactory,additive);
+                readOnlyTxns.register(txn);
+                return txn;
+            }finally{
+                beginLock.unlock();
+            }
         }else{
             return ReadOnlyTxn.createReadOnlyChildTransaction(parentTxn,this,additive,exceptionFactory);
         }
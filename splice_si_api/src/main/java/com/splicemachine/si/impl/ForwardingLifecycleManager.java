@@ -105,6 +105,11 @@ public class ForwardingLifecycleManager implements TxnLifecycleManager{
 				return lifecycleManager.commit(txnId);
 		}
 
+		@Override
+		public void commitWait(long commitTimestamp) throws IOException {
+				lifecycleManager.commitWait(commitTimestamp);
+		}
+
 		@Override
 		public void rollback(long txnId) throws IOException {
 				lifecycleManager.rollback(txnId);
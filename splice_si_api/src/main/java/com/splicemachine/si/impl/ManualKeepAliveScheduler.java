@@ -19,6 +19,7 @@ import com.splicemachine.si.api.txn.KeepAliveScheduler;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnStore;
 
+import javax.management.MBeanServer;
 import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,6 +63,11 @@ public class ManualKeepAliveScheduler implements KeepAliveScheduler{
 
     }
 
+    @Override
+    public void registerJMX(MBeanServer mbs){
+        //no statistics to register
+    }
+
     public void keepAliveAll() throws IOException{
         for(Txn t:txnMap.values()){
             keepAlive(t.getTxnId());
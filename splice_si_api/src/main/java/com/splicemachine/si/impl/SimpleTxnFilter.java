@@ -28,6 +28,7 @@ import com.splicemachine.storage.CellType;
 import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
 import com.splicemachine.utils.ByteSlice;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
 
@@ -111,6 +112,33 @@ public class SimpleTxnFilter implements TxnFilter{
         }
     }
 
+    @Override
+    @SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT",justification = "Intentional")
+    public void prefetchTransactions(Iterable<DataCell> cells) throws IOException{
+        LongOpenHashSet committed=new LongOpenHashSet();
+        LongOpenHashSet unresolved=new LongOpenHashSet();
+        for(DataCell cell : cells){
+            switch(cell.dataType()){
+                case COMMIT_TIMESTAMP:
+                    committed.add(cell.version());
+                    break;
+                case USER_DATA:
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                    unresolved.add(cell.version());
+            }
+        }
+        /*
+         * A commit timestamp resolves its transaction for every row in the block, not just its own, so
+         * only the rest need to be fetched. If there is only one, there's nothing to be gained over fetching
+         * it as usual when its cells are filtered.
+         */
+        unresolved.removeAll(committed);
+        if(unresolved.size()<2) return;
+        //cached by the store (active transactions) or its delegate (completed ones) for when they are filtered
+        transactionStore.getTransactions(unresolved.toArray());
+    }
+
     @Override
     public DataCell produceAccumulatedResult(){
         return null;
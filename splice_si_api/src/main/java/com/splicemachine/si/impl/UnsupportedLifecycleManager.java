@@ -75,6 +75,11 @@ public class UnsupportedLifecycleManager implements TxnLifecycleManager {
 				throw new UnsupportedOperationException("Cannot commit a transaction from the UnsupportedLifecycle Manager. Use a real Lifecycle manager instead");
 		}
 
+		@Override
+		public void commitWait(long commitTimestamp) throws IOException {
+				throw new UnsupportedOperationException("Cannot commit a transaction from the UnsupportedLifecycle Manager. Use a real Lifecycle manager instead");
+		}
+
 		@Override
 		public void rollback(long txnId) throws IOException {
 				throw new UnsupportedOperationException("Cannot rollback a transaction from the UnsupportedLifecycle Manager. Use a real Lifecycle manager instead");
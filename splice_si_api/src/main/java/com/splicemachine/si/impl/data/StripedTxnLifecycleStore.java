@@ -69,6 +69,7 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
         Lock lock=lockStriper.get(txn.getTxnId()).writeLock();
         acquireLock(lock);
         try{
+            timestampSource.observeTimestamp(txn.getTxnId());
             baseStore.recordTransaction(txn);
         }finally{
             unlock(lock);
@@ -105,6 +106,7 @@ public class StripedTxnLifecycleStore implements TxnLifecycleStore{
                 SpliceLogUtils.error(LOG,"attempting to commit rolled back txn=%d",txnId);
                 throw baseStore.cannotCommit(txnId, state);
             }
+            timestampSource.observeTimestamp(txnId);
             long commitTs=timestampSource.nextTimestamp();
             baseStore.recordCommit(txnId,commitTs);
             return commitTs;
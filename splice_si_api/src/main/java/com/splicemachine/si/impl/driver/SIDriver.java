@@ -31,6 +31,7 @@ import com.splicemachine.si.api.readresolve.ReadResolver;
 import com.splicemachine.si.api.readresolve.RollForward;
 import com.splicemachine.si.api.server.TransactionalRegion;
 import com.splicemachine.si.api.server.Transactor;
+import com.splicemachine.si.api.txn.KeepAliveScheduler;
 import com.splicemachine.si.api.txn.TxnLifecycleManager;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
@@ -39,7 +40,9 @@ import com.splicemachine.si.impl.TxnRegion;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.rollforward.NoopRollForward;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.impl.server.RecentWriterCache;
 import com.splicemachine.si.impl.server.SITransactor;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.si.impl.txn.SITransactionReadController;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.Partition;
@@ -67,6 +70,7 @@ public class SIDriver {
     private final TimestampSource timestampSource;
     private final TxnSupplier txnSupplier;
     private final Transactor transactor;
+    private final RecentWriterCache recentWriterCache;
     private final TxnOperationFactory txnOpFactory;
     private final RollForward rollForward;
     private final TxnLifecycleManager lifecycleManager;
@@ -77,6 +81,8 @@ public class SIDriver {
     private final OperationFactory baseOpFactory;
     private final PartitionInfoCache partitionInfoCache;
     private final SnowflakeFactory snowflakeFactory;
+    private final ReadOnlyTxnWatermark readOnlyTxnWatermark;
+    private final KeepAliveScheduler keepAliveScheduler;
 
     public SIDriver(SIEnvironment env){
         this.tableFactory = env.tableFactory();
@@ -92,17 +98,22 @@ public class SIDriver {
         this.clock = env.systemClock();
         this.partitionInfoCache = env.partitionInfoCache();
         this.snowflakeFactory = env.snowflakeFactory();
+        this.readOnlyTxnWatermark = env.readOnlyTxnWatermark();
+        this.keepAliveScheduler = env.keepAliveScheduler();
 
+        this.recentWriterCache = new RecentWriterCache(config.getRecentWriterCacheSize());
         //noinspection unchecked
         this.transactor = new SITransactor(
                 this.txnSupplier,
                 this.txnOpFactory,
                 env.baseOperationFactory(),
                 this.operationStatusFactory,
-                this.exceptionFactory);
+                this.exceptionFactory,
+                this.recentWriterCache);
         ClientTxnLifecycleManager clientTxnLifecycleManager=new ClientTxnLifecycleManager(this.timestampSource,env.exceptionFactory());
         clientTxnLifecycleManager.setTxnStore(this.txnStore);
-        clientTxnLifecycleManager.setKeepAliveScheduler(env.keepAliveScheduler());
+        clientTxnLifecycleManager.setKeepAliveScheduler(this.keepAliveScheduler);
+        clientTxnLifecycleManager.setReadOnlyTxnRegistry(this.readOnlyTxnWatermark.registry());
         this.lifecycleManager =clientTxnLifecycleManager;
         readController = new SITransactionReadController(txnSupplier);
         readResolver = initializedReadResolver(config,env.keyedReadResolver());
@@ -156,6 +167,18 @@ public class SIDriver {
         return transactor;
     }
 
+    public RecentWriterCache getRecentWriterCache(){
+        return recentWriterCache;
+    }
+
+    public KeepAliveScheduler getKeepAliveScheduler(){
+        return keepAliveScheduler;
+    }
+
+    public ReadOnlyTxnWatermark getReadOnlyTxnWatermark(){
+        return readOnlyTxnWatermark;
+    }
+
     public TxnOperationFactory getOperationFactory(){
         return txnOpFactory;
     }
@@ -170,6 +193,13 @@ public class SIDriver {
         return readResolver.getResolver(basePartition,getRollForward());
     }
 
+    /**
+     * @return the asynchronous read resolver, or {@code null} if asynchronous read resolution is disabled
+     */
+    public AsyncReadResolver getAsyncReadResolver(){
+        return readResolver;
+    }
+
     public TxnLifecycleManager lifecycleManager(){
         return lifecycleManager;
     }
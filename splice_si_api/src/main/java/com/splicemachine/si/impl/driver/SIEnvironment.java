@@ -26,6 +26,7 @@ import com.splicemachine.si.api.readresolve.RollForward;
 import com.splicemachine.si.api.txn.KeepAliveScheduler;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.txn.ReadOnlyTxnWatermark;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.DataFilterFactory;
 import com.splicemachine.storage.PartitionInfoCache;
@@ -72,4 +73,6 @@ public interface SIEnvironment{
 
     SnowflakeFactory snowflakeFactory();
 
+    ReadOnlyTxnWatermark readOnlyTxnWatermark();
+
 }
@@ -63,6 +63,11 @@ public class PackedTxnFilter implements TxnFilter, SIFilter{
         }
     }
 
+    @Override
+    public void prefetchTransactions(Iterable<DataCell> cells) throws IOException{
+        simpleFilter.prefetchTransactions(cells);
+    }
+
     @Override
     public boolean filterRow(){
         return getExcludeRow();
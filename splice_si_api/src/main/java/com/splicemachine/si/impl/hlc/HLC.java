@@ -15,6 +15,9 @@
 
 package com.splicemachine.si.impl.hlc;
 
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.SystemClock;
+
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,6 +32,15 @@ public class HLC {
     public static final int hlcNumBitsToShift = 12;
     public static final int hlcLogicalBitsMask = (1 << hlcNumBitsToShift) - 1;
     AtomicLong atomicHLC = new AtomicLong(physicalAndLogicalToHLC(0l, 0l));
+    private final Clock clock;
+
+    public HLC() {
+        this(new SystemClock());
+    }
+
+    public HLC(Clock clock) {
+        this.clock = clock;
+    }
 
     public long sendOrLocalEvent() {
         long currentHLC;
@@ -36,14 +48,14 @@ public class HLC {
         while (true) {
             currentHLC = atomicHLC.get();
             long[] hlc = HLCToPhysicalAndLogical(currentHLC);
-            long logical = Math.max(hlc[0], System.currentTimeMillis());
+            long logical = Math.max(hlc[0], clock.currentTimeMillis());
             if (logical == hlc[0])
                 hlc[1]++;
             else {
                 hlc[0] = logical;
                 hlc[1] = 0l;
             }
-            returnHLC = physicalAndLogicalToHLC(hlc[0],hlc[1]);
+            returnHLC = nextHLC(hlc[0],hlc[1]);
             if (atomicHLC.compareAndSet(currentHLC,returnHLC))
                 return returnHLC;
         }
@@ -55,10 +67,10 @@ public class HLC {
         long[] messageHLC = HLCToPhysicalAndLogical(message);
         while (true) {
             currentHLC = atomicHLC.get();
-            long[] hlc = HLCToPhysicalAndLogical(atomicHLC.get());
-            long logical = Math.max(hlc[0],Math.max(messageHLC[0], System.currentTimeMillis()));
+            long[] hlc = HLCToPhysicalAndLogical(currentHLC);
+            long logical = Math.max(hlc[0],Math.max(messageHLC[0], clock.currentTimeMillis()));
             if (logical == hlc[0] && logical==messageHLC[0])
-                hlc[1] = Math.max(hlc[0],messageHLC[0]) +1;
+                hlc[1] = Math.max(hlc[1],messageHLC[1]) +1;
             else if (logical == hlc[0])
                 hlc[1]++;
             else if (logical == messageHLC[0]) {
@@ -69,12 +81,35 @@ public class HLC {
                 hlc[0] = logical;
                 hlc[1] = 0;
             }
-            returnHLC = physicalAndLogicalToHLC(hlc[0],hlc[1]);
+            returnHLC = nextHLC(hlc[0],hlc[1]);
             if (atomicHLC.compareAndSet(currentHLC,returnHLC))
                 return returnHLC;
         }
     }
 
+    /**
+     * Blocks until the wall clock of this node has passed the specified physical time. The logical clock
+     * is not consulted, since it may already have been pushed past that time by events from other nodes.
+     *
+     * @param physical the physical time (in ms) to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void waitUntilPast(long physical) throws InterruptedException {
+        long now;
+        while ((now = clock.currentTimeMillis()) <= physical)
+            clock.sleep(physical - now + 1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encodes the next clock value, carrying into the physical component once the logical
+     * component no longer fits in its bits (i.e. more than 4096 events within one millisecond).
+     */
+    private static long nextHLC(long physical, long logical) {
+        if (logical > hlcLogicalBitsMask)
+            return physicalAndLogicalToHLC(physical+1,0l);
+        return physicalAndLogicalToHLC(physical,logical);
+    }
+
     /**
      * Converts the provided timestamp, in the provided unit, to the HybridTime timestamp
      * format. Logical bits are set to 0.
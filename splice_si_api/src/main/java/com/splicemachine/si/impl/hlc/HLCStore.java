@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.hlc;
+
+import java.io.IOException;
+
+/**
+ * The state which a {@link HLCTimestampSource} has to share with the rest of the cluster, or keep
+ * across restarts.
+ */
+public interface HLCStore{
+
+    /**
+     * @return the id of this node, which must be unique amongst the nodes currently generating timestamps
+     * and smaller than {@link HLCTimestampSource#MAX_NODES}.
+     * @throws IOException if the id cannot be assigned
+     */
+    int nodeId() throws IOException;
+
+    /**
+     * @return the physical time (in ms) of the clock which was last reserved by this node, or 0 if
+     * this node has never reserved any.
+     * @throws IOException if the reservation cannot be read
+     */
+    long reservedTime() throws IOException;
+
+    /**
+     * Records that this node may issue timestamps up to (but not including) the specified physical time.
+     * This must be durable before returning, since it is what keeps the timestamps issued after a restart
+     * larger than the ones issued before it. It must fail once another node has taken over this node's id,
+     * so that the two never issue timestamps from the same window.
+     *
+     * @param reservedTime the physical time (in ms) up to which timestamps may be issued
+     * @throws IOException if the reservation cannot be recorded
+     */
+    void reserve(long reservedTime) throws IOException;
+
+    /**
+     * Records the minimum active transaction timestamp where every node can read it.
+     *
+     * @param timestamp the timestamp to record
+     * @throws IOException if the timestamp cannot be recorded
+     */
+    void rememberTimestamp(long timestamp) throws IOException;
+
+    /**
+     * @return the timestamp last recorded by {@link #rememberTimestamp(long)} on any node, or 0 if none has been
+     * @throws IOException if the timestamp cannot be read
+     */
+    long retrieveTimestamp() throws IOException;
+}
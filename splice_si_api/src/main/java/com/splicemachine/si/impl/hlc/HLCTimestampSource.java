@@ -15,35 +15,143 @@
 
 package com.splicemachine.si.impl.hlc;
 
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.timestamp.api.TimestampSource;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
 
 /**
+ * Timestamp source which generates transaction timestamps locally from a {@link HLC Hybrid Logical Clock},
+ * rather than asking the Timestamp Server for them.
+ *
+ * A timestamp is the clock value shifted left by {@link #NODE_BITS}, with the id of the generating node
+ * in the low bits, so that two nodes never hand out the same timestamp. The transaction table is bucketed by
+ * the low bits of the timestamp, so the node id is mixed with the low bits of the clock before it is stored
+ * there; otherwise every transaction begun on one node would land in the same bucket. Timestamps generated
+ * on other nodes are fed back into the clock through {@link #observeTimestamp(long)}, which keeps every timestamp
+ * generated here after a causally preceding one.
+ *
+ * Nodes which have not heard from each other are only ordered by their wall clocks, so {@link #commitWait(long)}
+ * holds each commit back until the local clock is more than the maximum clock offset past it. Once a commit has
+ * been acknowledged, any node's clock is past the commit, and whatever it begins sees the commit.
+ *
+ * To survive restarts (and a wall clock which moves backwards across them), the clock is reserved in windows:
+ * before the physical component of the clock passes the last reserved time, a new reservation is recorded
+ * in the {@link HLCStore}, and on start up the clock is moved past the last reservation.
+ *
  * Created by jleach on 4/21/16.
  */
 public class HLCTimestampSource implements TimestampSource {
-    public static HLC hlc = new HLC();
+    private static final Logger LOG = Logger.getLogger(HLCTimestampSource.class);
 
-    public HLCTimestampSource() {
-    }
+    public static final int NODE_BITS = 8;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+
+    private final HLC hlc;
+    private final HLCStore store;
+    private final long nodeId;
+    private final long reservationWindow;
+    private final long maxClockOffset;
+    private volatile long reservedTime;
 
+    public HLCTimestampSource(HLC hlc,HLCStore store,long reservationWindow,long maxClockOffset) throws IOException {
+        this.hlc = hlc;
+        this.store = store;
+        this.reservationWindow = reservationWindow;
+        this.maxClockOffset = maxClockOffset;
+        int id = store.nodeId();
+        if (id < 0 || id >= MAX_NODES)
+            throw new IOException("Invalid HLC node id "+id+", must be in [0,"+MAX_NODES+")");
+        this.nodeId = id;
+        this.reservedTime = store.reservedTime();
+        if (reservedTime > 0)
+            hlc.receiveEvent(HLC.physicalAndLogicalToHLC(reservedTime,0l));
+    }
 
     @Override
     public long nextTimestamp() {
-        return hlc.sendOrLocalEvent();
+        return toTimestamp(reserve(hlc.sendOrLocalEvent()));
+    }
+
+    @Override
+    public void observeTimestamp(long timestamp) {
+        if (timestamp <= 0)
+            return;
+        reserve(hlc.receiveEvent(timestamp >>> NODE_BITS));
+    }
+
+    @Override
+    public void commitWait(long commitTimestamp) throws IOException {
+        if (maxClockOffset <= 0 || commitTimestamp <= 0)
+            return;
+        long physical = HLC.HLCToPhysicalAndLogical(commitTimestamp >>> NODE_BITS)[0];
+        try {
+            hlc.waitUntilPast(physical + maxClockOffset);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
     }
 
     @Override
     public void rememberTimestamp(long timestamp) {
-        // No Op
+        try {
+            store.rememberTimestamp(timestamp);
+        } catch (IOException e) {
+            LOG.error("Couldn't remember timestamp", e);
+            throw new RuntimeException("Couldn't remember timestamp", e);
+        }
     }
 
     @Override
     public long retrieveTimestamp() {
-        return 0;
+        try {
+            return store.retrieveTimestamp();
+        } catch (IOException e) {
+            LOG.error("Couldn't retrieve minimum timestamp", e);
+            return 0;
+        }
     }
 
     @Override
     public void shutdown() {
 
     }
+
+    /**
+     * @param reservedTime a physical time (in ms) reserved by some node
+     * @return a timestamp larger than any this source can have generated while its clock was reserved up to
+     * {@code reservedTime}
+     */
+    public static long timestampAfterReservation(long reservedTime) {
+        return HLC.physicalAndLogicalToHLC(reservedTime,0l) << NODE_BITS;
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private long toTimestamp(long hlcValue) {
+        // the node id is recoverable as (low bits ^ mix), so timestamps stay unique, and the buckets rotate with the clock
+        long mix = (hlcValue ^ (hlcValue >>> HLC.hlcNumBitsToShift)) & (SIConstants.TRANSACTION_TABLE_BUCKET_COUNT-1);
+        return (hlcValue << NODE_BITS) | (nodeId ^ mix);
+    }
+
+    private long reserve(long hlcValue) {
+        long physical = HLC.HLCToPhysicalAndLogical(hlcValue)[0];
+        if (physical >= reservedTime) {
+            synchronized (this) {
+                if (physical >= reservedTime) {
+                    long next = physical + reservationWindow;
+                    try {
+                        store.reserve(next);
+                    } catch (IOException e) {
+                        LOG.error("Unable to reserve HLC time "+next, e);
+                        throw new RuntimeException("Unable to reserve HLC time "+next, e);
+                    }
+                    reservedTime = next;
+                }
+            }
+        }
+        return hlcValue;
+    }
 }
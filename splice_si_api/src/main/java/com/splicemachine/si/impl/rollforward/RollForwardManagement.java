@@ -28,4 +28,35 @@ public interface RollForwardManagement {
     long getTotalUpdates();
 
     long getTotalRowsToResolve();
+
+    /**
+     * @return the number of rows submitted for asynchronous read resolution
+     */
+    long getTotalRowsSubmitted();
+
+    /**
+     * @return the number of rows which were not resolved because the resolution queue was full
+     */
+    long getTotalRowsDropped();
+
+    /**
+     * @return the fraction of submitted rows which were dropped
+     */
+    double getDropRate();
+
+    /**
+     * @return the number of batches written to resolve rows
+     */
+    long getTotalResolveBatches();
+
+    double getAverageResolveBatchSize();
+
+    long getMaxResolveBatchSize();
+
+    /**
+     * @return the average time between a row being submitted for resolution and being resolved
+     */
+    double getAverageResolutionLagMs();
+
+    long getMaxResolutionLagMs();
 }
@@ -15,6 +15,7 @@
 
 package com.splicemachine.si.impl.rollforward;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -25,8 +26,40 @@ public class RollForwardStatus implements RollForwardManagement{
     private final AtomicLong numUpdates = new AtomicLong(0l);
     private final AtomicLong rowsToResolve = new AtomicLong(0l);
 
+    private final AtomicLong rowsSubmitted = new AtomicLong(0l);
+    private final AtomicLong rowsDropped = new AtomicLong(0l);
+    private final AtomicLong resolveBatches = new AtomicLong(0l);
+    private final AtomicLong batchedRows = new AtomicLong(0l);
+    private final AtomicLong maxBatchSize = new AtomicLong(0l);
+    private final AtomicLong resolvedRows = new AtomicLong(0l);
+    private final AtomicLong totalLagNanos = new AtomicLong(0l);
+    private final AtomicLong maxLagNanos = new AtomicLong(0l);
+
     @Override public long getTotalUpdates() { return numUpdates.get(); }
     @Override public long getTotalRowsToResolve() { return  rowsToResolve.get(); }
+    @Override public long getTotalRowsSubmitted() { return rowsSubmitted.get(); }
+    @Override public long getTotalRowsDropped() { return rowsDropped.get(); }
+    @Override public long getTotalResolveBatches() { return resolveBatches.get(); }
+    @Override public long getMaxResolveBatchSize() { return maxBatchSize.get(); }
+    @Override public long getMaxResolutionLagMs() { return TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()); }
+
+    @Override
+    public double getDropRate(){
+        long submitted = rowsSubmitted.get();
+        return submitted==0?0d:(double)rowsDropped.get()/submitted;
+    }
+
+    @Override
+    public double getAverageResolveBatchSize(){
+        long batches = resolveBatches.get();
+        return batches==0?0d:(double)batchedRows.get()/batches;
+    }
+
+    @Override
+    public double getAverageResolutionLagMs(){
+        long rows = resolvedRows.get();
+        return rows==0?0d:(double)totalLagNanos.get()/rows/TimeUnit.MILLISECONDS.toNanos(1);
+    }
 
     public void rowResolved(){
         boolean shouldContinue;
@@ -41,4 +74,38 @@ public class RollForwardStatus implements RollForwardManagement{
         rowsToResolve.incrementAndGet();
         numUpdates.incrementAndGet();
     }
+
+    public void rowSubmitted(){
+        rowsSubmitted.incrementAndGet();
+    }
+
+    public void rowDropped(){
+        rowsSubmitted.incrementAndGet();
+        rowsDropped.incrementAndGet();
+    }
+
+    /**
+     * Record a batch of {@code size} rows resolved together.
+     *
+     * @param totalLagNanos the sum of the time each row in the batch waited to be resolved
+     * @param maxLagNanos the longest time any row in the batch waited to be resolved
+     */
+    public void batchResolved(int size,long totalLagNanos,long maxLagNanos){
+        resolveBatches.incrementAndGet();
+        batchedRows.addAndGet(size);
+        resolvedRows.addAndGet(size);
+        this.totalLagNanos.addAndGet(totalLagNanos);
+        updateMax(maxBatchSize,size);
+        updateMax(this.maxLagNanos,maxLagNanos);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static void updateMax(AtomicLong max,long value){
+        long curr;
+        do{
+            curr = max.get();
+            if(curr>=value) return;
+        }while(!max.compareAndSet(curr,value));
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.annotations.ThreadSafe;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the transaction which last wrote each of a bounded number of recently written rows, so that
+ * write/write conflict checks against those rows can often be answered without reading the row from storage.
+ *
+ * Entries are only recorded for writes which were conflict-free, and they are always written and consulted
+ * while holding the row lock, so a cached entry describes the latest version of the row. Since a conflict-free
+ * writer already resolved every version beneath it, the writer alone determines whether a later writer
+ * conflicts--as long as the writer has not since rolled back (see {@link SITransactor}).
+ *
+ * A single cache is shared by every region on the server, and its size bounds the total number of rows
+ * remembered, no matter how many regions are open. Each region is given a generation when it first records a
+ * write; the entries of a region must be {@link #invalidate(String) invalidated} whenever the region opens,
+ * closes or splits, since rows may then be written by another server. Invalidating a region just forgets its
+ * generation, so its entries can no longer be found and are evicted as newer rows are written.
+ */
+@ThreadSafe
+public class RecentWriterCache{
+    private final int maxSize;
+    private final ConcurrentLinkedHashMap<RowKey,Writer> writers;
+    private final ConcurrentMap<String,Long> regionGenerations=new ConcurrentHashMap<>();
+    private final AtomicLong generationSequence=new AtomicLong(0l);
+
+    private final AtomicLong lookups=new AtomicLong(0l);
+    private final AtomicLong hits=new AtomicLong(0l);
+    private final AtomicLong readsAvoided=new AtomicLong(0l);
+    private final AtomicLong invalidations=new AtomicLong(0l);
+    private final AtomicBoolean jmxRegistered=new AtomicBoolean(false);
+
+    /**
+     * @param maxSize the maximum number of rows remembered across all regions, or 0 to disable the cache
+     */
+    public RecentWriterCache(int maxSize){
+        this.maxSize=Math.max(0,maxSize);
+        this.writers=new ConcurrentLinkedHashMap.Builder<RowKey,Writer>()
+                .maximumWeightedCapacity(Math.max(1,this.maxSize))
+                .build();
+    }
+
+    public boolean isEnabled(){
+        return maxSize>0;
+    }
+
+    /**
+     * @return the last conflict-free writer of the row in the specified region, or {@code null} if it is
+     * not known.
+     */
+    public Writer lastWriter(String regionName,byte[] rowKey){
+        if(!isEnabled()) return null;
+        lookups.incrementAndGet();
+        Long generation=regionGenerations.get(regionName);
+        if(generation==null) return null;
+        Writer writer=writers.get(new RowKey(generation,rowKey));
+        if(writer!=null)
+            hits.incrementAndGet();
+        return writer;
+    }
+
+    /**
+     * Record that a conflict check was answered by the cache instead of reading the row.
+     */
+    public void recordReadAvoided(){
+        readsAvoided.incrementAndGet();
+    }
+
+    /**
+     * Remember that the row was last written by the specified transaction without any conflicts.
+     *
+     * @param tombstone whether the write deleted the row
+     */
+    public void recordWrite(String regionName,byte[] rowKey,long txnId,boolean tombstone){
+        if(!isEnabled()) return;
+        Long generation=regionGenerations.get(regionName);
+        if(generation==null){
+            generation=generationSequence.incrementAndGet();
+            Long old=regionGenerations.putIfAbsent(regionName,generation);
+            if(old!=null)
+                generation=old;
+        }
+        writers.put(new RowKey(generation,rowKey),new Writer(txnId,tombstone));
+    }
+
+    /**
+     * Forget the last writer of the row, because it was written in a way the cache can't describe.
+     */
+    public void invalidate(String regionName,byte[] rowKey){
+        if(!isEnabled()) return;
+        Long generation=regionGenerations.get(regionName);
+        if(generation!=null)
+            writers.remove(new RowKey(generation,rowKey));
+    }
+
+    /**
+     * Forget every row of the region. Used when the region opens, closes or splits.
+     */
+    public void invalidate(String regionName){
+        if(regionGenerations.remove(regionName)!=null)
+            invalidations.incrementAndGet();
+    }
+
+    public void registerJMX(MBeanServer mbs) throws MalformedObjectNameException, NotCompliantMBeanException, InstanceAlreadyExistsException, MBeanRegistrationException{
+        if(jmxRegistered.compareAndSet(false,true)){
+            ObjectName name=new ObjectName("com.splicemachine.si:type=RecentWriterCache");
+            mbs.registerMBean(new Statistics(),name);
+        }
+    }
+
+    @MXBean
+    @SuppressWarnings("UnusedDeclaration")
+    public interface RecentWriterCacheStatistics{
+        int getMaxSize();
+        int getRegionCount();
+        long getSize();
+        long getLookups();
+        long getHits();
+        long getReadsAvoided();
+        double getReadAvoidanceRate();
+        long getInvalidations();
+    }
+
+    public static final class Writer{
+        private final long txnId;
+        private final boolean tombstone;
+
+        Writer(long txnId,boolean tombstone){
+            this.txnId=txnId;
+            this.tombstone=tombstone;
+        }
+
+        public long getTxnId(){
+            return txnId;
+        }
+
+        /**
+         * @return true if the write deleted the row
+         */
+        public boolean isTombstone(){
+            return tombstone;
+        }
+    }
+
+    private class Statistics implements RecentWriterCacheStatistics{
+        @Override public int getMaxSize(){ return maxSize; }
+        @Override public int getRegionCount(){ return regionGenerations.size(); }
+        @Override public long getSize(){ return writers.size(); }
+        @Override public long getLookups(){ return lookups.get(); }
+        @Override public long getHits(){ return hits.get(); }
+        @Override public long getReadsAvoided(){ return readsAvoided.get(); }
+        @Override public long getInvalidations(){ return invalidations.get(); }
+
+        @Override
+        public double getReadAvoidanceRate(){
+            long l=lookups.get();
+            return l==0? 0d : ((double)readsAvoided.get())/l;
+        }
+    }
+
+    private static final class RowKey{
+        private final long generation;
+        private final byte[] rowKey;
+        private final int hashCode;
+
+        RowKey(long generation,byte[] rowKey){
+            this.generation=generation;
+            this.rowKey=rowKey;
+            this.hashCode=31*Arrays.hashCode(rowKey)+(int)(generation^(generation>>>32));
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof RowKey)) return false;
+            RowKey other=(RowKey)o;
+            return generation==other.generation && Arrays.equals(rowKey,other.rowKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
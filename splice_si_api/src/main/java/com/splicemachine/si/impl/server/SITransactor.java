@@ -62,17 +62,28 @@ public class SITransactor implements Transactor{
 
     private final TxnOperationFactory txnOperationFactory;
     private final TxnSupplier txnSupplier;
+    private final RecentWriterCache recentWriters;
 
     public SITransactor(TxnSupplier txnSupplier,
                         TxnOperationFactory txnOperationFactory,
                         OperationFactory opFactory,
                         OperationStatusFactory operationStatusLib,
                         ExceptionFactory exceptionFactory){
+        this(txnSupplier,txnOperationFactory,opFactory,operationStatusLib,exceptionFactory,new RecentWriterCache(0));
+    }
+
+    public SITransactor(TxnSupplier txnSupplier,
+                        TxnOperationFactory txnOperationFactory,
+                        OperationFactory opFactory,
+                        OperationStatusFactory operationStatusLib,
+                        ExceptionFactory exceptionFactory,
+                        RecentWriterCache recentWriters){
         this.txnSupplier=txnSupplier;
         this.txnOperationFactory=txnOperationFactory;
         this.opFactory= opFactory;
         this.operationStatusLib = operationStatusLib;
         this.exceptionLib = exceptionFactory;
+        this.recentWriters = recentWriters;
     }
 
     // Operation pre-processing. These are to be called "server-side" when we are about to process an operation.
@@ -175,6 +186,7 @@ public class SITransactor implements Transactor{
         if(constraintChecker!=null)
             constraintState=new SimpleTxnFilter(null,txn,NoOpReadResolver.INSTANCE,txnSupplier);
         @SuppressWarnings("unchecked") final LongOpenHashSet[] conflictingChildren=new LongOpenHashSet[mutations.size()];
+        BitSet conflictFree=new BitSet(mutations.size());
         try{
             lockRows(table,mutations,lockPairs,finalStatus);
 
@@ -184,7 +196,7 @@ public class SITransactor implements Transactor{
              * the region can't close until after this method is complete, we don't need the calls.
              */
             IntObjectOpenHashMap<DataPut> writes=checkConflictsForKvBatch(table,rollForwardQueue,lockPairs,
-                    conflictingChildren,txn,family,qualifier,constraintChecker,constraintState,finalStatus);
+                    conflictingChildren,conflictFree,txn,family,qualifier,constraintChecker,constraintState,finalStatus);
 
             //TODO -sf- this can probably be made more efficient
             //convert into array for usefulness
@@ -202,6 +214,9 @@ public class SITransactor implements Transactor{
                 if(!status.hasNext())
                     throw new IllegalStateException("Programmer Error: incorrect length for returned status");
                 finalStatus[write.key]=status.next().getClone(); //TODO -sf- is clone needed here?
+                //we still hold the row lock, so this is the latest writer of the row
+                recordWriter(table,lockPairs[write.key].getFirst(),txn,
+                        finalStatus[write.key].isSuccess() && conflictFree.get(write.key));
                 //resolve child conflicts
                 try{
                     resolveChildConflicts(table,write.value,conflictingChildren[i]);
@@ -228,6 +243,7 @@ public class SITransactor implements Transactor{
                                                                    RollForward rollForwardQueue,
                                                                    Pair<KVPair, Lock>[] dataAndLocks,
                                                                    LongOpenHashSet[] conflictingChildren,
+                                                                   BitSet conflictFree,
                                                                    TxnView transaction,
                                                                    byte[] family,byte[] qualifier,
                                                                    ConstraintChecker constraintChecker,
@@ -253,8 +269,15 @@ public class SITransactor implements Transactor{
                  * We know that this is the case because there is no constraint checker (constraint checkers are only
                  * applied on key elements.
                  */
-                //todo -sf remove the Row key copy here
-                possibleConflicts=bloomInMemoryCheck==null||bloomInMemoryCheck.get(i)?table.getLatest(kvPair.getRowKey(),possibleConflicts):null;
+                ConflictResults cachedResults=checkRecentWriter(table,transaction,kvPair,constraintChecker!=null);
+                if(cachedResults!=null){
+                    //the last writer of the row tells us everything we need, so we can skip reading it
+                    conflictResults=cachedResults;
+                    possibleConflicts=null;
+                }else{
+                    //todo -sf remove the Row key copy here
+                    possibleConflicts=bloomInMemoryCheck==null||bloomInMemoryCheck.get(i)?table.getLatest(kvPair.getRowKey(),possibleConflicts):null;
+                }
                 if(possibleConflicts!=null){
                     //we need to check for write conflicts
                     conflictResults=ensureNoWriteConflict(transaction,writeType,possibleConflicts);
@@ -272,6 +295,9 @@ public class SITransactor implements Transactor{
                         finalStatus[i]=operationStatusLib.failure(exceptionLib.additiveWriteConflict());
                     }
                 }
+                LongOpenHashSet children=conflictResults.getChildConflicts();
+                if(!conflictResults.hasAdditiveConflicts() && (children==null || children.isEmpty()))
+                    conflictFree.set(i);
             }
 
             conflictingChildren[i]=conflictResults.getChildConflicts();
@@ -282,6 +308,48 @@ public class SITransactor implements Transactor{
         return finalMutationsToWrite;
     }
 
+    /**
+     * Attempt to determine the conflicts of a write from the last writer of the row, without reading the row.
+     *
+     * The last writer is only remembered when its own write was conflict-free, so every version beneath it was
+     * either rolled back, committed before it began, or written by one of its ancestors. If the last writer does
+     * not conflict with us and has not rolled back, then none of those versions can conflict with us either.
+     * Otherwise we return null, and the caller must read the row to find out what the conflicts are.
+     *
+     * Deletes always read the row, since they can also conflict with foreign key counters, which are not
+     * written through here. Constraint checks need the visible row, so they can only skip the read when the
+     * last writer deleted the row, and we can see that delete.
+     */
+    private ConflictResults checkRecentWriter(Partition table,TxnView updateTransaction,KVPair kvPair,boolean checkConstraint) throws IOException{
+        if(!recentWriters.isEnabled() || KVPair.Type.DELETE.equals(kvPair.getType())) return null;
+        RecentWriterCache.Writer writer=recentWriters.lastWriter(table.getName(),kvPair.getRowKey());
+        if(writer==null) return null;
+
+        TxnView writerTxn=txnSupplier.getTransaction(writer.getTxnId());
+        if(writerTxn==null || writerTxn.getEffectiveState()==Txn.State.ROLLEDBACK)
+            return null; //the versions beneath the rolled back write are visible again, so we need to look at them
+        if(updateTransaction.conflicts(writerTxn)!=ConflictType.NONE)
+            return null; //let the normal path record (or throw) the conflict
+        boolean visibleTombstone=writer.isTombstone() && updateTransaction.canSee(writerTxn);
+        if(checkConstraint && !visibleTombstone)
+            return null; //the row may be visible to us, so the constraint must look at it
+        recentWriters.recordReadAvoided();
+        if(visibleTombstone){
+            ConflictResults conflictResults=new ConflictResults();
+            conflictResults.setHasTombstone(true);
+            return conflictResults;
+        }
+        return ConflictResults.NO_CONFLICT;
+    }
+
+    private void recordWriter(Partition table,KVPair kvPair,TxnView txn,boolean conflictFree){
+        if(!recentWriters.isEnabled()) return;
+        if(conflictFree)
+            recentWriters.recordWrite(table.getName(),kvPair.getRowKey(),txn.getTxnId(),KVPair.Type.DELETE.equals(kvPair.getType()));
+        else
+            recentWriters.invalidate(table.getName(),kvPair.getRowKey());
+    }
+
     private boolean applyConstraint(ConstraintChecker constraintChecker,
                                     TxnFilter constraintStateFilter,
                                     int rowPosition,
@@ -62,6 +62,31 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
 				return txn;
 		}
 
+		@Override
+		public TxnView[] getTransactions(long[] txnIds) throws IOException {
+				TxnView[] txns = new TxnView[txnIds.length];
+				int misses = 0;
+				for (int i = 0; i < txnIds.length; i++) {
+						txns[i] = cache.get(txnIds[i]);
+						if (txns[i] == null) misses++;
+				}
+				if (misses == 0) return txns;
+
+				long[] missed = new long[misses];
+				for (int i = 0, m = 0; i < txns.length; i++) {
+						if (txns[i] == null) missed[m++] = txnIds[i];
+				}
+				TxnView[] fetched = delegate.getTransactions(missed);
+				for (int i = 0, m = 0; i < txns.length; i++) {
+						if (txns[i] != null) continue;
+						TxnView txn = fetched[m++];
+						txns[i] = txn;
+						if (txn != null && txn.getEffectiveState() == Txn.State.ACTIVE)
+								this.cache.put(txn.getTxnId(), txn);
+				}
+				return txns;
+		}
+
 		@Override
 		public boolean transactionCached(long txnId) {
         return cache.get(txnId) !=null;
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.si.api.txn.TxnView;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of transactions, keyed by their (primitive) transaction id.
+ * <p>
+ * The cache is split into a power-of-two number of segments. Each segment is an open addressing (linear probing)
+ * table, kept at most half full, which evicts with the CLOCK algorithm: a lookup marks the entry it finds as
+ * referenced, and the eviction hand sweeps the table, clearing those marks until it finds an unmarked entry.
+ * <p>
+ * Lookups take no locks and write no shared state except the reference mark, which is only written when it is not
+ * already set. Because a lookup may race with a concurrent insertion or eviction in the same segment, it may
+ * occasionally miss an entry which is present; it never returns the wrong transaction, since the transaction
+ * found is always checked against the requested id. Insertions lock their segment.
+ *
+ * @see CompletedTxnCacheSupplier
+ */
+class CompletedTxnCache{
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int maxSize;
+
+    private final StripedCounter hits=new StripedCounter();
+    private final StripedCounter requests=new StripedCounter();
+    private final StripedCounter evictions=new StripedCounter();
+
+    CompletedTxnCache(int maxSize,int concurrencyLevel){
+        int numSegments=Integer.highestOneBit(Math.max(1,Math.min(concurrencyLevel,maxSize)));
+        int entriesPerSegment=(maxSize+numSegments-1)/numSegments;
+        this.segments=new Segment[numSegments];
+        for(int i=0;i<numSegments;i++){
+            segments[i]=new Segment(Math.max(1,entriesPerSegment));
+        }
+        this.segmentShift=32-Integer.numberOfTrailingZeros(numSegments);
+        this.maxSize=maxSize;
+    }
+
+    TxnView get(long txnId){
+        requests.increment();
+        int hash=hash(txnId);
+        TxnView txn=segmentFor(hash).get(txnId,hash);
+        if(txn!=null)
+            hits.increment();
+        return txn;
+    }
+
+    /**
+     * @return true if {@code txnId} is cached. Unlike {@link #get(long)}, this neither counts as a request nor
+     * marks the entry as referenced.
+     */
+    boolean contains(long txnId){
+        int hash=hash(txnId);
+        return segmentFor(hash).find(txnId,hash)>=0;
+    }
+
+    void put(TxnView txn){
+        long txnId=txn.getTxnId();
+        int hash=hash(txnId);
+        if(segmentFor(hash).put(txnId,hash,txn))
+            evictions.increment();
+    }
+
+    int size(){
+        int size=0;
+        for(Segment segment : segments){
+            size+=segment.size();
+        }
+        return size;
+    }
+
+    int maxSize(){
+        return maxSize;
+    }
+
+    long hits(){
+        return hits.sum();
+    }
+
+    long requests(){
+        return requests.sum();
+    }
+
+    long evictions(){
+        return evictions.sum();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private Segment segmentFor(int hash){
+        return segmentShift==32?segments[0]:segments[hash>>>segmentShift];
+    }
+
+    private static int hash(long txnId){
+        /*
+         * Transaction ids come from a counter, so the ids in use at any one time are close together
+         * and differ only in their low bits. The segment is picked from the high bits of the hash,
+         * which would be the same for all of them without mixing. The high bits of a multiplicative
+         * hash are the best mixed, so they are used for the segment, and the rest for the slot.
+         */
+        long h=txnId*0x9E3779B97F4A7C15L;
+        return (int)(h>>>32);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper classes*/
+    private static final class Segment{
+        /*
+         * keys[i] is only a hint of the id of the transaction in values[i], which is read
+         * (and must be checked) before the key is trusted.
+         */
+        private final long[] keys;
+        private final AtomicReferenceArray<TxnView> values;
+        private final byte[] referenced;
+        private final int mask;
+        private final int maxEntries;
+
+        private volatile int size;
+        private int hand;
+
+        Segment(int maxEntries){
+            int capacity=Integer.highestOneBit(Math.max(2,maxEntries)*2-1)<<1;
+            this.keys=new long[capacity];
+            this.values=new AtomicReferenceArray<>(capacity);
+            this.referenced=new byte[capacity];
+            this.mask=capacity-1;
+            this.maxEntries=maxEntries;
+        }
+
+        TxnView get(long txnId,int hash){
+            int slot=find(txnId,hash);
+            if(slot<0) return null;
+            TxnView txn=values.get(slot);
+            if(txn==null || txn.getTxnId()!=txnId)
+                return null; //evicted since we found it
+            if(referenced[slot]==0)
+                referenced[slot]=1;
+            return txn;
+        }
+
+        int find(long txnId,int hash){
+            int slot=hash&mask;
+            for(int probes=0;probes<=mask;probes++){
+                TxnView txn=values.get(slot);
+                if(txn==null)
+                    return -1;
+                if(keys[slot]==txnId && txn.getTxnId()==txnId)
+                    return slot;
+                slot=(slot+1)&mask;
+            }
+            return -1;
+        }
+
+        /**
+         * @return true if an entry was evicted to make room
+         */
+        synchronized boolean put(long txnId,int hash,TxnView txn){
+            int slot=find(txnId,hash);
+            if(slot>=0){
+                values.set(slot,txn);
+                return false;
+            }
+            boolean evicted=false;
+            if(size>=maxEntries){
+                evict();
+                evicted=true;
+            }
+            slot=hash&mask;
+            while(values.get(slot)!=null)
+                slot=(slot+1)&mask;
+            keys[slot]=txnId;
+            referenced[slot]=0;
+            values.set(slot,txn);
+            size++;
+            return evicted;
+        }
+
+        int size(){
+            return size;
+        }
+
+        private void evict(){
+            while(true){
+                int slot=hand;
+                hand=(hand+1)&mask;
+                if(values.get(slot)==null) continue;
+                if(referenced[slot]!=0){
+                    referenced[slot]=0; //second chance
+                    continue;
+                }
+                remove(slot);
+                return;
+            }
+        }
+
+        /**
+         * Removes the entry in {@code slot}, shifting back any entries after it which would no longer
+         * be reachable from their home slot.
+         */
+        private void remove(int slot){
+            int hole=slot;
+            int next=(hole+1)&mask;
+            TxnView txn;
+            while((txn=values.get(next))!=null){
+                int home=hash(keys[next])&mask;
+                if(((next-home)&mask)>=((next-hole)&mask)){
+                    keys[hole]=keys[next];
+                    referenced[hole]=referenced[next];
+                    values.set(hole,txn);
+                    hole=next;
+                }
+                next=(next+1)&mask;
+            }
+            values.set(hole,null);
+            size--;
+        }
+    }
+
+    /**
+     * A counter spread over several cells, so that threads counting at the same time rarely touch the same
+     * cache line. Each thread always counts in the same cell.
+     */
+    private static final class StripedCounter{
+        private static final int PADDING=8; //one cell per 64 bytes
+        private static final int CELLS=Integer.highestOneBit(Math.max(1,Runtime.getRuntime().availableProcessors()*2-1))<<1;
+
+        private final AtomicLongArray cells=new AtomicLongArray(CELLS*PADDING);
+
+        void increment(){
+            long threadId=Thread.currentThread().getId();
+            int cell=(int)((threadId*0x9E3779B97F4A7C15L)>>>32)&(CELLS-1);
+            cells.incrementAndGet(cell*PADDING);
+        }
+
+        long sum(){
+            long sum=0;
+            for(int i=0;i<CELLS;i++){
+                sum+=cells.get(i*PADDING);
+            }
+            return sum;
+        }
+    }
+}
@@ -15,42 +15,53 @@
 
 package com.splicemachine.si.impl.store;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TxnSupplier which caches transaction which have "Completed"--i.e. which have entered the COMMITTED or ROLLEDBACK
  * state.
  * <p/>
- * This class is thread-safe, and safe to be shared between many threads.
+ * This class is thread-safe, and safe to be shared between many threads. Since it is consulted for nearly every
+ * cell a transactional scan reads, lookups are kept free of locks, boxing and shared counters (see
+ * {@link CompletedTxnCache}).
  *
  * @author Scott Fines
  *         Date: 6/18/14
  */
 public class CompletedTxnCacheSupplier implements TxnSupplier{
-    private ConcurrentLinkedHashMap<Long, TxnView> cache; // autobox for now
+    private final CompletedTxnCache cache;
     private final TxnSupplier delegate;
-    private final AtomicLong hits=new AtomicLong();
-    private final AtomicLong requests=new AtomicLong();
 
     public CompletedTxnCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel){
-        cache=new ConcurrentLinkedHashMap.Builder<Long, TxnView>()
-                .maximumWeightedCapacity(maxSize)
-                .concurrencyLevel(concurrencyLevel)
-                .build();
+        cache=new CompletedTxnCache(maxSize,concurrencyLevel);
         this.delegate=delegate;
     }
 
     public int getMaxSize(){
+        return cache.maxSize();
+    }
+
+    public int getSize(){
         return cache.size();
     }
 
+    public long getTotalHits(){
+        return cache.hits();
+    }
+
+    public long getTotalRequests(){
+        return cache.requests();
+    }
+
+    public long getTotalEvictedEntries(){
+        return cache.evictions();
+    }
+
     @Override
     public TxnView getTransaction(long txnId) throws IOException{
         if(txnId==-1)
@@ -59,46 +70,77 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     }
 
     @Override
-    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         if(txnId==-1)
             return Txn.ROOT_TRANSACTION;
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId); // autobox until Cliff C merge
-        if(txn!=null){
-            hits.incrementAndGet();
+        TxnView txn=cache.get(txnId);
+        if(txn!=null)
             return txn;
-        }
         //bummer, we aren't in the cache, need to check the delegate
         TxnView transaction=delegate.getTransaction(txnId,getDestinationTables);
         if(transaction==null) //noinspection ConstantConditions
             return transaction; //don't cache read-only transactions;
 
-        switch(transaction.getEffectiveState()){
-            case COMMITTED:
-            case ROLLEDBACK:
-                cache.put(transaction.getTxnId(),transaction); // Cache for Future Use
-        }
+        cacheIfCompleted(transaction);
         return transaction;
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        int misses=0;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            txns[i]=txnId==-1?Txn.ROOT_TRANSACTION:cache.get(txnId);
+            if(txns[i]==null)
+                misses++;
+        }
+        if(misses==0)
+            return txns;
+
+        //fetch everything we missed from the delegate in a single call
+        long[] missed=new long[misses];
+        int[] positions=new int[misses];
+        for(int i=0,m=0;i<txns.length;i++){
+            if(txns[i]==null){
+                missed[m]=txnIds[i];
+                positions[m++]=i;
+            }
+        }
+        TxnView[] fetched=delegate.getTransactions(missed);
+        for(int m=0;m<misses;m++){
+            TxnView transaction=fetched[m];
+            txns[positions[m]]=transaction;
+            if(transaction!=null)
+                cacheIfCompleted(transaction);
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId){
-        return cache.get(txnId)!=null;
+        return cache.contains(txnId);
     }
 
     @Override
     public void cache(TxnView toCache){
         if(toCache.getState()==Txn.State.ACTIVE) return; //cannot cache incomplete transactions
-        cache.put(toCache.getTxnId(),toCache);
+        cache.put(toCache);
     }
 
     @Override
     public TxnView getTransactionFromCache(long txnId){
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId);
-        if(txn!=null)
-            hits.incrementAndGet();
-        return txn;
+        return cache.get(txnId);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
+    private void cacheIfCompleted(TxnView transaction){
+        switch(transaction.getEffectiveState()){
+            case COMMITTED:
+            case ROLLEDBACK:
+                cache.put(transaction); // Cache for Future Use
+        }
     }
 }
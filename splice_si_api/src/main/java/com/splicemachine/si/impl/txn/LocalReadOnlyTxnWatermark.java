@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.io.IOException;
+
+/**
+ * ReadOnlyTxnWatermark for a single process, where every read-only transaction is in the local registry.
+ */
+public class LocalReadOnlyTxnWatermark implements ReadOnlyTxnWatermark{
+    private final ReadOnlyTxnRegistry registry=new ReadOnlyTxnRegistry();
+    private final TimestampSource timestampSource;
+
+    public LocalReadOnlyTxnWatermark(TimestampSource timestampSource){
+        this.timestampSource=timestampSource;
+    }
+
+    @Override
+    public ReadOnlyTxnRegistry registry(){
+        return registry;
+    }
+
+    @Override
+    public long minimumActiveTimestamp() throws IOException{
+        return registry.minimumActiveTimestamp(timestampSource);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps track of the top-level read-only transactions begun by this process.
+ *
+ * Read-only transactions are never recorded in the transaction table, so a compaction cannot find them there
+ * when it decides which versions are no longer visible to anyone. Instead, every process reports the oldest
+ * begin timestamp of its active read-only transactions through a {@link ReadOnlyTxnWatermark}.
+ *
+ * A transaction is forgotten once it is no longer active, or once it has been elevated (and so recorded in the
+ * transaction table). Only weak references are held, so a transaction which is dropped without being committed
+ * or rolled back does not hold back the watermark forever.
+ */
+public class ReadOnlyTxnRegistry{
+    private final ConcurrentMap<Long,WeakReference<TxnView>> activeTxns=new ConcurrentHashMap<>();
+    private final ReadWriteLock beginLock=new ReentrantReadWriteLock();
+
+    /**
+     * @return the lock to hold from the moment a read-only transaction takes its begin timestamp until it
+     * is {@link #register registered}, so that {@link #minimumActiveTimestamp} cannot miss it
+     */
+    public Lock beginLock(){
+        return beginLock.readLock();
+    }
+
+    public void register(TxnView txn){
+        activeTxns.put(txn.getTxnId(),new WeakReference<>(txn));
+    }
+
+    public void unregister(long txnId){
+        activeTxns.remove(txnId);
+    }
+
+    /**
+     * @param timestampSource the source which hands out the begin timestamps of this process
+     * @return a timestamp which is no larger than the begin timestamp of any read-only transaction of this
+     * process which is active now, or which will begin from now on
+     * @throws IOException if a timestamp cannot be fetched
+     */
+    public long minimumActiveTimestamp(TimestampSource timestampSource) throws IOException{
+        /*
+         * A transaction which has not registered by the time we scan takes the begin lock after we do, and
+         * so takes its begin timestamp after this one.
+         */
+        long minimum=timestampSource.nextTimestamp();
+        Lock scanLock=beginLock.writeLock();
+        scanLock.lock();
+        try{
+            for(Map.Entry<Long,WeakReference<TxnView>> entry:activeTxns.entrySet()){
+                TxnView txn=entry.getValue().get();
+                if(txn==null || txn.getState()!=Txn.State.ACTIVE){
+                    activeTxns.remove(entry.getKey(),entry.getValue());
+                    continue;
+                }
+                minimum=Math.min(minimum,txn.getBeginTimestamp());
+            }
+        }finally{
+            scanLock.unlock();
+        }
+        return minimum;
+    }
+
+    public int size(){
+        return activeTxns.size();
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import java.io.IOException;
+
+/**
+ * The oldest begin timestamp of any active read-only transaction in the cluster.
+ *
+ * Compactions must not purge any version which such a transaction may still read, but read-only
+ * transactions are not recorded in the transaction table, so each process publishes its own
+ * {@link ReadOnlyTxnRegistry} through this.
+ */
+public interface ReadOnlyTxnWatermark{
+
+    /**
+     * @return the registry in which this process records the read-only transactions it begins
+     */
+    ReadOnlyTxnRegistry registry();
+
+    /**
+     * @return a timestamp which is no larger than the begin timestamp of any active read-only transaction
+     * in the cluster, or {@link Long#MAX_VALUE} if there are none
+     * @throws IOException if the watermark cannot be read
+     */
+    long minimumActiveTimestamp() throws IOException;
+}
@@ -147,6 +147,12 @@ public class WritableTxn extends AbstractTxn{
             commitTimestamp=tc.commit(txnId);
             state=State.COMMITTED;
         }
+        /*
+         * Only a top-level commit makes writes visible to other transactions, so only it has to wait before it is
+         * acknowledged. We wait outside the lock, since the transaction is already committed.
+         */
+        if(Txn.ROOT_TRANSACTION.equals(parentTxn))
+            tc.commitWait(commitTimestamp);
         if(LOG.isTraceEnabled())
             SpliceLogUtils.trace(LOG,"After commit: txn=%s,commitTimestamp=%s",this,commitTimestamp);
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.GreenLight;
+import com.splicemachine.utils.TrafficControl;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+
+@Category(ArchitectureIndependent.class)
+public class AsyncReadResolverTest{
+
+    @Test
+    public void testResolvesEachRegionAndTransactionInOneBatch() throws Exception{
+        RecordingResolver keyedResolver=new RecordingResolver();
+        RollForwardStatus status=new RollForwardStatus();
+        AsyncReadResolver asyncResolver=new AsyncReadResolver(1,64,mock(TxnSupplier.class),status,GreenLight.INSTANCE,keyedResolver);
+        Partition region1=mock(Partition.class);
+        Partition region2=mock(Partition.class);
+        RollForward rollForward=mock(RollForward.class);
+
+        //submitted before the resolver starts, so that they are all consumed as a single disruptor batch
+        ReadResolver resolver1=asyncResolver.getResolver(region1,rollForward);
+        ReadResolver resolver2=asyncResolver.getResolver(region2,rollForward);
+        for(int i=0;i<10;i++){
+            resolver1.resolve(ByteSlice.wrap(new byte[]{(byte)i}),i%2==0?1l:2l);
+        }
+        resolver2.resolve(ByteSlice.wrap(new byte[]{1}),1l);
+
+        asyncResolver.start();
+        try{
+            long deadline=System.currentTimeMillis()+10000;
+            while(status.getTotalResolveBatches()<3 && System.currentTimeMillis()<deadline){
+                Thread.sleep(10);
+            }
+        }finally{
+            asyncResolver.shutdown();
+        }
+
+        List<Integer> batchSizes=keyedResolver.batchSizes();
+        Collections.sort(batchSizes);
+        Assert.assertEquals("Incorrect batches","[1, 5, 5]",batchSizes.toString());
+        Assert.assertEquals(3,status.getTotalResolveBatches());
+        Assert.assertEquals(5,status.getMaxResolveBatchSize());
+        Assert.assertEquals(11,status.getTotalRowsSubmitted());
+        Assert.assertEquals(0,status.getTotalRowsDropped());
+        verify(rollForward,times(6)).recordResolved(any(ByteSlice.class),eq(1l));
+        verify(rollForward,times(5)).recordResolved(any(ByteSlice.class),eq(2l));
+    }
+
+    @Test
+    public void testCountsDroppedRows() throws Exception{
+        RollForwardStatus status=new RollForwardStatus();
+        AsyncReadResolver asyncResolver=new AsyncReadResolver(1,4,mock(TxnSupplier.class),status,GreenLight.INSTANCE,new RecordingResolver());
+        ReadResolver resolver=asyncResolver.getResolver(mock(Partition.class),mock(RollForward.class));
+        //nothing is consumed until the resolver starts, so everything past the size of the queue is dropped
+        for(int i=0;i<10;i++){
+            resolver.resolve(ByteSlice.wrap(new byte[]{(byte)i}),1l);
+        }
+        asyncResolver.start();
+        asyncResolver.shutdown();
+        Assert.assertEquals(10,status.getTotalRowsSubmitted());
+        Assert.assertEquals(6,status.getTotalRowsDropped());
+        Assert.assertEquals(0.6d,status.getDropRate(),0.0001d);
+    }
+
+    private static class RecordingResolver implements KeyedReadResolver{
+        private final List<Integer> batchSizes=new ArrayList<>();
+
+        @Override
+        public boolean resolve(Partition region,ByteSlice rowKey,long txnId,TxnSupplier txnSupplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            return resolve(region,Collections.singletonList(rowKey),txnId,txnSupplier,status,failOnError,trafficControl);
+        }
+
+        @Override
+        public synchronized boolean resolve(Partition region,List<ByteSlice> rowKeys,long txnId,TxnSupplier txnSupplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            batchSizes.add(rowKeys.size());
+            return true;
+        }
+
+        synchronized List<Integer> batchSizes(){
+            return new ArrayList<>(batchSizes);
+        }
+    }
+}
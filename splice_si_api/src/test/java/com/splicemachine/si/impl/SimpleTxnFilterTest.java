@@ -27,6 +27,7 @@ import com.splicemachine.si.api.txn.*;
 import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
+import com.splicemachine.si.impl.store.CompletedTxnCacheSupplier;
 import com.splicemachine.si.impl.store.TestingTimestampSource;
 import com.splicemachine.si.impl.store.TestingTxnStore;
 import com.splicemachine.si.impl.txn.*;
@@ -48,8 +49,10 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -274,6 +277,38 @@ public class SimpleTxnFilterTest{
     }
 
     /* ****************************************************************************************************************/
+    @Test
+    public void testPrefetchFetchesUnresolvedTransactionsInOneCall() throws Exception{
+        final TxnView committed=getMockCommittedTxn(1l,2l,null);
+        final TxnView rolledBack=getMockRolledBackTxn(3l,null);
+        TxnSupplier store=mock(TxnSupplier.class);
+        when(store.getTransactions(any(long[].class))).thenAnswer(new Answer<TxnView[]>(){
+            @Override
+            public TxnView[] answer(InvocationOnMock invocationOnMock) throws Throwable{
+                long[] txnIds=(long[])invocationOnMock.getArguments()[0];
+                TxnView[] txns=new TxnView[txnIds.length];
+                for(int i=0;i<txnIds.length;i++){
+                    txns[i]=txnIds[i]==committed.getTxnId()?committed:rolledBack;
+                }
+                return txns;
+            }
+        });
+        TxnSupplier baseStore=new CompletedTxnCacheSupplier(store,16,1);
+
+        TxnView myTxn=new InheritingTxnView(Txn.ROOT_TRANSACTION,5l,5l,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.ACTIVE);
+        SimpleTxnFilter filter=new SimpleTxnFilter(null,myTxn,NoOpReadResolver.INSTANCE,baseStore);
+        DataCell committedCell=getUserCell(committed);
+        DataCell rolledBackCell=getUserCell(rolledBack);
+        filter.prefetchTransactions(Arrays.asList(committedCell,rolledBackCell));
+        verify(store).getTransactions(any(long[].class));
+
+        Assert.assertEquals(DataFilter.ReturnCode.INCLUDE,filter.filterCell(committedCell));
+        filter.nextRow();
+        Assert.assertEquals(DataFilter.ReturnCode.SKIP,filter.filterCell(rolledBackCell));
+        verify(store,never()).getTransaction(anyLong());
+        verify(store,never()).getTransaction(anyLong(),anyBoolean());
+    }
+
     /*private helper methods*/
     private ReadResolver getRollBackReadResolver(final Pair<ByteSlice, Long> rolledBackTs){
         ReadResolver resolver=mock(ReadResolver.class);
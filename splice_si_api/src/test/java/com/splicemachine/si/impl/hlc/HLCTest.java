@@ -33,4 +33,16 @@ public class HLCTest {
             value = comparison;
         }
     }
+
+    @Test
+    public void receiveEventMovesPastMessage() {
+        HLC hlc = new HLC();
+        long local = hlc.sendOrLocalEvent();
+        long[] physicalAndLogical = HLC.HLCToPhysicalAndLogical(local);
+        long message = HLC.physicalAndLogicalToHLC(physicalAndLogical[0]+60000,10);
+        long received = hlc.receiveEvent(message);
+        Assert.assertTrue("did not move past the message",received>message);
+        Assert.assertTrue("went backwards, catastophic",hlc.sendOrLocalEvent()>received);
+        Assert.assertTrue("did not move past a repeated message",hlc.receiveEvent(message)>received);
+    }
 }
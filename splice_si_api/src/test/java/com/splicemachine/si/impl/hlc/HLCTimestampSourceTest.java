@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.hlc;
+
+import com.splicemachine.concurrent.Clock;
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.ManualKeepAliveScheduler;
+import com.splicemachine.si.impl.store.TestingTxnStore;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.timestamp.api.TimestampSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that transactions keep their snapshot isolation semantics when their timestamps come from
+ * the Hybrid Logical Clocks of several nodes whose wall clocks disagree.
+ */
+@Category(ArchitectureIndependent.class)
+public class HLCTimestampSourceTest{
+    private static final byte[] DESTINATION_TABLE=Bytes.toBytes("1216");
+    private static final long SKEW=TimeUnit.SECONDS.toMillis(10);
+
+    private final ExceptionFactory exceptionFactory=mock(ExceptionFactory.class);
+    private SkewedClock txnTableClock;
+    private TestingTxnStore txnStore;
+
+    @Before
+    public void setUp() throws Exception{
+        txnTableClock=new SkewedClock(0l);
+        txnStore=new TestingTxnStore(new IncrementingClock(),source(txnTableClock,0),exceptionFactory,Long.MAX_VALUE);
+    }
+
+    @Test
+    public void nodesWithTheSameClockNeverGenerateTheSameTimestamp() throws Exception{
+        Clock frozen=new SkewedClock(0l){
+            @Override
+            public long currentTimeMillis(){
+                return 1000l;
+            }
+        };
+        TimestampSource first=source(frozen,1);
+        TimestampSource second=source(frozen,2);
+        Set<Long> seen=new HashSet<>();
+        long lastFirst=0l;
+        long lastSecond=0l;
+        for(int i=0;i<10000;i++){
+            long f=first.nextTimestamp();
+            long s=second.nextTimestamp();
+            Assert.assertTrue("Timestamps went backwards!",f>lastFirst && s>lastSecond);
+            Assert.assertTrue("Duplicate timestamp generated!",seen.add(f) && seen.add(s));
+            lastFirst=f;
+            lastSecond=s;
+        }
+    }
+
+    @Test
+    public void timestampsOfOneNodeSpreadOverTransactionTableBuckets() throws Exception{
+        TimestampSource source=source(new SkewedClock(0l),1);
+        Set<Long> buckets=new HashSet<>();
+        for(int i=0;i<1000;i++){
+            buckets.add(source.nextTimestamp() & (SIConstants.TRANSACTION_TABLE_BUCKET_COUNT-1));
+        }
+        Assert.assertEquals("Timestamps piled into a few buckets!",SIConstants.TRANSACTION_TABLE_BUCKET_COUNT,buckets.size());
+    }
+
+    @Test
+    public void laggingNodeSeesCommitItHasNotHeardAbout() throws Exception{
+        long maxClockOffset=250l;
+        ClientTxnLifecycleManager committer=node(0l,1,maxClockOffset);
+        // never talks to the committer or the transaction table before it begins
+        ClientTxnLifecycleManager lagging=node(-200l,2,maxClockOffset);
+
+        Txn writer=committer.beginTransaction(DESTINATION_TABLE);
+        writer.commit();
+        Txn reader=lagging.beginTransaction(DESTINATION_TABLE);
+
+        Assert.assertTrue("Transaction began before an acknowledged commit!",reader.getBeginTimestamp()>writer.getCommitTimestamp());
+        Assert.assertTrue("Cannot see an acknowledged commit!",reader.canSee(writer));
+    }
+
+    @Test
+    public void onlyTopLevelCommitsWait() throws Exception{
+        long maxClockOffset=TimeUnit.SECONDS.toMillis(2);
+        ClientTxnLifecycleManager node=node(0l,1,maxClockOffset);
+
+        Txn parent=node.beginTransaction(DESTINATION_TABLE);
+        Txn child=node.beginChildTransaction(parent,DESTINATION_TABLE);
+        long start=System.currentTimeMillis();
+        child.commit();
+        Assert.assertTrue("A child commit waited!",System.currentTimeMillis()-start<maxClockOffset/2);
+
+        parent.commit();
+        Txn next=node.beginTransaction(DESTINATION_TABLE);
+        long physical=HLC.HLCToPhysicalAndLogical(parent.getCommitTimestamp()>>>HLCTimestampSource.NODE_BITS)[0];
+        Assert.assertTrue("The top-level commit did not wait!",System.currentTimeMillis()>physical+maxClockOffset);
+        Assert.assertTrue(next.getBeginTimestamp()>parent.getCommitTimestamp());
+    }
+
+    @Test
+    public void childBeginsAfterParentStartedOnNodeAhead() throws Exception{
+        ClientTxnLifecycleManager ahead=node(SKEW,1);
+        ClientTxnLifecycleManager behind=node(-SKEW,2);
+
+        Txn parent=ahead.beginTransaction(DESTINATION_TABLE);
+        Txn child=behind.beginChildTransaction(parent,DESTINATION_TABLE);
+
+        Assert.assertTrue("Child began before its parent!",child.getBeginTimestamp()>parent.getBeginTimestamp());
+    }
+
+    @Test
+    public void commitFollowsBeginWhenTransactionTableIsBehind() throws Exception{
+        txnTableClock.offset=-SKEW;
+        ClientTxnLifecycleManager node=node(SKEW,1);
+
+        Txn txn=node.beginTransaction(DESTINATION_TABLE);
+        txn.commit();
+
+        Assert.assertTrue("Committed before it began!",txn.getCommitTimestamp()>txn.getBeginTimestamp());
+    }
+
+    @Test
+    public void laterTransactionSeesCommitWhenTransactionTableIsAhead() throws Exception{
+        txnTableClock.offset=SKEW;
+        ClientTxnLifecycleManager node=node(-SKEW,1);
+
+        Txn writer=node.beginTransaction(DESTINATION_TABLE);
+        writer.commit();
+        Txn reader=node.beginTransaction(DESTINATION_TABLE);
+
+        Assert.assertTrue("Transaction began before a prior commit!",reader.getBeginTimestamp()>writer.getCommitTimestamp());
+        Assert.assertTrue("Cannot see a prior commit!",reader.canSee(writer));
+        Assert.assertFalse("Saw a later transaction!",writer.canSee(reader));
+    }
+
+    @Test
+    public void childOnAnotherNodeSeesWhatItsParentSees() throws Exception{
+        txnTableClock.offset=SKEW;
+        ClientTxnLifecycleManager ahead=node(0l,1);
+        ClientTxnLifecycleManager behind=node(-SKEW,2);
+
+        Txn writer=ahead.beginTransaction(DESTINATION_TABLE);
+        writer.commit();
+        Txn parent=ahead.beginTransaction(DESTINATION_TABLE);
+        Txn child=behind.beginChildTransaction(parent,DESTINATION_TABLE);
+
+        Assert.assertTrue("Parent cannot see a prior commit!",parent.canSee(writer));
+        Assert.assertTrue("Child cannot see what its parent sees!",child.canSee(writer));
+    }
+
+    @Test
+    public void concurrentTransactionsCannotSeeEachOther() throws Exception{
+        ClientTxnLifecycleManager ahead=node(SKEW,1);
+        ClientTxnLifecycleManager behind=node(-SKEW,2);
+
+        Txn first=ahead.beginTransaction(DESTINATION_TABLE);
+        Txn second=behind.beginTransaction(DESTINATION_TABLE);
+        first.commit();
+
+        Assert.assertFalse("Saw a transaction which committed after we began!",second.canSee(first));
+    }
+
+    @Test
+    public void timestampsIncreaseAcrossRestartWithClockMovedBack() throws Exception{
+        SkewedClock clock=new SkewedClock(0l);
+        TestHLCStore store=new TestHLCStore(1);
+        HLCTimestampSource beforeRestart=new HLCTimestampSource(new HLC(clock),store,1000l,0l);
+        long last=0l;
+        for(int i=0;i<100;i++)
+            last=beforeRestart.nextTimestamp();
+
+        clock.offset=-TimeUnit.MINUTES.toMillis(1);
+        HLCTimestampSource afterRestart=new HLCTimestampSource(new HLC(clock),store,1000l,0l);
+        Assert.assertTrue("Timestamp went backwards after restart!",afterRestart.nextTimestamp()>last);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private ClientTxnLifecycleManager node(long skew,int nodeId) throws Exception{
+        return node(skew,nodeId,0l);
+    }
+
+    private ClientTxnLifecycleManager node(long skew,int nodeId,long maxClockOffset) throws Exception{
+        TimestampSource source=new HLCTimestampSource(new HLC(new SkewedClock(skew)),new TestHLCStore(nodeId),1000l,maxClockOffset);
+        ClientTxnLifecycleManager lifecycleManager=new ClientTxnLifecycleManager(source,exceptionFactory);
+        lifecycleManager.setTxnStore(txnStore);
+        lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+        return lifecycleManager;
+    }
+
+    private static TimestampSource source(Clock clock,int nodeId) throws Exception{
+        return new HLCTimestampSource(new HLC(clock),new TestHLCStore(nodeId),1000l,0l);
+    }
+
+    private static class SkewedClock implements Clock{
+        volatile long offset;
+
+        SkewedClock(long offset){
+            this.offset=offset;
+        }
+
+        @Override
+        public long currentTimeMillis(){
+            return System.currentTimeMillis()+offset;
+        }
+
+        @Override
+        public long nanoTime(){
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long time,TimeUnit unit) throws InterruptedException{
+            unit.sleep(time);
+        }
+    }
+
+    private static class TestHLCStore implements HLCStore{
+        private final int nodeId;
+        private long reservedTime;
+        private long memory;
+
+        TestHLCStore(int nodeId){
+            this.nodeId=nodeId;
+        }
+
+        @Override public int nodeId(){ return nodeId; }
+        @Override public long reservedTime(){ return reservedTime; }
+        @Override public void reserve(long reservedTime){ this.reservedTime=reservedTime; }
+        @Override public void rememberTimestamp(long timestamp){ this.memory=timestamp; }
+        @Override public long retrieveTimestamp(){ return memory; }
+    }
+}
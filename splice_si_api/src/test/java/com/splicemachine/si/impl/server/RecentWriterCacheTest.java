@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests for the bookkeeping of the RecentWriterCache.
+ */
+@Category(ArchitectureIndependent.class)
+public class RecentWriterCacheTest{
+    private static final String REGION="region1";
+
+    @Test
+    public void remembersLastWriterOfRow() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(16);
+        cache.recordWrite(REGION,Bytes.toBytes("row"),1l,false);
+        cache.recordWrite(REGION,Bytes.toBytes("row"),2l,true);
+
+        RecentWriterCache.Writer writer=cache.lastWriter(REGION,Bytes.toBytes("row"));
+        Assert.assertNotNull("Writer should be cached!",writer);
+        Assert.assertEquals("Incorrect writer!",2l,writer.getTxnId());
+        Assert.assertTrue("Write should be a tombstone!",writer.isTombstone());
+        Assert.assertNull("Unknown row should not be cached!",cache.lastWriter(REGION,Bytes.toBytes("other")));
+        Assert.assertNull("Rows of other regions should not be visible!",cache.lastWriter("region2",Bytes.toBytes("row")));
+    }
+
+    @Test
+    public void invalidatingRowForgetsWriter() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(16);
+        cache.recordWrite(REGION,Bytes.toBytes("row"),1l,false);
+        cache.invalidate(REGION,Bytes.toBytes("row"));
+
+        Assert.assertNull("Writer should be forgotten!",cache.lastWriter(REGION,Bytes.toBytes("row")));
+    }
+
+    @Test
+    public void invalidatingRegionForgetsAllRows() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(16);
+        cache.recordWrite(REGION,Bytes.toBytes("row1"),1l,false);
+        cache.recordWrite(REGION,Bytes.toBytes("row2"),1l,false);
+        cache.recordWrite("region2",Bytes.toBytes("row1"),1l,false);
+        cache.invalidate(REGION);
+
+        Assert.assertNull("Writer should be forgotten!",cache.lastWriter(REGION,Bytes.toBytes("row1")));
+        Assert.assertNull("Writer should be forgotten!",cache.lastWriter(REGION,Bytes.toBytes("row2")));
+        Assert.assertNotNull("Other regions should be unaffected!",cache.lastWriter("region2",Bytes.toBytes("row1")));
+    }
+
+    @Test
+    public void cacheIsBoundedAcrossRegions() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(8);
+        for(int r=0;r<4;r++){
+            for(int i=0;i<16;i++){
+                cache.recordWrite("region"+r,Bytes.toBytes(i),i,false);
+            }
+        }
+        int cached=0;
+        for(int r=0;r<4;r++){
+            for(int i=0;i<16;i++){
+                if(cache.lastWriter("region"+r,Bytes.toBytes(i))!=null)
+                    cached++;
+            }
+        }
+        Assert.assertTrue("Too many rows cached: "+cached,cached<=8);
+        Assert.assertNotNull("Most recent write should be cached!",cache.lastWriter("region3",Bytes.toBytes(15)));
+    }
+
+    @Test
+    public void reopenedRegionDoesNotSeeOldRows() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(16);
+        cache.recordWrite(REGION,Bytes.toBytes("row1"),1l,false);
+        cache.invalidate(REGION);
+        cache.recordWrite(REGION,Bytes.toBytes("row2"),2l,false);
+
+        Assert.assertNull("Writer from before invalidation should be forgotten!",cache.lastWriter(REGION,Bytes.toBytes("row1")));
+        Assert.assertNotNull("New writes should be cached!",cache.lastWriter(REGION,Bytes.toBytes("row2")));
+    }
+
+    @Test
+    public void disabledCacheRemembersNothing() throws Exception{
+        RecentWriterCache cache=new RecentWriterCache(0);
+        Assert.assertFalse("Cache should be disabled!",cache.isEnabled());
+        cache.recordWrite(REGION,Bytes.toBytes("row"),1l,false);
+
+        Assert.assertNull("Disabled cache should not remember writers!",cache.lastWriter(REGION,Bytes.toBytes("row")));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the completed transaction cache against the ConcurrentLinkedHashMap it replaced, with
+ * many threads doing what a transactional scan does: look up the transaction of every cell read.
+ * <p>
+ * Run with {@code main [lookupsPerThread]}; it reports lookups per second for 16 and 64 threads.
+ */
+public class CompletedTxnCacheMicroBenchmark{
+    private static final int CACHE_SIZE=1<<16;
+    private static final int CONCURRENCY=16;
+    private static final int TRANSACTIONS=1<<15; //the working set fits, as it does for most scans
+    private static final int WARMUP_ROUNDS=3;
+
+    public static void main(String...args) throws Exception{
+        int lookupsPerThread=args.length>0?Integer.parseInt(args[0]):1<<22;
+        for(int threads : new int[]{16,64}){
+            System.out.printf("%d threads, %d lookups per thread%n",threads,lookupsPerThread);
+            for(int i=0;i<WARMUP_ROUNDS;i++){
+                run(new LinkedHashMapCacheSupplier(new CompletedTxnSource(),CACHE_SIZE,CONCURRENCY),threads,lookupsPerThread);
+                run(new CompletedTxnCacheSupplier(new CompletedTxnSource(),CACHE_SIZE,CONCURRENCY),threads,lookupsPerThread);
+            }
+            double baseline=run(new LinkedHashMapCacheSupplier(new CompletedTxnSource(),CACHE_SIZE,CONCURRENCY),threads,lookupsPerThread);
+            double current=run(new CompletedTxnCacheSupplier(new CompletedTxnSource(),CACHE_SIZE,CONCURRENCY),threads,lookupsPerThread);
+            System.out.printf("ConcurrentLinkedHashMap:   %,.0f lookups/s%n",baseline);
+            System.out.printf("CompletedTxnCacheSupplier: %,.0f lookups/s (%.2fx)%n",current,current/baseline);
+            System.out.println("-----");
+        }
+    }
+
+    /**
+     * @return lookups per second
+     */
+    private static double run(final TxnSupplier supplier,int threads,final int lookupsPerThread) throws Exception{
+        ExecutorService executor=Executors.newFixedThreadPool(threads);
+        final CountDownLatch start=new CountDownLatch(1);
+        try{
+            List<Future<Long>> futures=new ArrayList<>(threads);
+            for(int t=0;t<threads;t++){
+                final int seed=t;
+                futures.add(executor.submit(new Callable<Long>(){
+                    @Override
+                    public Long call() throws Exception{
+                        Random random=new Random(seed);
+                        long sum=0;
+                        start.await();
+                        for(int i=0;i<lookupsPerThread;i++){
+                            long txnId=(long)(random.nextInt(TRANSACTIONS)+1)<<8;
+                            sum+=supplier.getTransaction(txnId).getBeginTimestamp();
+                        }
+                        return sum;
+                    }
+                }));
+            }
+            long startTime=System.nanoTime();
+            start.countDown();
+            long sum=0;
+            for(Future<Long> future : futures){
+                sum+=future.get();
+            }
+            long elapsed=System.nanoTime()-startTime;
+            if(sum==0) //keep the lookups from being optimized away
+                System.out.println("sum="+sum);
+            return (double)threads*lookupsPerThread/elapsed*1e9;
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CompletedTxnSource implements TxnSupplier{
+        @Override
+        public TxnView getTransaction(long txnId) throws IOException{
+            return getTransaction(txnId,false);
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+            return new InheritingTxnView(Txn.ROOT_TRANSACTION,txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.COMMITTED);
+        }
+
+        @Override
+        public TxnView[] getTransactions(long[] txnIds) throws IOException{
+            TxnView[] txns=new TxnView[txnIds.length];
+            for(int i=0;i<txnIds.length;i++){
+                txns[i]=getTransaction(txnIds[i]);
+            }
+            return txns;
+        }
+
+        @Override
+        public boolean transactionCached(long txnId){
+            return false;
+        }
+
+        @Override
+        public void cache(TxnView toCache){
+        }
+
+        @Override
+        public TxnView getTransactionFromCache(long txnId){
+            return null;
+        }
+    }
+
+    /**
+     * The previous implementation of {@link CompletedTxnCacheSupplier}.
+     */
+    private static class LinkedHashMapCacheSupplier extends CompletedTxnSource{
+        private final ConcurrentLinkedHashMap<Long, TxnView> cache;
+        private final TxnSupplier delegate;
+        private final AtomicLong hits=new AtomicLong();
+        private final AtomicLong requests=new AtomicLong();
+
+        LinkedHashMapCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel){
+            this.cache=new ConcurrentLinkedHashMap.Builder<Long, TxnView>()
+                    .maximumWeightedCapacity(maxSize)
+                    .concurrencyLevel(concurrencyLevel)
+                    .build();
+            this.delegate=delegate;
+        }
+
+        @Override
+        public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+            requests.incrementAndGet();
+            TxnView txn=cache.get(txnId);
+            if(txn!=null){
+                hits.incrementAndGet();
+                return txn;
+            }
+            TxnView transaction=delegate.getTransaction(txnId,getDestinationTables);
+            cache.put(transaction.getTxnId(),transaction);
+            return transaction;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.store;
+
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.txn.InheritingTxnView;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Category(ArchitectureIndependent.class)
+public class CompletedTxnCacheTest{
+
+    @Test
+    public void testReturnsCachedTransactions() throws Exception{
+        CompletedTxnCache cache=new CompletedTxnCache(4096,16);
+        for(long i=1;i<=1000;i++){
+            cache.put(txn(i<<8));
+        }
+        for(long i=1;i<=1000;i++){
+            TxnView txn=cache.get(i<<8);
+            Assert.assertNotNull("Missing transaction "+(i<<8),txn);
+            Assert.assertEquals(i<<8,txn.getTxnId());
+        }
+        Assert.assertNull(cache.get(1001<<8));
+        Assert.assertEquals(1001,cache.requests());
+        Assert.assertEquals(1000,cache.hits());
+        Assert.assertEquals(0,cache.evictions());
+    }
+
+    @Test
+    public void testEvictsPastMaxSize() throws Exception{
+        CompletedTxnCache cache=new CompletedTxnCache(100,4);
+        for(long i=1;i<=1000;i++){
+            cache.put(txn(i<<8));
+            Assert.assertTrue("Cache grew past its maximum size",cache.size()<=100);
+        }
+        Assert.assertEquals(100,cache.size());
+        Assert.assertEquals(900,cache.evictions());
+        int found=0;
+        for(long i=1;i<=1000;i++){
+            TxnView txn=cache.get(i<<8);
+            if(txn!=null){
+                Assert.assertEquals(i<<8,txn.getTxnId());
+                found++;
+            }
+        }
+        Assert.assertEquals("Every remaining entry should be reachable",100,found);
+    }
+
+    @Test
+    public void testReferencedEntriesSurviveEviction() throws Exception{
+        CompletedTxnCache cache=new CompletedTxnCache(16,1);
+        for(long i=1;i<=16;i++){
+            cache.put(txn(i<<8));
+        }
+        for(int round=0;round<10;round++){
+            Assert.assertNotNull(cache.get(1<<8));
+            cache.put(txn((100+round)<<8));
+        }
+        Assert.assertNotNull("A frequently read transaction was evicted",cache.get(1<<8));
+    }
+
+    @Test
+    public void testConcurrentReadersNeverSeeTheWrongTransaction() throws Exception{
+        final CompletedTxnCache cache=new CompletedTxnCache(256,8);
+        ExecutorService executor=Executors.newFixedThreadPool(8);
+        try{
+            List<Future<Void>> futures=new ArrayList<>();
+            for(int t=0;t<8;t++){
+                final int seed=t;
+                futures.add(executor.submit(new Callable<Void>(){
+                    @Override
+                    public Void call() throws Exception{
+                        Random random=new Random(seed);
+                        for(int i=0;i<100000;i++){
+                            long txnId=(random.nextInt(1024)+1)<<8;
+                            TxnView txn=cache.get(txnId);
+                            if(txn==null)
+                                cache.put(txn(txnId));
+                            else
+                                Assert.assertEquals(txnId,txn.getTxnId());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> future : futures){
+                future.get();
+            }
+        }finally{
+            executor.shutdownNow();
+        }
+        Assert.assertTrue(cache.size()<=256);
+        Assert.assertEquals(800000,cache.requests());
+    }
+
+    private static TxnView txn(long txnId){
+        return new InheritingTxnView(Txn.ROOT_TRANSACTION,txnId,txnId,Txn.IsolationLevel.SNAPSHOT_ISOLATION,Txn.State.COMMITTED);
+    }
+}
@@ -33,6 +33,16 @@ public class TestingTimestampSource implements TimestampSource{
         }
     }
 
+    @Override
+    public void observeTimestamp(long timestamp) {
+
+    }
+
+    @Override
+    public void commitWait(long commitTimestamp) {
+
+    }
+
     @Override
     public void rememberTimestamp(long timestamp) {
         memory = timestamp;
@@ -70,6 +70,15 @@ public class TestingTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            txns[i]=getTransaction(txnIds[i]);
+        }
+        return txns;
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -143,6 +152,7 @@ public class TestingTxnStore implements TxnStore{
         if(isTimedOut(txnHolder))
             throw new IOException("Cannot commit txn "+txnId+", state is "+Txn.State.ROLLEDBACK);
 
+        commitTsGenerator.observeTimestamp(txnId);
         final long commitTs=commitTsGenerator.nextTimestamp();
 
         TxnView parentTransaction=txn.getParentTxnView();
@@ -204,6 +214,23 @@ public class TestingTxnStore implements TxnStore{
         return true;
     }
 
+    @Override
+    public Txn.State[] keepAlive(long[] txnIds) throws IOException{
+        Txn.State[] states=new Txn.State[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            TxnHolder holder=txnMap.get(txnIds[i]);
+            if(holder==null || holder.txn.getState()!=Txn.State.ACTIVE)
+                states[i]=Txn.State.COMMITTED;
+            else if(isTimedOut(holder))
+                states[i]=Txn.State.ROLLEDBACK;
+            else{
+                holder.keepAliveTs=clock.currentTimeMillis();
+                states[i]=Txn.State.ACTIVE;
+            }
+        }
+        return states;
+    }
+
     //		@Override
     public void timeout(long txnId) throws IOException{
         rollback(txnId);
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.si.impl.txn;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.ExceptionFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.ManualKeepAliveScheduler;
+import com.splicemachine.si.impl.store.TestingTimestampSource;
+import com.splicemachine.si.impl.store.TestingTxnStore;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that the read-only transactions begun through the lifecycle manager hold back the watermark
+ * for exactly as long as nothing else does.
+ */
+@Category(ArchitectureIndependent.class)
+public class ReadOnlyTxnRegistryTest{
+    private static final byte[] DESTINATION_TABLE=Bytes.toBytes("1216");
+
+    private LocalReadOnlyTxnWatermark watermark;
+    private ClientTxnLifecycleManager lifecycleManager;
+
+    @Before
+    public void setUp() throws Exception{
+        ExceptionFactory exceptionFactory=mock(ExceptionFactory.class);
+        TestingTimestampSource timestampSource=new TestingTimestampSource();
+        TestingTxnStore txnStore=new TestingTxnStore(new IncrementingClock(),timestampSource,exceptionFactory,Long.MAX_VALUE);
+        watermark=new LocalReadOnlyTxnWatermark(timestampSource);
+        lifecycleManager=new ClientTxnLifecycleManager(timestampSource,exceptionFactory);
+        lifecycleManager.setTxnStore(txnStore);
+        lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+        lifecycleManager.setReadOnlyTxnRegistry(watermark.registry());
+    }
+
+    @Test
+    public void activeReadOnlyTransactionHoldsBackWatermark() throws Exception{
+        Txn reader=lifecycleManager.beginTransaction();
+        lifecycleManager.beginTransaction(DESTINATION_TABLE).commit();
+
+        Assert.assertEquals(reader.getBeginTimestamp(),watermark.minimumActiveTimestamp());
+    }
+
+    @Test
+    public void completedReadOnlyTransactionIsForgotten() throws Exception{
+        Txn committed=lifecycleManager.beginTransaction();
+        Txn rolledBack=lifecycleManager.beginTransaction();
+        committed.commit();
+        rolledBack.rollback();
+
+        Assert.assertTrue(watermark.minimumActiveTimestamp()>rolledBack.getBeginTimestamp());
+        Assert.assertEquals(0,watermark.registry().size());
+    }
+
+    @Test
+    public void childrenAreNotRegistered() throws Exception{
+        Txn reader=lifecycleManager.beginTransaction();
+        lifecycleManager.beginChildTransaction(reader,null);
+
+        Assert.assertEquals(1,watermark.registry().size());
+    }
+
+    @Test
+    public void elevatedTransactionIsLeftToTheTransactionTable() throws Exception{
+        Txn reader=lifecycleManager.beginTransaction();
+        reader.elevateToWritable(DESTINATION_TABLE);
+
+        Assert.assertEquals(0,watermark.registry().size());
+        Assert.assertTrue(watermark.minimumActiveTimestamp()>reader.getBeginTimestamp());
+    }
+
+    @Test
+    public void chainedReadOnlyTransactionIsRegistered() throws Exception{
+        Txn writer=lifecycleManager.beginTransaction(DESTINATION_TABLE);
+        Txn reader=lifecycleManager.chainTransaction(Txn.ROOT_TRANSACTION,Txn.IsolationLevel.SNAPSHOT_ISOLATION,false,null,writer);
+
+        Assert.assertEquals(writer.getCommitTimestamp(),reader.getBeginTimestamp());
+        Assert.assertEquals(reader.getBeginTimestamp(),watermark.minimumActiveTimestamp());
+    }
+}
@@ -30,5 +30,28 @@ public interface TimestampClientStatistics{
 	long getNumberTimestampRequests();
 	
  	double getAvgTimestampRequestDuration();
+
+    /**
+     * Returns the number of batched requests sent to the timestamp server.
+     * Each batch carries all the callers that were waiting when it was sent.
+     *
+     * @return number of batched requests
+     */
+    long getNumberBatchRequests();
+
+    /**
+     * @return the average number of timestamps requested per batch
+     */
+    double getAvgBatchSize();
+
+    /**
+     * @return the largest number of timestamps requested in a single batch
+     */
+    long getLargestBatchSize();
+
+    /**
+     * @return the average round trip time of a batched request, in milliseconds
+     */
+    double getAvgBatchRequestDuration();
 	
 }
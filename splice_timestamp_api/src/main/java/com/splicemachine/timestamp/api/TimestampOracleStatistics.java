@@ -42,5 +42,14 @@ public interface TimestampOracleStatistics{
      * @return number of timestamp blocks reserved
      */
     long getNumberBlocksReserved();
+
+    /**
+     * Returns the total number of requests served since the last master
+     * server start. Each request is for a contiguous range of one or more
+     * timestamps.
+     *
+     * @return number of timestamp requests served
+     */
+    long getNumberTimestampRequests();
 	
 }
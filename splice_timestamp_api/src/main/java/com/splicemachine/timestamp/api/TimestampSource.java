@@ -15,11 +15,32 @@
 
 package com.splicemachine.timestamp.api;
 
+import java.io.IOException;
+
 /**
  * Generator of transaction timestamps. Expected to produce unique, monotonically increasing values.
  */
 public interface TimestampSource {
     long nextTimestamp();
+
+    /**
+     * Informs the source of a timestamp which was generated elsewhere (for example, the begin timestamp of a
+     * transaction received from another node), so that timestamps generated afterwards sort after it.
+     * Sources which hand out timestamps from a single central counter have nothing to do here.
+     *
+     * @param timestamp the timestamp seen
+     */
+    void observeTimestamp(long timestamp);
+
+    /**
+     * Blocks until no node can generate a timestamp smaller than the specified commit timestamp any more, so that a
+     * transaction which begins anywhere once the commit has been acknowledged sees it, even if it has never heard
+     * from this node. Sources which hand out timestamps from a single central counter have nothing to wait for.
+     *
+     * @param commitTimestamp the commit timestamp about to be acknowledged
+     * @throws IOException if interrupted while waiting
+     */
+    void commitWait(long commitTimestamp) throws IOException;
     void rememberTimestamp(long timestamp);
     long retrieveTimestamp();
     void shutdown();
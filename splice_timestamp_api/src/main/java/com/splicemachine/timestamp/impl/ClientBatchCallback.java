@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.Callback;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Callback for a single batched request to the {@link TimestampServer}. The server
+ * responds with the first timestamp of a contiguous range whose size equals the
+ * number of callers in the batch, and each caller is handed one timestamp from
+ * that range, in the order in which it joined the batch.
+ * <p>
+ * Only the first of {@link #complete}, {@link #error} and {@link #abandon} reaches the callers.
+ */
+public class ClientBatchCallback implements Callback {
+
+    private final short batchId;
+    private final List<ClientCallback> callbacks;
+    private final long startNanos;
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile boolean abandoned = false;
+
+    public ClientBatchCallback(short batchId, List<ClientCallback> callbacks) {
+        this.batchId = batchId;
+        this.callbacks = callbacks;
+        this.startNanos = System.nanoTime();
+        for (ClientCallback callback : callbacks) {
+            callback.setBatch(this);
+        }
+    }
+
+    public short getBatchId() {
+        return batchId;
+    }
+
+    public int size() {
+        return callbacks.size();
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Fails the callers of a batch which is still outstanding because one of them gave up waiting for it. The
+     * server may still answer it, so the batch stays outstanding until it does or the connection is closed.
+     *
+     * @return {@code true} if the batch was abandoned, {@code false} if it had already finished
+     */
+    public boolean abandon(Exception e) {
+        if (!finished.compareAndSet(false, true)) return false;
+        abandoned = true;
+        for (ClientCallback callback : callbacks) {
+            callback.error(e);
+        }
+        return true;
+    }
+
+    public boolean isAbandoned() {
+        return abandoned;
+    }
+
+    @Override
+    public void error(Exception e) {
+        if (!finished.compareAndSet(false, true)) return;
+        for (ClientCallback callback : callbacks) {
+            callback.error(e);
+        }
+    }
+
+    @Override
+    public void complete(long firstTimestamp) {
+        if (!finished.compareAndSet(false, true)) return;
+        long timestamp = firstTimestamp;
+        for (ClientCallback callback : callbacks) {
+            callback.complete(timestamp++);
+        }
+    }
+
+    public String toString() {
+        return "BatchCallback (batchId = " + batchId + ", size = " + callbacks.size() + (abandoned ? ", abandoned" : "") + ")";
+    }
+}
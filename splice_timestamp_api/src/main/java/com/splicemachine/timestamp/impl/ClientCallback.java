@@ -26,6 +26,7 @@ public class ClientCallback implements Callback {
     private volatile long _newTimestamp = -1l;
     private Exception _e = null;
     private CountDownLatch _latch = new CountDownLatch(1);
+    private volatile ClientBatchCallback _batch = null;
     		
     public ClientCallback(short callerId) {
     	_callerId = callerId;
@@ -39,6 +40,18 @@ public class ClientCallback implements Callback {
        return _e;
     }
 
+    /**
+     * @return the batch this caller was sent with, or {@code null} if it is still
+     * waiting to be sent
+     */
+    public ClientBatchCallback getBatch() {
+        return _batch;
+    }
+
+    void setBatch(ClientBatchCallback batch) {
+        _batch = batch;
+    }
+
     protected void countDown() {
         _latch.countDown();
     }
@@ -23,6 +23,25 @@ import org.sparkproject.jboss.netty.channel.SimpleChannelHandler;
 
 public abstract class TimestampBaseHandler extends SimpleChannelHandler {
 
+    /**
+     * Batch id of the handshake with which a client opens each connection: the client sends this marker followed by
+     * the highest protocol version it speaks (2 bytes), and the server answers with the marker and the negated version
+     * both will use in place of the timestamp. Servers which predate the handshake hand out a (positive) timestamp
+     * instead, and clients which predate it never send the version, so neither side mistakes the other for a peer
+     * which understands batched requests.
+     */
+    static final short PROTOCOL_MARKER = Short.MIN_VALUE;
+
+    /**
+     * Protocol in which each request carries a 2 byte batch id and a 2 byte number of timestamps.
+     */
+    static final int PROTOCOL_VERSION = 1;
+
+    /**
+     * Protocol of peers which don't send a handshake: each request is a 2 byte caller id for a single timestamp.
+     */
+    static final int LEGACY_PROTOCOL_VERSION = 0;
+
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
     	doError("exceptionCaught", e.getCause());
     	super.exceptionCaught(ctx, e);
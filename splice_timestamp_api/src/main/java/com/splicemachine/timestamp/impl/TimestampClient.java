@@ -17,7 +17,10 @@ package com.splicemachine.timestamp.impl;
 
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.ConcurrentHashMap;
@@ -49,6 +52,11 @@ import org.sparkproject.jboss.netty.handler.codec.frame.FixedLengthFrameDecoder;
 /**
  * Accepts concurrent requests for new transactional timestamps and
  * sends them over a shared connection to the remote {@link TimestampServer}.
+ * Callers that arrive while a request is outstanding are coalesced into a
+ * single request for a contiguous range of timestamps, which is sent as soon
+ * as the outstanding one is answered. Each connection starts with a handshake
+ * (see {@link TimestampBaseHandler#PROTOCOL_MARKER}); a server which does not
+ * answer it as expected is asked for one timestamp per request.
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
@@ -66,18 +74,51 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     /**
      * Fixed number of bytes in the message we expect to receive back from the server.
      */
-    private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    private static final int FIXED_MSG_RECEIVED_LENGTH = 10; // 2 byte batch id + 8 byte first timestamp of the range
+
+    /**
+     * Fixed number of bytes in the message we send to the server.
+     */
+    private static final int FIXED_MSG_SENT_LENGTH = 4; // 2 byte batch id + 2 byte number of timestamps
+
+    /**
+     * Fixed number of bytes in the message we send to a server which does not batch requests.
+     */
+    private static final int LEGACY_MSG_SENT_LENGTH = 2; // 2 byte caller id
+
+    private static final int UNKNOWN_PROTOCOL_VERSION = -1;
 
     private enum State {
         DISCONNECTED, CONNECTING, CONNECTED, SHUTDOWN
     }
 
     /**
-     * A map representing all currently active callers to this TimestampClient
+     * A map representing all currently outstanding batches sent by this TimestampClient
      * waiting for their response.
      */
     private ConcurrentMap<Short, Callback> clientCallbacks = null;
 
+    /**
+     * Callers waiting to be sent with the next batch.
+     */
+    private final ConcurrentLinkedQueue<ClientCallback> pendingCallbacks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether a batch has been sent whose response has not yet arrived.
+     */
+    private final AtomicBoolean batchInFlight = new AtomicBoolean(false);
+
+    /**
+     * The protocol version agreed with the server over the current connection, or
+     * {@link #UNKNOWN_PROTOCOL_VERSION} until the handshake has been answered.
+     */
+    private volatile int protocolVersion = UNKNOWN_PROTOCOL_VERSION;
+
+    /**
+     * Maximum number of callers coalesced into a single request.
+     */
+    private final int maxBatchSize;
+
     private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
 
     private ClientBootstrap bootstrap;
@@ -85,28 +126,36 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     private NioClientSocketChannelFactory factory;
 
     /**
-     * Internal unique identifier for a single synchronous call to this instance
+     * Internal unique identifier for a single batched request sent by this instance
      * of {@link TimestampClient}. Necessary in order to subsequently associate
      * a server response with the original request. Although this is an atomic integer,
      * we consume it internally as a short so that we only pass two bytes (not four)
-     * over the wire.
+     * over the wire. The ids used by the handshake are skipped.
      */
-    // We might even get away with using a byte here (256 concurrent client calls),
-    // but use a short just in case.
     private AtomicInteger clientCallCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
 
+    /**
+     * Identifier for a single synchronous call, used for logging only.
+     */
+    private AtomicInteger callerCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
+
     int timeoutMillis;
 
     // Metrics to expose via JMX. See TimestampClientStatistics
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
+    private AtomicLong totalBatchSize = new AtomicLong(0);
+    private AtomicLong largestBatchSize = new AtomicLong(0);
+    private AtomicLong totalBatchDuration = new AtomicLong(0);
     private TimestampHostProvider timestampHostProvider;
 
 
-    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider) {
+    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,int maxBatchSize) {
         this.timeoutMillis = timeoutMillis;
         this.timestampHostProvider = timestampHostProvider;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, Short.MAX_VALUE));
         clientCallbacks = new ConcurrentHashMap<>();
 
         ExecutorService workerExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("timestampClient-worker-%d").setDaemon(true).build());
@@ -214,48 +263,23 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         connectIfNeeded();
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
-
-        // Add this caller (id and callback) to the map of current clients.
-        // If an entry was already present for this caller id, that is a bug,
-        // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
-            doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
-        }
-
-        try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            ChannelFuture futureWrite = channel.write(buffer);
-            futureWrite.addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (!future.isSuccess()) {
-                        doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
-                    } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
-                    }
-                }
-            });
-        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
-            clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
-        }
+        final ClientCallback callback = new ClientCallback((short) callerCounter.getAndIncrement());
+        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", callback.getCallerId());
 
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
+        // Queue this caller, then try to send a batch. If a batch is already in flight,
+        // this caller will be picked up by the next batch, which is sent as soon as
+        // the response to the current one arrives.
+        pendingCallbacks.add(callback);
+        sendPendingBatch();
 
         try {
             boolean success = callback.await(timeoutMillis);
             if (!success) {
+                abandon(callback);
                 doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
             }
         } catch (InterruptedException e) {
+            abandon(callback);
             doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
         }
 
@@ -264,7 +288,7 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         long timestamp = callback.getNewTimestamp();
         if (timestamp < 0) {
-            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", null, callback);
+            doClientErrorThrow(LOG, "Invalid timestamp found for client: %s", callback.getException(), callback);
         }
 
         SpliceLogUtils.debug(LOG, "Client call complete: %s", callback);
@@ -276,38 +300,183 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return timestamp;
     }
 
+    /**
+     * Drains the queue of waiting callers into a single request for a contiguous range
+     * of timestamps, unless a batch is already in flight or the channel is not yet available.
+     * At most one batch is outstanding at a time, so callers arriving while a batch is in
+     * flight coalesce into the next one.
+     */
+    private void sendPendingBatch() {
+        while (!pendingCallbacks.isEmpty() && batchInFlight.compareAndSet(false, true)) {
+            Channel c = channel;
+            int version = protocolVersion;
+            if (c == null || version == UNKNOWN_PROTOCOL_VERSION) {
+                // not connected (or the handshake is not answered) yet; the handshake response will
+                // send the pending callers, unless it arrived while we held the in-flight flag
+                batchInFlight.set(false);
+                if (channel == null || protocolVersion == UNKNOWN_PROTOCOL_VERSION) return;
+                continue;
+            }
+            boolean batched = version >= PROTOCOL_VERSION;
+            int batchLimit = batched ? maxBatchSize : 1;
+            List<ClientCallback> callbacks = new ArrayList<>();
+            ClientCallback next;
+            while (callbacks.size() < batchLimit && (next = pendingCallbacks.poll()) != null) {
+                callbacks.add(next);
+            }
+            if (callbacks.isEmpty()) {
+                // another thread drained the queue between our check and the CAS
+                batchInFlight.set(false);
+                continue;
+            }
+            short batchId = nextBatchId();
+            final ClientBatchCallback batch = new ClientBatchCallback(batchId, callbacks);
+            if (clientCallbacks.putIfAbsent(batchId, batch) != null) {
+                TimestampIOException tioe = new TimestampIOException("Found existing client callback with batch id " + batchId + ", so unable to handle new call.");
+                LOG.error(tioe.getMessage());
+                batch.error(tioe);
+                batchInFlight.set(false);
+                continue;
+            }
+            try {
+                ChannelBuffer buffer = ChannelBuffers.buffer(batched ? FIXED_MSG_SENT_LENGTH : LEGACY_MSG_SENT_LENGTH);
+                buffer.writeShort(batchId);
+                if (batched) buffer.writeShort(batch.size());
+                SpliceLogUtils.trace(LOG, "Writing request message to server for batch: %s", batch);
+                ChannelFuture futureWrite = c.write(buffer);
+                futureWrite.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (!future.isSuccess()) {
+                            failBatch(batch, new TimestampIOException("Error writing message from timestamp client to server", future.getCause()));
+                        } else {
+                            SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for batch: %s", batch);
+                        }
+                    }
+                });
+            } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove the batch
+                LOG.error("Exception writing message to timestamp server for batch: " + batch, e);
+                failBatch(batch, e);
+            }
+            return;
+        }
+    }
+
+    private short nextBatchId() {
+        short batchId;
+        do {
+            batchId = (short) clientCallCounter.getAndIncrement();
+            // a server which predates the handshake answers it as two requests with these ids
+        } while (batchId == PROTOCOL_MARKER || batchId == PROTOCOL_VERSION);
+        return batchId;
+    }
+
+    /**
+     * Fails the given batch if it is still outstanding, and frees the in-flight slot
+     * so that the callers queued behind it can proceed.
+     */
+    private void failBatch(ClientBatchCallback batch, Exception e) {
+        if (clientCallbacks.remove(batch.getBatchId(), batch)) {
+            batch.error(e);
+            batchInFlight.set(false);
+            sendPendingBatch();
+        }
+    }
+
+    /**
+     * Removes a caller that gave up waiting. If it was already sent, the whole batch
+     * it belongs to is failed, since the response is overdue for all of its members.
+     * <p>
+     * The server may still answer the abandoned batch, so it keeps the in-flight slot:
+     * sending the next batch now would leave two requests outstanding. Instead the
+     * connection is closed to fence it, and the slot is freed by whichever comes first
+     * of its response and the disconnect.
+     */
+    private void abandon(ClientCallback callback) {
+        if (pendingCallbacks.remove(callback)) return;
+        ClientBatchCallback batch = callback.getBatch();
+        if (batch == null || !batch.abandon(new TimestampIOException("Timed out waiting for response to " + batch))) return;
+        Channel c = channel;
+        if (c != null && clientCallbacks.get(batch.getBatchId()) == batch) {
+            SpliceLogUtils.warn(LOG, "Closing connection to the timestamp server to fence %s", batch);
+            c.close();
+        }
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
         assert (buf != null);
         ensureReadableBytes(buf, FIXED_MSG_RECEIVED_LENGTH);
 
-        short clientCallerId = buf.readShort();
+        short batchId = buf.readShort();
         ensureReadableBytes(buf, 8);
 
         long timestamp = buf.readLong();
-        assert (timestamp > 0);
         ensureReadableBytes(buf, 0);
 
-        SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
-        Callback cb = clientCallbacks.remove(clientCallerId);
+        SpliceLogUtils.debug(LOG, "Response from server: batchId = %s, timestamp = %s", batchId, timestamp);
+        if (batchId == PROTOCOL_MARKER) {
+            handshakeReceived(timestamp);
+            sendPendingBatch();
+            super.messageReceived(ctx, e);
+            return;
+        }
+        assert (timestamp > 0);
+        Callback cb = clientCallbacks.remove(batchId);
         if (cb == null) {
-            doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
+            if (batchId != PROTOCOL_VERSION || protocolVersion != LEGACY_PROTOCOL_VERSION) {
+                SpliceLogUtils.warn(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", batchId, timestamp);
+            }
+        } else if (((ClientBatchCallback) cb).isAbandoned()) {
+            // the callers have given up, so the range is simply not used
+            SpliceLogUtils.debug(LOG, "Response to abandoned %s, dropping timestamp %s", cb, timestamp);
+            batchInFlight.set(false);
+        } else {
+            ClientBatchCallback batch = (ClientBatchCallback) cb;
+            // This releases the latches the original client threads are waiting for
+            // (to provide the synchronous behavior for those callers) and also
+            // provides each of them with a timestamp from the range.
+            batch.complete(timestamp);
+
+            int batchSize = batch.size();
+            numBatches.incrementAndGet();
+            totalBatchSize.addAndGet(batchSize);
+            totalBatchDuration.addAndGet(System.nanoTime() - batch.getStartNanos());
+            long largest;
+            while (batchSize > (largest = largestBatchSize.get()) && !largestBatchSize.compareAndSet(largest, batchSize)) {
+                // retry until the largest batch size is updated
+            }
+            batchInFlight.set(false);
         }
-
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
-        cb.complete(timestamp);
+        sendPendingBatch();
 
         super.messageReceived(ctx, e);
     }
 
+    /**
+     * Settles the protocol for the current connection. A server which speaks it answers the handshake
+     * with the negated version; one which predates it took the handshake for two requests for a single
+     * timestamp each, and answered them with (positive) timestamps.
+     */
+    private void handshakeReceived(long response) {
+        if (response < 0) {
+            protocolVersion = (int) -response;
+        } else {
+            SpliceLogUtils.info(LOG, "Timestamp server does not batch requests, asking for one timestamp at a time");
+            protocolVersion = LEGACY_PROTOCOL_VERSION;
+        }
+    }
+
     @Override
     public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
         SpliceLogUtils.info(LOG, "Successfully connected to server");
         channel = e.getChannel();
         state.set(State.CONNECTED);
+        ChannelBuffer handshake = ChannelBuffers.buffer(FIXED_MSG_SENT_LENGTH);
+        handshake.writeShort(PROTOCOL_MARKER);
+        handshake.writeShort(PROTOCOL_VERSION);
+        e.getChannel().write(handshake);
         super.channelConnected(ctx, e);
     }
 
@@ -319,8 +488,15 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
             State s = state.get();
             if(s==State.SHUTDOWN) return; //ignore shut down errors
             channel=null;
+            protocolVersion=UNKNOWN_PROTOCOL_VERSION;
             shouldContinue = !state.compareAndSet(s,State.DISCONNECTED);
         }while(shouldContinue);
+        // Any batch in flight will never be answered on this channel, so fail it right away
+        // rather than letting its callers wait for the full timeout. This also frees the
+        // in-flight slot held by a batch which was abandoned and fenced.
+        for(Callback cb:clientCallbacks.values()){
+            failBatch((ClientBatchCallback)cb,new TimestampIOException("TimestampClient was disconnected from the server"));
+        }
         connectIfNeeded();
     }
 
@@ -352,6 +528,30 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return a / b;
     }
 
+    @Override
+    public long getNumberBatchRequests() {
+        return numBatches.get();
+    }
+
+    @Override
+    public double getAvgBatchSize() {
+        double a = (double) totalBatchSize.get();
+        double b = (double) numBatches.get();
+        return a / b;
+    }
+
+    @Override
+    public long getLargestBatchSize() {
+        return largestBatchSize.get();
+    }
+
+    @Override
+    public double getAvgBatchRequestDuration() {
+        double a = (double) TimeUnit.NANOSECONDS.toMicros(totalBatchDuration.get()) / 1000d;
+        double b = (double) numBatches.get();
+        return a / b;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if(state.get() != State.SHUTDOWN) {
@@ -46,6 +46,7 @@ public class TimestampOracle implements TimestampOracleStatistics{
 	// for solid definitions of each metric.
     private AtomicLong _numBlocksReserved = new AtomicLong(0);
     private AtomicLong _numTimestampsCreated = new AtomicLong(0);
+    private AtomicLong _numTimestampRequests = new AtomicLong(0);
 
     private TimestampBlockManager timestampBlockManager;
     private int blockSize;
@@ -64,7 +65,7 @@ public class TimestampOracle implements TimestampOracleStatistics{
 		return to;
 	}
 	
-	private TimestampOracle(TimestampBlockManager timestampBlockManager, int blockSize) throws TimestampIOException {
+	TimestampOracle(TimestampBlockManager timestampBlockManager, int blockSize) throws TimestampIOException { // package-private for testing
         this.timestampBlockManager=timestampBlockManager;
         this.blockSize = blockSize;
 		initialize();
@@ -88,13 +89,28 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.getAndIncrement();
+		return getNextTimestamps(1);
+	}
+
+	/**
+	 * Hands out a contiguous range of {@code count} timestamps, reserving as many
+	 * blocks as needed to cover the end of the range.
+	 *
+	 * @param count the number of timestamps requested
+	 * @return the first timestamp of the range
+	 */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		assert count > 0;
+		long firstTS = _timestampCounter.getAndAdd(count);
+		long lastTS = firstTS + count - 1;
 		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
+		while (lastTS > maxTS) {
 			reserveNextBlock(maxTS);
+			maxTS = _maxReservedTimestamp;
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		_numTimestampRequests.incrementAndGet(); // JMX metric
+		return firstTS;
 	}
 
     private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
@@ -128,4 +144,9 @@ public class TimestampOracle implements TimestampOracleStatistics{
 	public long getNumberBlocksReserved() {
 		return _numBlocksReserved.get();
 	}
+
+	@Override
+	public long getNumberTimestampRequests() {
+		return _numTimestampRequests.get();
+	}
 }
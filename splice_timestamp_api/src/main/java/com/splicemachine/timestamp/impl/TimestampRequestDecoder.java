@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import org.sparkproject.jboss.netty.buffer.ChannelBuffer;
+import org.sparkproject.jboss.netty.channel.Channel;
+import org.sparkproject.jboss.netty.channel.ChannelHandlerContext;
+import org.sparkproject.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Splits the requests arriving on one connection to the {@link TimestampServer} into frames. A client which
+ * opens the connection with the {@link TimestampBaseHandler#PROTOCOL_MARKER handshake} sends batched requests
+ * of {@link TimestampServer#FIXED_MSG_RECEIVED_LENGTH} bytes (the handshake itself is one of them); any other
+ * client sends a bare caller id of {@link TimestampServer#LEGACY_MSG_RECEIVED_LENGTH} bytes per timestamp.
+ * <p>
+ * A legacy client can send the marker as an ordinary caller id once its counter wraps. It is only taken for a
+ * handshake when it is followed by a small version number, which the ids of the legacy client's other
+ * (concurrent, consecutively numbered) callers never are.
+ * <p>
+ * This is stateful, so each channel needs its own instance.
+ */
+public class TimestampRequestDecoder extends FrameDecoder {
+
+    private static final int MAX_HANDSHAKE_VERSION = Byte.MAX_VALUE;
+
+    private int frameLength = 0; // not known until the first request arrives
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+        if (frameLength == 0) {
+            if (buffer.readableBytes() < TimestampServer.LEGACY_MSG_RECEIVED_LENGTH) return null;
+            if (buffer.getShort(buffer.readerIndex()) != TimestampBaseHandler.PROTOCOL_MARKER) {
+                frameLength = TimestampServer.LEGACY_MSG_RECEIVED_LENGTH;
+            } else {
+                if (buffer.readableBytes() < TimestampServer.FIXED_MSG_RECEIVED_LENGTH) return null;
+                int version = buffer.getUnsignedShort(buffer.readerIndex() + 2);
+                frameLength = version > 0 && version <= MAX_HANDSHAKE_VERSION
+                        ? TimestampServer.FIXED_MSG_RECEIVED_LENGTH
+                        : TimestampServer.LEGACY_MSG_RECEIVED_LENGTH;
+            }
+        }
+        if (buffer.readableBytes() < frameLength) return null;
+        return buffer.readBytes(frameLength);
+    }
+}
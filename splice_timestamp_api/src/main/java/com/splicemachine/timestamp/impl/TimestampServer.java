@@ -33,12 +33,17 @@ public class TimestampServer {
     /**
      * Fixed number of bytes in the message we expect to receive from the client.
      */
-    static final int FIXED_MSG_RECEIVED_LENGTH = 2; // 2 byte client id
+    static final int FIXED_MSG_RECEIVED_LENGTH = 4; // 2 byte batch id + 2 byte number of timestamps
+
+    /**
+     * Fixed number of bytes in the message we expect to receive from a client which does not batch requests.
+     */
+    static final int LEGACY_MSG_RECEIVED_LENGTH = 2; // 2 byte caller id
 
     /**
      * Fixed number of bytes in the message we expect to send back to the client.
      */
-    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte batch id + 8 byte first timestamp of the range
 
     private int port;
     private ChannelFactory factory;
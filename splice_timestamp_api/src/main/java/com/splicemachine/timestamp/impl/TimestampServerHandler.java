@@ -21,6 +21,7 @@ import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import org.sparkproject.jboss.netty.buffer.ChannelBuffer;
 import org.sparkproject.jboss.netty.buffer.ChannelBuffers;
+import org.sparkproject.jboss.netty.channel.Channel;
 import org.sparkproject.jboss.netty.channel.ChannelFuture;
 import org.sparkproject.jboss.netty.channel.ChannelFutureListener;
 import org.sparkproject.jboss.netty.channel.ChannelHandlerContext;
@@ -57,25 +58,43 @@ public class TimestampServerHandler extends TimestampBaseHandler {
 
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
         assert buf != null;
-        ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
 
         final short callerId = buf.readShort();
+        int count = 1; // a client which doesn't batch asks for a single timestamp per request
+        if (buf.readableBytes() > 0) {
+            ensureReadableBytes(buf, 2);
+            int value = buf.readUnsignedShort();
+            if (callerId == PROTOCOL_MARKER) {
+                // the handshake: agree on the lower of the two versions
+                int version = Math.min(value, PROTOCOL_VERSION);
+                SpliceLogUtils.debug(LOG, "Client handshake for protocol version %s", value);
+                respond(e.getChannel(), callerId, -version);
+                super.messageReceived(ctx, e);
+                return;
+            }
+            count = value;
+        }
         ensureReadableBytes(buf, 0);
+        if (count <= 0) {
+            throw new TimestampIOException("Invalid number of timestamps " + count + " requested by caller id " + callerId);
+        }
 
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
+        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s, count = %s", callerId, count);
+        // The client hands out the range [nextTimestamp, nextTimestamp + count) to its callers
+        long nextTimestamp = oracle.getNextTimestamps(count);
         assert nextTimestamp > 0;
 
+        respond(e.getChannel(), callerId, nextTimestamp);
 
-        //
-        // Respond to the client
-        //
+        super.messageReceived(ctx, e);
+    }
 
+    private void respond(Channel channel, final short callerId, long value) {
         ChannelBuffer writeBuf = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_SENT_LENGTH);
         writeBuf.writeShort(callerId);
-        writeBuf.writeLong(nextTimestamp);
-        SpliceLogUtils.debug(LOG, "Responding to caller %s with timestamp %s", callerId, nextTimestamp);
-        ChannelFuture futureResponse = e.getChannel().write(writeBuf); // Could also use Channels.write
+        writeBuf.writeLong(value);
+        SpliceLogUtils.debug(LOG, "Responding to caller %s with timestamp %s", callerId, value);
+        ChannelFuture futureResponse = channel.write(writeBuf); // Could also use Channels.write
         futureResponse.addListener(new ChannelFutureListener() {
                                        @Override
                                        public void operationComplete(ChannelFuture cf) throws Exception {
@@ -86,8 +105,6 @@ public class TimestampServerHandler extends TimestampBaseHandler {
                                        }
                                    }
         );
-
-        super.messageReceived(ctx, e);
     }
 
     protected void doError(String message, Throwable t, Object... args) {
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampHostProvider;
+import com.splicemachine.timestamp.api.TimestampIOException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link TimestampClient} against scripted servers, to check how it batches its callers and how it
+ * behaves when the server is slow, silent, or does not speak the batched protocol.
+ */
+public class TimestampClientTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ScriptedServer server;
+    private TimestampClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) client.shutdown();
+        if (server != null) server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void callersArrivingDuringARequestShareTheNextOne() throws Exception {
+        final CountDownLatch firstRequest = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> counts = new CopyOnWriteArrayList<>();
+        server = new ScriptedServer() {
+            @Override
+            void serve(DataInputStream in, DataOutputStream out, int connection) throws Exception {
+                handshake(in, out);
+                long next = 100;
+                while (true) {
+                    short batchId = in.readShort();
+                    int count = in.readUnsignedShort();
+                    counts.add(count);
+                    if (counts.size() == 1) {
+                        firstRequest.countDown();
+                        release.await();
+                    }
+                    respond(out, batchId, next);
+                    next += count;
+                }
+            }
+        };
+        client = newClient(10000, 100);
+
+        Future<Long> first = getTimestamp();
+        Assert.assertTrue("The first request never arrived!", firstRequest.await(10, TimeUnit.SECONDS));
+        List<Future<Long>> waiting = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiting.add(getTimestamp());
+        }
+        Thread.sleep(200); // let them queue up behind the first request
+        release.countDown();
+
+        Set<Long> timestamps = new HashSet<>();
+        timestamps.add(first.get(10, TimeUnit.SECONDS));
+        for (Future<Long> future : waiting) {
+            Assert.assertTrue("Duplicate timestamp!", timestamps.add(future.get(10, TimeUnit.SECONDS)));
+        }
+        Assert.assertEquals("Incorrect first request!", 1, (int) counts.get(0));
+        Assert.assertTrue("Waiting callers were not batched: " + counts, counts.get(1) > 1);
+        int total = 0;
+        for (int count : counts) total += count;
+        Assert.assertEquals("Asked for more timestamps than there were callers!", 6, total);
+        for (long timestamp : timestamps) {
+            Assert.assertTrue("Timestamp " + timestamp + " is not in a range the server handed out",
+                    timestamp == 100 || (timestamp >= 101 && timestamp < 106));
+        }
+    }
+
+    @Test
+    public void abandonedRequestIsFencedBeforeTheNextOneIsSent() throws Exception {
+        final int timeoutMillis = 1000;
+        final CountDownLatch firstRequest = new CountDownLatch(1);
+        final CountDownLatch firstConnectionClosed = new CountDownLatch(1);
+        final List<Integer> requestsPerConnection = new CopyOnWriteArrayList<>();
+        server = new ScriptedServer() {
+            @Override
+            void serve(DataInputStream in, DataOutputStream out, int connection) throws Exception {
+                handshake(in, out);
+                int requests = 0;
+                try {
+                    while (true) {
+                        short batchId = in.readShort();
+                        in.readUnsignedShort();
+                        requests++;
+                        if (connection == 0) {
+                            firstRequest.countDown(); // and never answer it
+                        } else {
+                            respond(out, batchId, 1000 * connection + requests);
+                        }
+                    }
+                } catch (EOFException closed) {
+                    requestsPerConnection.add(requests);
+                    if (connection == 0) firstConnectionClosed.countDown();
+                }
+            }
+        };
+        client = newClient(timeoutMillis, 100);
+
+        Future<Long> abandoned = getTimestamp();
+        Assert.assertTrue("The first request never arrived!", firstRequest.await(10, TimeUnit.SECONDS));
+        Thread.sleep(timeoutMillis / 2);
+        Future<Long> next = getTimestamp(); // queued behind the request which is about to be abandoned
+
+        try {
+            abandoned.get(10, TimeUnit.SECONDS);
+            Assert.fail("Expected the unanswered request to time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Unexpected exception: " + e.getCause(), e.getCause() instanceof TimestampIOException);
+        }
+        Assert.assertTrue("The connection was not closed!", firstConnectionClosed.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals("A request was sent while the abandoned one was outstanding!", 1, (int) requestsPerConnection.get(0));
+        Assert.assertEquals("The waiting caller should be served over the new connection", 1001L, (long) next.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void legacyServerIsAskedForOneTimestampAtATime() throws Exception {
+        final List<Short> callerIds = new CopyOnWriteArrayList<>();
+        server = new ScriptedServer() {
+            @Override
+            void serve(DataInputStream in, DataOutputStream out, int connection) throws Exception {
+                // a server which predates batching reads a 2 byte caller id per timestamp
+                long next = 500;
+                while (true) {
+                    short callerId = in.readShort();
+                    callerIds.add(callerId);
+                    respond(out, callerId, next++);
+                }
+            }
+        };
+        client = newClient(10000, 100);
+
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(getTimestamp());
+        }
+        Set<Long> timestamps = new HashSet<>();
+        for (Future<Long> future : futures) {
+            Assert.assertTrue("Duplicate timestamp!", timestamps.add(future.get(10, TimeUnit.SECONDS)));
+        }
+        // the handshake was taken for two requests, and each caller was sent on its own
+        Assert.assertEquals(22, callerIds.size());
+        Assert.assertEquals(TimestampBaseHandler.PROTOCOL_MARKER, (short) callerIds.get(0));
+        Assert.assertEquals(TimestampBaseHandler.PROTOCOL_VERSION, (short) callerIds.get(1));
+        Assert.assertEquals(1, client.getLargestBatchSize());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private TimestampClient newClient(int timeoutMillis, int maxBatchSize) {
+        return new TimestampClient(timeoutMillis, new TimestampHostProvider() {
+            @Override
+            public String getHost() {
+                return "localhost";
+            }
+
+            @Override
+            public int getPort() {
+                return server.getPort();
+            }
+        }, maxBatchSize);
+    }
+
+    private Future<Long> getTimestamp() {
+        return executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                return client.getNextTimestamp();
+            }
+        });
+    }
+
+    private static void handshake(DataInputStream in, DataOutputStream out) throws IOException {
+        Assert.assertEquals("Connection did not start with the handshake!", TimestampBaseHandler.PROTOCOL_MARKER, in.readShort());
+        int version = in.readUnsignedShort();
+        Assert.assertEquals(TimestampBaseHandler.PROTOCOL_VERSION, version);
+        respond(out, TimestampBaseHandler.PROTOCOL_MARKER, -version);
+    }
+
+    private static void respond(DataOutputStream out, short batchId, long timestamp) throws IOException {
+        out.writeShort(batchId);
+        out.writeLong(timestamp);
+        out.flush();
+    }
+
+    /**
+     * Accepts connections on an ephemeral port and serves each of them with {@link #serve} on its own thread.
+     */
+    private abstract static class ScriptedServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+        ScriptedServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int connection = 0;
+                    try {
+                        while (!serverSocket.isClosed()) {
+                            final Socket socket = serverSocket.accept();
+                            sockets.add(socket);
+                            final int c = connection++;
+                            Thread handler = new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    try {
+                                        serve(new DataInputStream(socket.getInputStream()),
+                                                new DataOutputStream(socket.getOutputStream()), c);
+                                    } catch (Exception ignored) {
+                                        // the client or the test went away
+                                    }
+                                }
+                            }, "scriptedTimestampServer-" + c);
+                            handler.setDaemon(true);
+                            handler.start();
+                        }
+                    } catch (IOException ignored) {
+                        // closed
+                    }
+                }
+            }, "scriptedTimestampServer-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        abstract void serve(DataInputStream in, DataOutputStream out, int connection) throws Exception;
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+}
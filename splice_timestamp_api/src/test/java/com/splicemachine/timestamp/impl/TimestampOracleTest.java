@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import com.splicemachine.timestamp.api.TimestampIOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TimestampOracleTest {
+
+    @Test
+    public void rangesAreContiguous() throws Exception {
+        TimestampOracle oracle = new TimestampOracle(new MemBlockManager(), 100);
+        Assert.assertEquals(1, oracle.getNextTimestamps(5));
+        Assert.assertEquals(6, oracle.getNextTimestamps(3));
+        Assert.assertEquals(9, oracle.getNextTimestamp());
+        Assert.assertEquals(10, oracle.getNextTimestamps(1));
+        Assert.assertEquals(11, oracle.getNumberTimestampsCreated());
+        Assert.assertEquals(4, oracle.getNumberTimestampRequests());
+    }
+
+    @Test
+    public void rangeSpanningSeveralBlocksReservesAllOfThem() throws Exception {
+        MemBlockManager blockManager = new MemBlockManager();
+        TimestampOracle oracle = new TimestampOracle(blockManager, 10);
+
+        Assert.assertEquals(1, oracle.getNextTimestamps(25));
+        Assert.assertEquals("The whole range must be reserved!", 30, blockManager.maxReserved);
+        Assert.assertEquals(3, oracle.getNumberBlocksReserved());
+
+        Assert.assertEquals(26, oracle.getNextTimestamps(5));
+        Assert.assertEquals("The range fit in the reserved block!", 3, oracle.getNumberBlocksReserved());
+        Assert.assertEquals(31, oracle.getNextTimestamp());
+        Assert.assertEquals(40, blockManager.maxReserved);
+    }
+
+    @Test
+    public void startsAfterThePersistedBlock() throws Exception {
+        MemBlockManager blockManager = new MemBlockManager();
+        blockManager.maxReserved = 1000;
+        TimestampOracle oracle = new TimestampOracle(blockManager, 10);
+
+        Assert.assertEquals(1001, oracle.getNextTimestamps(15));
+        Assert.assertEquals(1020, blockManager.maxReserved);
+    }
+
+    @Test
+    public void concurrentRangesDoNotOverlap() throws Exception {
+        final MemBlockManager blockManager = new MemBlockManager();
+        final TimestampOracle oracle = new TimestampOracle(blockManager, 64);
+        int threads = 8;
+        final int requestsPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<long[]>>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<List<long[]>>() {
+                    @Override
+                    public List<long[]> call() throws Exception {
+                        List<long[]> ranges = new ArrayList<>(requestsPerThread);
+                        start.await();
+                        for (int r = 0; r < requestsPerThread; r++) {
+                            int count = 1 + (thread * 31 + r) % 100;
+                            long first = oracle.getNextTimestamps(count);
+                            Assert.assertTrue("Handed out a timestamp which was not reserved!",
+                                    first + count - 1 <= blockManager.maxReserved);
+                            ranges.add(new long[]{first, count});
+                        }
+                        return ranges;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<long[]> ranges = new ArrayList<>(threads * requestsPerThread);
+            for (Future<List<long[]>> future : futures) {
+                ranges.addAll(future.get());
+            }
+            Collections.sort(ranges, new Comparator<long[]>() {
+                @Override
+                public int compare(long[] o1, long[] o2) {
+                    return Long.compare(o1[0], o2[0]);
+                }
+            });
+            long next = 1;
+            for (long[] range : ranges) {
+                Assert.assertEquals("Ranges must be contiguous and must not overlap!", next, range[0]);
+                next += range[1];
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class MemBlockManager implements TimestampBlockManager {
+        private volatile long maxReserved = 0;
+
+        @Override
+        public void reserveNextBlock(long nextMaxReserved) throws TimestampIOException {
+            Assert.assertTrue("Blocks must be reserved in order!", nextMaxReserved > maxReserved);
+            maxReserved = nextMaxReserved;
+        }
+
+        @Override
+        public long initialize() throws TimestampIOException {
+            return maxReserved;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.estimate;
+
+import com.splicemachine.stats.ColumnStatistics;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
+import com.splicemachine.stats.histogram.EquiDepthHistogram;
+
+import java.util.Comparator;
+
+/**
+ * A Distribution which uses an {@link EquiDepthHistogram} instead of assuming that values are spread
+ * uniformly between the min and the max.
+ *
+ * Like the Uniform distributions, this is a 'Compressed Histogram': the most frequent elements are counted
+ * exactly (using the column's {@link ColumnStatistics#topK()}), and the histogram only describes the
+ * <em>remaining</em> rows. The histogram is expected to have been built without the frequent elements.
+ */
+public class HistogramDistribution<T> implements Distribution<T>{
+    private final ColumnStatistics<T> columnStats;
+    private final EquiDepthHistogram<T> histogram;
+    private final Comparator<? super T> comparator;
+
+    public HistogramDistribution(ColumnStatistics<T> columnStats,
+                                 EquiDepthHistogram<T> histogram,
+                                 Comparator<? super T> comparator){
+        this.columnStats=columnStats;
+        this.histogram=histogram;
+        this.comparator=comparator;
+    }
+
+    @Override public T minValue(){ return columnStats.minValue(); }
+    @Override public long minCount(){ return columnStats.minCount(); }
+    @Override public T maxValue(){ return columnStats.maxValue(); }
+    @Override public long totalCount(){ return columnStats.nonNullCount(); }
+
+    @Override
+    public long selectivity(T element){
+        if(isNull(element))
+            return columnStats.nullCount();
+
+        //adjust for outside the range of known data
+        int compare=comparator.compare(columnStats.minValue(),element);
+        if(compare>0) return 0l;
+        else if(compare==0) return columnStats.minCount();
+        if(comparator.compare(columnStats.maxValue(),element)<0) return 0l;
+
+        //if we have an exact count from the frequent elements, use it.
+        FrequencyEstimate<? extends T> est=columnStats.topK().equal(element);
+        if(est!=null && est.count()>0) return est.count();
+
+        return histogram.equal(element);
+    }
+
+    @Override
+    public long rangeSelectivity(T start,T stop,boolean includeStart,boolean includeStop){
+        boolean fromStart=isNull(start);
+        boolean toEnd=isNull(stop);
+        if(fromStart && toEnd)
+            return columnStats.nullCount()+columnStats.nonNullCount(); //asking for the entire range
+        if(fromStart) start=null;
+        else if(toEnd) stop=null;
+        else{
+            int compare=comparator.compare(start,stop);
+            if(compare>0) return 0l;
+            else if(compare==0){
+                if(!includeStart || !includeStop) return 0l; //empty set has no data
+                return selectivity(start);
+            }
+        }
+
+        long count=histogram.between(start,stop,includeStart,includeStop);
+        for(FrequencyEstimate<T> est : columnStats.topK().frequentElementsBetween(start,stop,includeStart,includeStop)){
+            count+=est.count()-est.error();
+        }
+        return Math.max(0l,Math.min(columnStats.nonNullCount(),count));
+    }
+
+    /**
+     * @param element the element to check
+     * @return true if {@code element} represents null (e.g. is an unbounded end of a range).
+     */
+    protected boolean isNull(T element){
+        return element==null;
+    }
+}
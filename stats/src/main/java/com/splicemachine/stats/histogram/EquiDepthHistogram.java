@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An Equi-Depth histogram over an arbitrary ordered type.
+ *
+ * The data is split into buckets which each hold (roughly) the same number of rows, so that densely
+ * populated parts of the value range are described by narrow buckets, and sparse parts by wide ones. Bucket
+ * {@code i} holds the values in {@code (upperBound(i-1),upperBound(i)]} (the first bucket starts at, and
+ * includes, {@link #min()}), and a value never spans two buckets.
+ *
+ * For each bucket we keep the number of rows and the number of distinct values it holds. Within a bucket,
+ * the values are assumed to be spread evenly, so an equality estimate is the average number of rows per
+ * distinct value, and a range which splits a bucket is interpolated using the {@link Interpolator} (or taken
+ * to cover half the bucket if the type cannot be interpolated).
+ *
+ * Histograms are usually built from a sample of the data (see {@link ReservoirSample}), and are immutable.
+ */
+public class EquiDepthHistogram<T>{
+
+    /**
+     * Maps a value onto the real line, so that the position of a value within a bucket can be estimated.
+     */
+    public interface Interpolator<T>{
+
+        /**
+         * @param value the value to position
+         * @return a number which increases with {@code value}, or {@link Double#NaN} if the value cannot be
+         * positioned.
+         */
+        double position(T value);
+    }
+
+    private final T min;
+    private final Object[] upperBounds;
+    private final long[] rowCounts;
+    private final long[] cardinalities;
+    private final long totalRows;
+    private final Comparator<? super T> comparator;
+    private final Interpolator<? super T> interpolator;
+
+    public EquiDepthHistogram(T min,
+                              Object[] upperBounds,
+                              long[] rowCounts,
+                              long[] cardinalities,
+                              Comparator<? super T> comparator,
+                              Interpolator<? super T> interpolator){
+        assert upperBounds.length>0: "Cannot build a histogram without any buckets!";
+        assert upperBounds.length==rowCounts.length && upperBounds.length==cardinalities.length: "Incorrect bucket counts";
+        this.min=min;
+        this.upperBounds=upperBounds;
+        this.rowCounts=rowCounts;
+        this.cardinalities=cardinalities;
+        this.comparator=comparator;
+        this.interpolator=interpolator;
+        long total=0l;
+        for(long rowCount : rowCounts){
+            total+=rowCount;
+        }
+        this.totalRows=total;
+    }
+
+    /**
+     * Build a histogram from a sample of the data.
+     *
+     * @param sample the sampled values. This list will be sorted.
+     * @param numBuckets the maximum number of buckets to create
+     * @param totalRows the number of rows the sample was drawn from
+     * @param totalCardinality the number of distinct values in the rows the sample was drawn from
+     * @param comparator the order of the values
+     * @param interpolator used to estimate positions within a bucket
+     * @return a histogram scaled to {@code totalRows} rows, or {@code null} if the sample is empty.
+     */
+    public static <T> EquiDepthHistogram<T> fromSample(List<T> sample,
+                                                       int numBuckets,
+                                                       long totalRows,
+                                                       long totalCardinality,
+                                                       Comparator<? super T> comparator,
+                                                       Interpolator<? super T> interpolator){
+        int sampleSize=sample.size();
+        if(sampleSize<=0 || numBuckets<=0 || totalRows<=0) return null;
+        Collections.sort(sample,comparator);
+
+        int depth=Math.max(1,sampleSize/Math.min(numBuckets,sampleSize));
+        List<T> bounds=new ArrayList<>(numBuckets);
+        List<long[]> sampleCounts=new ArrayList<>(numBuckets); //{rows,distinct}
+        long sampleDistinct=0l;
+        int bucketRows=0;
+        int bucketDistinct=0;
+        for(int i=0;i<sampleSize;i++){
+            T value=sample.get(i);
+            bucketRows++;
+            if(i==0 || comparator.compare(sample.get(i-1),value)!=0)
+                bucketDistinct++;
+            boolean lastOfValue=i==sampleSize-1 || comparator.compare(value,sample.get(i+1))!=0;
+            if(lastOfValue && (bucketRows>=depth || i==sampleSize-1)){
+                bounds.add(value);
+                sampleCounts.add(new long[]{bucketRows,bucketDistinct});
+                sampleDistinct+=bucketDistinct;
+                bucketRows=0;
+                bucketDistinct=0;
+            }
+        }
+
+        /*
+         * The sample only sees a fraction of the distinct values, so we scale the distinct counts
+         * up so that they add up to the cardinality of the data (but never scale them down).
+         */
+        double rowScale=((double)totalRows)/sampleSize;
+        double distinctScale=Math.max(1d,((double)totalCardinality)/sampleDistinct);
+        int buckets=bounds.size();
+        long[] rowCounts=new long[buckets];
+        long[] cardinalities=new long[buckets];
+        long assignedRows=0l;
+        for(int i=0;i<buckets;i++){
+            long[] counts=sampleCounts.get(i);
+            long rows=i==buckets-1? totalRows-assignedRows : Math.round(counts[0]*rowScale);
+            rows=Math.max(rows,1l);
+            rowCounts[i]=rows;
+            assignedRows+=rows;
+            cardinalities[i]=Math.max(1l,Math.min(rows,Math.round(counts[1]*distinctScale)));
+        }
+        return new EquiDepthHistogram<>(sample.get(0),bounds.toArray(),rowCounts,cardinalities,comparator,interpolator);
+    }
+
+    public T min(){ return min; }
+    public T max(){ return upperBound(upperBounds.length-1); }
+    public int numBuckets(){ return upperBounds.length; }
+    public long totalRows(){ return totalRows; }
+    public long rowCount(int bucket){ return rowCounts[bucket]; }
+    public long cardinality(int bucket){ return cardinalities[bucket]; }
+
+    @SuppressWarnings("unchecked")
+    public T upperBound(int bucket){
+        return (T)upperBounds[bucket];
+    }
+
+    /**
+     * @param value the value to estimate
+     * @return an estimate of the number of rows equal to {@code value}.
+     */
+    public long equal(T value){
+        int bucket=bucketOf(value);
+        if(bucket<0) return 0l;
+        return equalIn(bucket);
+    }
+
+    /**
+     * @param value the end of the range to estimate
+     * @param inclusive whether to include rows equal to {@code value}
+     * @return an estimate of the number of rows less than (or equal to) {@code value}
+     */
+    public long lessThan(T value,boolean inclusive){
+        int bucket=bucketOf(value);
+        if(bucket<0){
+            return comparator.compare(value,min)<0? 0l: totalRows;
+        }
+        long count=0l;
+        for(int i=0;i<bucket;i++){
+            count+=rowCounts[i];
+        }
+        long bucketRows=rowCounts[bucket];
+        if(comparator.compare(value,upperBound(bucket))==0){
+            count+=inclusive? bucketRows: bucketRows-equalIn(bucket);
+        }else{
+            T low=bucket==0? min: upperBound(bucket-1);
+            double partial=fraction(low,upperBound(bucket),value)*bucketRows;
+            if(inclusive)
+                partial+=equalIn(bucket);
+            count+=Math.min(bucketRows,Math.round(partial));
+        }
+        return count;
+    }
+
+    /**
+     * @param start the start of the range, or {@code null} to start at the beginning of the data
+     * @param stop the end of the range, or {@code null} to end at the end of the data
+     * @param includeStart whether to include rows equal to {@code start}
+     * @param includeStop whether to include rows equal to {@code stop}
+     * @return an estimate of the number of rows in the range
+     */
+    public long between(T start,T stop,boolean includeStart,boolean includeStop){
+        long stopCount=stop==null? totalRows: lessThan(stop,includeStop);
+        long startCount=start==null? 0l: lessThan(start,!includeStart);
+        return Math.max(0l,stopCount-startCount);
+    }
+
+    /**
+     * Merge this histogram with another over the same column.
+     *
+     * The buckets of the two histograms are combined by treating every bucket as a point mass at its upper
+     * bound, and grouping those points back into (at most) as many buckets as the larger of the two
+     * histograms has. Distinct counts are added together, so may be overestimated when the two histograms
+     * share values.
+     *
+     * @param other the histogram to merge with
+     * @return a new histogram describing the rows of both
+     */
+    public EquiDepthHistogram<T> merge(EquiDepthHistogram<T> other){
+        int numBuckets=Math.max(numBuckets(),other.numBuckets());
+        long total=totalRows+other.totalRows;
+        long depth=Math.max(1l,total/numBuckets);
+        T newMin=comparator.compare(min,other.min)<=0? min: other.min;
+
+        List<T> bounds=new ArrayList<>(numBuckets);
+        List<long[]> counts=new ArrayList<>(numBuckets);
+        long bucketRows=0l;
+        long bucketCard=0l;
+        int i=0;
+        int j=0;
+        while(i<numBuckets() || j<other.numBuckets()){
+            T bound;
+            if(j>=other.numBuckets() || (i<numBuckets() && comparator.compare(upperBound(i),other.upperBound(j))<=0)){
+                bound=upperBound(i);
+                bucketRows+=rowCounts[i];
+                bucketCard+=cardinalities[i];
+                i++;
+            }else{
+                bound=other.upperBound(j);
+                bucketRows+=other.rowCounts[j];
+                bucketCard+=other.cardinalities[j];
+                j++;
+            }
+            boolean lastOfValue=(i>=numBuckets() || comparator.compare(bound,upperBound(i))!=0)
+                    && (j>=other.numBuckets() || comparator.compare(bound,other.upperBound(j))!=0);
+            boolean last=i>=numBuckets() && j>=other.numBuckets();
+            if(lastOfValue && (bucketRows>=depth || last)){
+                bounds.add(bound);
+                counts.add(new long[]{bucketRows,Math.min(bucketRows,bucketCard)});
+                bucketRows=0l;
+                bucketCard=0l;
+            }
+        }
+        long[] rowCounts=new long[bounds.size()];
+        long[] cardinalities=new long[bounds.size()];
+        for(int b=0;b<rowCounts.length;b++){
+            rowCounts[b]=counts.get(b)[0];
+            cardinalities[b]=Math.max(1l,counts.get(b)[1]);
+        }
+        return new EquiDepthHistogram<>(newMin,bounds.toArray(),rowCounts,cardinalities,comparator,interpolator);
+    }
+
+    @Override
+    public String toString(){
+        StringBuilder sb=new StringBuilder("[").append(min);
+        for(int i=0;i<upperBounds.length;i++){
+            sb=sb.append(i==0?"..":",").append(upperBounds[i])
+                    .append(":(").append(rowCounts[i]).append(",").append(cardinalities[i]).append(")");
+        }
+        return sb.append("]").toString();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return the bucket which holds {@code value}, or -1 if it is outside the range of the histogram
+     */
+    private int bucketOf(T value){
+        if(comparator.compare(value,min)<0) return -1;
+        int low=0;
+        int high=upperBounds.length-1;
+        if(comparator.compare(value,upperBound(high))>0) return -1;
+        while(low<high){
+            int mid=(low+high)>>>1;
+            if(comparator.compare(upperBound(mid),value)<0)
+                low=mid+1;
+            else
+                high=mid;
+        }
+        return low;
+    }
+
+    private long equalIn(int bucket){
+        return (rowCounts[bucket]+cardinalities[bucket]-1)/cardinalities[bucket];
+    }
+
+    private double fraction(T low,T high,T value){
+        if(interpolator!=null){
+            double l=interpolator.position(low);
+            double h=interpolator.position(high);
+            double f=(interpolator.position(value)-l)/(h-l);
+            if(!Double.isNaN(f) && !Double.isInfinite(f))
+                return Math.max(0d,Math.min(1d,f));
+        }
+        //we can't tell where in the bucket the value is, so assume it's in the middle
+        return 0.5d;
+    }
+}
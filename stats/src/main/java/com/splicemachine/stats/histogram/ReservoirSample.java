@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A fixed-size uniform random sample of a stream of values (Vitter's Algorithm R).
+ *
+ * Every value seen has the same chance of being in the sample, no matter how long the stream is. Values
+ * are only copied (using {@link #copy(Object)}) when they are actually placed in the sample, so callers can
+ * pass in reused, mutable objects without paying to copy every value.
+ */
+public abstract class ReservoirSample<T>{
+    private final Object[] sample;
+    private final Random random;
+    private int size;
+    private long seen;
+
+    protected ReservoirSample(int maxSize,Random random){
+        assert maxSize>0: "Cannot sample into an empty reservoir!";
+        this.sample=new Object[maxSize];
+        this.random=random;
+    }
+
+    public void update(T value){
+        update(value,1l);
+    }
+
+    public void update(T value,long count){
+        T copy=null;
+        for(long i=0;i<count;i++){
+            seen++;
+            int position;
+            if(size<sample.length)
+                position=size++;
+            else{
+                long r=(long)(random.nextDouble()*seen);
+                if(r>=sample.length) continue;
+                position=(int)r;
+            }
+            if(copy==null)
+                copy=copy(value);
+            sample[position]=copy;
+        }
+    }
+
+    /**
+     * @return the number of values offered to this sample
+     */
+    public long seen(){
+        return seen;
+    }
+
+    /**
+     * @return a (modifiable) copy of the sampled values, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> sample(){
+        List<T> values=new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            values.add((T)sample[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @param value the value to keep in the sample
+     * @return a copy of {@code value} which will not be modified by the caller
+     */
+    protected abstract T copy(T value);
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.estimate;
+
+import com.splicemachine.stats.IntColumnStatistics;
+import com.splicemachine.stats.collector.ColumnStatsCollectors;
+import com.splicemachine.stats.collector.IntColumnStatsCollector;
+import com.splicemachine.stats.frequency.FrequencyEstimate;
+import com.splicemachine.stats.frequency.FrequentElements;
+import com.splicemachine.stats.histogram.EquiDepthHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that a HistogramDistribution counts the frequent elements exactly, and describes the rest of a
+ * skewed column better than the uniform distribution does.
+ */
+public class HistogramDistributionTest{
+    private static final int ROWS=20000;
+    private static final int HEAVY_HITTER=500;
+    private static final int HEAVY_HITTER_ROWS=5000;
+    private static final int NULLS=10;
+
+    private static final Comparator<Integer> COMPARATOR=new Comparator<Integer>(){
+        @Override
+        public int compare(Integer o1,Integer o2){
+            return o1.compareTo(o2);
+        }
+    };
+
+    private static final EquiDepthHistogram.Interpolator<Integer> INTERPOLATOR=new EquiDepthHistogram.Interpolator<Integer>(){
+        @Override
+        public double position(Integer value){
+            return value;
+        }
+    };
+
+    @Test
+    public void frequentElementsAreCountedExactly() throws Exception{
+        int[] data=skewedData();
+        IntColumnStatistics stats=stats(data);
+        HistogramDistribution<Integer> distribution=histogramDistribution(stats,data);
+
+        Assert.assertEquals("The heavy hitter should be counted exactly!",
+                stats.topK().equal(HEAVY_HITTER).count(),distribution.selectivity(HEAVY_HITTER));
+        Assert.assertTrue("The heavy hitter was not counted!",distribution.selectivity(HEAVY_HITTER)>=HEAVY_HITTER_ROWS);
+    }
+
+    @Test
+    public void nullsAndValuesOutOfRange() throws Exception{
+        int[] data=skewedData();
+        IntColumnStatistics stats=stats(data);
+        HistogramDistribution<Integer> distribution=histogramDistribution(stats,data);
+
+        Assert.assertEquals(NULLS,distribution.selectivity(null));
+        Assert.assertEquals(0l,distribution.selectivity(-1));
+        Assert.assertEquals(0l,distribution.selectivity(1001));
+        Assert.assertEquals("An empty range has no rows!",0l,distribution.rangeSelectivity(10,5,true,true));
+        Assert.assertEquals(0l,distribution.rangeSelectivity(10,10,true,false));
+        Assert.assertEquals("An unbounded range holds every row!",
+                stats.nonNullCount()+stats.nullCount(),distribution.rangeSelectivity(null,null,true,true));
+    }
+
+    @Test
+    public void rangesStayWithinTheNonNullRows() throws Exception{
+        int[] data=skewedData();
+        IntColumnStatistics stats=stats(data);
+        HistogramDistribution<Integer> distribution=histogramDistribution(stats,data);
+
+        for(int start=0;start<=1000;start+=50){
+            for(int stop=start;stop<=1000;stop+=50){
+                long estimate=distribution.rangeSelectivity(start,stop,true,true);
+                Assert.assertTrue("Negative estimate for ["+start+","+stop+"]!",estimate>=0);
+                Assert.assertTrue("Estimate for ["+start+","+stop+"] holds more than the non-null rows!",
+                        estimate<=stats.nonNullCount());
+            }
+        }
+    }
+
+    @Test
+    public void beatsTheUniformDistributionOnSkewedData() throws Exception{
+        int[] data=skewedData();
+        IntColumnStatistics stats=stats(data);
+        HistogramDistribution<Integer> distribution=histogramDistribution(stats,data);
+        Distribution<Integer> uniform=stats.getDistribution();
+
+        //most of the rows are near 0, so the lower tenth of the range holds far more than a tenth of the rows
+        long actual=countBetween(data,0,100);
+        long estimate=distribution.rangeSelectivity(0,100,true,true);
+        long uniformEstimate=uniform.rangeSelectivity(0,100,true,true);
+        Assert.assertTrue("Histogram estimate "+estimate+" is further from "+actual+" than the uniform estimate "+uniformEstimate,
+                Math.abs(estimate-actual)<Math.abs(uniformEstimate-actual));
+
+        //and the range which holds the heavy hitter is dominated by it
+        actual=countBetween(data,450,550);
+        estimate=distribution.rangeSelectivity(450,550,true,true);
+        Assert.assertTrue("Estimate "+estimate+" for the range around the heavy hitter is too far from "+actual,
+                Math.abs(estimate-actual)<=actual/5);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    /**
+     * @return values in [0,1000] which are mostly near 0, plus one heavy hitter in the sparse part of the range, in
+     * no particular order.
+     */
+    private static int[] skewedData(){
+        int[] data=new int[ROWS+HEAVY_HITTER_ROWS];
+        for(int i=0;i<ROWS;i++){
+            double position=((double)i)/ROWS;
+            data[i]=(int)(1000*position*position*position);
+        }
+        for(int i=ROWS;i<data.length;i++){
+            data[i]=HEAVY_HITTER;
+        }
+        data[data.length-1]=1000;
+        //statistics see the rows in storage order, not sorted
+        Random random=new Random(0l);
+        for(int i=data.length-1;i>0;i--){
+            int j=random.nextInt(i+1);
+            int v=data[i];
+            data[i]=data[j];
+            data[j]=v;
+        }
+        return data;
+    }
+
+    private static IntColumnStatistics stats(int[] data){
+        IntColumnStatsCollector collector=ColumnStatsCollectors.intCollector(0,14,5);
+        for(int value : data){
+            collector.update(value);
+        }
+        collector.updateNull(NULLS);
+        return collector.build();
+    }
+
+    /**
+     * Build the histogram the way statistics collection does: over the values which are not frequent elements.
+     */
+    private static HistogramDistribution<Integer> histogramDistribution(IntColumnStatistics stats,int[] data){
+        FrequentElements<Integer> topK=stats.topK();
+        List<Integer> sample=new ArrayList<>(data.length);
+        for(int value : data){
+            FrequencyEstimate<? extends Integer> est=topK.equal(value);
+            if(est==null || est.count()<=0)
+                sample.add(value);
+        }
+        long rows=stats.nonNullCount()-topK.totalFrequentElements();
+        long cardinality=Math.max(1l,stats.cardinality()-topK.allFrequentElements().size());
+        EquiDepthHistogram<Integer> histogram=EquiDepthHistogram.fromSample(sample,32,rows,cardinality,COMPARATOR,INTERPOLATOR);
+        Assert.assertNotNull("No histogram was built!",histogram);
+        return new HistogramDistribution<>(stats,histogram,COMPARATOR);
+    }
+
+    private static long countBetween(int[] data,int start,int stop){
+        long count=0l;
+        for(int value : data){
+            if(value>=start && value<=stop)
+                count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012 - 2016 Splice Machine, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package com.splicemachine.stats.histogram;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class EquiDepthHistogramTest{
+    private static final Comparator<Integer> COMPARATOR=new Comparator<Integer>(){
+        @Override
+        public int compare(Integer o1,Integer o2){
+            return o1.compareTo(o2);
+        }
+    };
+
+    private static final EquiDepthHistogram.Interpolator<Integer> INTERPOLATOR=new EquiDepthHistogram.Interpolator<Integer>(){
+        @Override
+        public double position(Integer value){
+            return value;
+        }
+    };
+
+    @Test
+    public void testRangeEstimatesOnSkewedDataAreWithinABucket() throws Exception{
+        int[] data=skewedData(100000,new Random(0l));
+        EquiDepthHistogram<Integer> histogram=EquiDepthHistogram.fromSample(toList(data),32,data.length,cardinality(data),COMPARATOR,INTERPOLATOR);
+        Assert.assertEquals(data.length,histogram.totalRows());
+
+        long maxBucket=0l;
+        for(int i=0;i<histogram.numBuckets();i++){
+            maxBucket=Math.max(maxBucket,histogram.rowCount(i));
+        }
+        int min=data[0];
+        int max=data[data.length-1];
+        for(int start=min;start<=max;start+=Math.max(1,(max-min)/50)){
+            for(int stop=start;stop<=max;stop+=Math.max(1,(max-min)/20)){
+                long actual=countBetween(data,start,stop);
+                long estimate=histogram.between(start,stop,true,true);
+                Assert.assertTrue("Estimate for ["+start+","+stop+"] was "+estimate+", but actual is "+actual,
+                        Math.abs(estimate-actual)<=2*maxBucket);
+            }
+        }
+    }
+
+    @Test
+    public void testBeatsUniformEstimateOnSkewedData() throws Exception{
+        int[] data=skewedData(100000,new Random(1l));
+        EquiDepthHistogram<Integer> histogram=EquiDepthHistogram.fromSample(toList(data),32,data.length,cardinality(data),COMPARATOR,INTERPOLATOR);
+        int min=data[0];
+        int max=data[data.length-1];
+        //most of the data is near the min, so the lower tenth of the range holds far more than a tenth of the rows
+        int stop=min+(max-min)/10;
+        long actual=countBetween(data,min,stop);
+        long uniform=data.length/10;
+        long estimate=histogram.between(null,stop,true,true);
+        Assert.assertTrue("Histogram estimate "+estimate+" is further from "+actual+" than the uniform estimate "+uniform,
+                Math.abs(estimate-actual)<Math.abs(uniform-actual)/10);
+    }
+
+    @Test
+    public void testEqualityAndOutOfRange() throws Exception{
+        List<Integer> values=new ArrayList<>();
+        for(int i=0;i<1000;i++){
+            values.add(i%100); //100 distinct values, 10 rows each
+        }
+        EquiDepthHistogram<Integer> histogram=EquiDepthHistogram.fromSample(values,8,1000,100,COMPARATOR,INTERPOLATOR);
+        Assert.assertEquals(10,histogram.equal(42));
+        Assert.assertEquals(0,histogram.equal(-1));
+        Assert.assertEquals(0,histogram.equal(100));
+        Assert.assertEquals(0,histogram.lessThan(0,false));
+        Assert.assertEquals(1000,histogram.lessThan(99,true));
+        Assert.assertEquals(1000,histogram.between(-5,500,true,true));
+        Assert.assertEquals(0,histogram.between(200,500,true,true));
+    }
+
+    @Test
+    public void testScalesASampleToTheData() throws Exception{
+        Random random=new Random(2l);
+        int[] data=skewedData(200000,random);
+        ReservoirSample<Integer> sample=new ReservoirSample<Integer>(32*64,random){
+            @Override protected Integer copy(Integer value){ return value; }
+        };
+        for(int value : data){
+            sample.update(value);
+        }
+        Assert.assertEquals(data.length,sample.seen());
+        EquiDepthHistogram<Integer> histogram=EquiDepthHistogram.fromSample(sample.sample(),32,data.length,cardinality(data),COMPARATOR,INTERPOLATOR);
+        Assert.assertEquals(data.length,histogram.totalRows());
+        int median=data[data.length/2];
+        long estimate=histogram.lessThan(median,false);
+        Assert.assertEquals("Median is misplaced",data.length/2,estimate,data.length/20);
+    }
+
+    @Test
+    public void testMergeKeepsTheShapeOfBothHistograms() throws Exception{
+        Random random=new Random(3l);
+        int[] first=skewedData(50000,random);
+        int[] second=new int[50000];
+        for(int i=0;i<second.length;i++){
+            second[i]=10000+random.nextInt(1000);
+        }
+        Arrays.sort(second);
+        EquiDepthHistogram<Integer> merged=EquiDepthHistogram.fromSample(toList(first),32,first.length,cardinality(first),COMPARATOR,INTERPOLATOR)
+                .merge(EquiDepthHistogram.fromSample(toList(second),32,second.length,cardinality(second),COMPARATOR,INTERPOLATOR));
+
+        Assert.assertEquals(first.length+second.length,merged.totalRows());
+        Assert.assertTrue("Too many buckets: "+merged.numBuckets(),merged.numBuckets()<=32);
+        Assert.assertEquals(first[0],(int)merged.min());
+        Assert.assertEquals(second[second.length-1],(int)merged.max());
+        Assert.assertEquals(second.length,merged.between(10000,null,true,true),merged.totalRows()/16);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static int[] skewedData(int size,Random random){
+        int[] data=new int[size];
+        for(int i=0;i<size;i++){
+            //exponentially distributed, so most values are small but a few are very large
+            data[i]=(int)(-Math.log(1-random.nextDouble())*1000);
+        }
+        Arrays.sort(data);
+        return data;
+    }
+
+    private static List<Integer> toList(int[] data){
+        List<Integer> values=new ArrayList<>(data.length);
+        for(int value : data){
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static long cardinality(int[] sortedData){
+        long cardinality=1l;
+        for(int i=1;i<sortedData.length;i++){
+            if(sortedData[i]!=sortedData[i-1]) cardinality++;
+        }
+        return cardinality;
+    }
+
+    private static long countBetween(int[] data,int start,int stop){
+        long count=0l;
+        for(int value : data){
+            if(value>=start && value<=stop) count++;
+        }
+        return count;
+    }
+}